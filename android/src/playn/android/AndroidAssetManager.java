@@ -63,6 +63,11 @@ public class AndroidAssetManager extends AbstractAssetManager {
     return new AndroidImage(path, doGetBitmap(path));
   }
 
+  @Override
+  protected boolean rendersAtlasImages() {
+    return true;
+  }
+
   /**
    * Decodes a resource to a bitmap. Always succeeds, returning an error
    * placeholder if something goes wrong.
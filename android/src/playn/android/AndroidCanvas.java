@@ -23,6 +23,7 @@ import playn.core.Image;
 import playn.core.Path;
 import playn.core.Pattern;
 import playn.core.TextLayout;
+import playn.core.gl.AtlasImage;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
@@ -78,6 +79,13 @@ class AndroidCanvas implements playn.core.Canvas {
   @Override
   public void drawImage(Image img, float dx, float dy, float dw, float dh, float sx, float sy,
       float sw, float sh) {
+    // atlas images are drawn from their region of their page
+    if (img instanceof AtlasImage) {
+      AtlasImage aimg = (AtlasImage) img;
+      img = aimg.page();
+      sx += aimg.x();
+      sy += aimg.y();
+    }
     Asserts.checkArgument(img instanceof AndroidImage);
     Bitmap bitmap = ((AndroidImage) img).getBitmap();
     if (bitmap != null) {
@@ -46,6 +46,7 @@ class AndroidCanvasLayer extends AndroidLayer implements CanvasLayer {
       return;
 
     int tex = image.ensureTexture(gfx, false, false);
+    gfx.watch(image);
     if (tex != -1) {
       InternalTransform xform = localTransform(parentTransform);
       float childAlpha = parentAlpha * alpha;
@@ -68,11 +69,11 @@ class AndroidCanvasLayer extends AndroidLayer implements CanvasLayer {
 
   @Override
   public float scaledWidth() {
-    return transform().scaleX() * width();
+    return transform.scaleX() * width();
   }
 
   @Override
   public float scaledHeight() {
-    return transform().scaleY() * height();
+    return transform.scaleY() * height();
   }
 }
@@ -23,7 +23,9 @@ import java.nio.IntBuffer;
 
 import playn.core.gl.GL20;
 
+import android.graphics.Bitmap;
 import android.opengl.GLES20;
+import android.opengl.GLUtils;
 
 public class AndroidGL20 implements GL20 {
 
@@ -1242,6 +1244,13 @@ public class AndroidGL20 implements GL20 {
     GLES20.glViewport(x, y, width, height);
   }
 
+  /**
+   * Uploads {@code bitmap} into the bound texture. See {@link GLUtils#texImage2D}.
+   */
+  public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+    GLUtils.texImage2D(target, level, bitmap, border);
+  }
+
   @Override
   public boolean hasGLSL() {
     return true;
@@ -15,7 +15,6 @@
  */
 package playn.android;
 
-import static android.opengl.GLUtils.texImage2D;
 import static playn.core.PlayN.log;
 
 import java.nio.ByteBuffer;
@@ -23,13 +22,18 @@ import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import playn.core.Asserts;
 import playn.core.CanvasImage;
 import playn.core.CanvasLayer;
+import playn.core.Culler;
 import playn.core.Font;
+import playn.core.FrameMetrics;
+import playn.core.FrameMetrics.Stat;
 import playn.core.Gradient;
 import playn.core.Graphics;
 import playn.core.GroupLayer;
@@ -44,6 +48,8 @@ import playn.core.SurfaceLayer;
 import playn.core.TextFormat;
 import playn.core.TextLayout;
 import playn.core.gl.GL20;
+import playn.core.gl.GLStats;
+import playn.core.gl.QuadBatcher;
 import android.graphics.Bitmap;
 import android.graphics.LinearGradient;
 import android.graphics.RadialGradient;
@@ -54,19 +60,20 @@ import android.view.View;
 class AndroidGraphics implements Graphics {
   public static final boolean CHECK_ERRORS = true;
 
-  private static final int VERTEX_SIZE = 10; // 10 floats per vertex
-  private static final int MAX_VERTS = 4;
-  private static final int MAX_ELEMS = 6;
+  private static final int MAX_VERTS = QuadBatcher.DEFAULT_MAX_QUADS * 4;
+  private static final int MAX_ELEMS = QuadBatcher.DEFAULT_MAX_QUADS * 6;
   private static final int FLOAT_SIZE_BYTES = 4;
   private static final int SHORT_SIZE_BYTES = 2;
-  private static final int VERTEX_STRIDE = VERTEX_SIZE * FLOAT_SIZE_BYTES;
+  private static final int VERTEX_STRIDE = QuadBatcher.VERTEX_STRIDE;
+  private static final float[] IDENTITY = { 1, 0, 0, 0, 1, 0, 0, 0, 1 };
 
   private static AndroidAssetManager shaderAssetManager = new AndroidAssetManager();
   private static ShaderCallback shaderCallback = new ShaderCallback();
 
-  private class Shader {
-    int program, vertexBuffer, elementBuffer, vertexOffset, elementOffset, uScreenSizeLoc, aMatrix,
-        aTranslation, aPosition, aTexture;
+  private class Shader implements QuadBatcher.Renderer {
+    int program, vertexBuffer, elementBuffer, uScreenSizeLoc, aMatrix, aTranslation, aPosition,
+        aTexture;
+    QuadBatcher batch = new QuadBatcher(this);
     FloatBuffer vertexData = ByteBuffer.allocateDirect(VERTEX_STRIDE * MAX_VERTS).order(
         ByteOrder.nativeOrder()).asFloatBuffer();
     ShortBuffer elementData = ByteBuffer.allocateDirect(MAX_ELEMS * SHORT_SIZE_BYTES).order(
@@ -86,6 +93,12 @@ class AndroidGraphics implements Graphics {
       aPosition = gl20.glGetAttribLocation(program, "a_Position");
       aTexture = gl20.glGetAttribLocation(program, "a_Texture");
 
+      // we don't replay render lists, so the vertex shader's extra transform is always identity
+      AndroidGraphics.this.flush(); // so that the next prepare() switches back to its program
+      gl20.glUseProgram(program);
+      gl20.glUniformMatrix3fv(gl20.glGetUniformLocation(program, "u_Transform"), 1, false,
+                              IDENTITY, 0);
+
       // Create the vertex and index buffers
       int[] buffers = new int[2];
       gl20.glGenBuffers(2, buffers, 0);
@@ -128,56 +141,30 @@ class AndroidGraphics implements Graphics {
     }
 
     void flush() {
-      if (vertexOffset == 0) {
-        return;
-      }
+      batch.flush();
+    }
+
+    @Override
+    public void draw(float[] vertices, int floatCount, short[] elements, int elementCount) {
       checkGlError("Shader.flush");
-      gl20.glBufferData(GL20.GL_ARRAY_BUFFER, vertexOffset * FLOAT_SIZE_BYTES, vertexData,
+      metrics.add(Stat.FLUSHES, 1);
+      vertexData.position(0);
+      vertexData.put(vertices, 0, floatCount);
+      vertexData.position(0);
+      elementData.position(0);
+      elementData.put(elements, 0, elementCount);
+      elementData.position(0);
+
+      // only upload the portion of the buffers that we actually filled
+      gl20.glBufferData(GL20.GL_ARRAY_BUFFER, floatCount * FLOAT_SIZE_BYTES, vertexData,
           GL20.GL_STREAM_DRAW);
-      gl20.glBufferData(GL20.GL_ELEMENT_ARRAY_BUFFER, elementOffset * SHORT_SIZE_BYTES,
+      gl20.glBufferData(GL20.GL_ELEMENT_ARRAY_BUFFER, elementCount * SHORT_SIZE_BYTES,
           elementData, GL20.GL_STREAM_DRAW);
       checkGlError("Shader.flush BufferData");
-      gl20.glDrawElements(GL20.GL_TRIANGLE_STRIP, elementOffset, GL20.GL_UNSIGNED_SHORT, 0);
-      vertexOffset = elementOffset = 0;
+      gl20.glDrawElements(GL20.GL_TRIANGLES, elementCount, GL20.GL_UNSIGNED_SHORT, 0);
       checkGlError("Shader.flush DrawElements");
-    }
-
-    int beginPrimitive(int vertexCount, int elemCount) {
-      int vertIdx = vertexOffset / VERTEX_SIZE;
-      if ((vertIdx + vertexCount > MAX_VERTS) || (elementOffset + elemCount > MAX_ELEMS)) {
-        flush();
-        return 0;
-      }
-      return vertIdx;
-    }
-
-    void buildVertex(InternalTransform local, float dx, float dy) {
-      buildVertex(local, dx, dy, 0, 0);
-    }
-
-    void buildVertex(InternalTransform local, float dx, float dy, float sx, float sy) {
-      vertexData.position(vertexOffset);
-      vertexData.put(local.m00());
-      vertexData.put(local.m01());
-      vertexData.put(local.m10());
-      vertexData.put(local.m11());
-      vertexData.put(local.tx());
-      vertexData.put(local.ty());
-      vertexData.put(dx);
-      vertexData.put(dy);
-      vertexData.put(sx);
-      vertexData.put(sy);
-      vertexData.position(0);
-
-      vertexOffset += VERTEX_SIZE;
-
-    }
-
-    void addElement(int index) {
-      elementData.position(elementOffset);
-      elementData.put((short) index);
-      elementOffset++;
-      elementData.position(0);
+      metrics.add(Stat.DRAW_CALLS, 1);
+      metrics.add(Stat.VERTICES, floatCount / QuadBatcher.VERTEX_SIZE);
     }
 
     /**
@@ -251,9 +238,10 @@ class AndroidGraphics implements Graphics {
     }
 
     @Override
-    void flush() {
+    public void draw(float[] vertices, int floatCount, short[] elements, int elementCount) {
       gl20.glBindTexture(GL20.GL_TEXTURE_2D, lastTex);
-      super.flush();
+      metrics.add(Stat.TEXTURE_BINDS, 1);
+      super.draw(vertices, floatCount, elements, elementCount);
     }
 
     void prepare(int tex, float alpha) {
@@ -318,16 +306,76 @@ class AndroidGraphics implements Graphics {
     }
   }
 
+  /**
+   * The mutable content (canvases and surfaces) drawn while painting a cached group, which tells
+   * us when the cached image has become stale.
+   */
+  class Capture {
+    /**
+     * Returns true if content drawn during this capture has since changed, or could not be drawn.
+     */
+    boolean stale() {
+      if (incomplete) {
+        return true;
+      }
+      for (AndroidImage image : canvases) {
+        if (image.canvasDirty()) {
+          return true;
+        }
+      }
+      for (int ii = 0, ll = surfaces.size(); ii < ll; ii++) {
+        if (surfaces.get(ii).version() != surfaceVersions.get(ii)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void reset() {
+      canvases.clear();
+      surfaces.clear();
+      surfaceVersions.clear();
+      incomplete = false;
+    }
+
+    void addAll(Capture other) {
+      canvases.addAll(other.canvases);
+      surfaces.addAll(other.surfaces);
+      surfaceVersions.addAll(other.surfaceVersions);
+      incomplete |= other.incomplete;
+    }
+
+    private final List<AndroidImage> canvases = new ArrayList<AndroidImage>();
+    private final List<AndroidSurface> surfaces = new ArrayList<AndroidSurface>();
+    private final List<Integer> surfaceVersions = new ArrayList<Integer>();
+    private boolean incomplete;
+  }
+
+  /** The render target that was current when an offscreen target was bound. */
+  private static class Target {
+    final int fbuf, width, height;
+
+    Target(int fbuf, int width, int height) {
+      this.fbuf = fbuf;
+      this.width = width;
+      this.height = height;
+    }
+  }
+
   private static int startingScreenWidth;
   private static int startingScreenHeight;
 
   protected final AndroidGL20 gl20;
   final AndroidGroupLayer rootLayer;
+  final Culler culler = new Culler();
+  final FrameMetrics metrics;
   private final GameViewGL gameView;
   private int viewWidth, viewHeight, lastFrameBuffer, screenWidth, screenHeight, fbufWidth,
       fbufHeight;
   private boolean sizeSetManually = false;
   private Set<Surface> surfaces = new HashSet<Surface>();
+  private final List<Capture> captures = new ArrayList<Capture>();
+  private final List<Target> targets = new ArrayList<Target>();
 
   // Debug
   private int texCount;
@@ -337,8 +385,9 @@ class AndroidGraphics implements Graphics {
   private TextureShader texShader;
   private ColorShader colorShader;
 
-  public AndroidGraphics(AndroidGL20 gfx) {
+  public AndroidGraphics(AndroidGL20 gfx, FrameMetrics metrics) {
     this.gl20 = gfx;
+    this.metrics = metrics;
     gameView = AndroidPlatform.instance.activity.gameView();
     rootLayer = new AndroidGroupLayer(this);
     if (startingScreenWidth != 0)
@@ -438,7 +487,7 @@ class AndroidGraphics implements Graphics {
 
   @Override
   public ImageLayer createImageLayer(Image image) {
-    return new AndroidImageLayer(this, (AndroidImage) image);
+    return new AndroidImageLayer(this, image);
   }
 
   @Override
@@ -464,6 +513,11 @@ class AndroidGraphics implements Graphics {
     return viewWidth;
   }
 
+  @Override
+  public int culledLayerCount() {
+    return culler.culled();
+  }
+
   @Override
   public GroupLayer rootLayer() {
     return rootLayer;
@@ -563,6 +617,21 @@ class AndroidGraphics implements Graphics {
     return texture;
   }
 
+  /**
+   * Creates a framebuffer that renders into {@code texture}. The current framebuffer remains bound.
+   */
+  int createFramebuffer(int texture) {
+    flush();
+    int[] fbufBuffer = new int[1];
+    gl20.glGenFramebuffers(1, fbufBuffer, 0);
+    gl20.glBindFramebuffer(GL20.GL_FRAMEBUFFER, fbufBuffer[0]);
+    gl20.glFramebufferTexture2D(GL20.GL_FRAMEBUFFER, GL20.GL_COLOR_ATTACHMENT0,
+        GL20.GL_TEXTURE_2D, texture, 0);
+    gl20.glBindFramebuffer(GL20.GL_FRAMEBUFFER, lastFrameBuffer);
+    checkGlError("createFramebuffer");
+    return fbufBuffer[0];
+  }
+
   void destroyTexture(int texture) {
     //Flush in case this texture is queued up to be drawn
     flush();
@@ -580,14 +649,97 @@ class AndroidGraphics implements Graphics {
     // Clear to transparent
     gl20.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
     // Paint all the layers
+    culler.reset(0, 0, fbufWidth, fbufHeight);
     rootLayer.paint(StockInternalTransform.IDENTITY, 1);
     checkGlError("updateLayers");
 
     // Guarantee a flush
     useShader(null);
+
+    // the root is painted directly, so the culler doesn't see it
+    metrics.add(Stat.LAYERS, culler.visited() + 1);
+    GLStats glStats = glStats();
+    if (glStats != null) {
+      glStats.endFrame();
+    }
+  }
+
+  /**
+   * Redirects painting into {@code fbuf} (which is cleared to transparent) until the matching call
+   * to {@link #endOffscreen}. Nothing is culled while painting offscreen, and the canvases and
+   * surfaces that are painted are noted in {@code capture}.
+   */
+  void beginOffscreen(int fbuf, int width, int height, Capture capture) {
+    targets.add(new Target(lastFrameBuffer, fbufWidth, fbufHeight));
+    culler.suspend();
+    capture.reset();
+    captures.add(capture);
+    bindFramebuffer(fbuf, width, height);
+    gl20.glClearColor(0, 0, 0, 0);
+    gl20.glClear(GL20.GL_COLOR_BUFFER_BIT);
+  }
+
+  void endOffscreen() {
+    Target target = targets.remove(targets.size() - 1);
+    bindFramebuffer(target.fbuf, target.width, target.height);
+    culler.resume();
+    // anything that invalidates an inner capture also invalidates the enclosing one
+    inherit(captures.remove(captures.size() - 1));
+  }
+
+  /**
+   * Notes that the content being painted includes {@code image}, so that caches of that content
+   * are discarded when the image's canvas (if any) is next drawn into.
+   */
+  void watch(AndroidImage image) {
+    if (!captures.isEmpty() && image.hasCanvas()) {
+      topCapture().canvases.add(image);
+    }
+  }
+
+  /**
+   * Notes that the content being painted includes {@code surface}, so that caches of that content
+   * are discarded when the surface is next drawn into.
+   */
+  void watch(AndroidSurface surface) {
+    if (!captures.isEmpty()) {
+      Capture capture = topCapture();
+      capture.surfaces.add(surface);
+      capture.surfaceVersions.add(surface.version());
+    }
+  }
+
+  /**
+   * Notes that a layer could not be painted (e.g. because its image has not yet loaded), so any
+   * cache of the content being painted must not be reused.
+   */
+  void noteIncomplete() {
+    if (!captures.isEmpty()) {
+      topCapture().incomplete = true;
+    }
+  }
+
+  /**
+   * Notes that a previously cached image is being painted as part of the current capture, if any.
+   */
+  void inherit(Capture capture) {
+    if (!captures.isEmpty()) {
+      topCapture().addAll(capture);
+    }
+  }
+
+  /**
+   * Returns the statistics gathered about our GL calls, or null if they are not being gathered
+   * (see {@link GameActivity#countGLCalls}).
+   */
+  public GLStats glStats() {
+    return (gl20 instanceof CountingGL20) ? ((CountingGL20) gl20).stats() : null;
   }
 
   void refreshGL() {
+    if (gl20 instanceof CountingGL20) {
+      ((CountingGL20) gl20).reset();
+    }
     generateShaders();
     initGL();
     refreshSurfaces();
@@ -595,7 +747,7 @@ class AndroidGraphics implements Graphics {
 
   void updateTexture(int texture, Bitmap image) {
     gl20.glBindTexture(GL20.GL_TEXTURE_2D, texture);
-    texImage2D(GL20.GL_TEXTURE_2D, 0, image, 0);
+    gl20.texImage2D(GL20.GL_TEXTURE_2D, 0, image, 0);
     checkGlError("updateTexture end");
   }
 
@@ -618,17 +770,7 @@ class AndroidGraphics implements Graphics {
     sw /= texWidth;
     sy /= texHeight;
     sh /= texHeight;
-
-    int idx = texShader.beginPrimitive(4, 4);
-    texShader.buildVertex(local, dx, dy, sx, sy);
-    texShader.buildVertex(local, dx + dw, dy, sx + sw, sy);
-    texShader.buildVertex(local, dx, dy + dh, sx, sy + sh);
-    texShader.buildVertex(local, dx + dw, dy + dh, sx + sw, sy + sh);
-
-    texShader.addElement(idx + 0);
-    texShader.addElement(idx + 1);
-    texShader.addElement(idx + 2);
-    texShader.addElement(idx + 3);
+    texShader.batch.addQuad(local, dx, dy, dw, dh, sx, sy, sw, sh);
     checkGlError("drawTexture end");
   }
 
@@ -638,34 +780,14 @@ class AndroidGraphics implements Graphics {
 
     float sx = dx / texWidth, sy = dy / texHeight;
     float sw = dw / texWidth, sh = dh / texHeight;
-
-    int idx = texShader.beginPrimitive(4, 4);
-    texShader.buildVertex(local, dx, dy, sx, sy);
-    texShader.buildVertex(local, dx + dw, dy, sx + sw, sy);
-    texShader.buildVertex(local, dx, dy + dh, sx, sy + sh);
-    texShader.buildVertex(local, dx + dw, dy + sy, sx + sw, sy + sh);
-
-    texShader.addElement(idx + 0);
-    texShader.addElement(idx + 1);
-    texShader.addElement(idx + 2);
-    texShader.addElement(idx + 3);
+    texShader.batch.addQuad(local, dx, dy, dw, dh, sx, sy, sw, sh);
   }
 
   void fillRect(InternalTransform local, float dx, float dy, float dw, float dh, int color,
       float alpha) {
     colorShader.prepare(color, alpha);
     checkGlError("fillRect shader prepared");
-
-    int idx = colorShader.beginPrimitive(4, 4);
-    colorShader.buildVertex(local, dx, dy);
-    colorShader.buildVertex(local, dx + dw, dy);
-    colorShader.buildVertex(local, dx, dy + dh);
-    colorShader.buildVertex(local, dx + dw, dy + dh);
-
-    colorShader.addElement(idx + 0);
-    colorShader.addElement(idx + 1);
-    colorShader.addElement(idx + 2);
-    colorShader.addElement(idx + 3);
+    colorShader.batch.addQuad(local, dx, dy, dw, dh);
     checkGlError("fillRect done");
   }
 
@@ -675,22 +797,23 @@ class AndroidGraphics implements Graphics {
   void fillPoly(InternalTransform local, float[] positions, int color, float alpha) {
     colorShader.prepare(color, alpha);
 
-    // FIXME: Rewrite to take advantage of GL_TRIANGLE_STRIP
-    int idx = colorShader.beginPrimitive(4, 6); // FIXME: This won't scale for
-                                                // non-line polys.
+    QuadBatcher batch = colorShader.batch;
     int points = positions.length / 2;
+    int tris = points - 2;
+    int idx = batch.beginPrimitive(points, tris * 3);
+    float m00 = local.m00(), m01 = local.m01(), m10 = local.m10(), m11 = local.m11();
+    float tx = local.tx(), ty = local.ty();
     for (int i = 0; i < points; ++i) {
       float dx = positions[i * 2];
       float dy = positions[i * 2 + 1];
-      colorShader.buildVertex(local, dx, dy);
+      batch.addVertex(m00, m01, m10, m11, tx, ty, dx, dy, 0, 0);
     }
 
     int a = idx + 0, b = idx + 1, c = idx + 2;
-    int tris = points - 2;
     for (int i = 0; i < tris; i++) {
-      colorShader.addElement(a);
-      colorShader.addElement(b);
-      colorShader.addElement(c);
+      batch.addElement(a);
+      batch.addElement(b);
+      batch.addElement(c);
       a = c;
       b = a + 1;
       c = (i == tris - 2) ? idx : b + 1;
@@ -705,6 +828,10 @@ class AndroidGraphics implements Graphics {
     }
   }
 
+  private Capture topCapture() {
+    return captures.get(captures.size() - 1);
+  }
+
   private void initGL() {
     gl20.glDisable(GL20.GL_CULL_FACE);
     gl20.glEnable(GL20.GL_BLEND);
@@ -15,17 +15,34 @@
  */
 package playn.android;
 
+import java.util.Collection;
+
+import pythagoras.f.Rectangle;
+
 import playn.core.Asserts;
 import playn.core.GroupLayer;
 import playn.core.GroupLayerImpl;
 import playn.core.InternalTransform;
 import playn.core.Layer;
 import playn.core.ParentLayer;
+import playn.core.StockInternalTransform;
+import playn.core.gl.GL20;
 
 class AndroidGroupLayer extends AndroidLayer implements GroupLayer, ParentLayer {
 
+  // cached groups larger than this (in either dimension) are painted normally
+  private static final int MAX_CACHE_SIZE = 2048;
+
   private GroupLayerImpl<AndroidLayer> impl = new GroupLayerImpl<AndroidLayer>();
 
+  // the offscreen cache of our contents, if we're cached
+  private int cacheTex = -1, cacheFBuf = -1, cacheContextId;
+  private AndroidGraphics.Capture cacheCapture;
+  private StockInternalTransform cacheXform;
+  private Rectangle cacheBounds;
+  private int cacheX, cacheY, cacheWidth, cacheHeight;
+  private boolean cacheValid;
+
   public AndroidGroupLayer(AndroidGraphics gfx) {
     super(gfx);
   }
@@ -47,6 +64,14 @@ class AndroidGroupLayer extends AndroidLayer implements GroupLayer, ParentLayer
     impl.add(this, index, (AndroidLayer) layer);
   }
 
+  @Override
+  public void addAll(Collection<? extends Layer> layers) {
+    for (Layer layer : layers) {
+      Asserts.checkArgument(layer instanceof AndroidLayer);
+    }
+    impl.addAll(this, layers);
+  }
+
   @Override
   public void remove(Layer layer) {
     Asserts.checkArgument(layer instanceof AndroidLayer);
@@ -58,6 +83,11 @@ class AndroidGroupLayer extends AndroidLayer implements GroupLayer, ParentLayer
     impl.remove(this, index);
   }
 
+  @Override
+  public void removeAll(Collection<? extends Layer> layers) {
+    impl.removeAll(this, layers);
+  }
+
   @Override
   public void clear() {
     impl.clear(this);
@@ -68,10 +98,35 @@ class AndroidGroupLayer extends AndroidLayer implements GroupLayer, ParentLayer
     return impl.children.size();
   }
 
+  @Override
+  public boolean frozen() {
+    return impl.frozen;
+  }
+
+  @Override
+  public void setFrozen(boolean frozen) {
+    // we don't record render lists, so frozen groups are painted normally
+    impl.frozen = frozen;
+  }
+
+  @Override
+  public boolean cached() {
+    return impl.cached;
+  }
+
+  @Override
+  public void setCached(boolean cached) {
+    impl.cached = cached;
+    if (!cached) {
+      releaseCache();
+    }
+  }
+
   @Override
   public void destroy() {
     super.destroy();
     impl.destroy(this);
+    setCached(false);
   }
 
   @Override
@@ -88,7 +143,12 @@ class AndroidGroupLayer extends AndroidLayer implements GroupLayer, ParentLayer
 
   @Override
   public void depthChanged(Layer layer, float oldDepth) {
-    impl.depthChanged(this, layer, oldDepth);
+    impl.depthChangedDeferred(this, layer, oldDepth);
+  }
+
+  @Override
+  public boolean bounds(Rectangle into) {
+    return impl.bounds(this, into);
   }
 
   @Override
@@ -97,8 +157,88 @@ class AndroidGroupLayer extends AndroidLayer implements GroupLayer, ParentLayer
     if (!visible())
       return;
 
+    InternalTransform xform = localTransform(parentTransform);
+    if (impl.cached && paintCached(xform, parentAlpha * alpha)) {
+      return;
+    }
+    paintChildren(xform, parentAlpha * alpha);
+  }
+
+  private void paintChildren(InternalTransform xform, float childAlpha) {
     for (AndroidLayer child : impl.children) {
-      child.paint(localTransform(parentTransform), parentAlpha * alpha);
+      if (gfx.culler.cull(child, xform)) continue;
+      child.paint(xform, childAlpha);
+    }
+  }
+
+  /**
+   * Paints our contents from our offscreen cache, first rendering them into the cache if they have
+   * changed since it was last rendered.
+   *
+   * @return false if we cannot be cached (because our bounds are unknown, empty or too large), in
+   * which case nothing was painted.
+   */
+  private boolean paintCached(InternalTransform xform, float childAlpha) {
+    if (cacheBounds == null) {
+      cacheBounds = new Rectangle();
+      cacheXform = new StockInternalTransform();
+      cacheCapture = gfx.new Capture();
+    }
+    if (!impl.bounds(this, cacheBounds)) {
+      releaseCache();
+      return false;
+    }
+    // align the cache with our pixel grid, so that unscaled content is not resampled
+    int x = (int) Math.floor(cacheBounds.x), y = (int) Math.floor(cacheBounds.y);
+    int width = (int) Math.ceil(cacheBounds.x + cacheBounds.width) - x;
+    int height = (int) Math.ceil(cacheBounds.y + cacheBounds.height) - y;
+    if (width <= 0 || height <= 0 || width > MAX_CACHE_SIZE || height > MAX_CACHE_SIZE) {
+      releaseCache();
+      return false;
+    }
+
+    // if the GL context was lost, so was our cache (and there's nothing to delete)
+    if (cacheTex != -1 && cacheContextId != GameViewGL.contextId()) {
+      cacheTex = cacheFBuf = -1;
+      cacheValid = false;
+    }
+    if (cacheTex == -1 || width != cacheWidth || height != cacheHeight) {
+      releaseCache();
+      cacheTex = gfx.createTexture(false, false);
+      gfx.gl20.glTexImage2D(GL20.GL_TEXTURE_2D, 0, GL20.GL_RGBA, width, height, 0, GL20.GL_RGBA,
+          GL20.GL_UNSIGNED_BYTE, null);
+      cacheFBuf = gfx.createFramebuffer(cacheTex);
+      cacheContextId = GameViewGL.contextId();
+      cacheWidth = width;
+      cacheHeight = height;
+    }
+
+    if (!cacheValid || x != cacheX || y != cacheY || impl.contentsDirty(this) ||
+        cacheCapture.stale()) {
+      // our children are painted into the cache at full alpha; our alpha is applied to the cache
+      cacheXform.setTransform(1, 0, 0, 1, -x, -y);
+      gfx.beginOffscreen(cacheFBuf, width, height, cacheCapture);
+      paintChildren(cacheXform, 1);
+      gfx.endOffscreen();
+      impl.clearRenderDirty(this);
+      cacheX = x;
+      cacheY = y;
+      cacheValid = true;
+    }
+
+    // the cache is upside-down, like a surface, because it was rendered by the same vertex program
+    gfx.drawTexture(cacheTex, width, height, xform, x, y + height, width, -height, false, false,
+        childAlpha);
+    gfx.inherit(cacheCapture);
+    return true;
+  }
+
+  private void releaseCache() {
+    if (cacheTex != -1) {
+      gfx.destroyTexture(cacheTex);
+      gfx.gl20.glDeleteFramebuffers(1, new int[] { cacheFBuf }, 0);
+      cacheTex = cacheFBuf = -1;
     }
+    cacheValid = false;
   }
 }
@@ -87,6 +87,10 @@ class AndroidImage implements CanvasImage {
     return canvas;
   }
 
+  boolean hasCanvas() {
+    return canvas != null;
+  }
+
   boolean canvasDirty() {
     return (canvas != null && canvas.dirty());
   }
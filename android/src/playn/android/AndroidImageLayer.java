@@ -15,10 +15,13 @@
  */
 package playn.android;
 
+import pythagoras.f.Rectangle;
+
 import playn.core.Asserts;
 import playn.core.Image;
 import playn.core.ImageLayer;
 import playn.core.InternalTransform;
+import playn.core.gl.AtlasImage;
 
 class AndroidImageLayer extends AndroidLayer implements ImageLayer {
 
@@ -29,34 +32,38 @@ class AndroidImageLayer extends AndroidLayer implements ImageLayer {
   private boolean repeatX, repeatY;
 
   private AndroidImage image;
+  private AtlasImage atlasImage;
 
   AndroidImageLayer(AndroidGraphics gfx) {
     super(gfx);
   }
 
-  AndroidImageLayer(AndroidGraphics gfx, AndroidImage image) {
+  AndroidImageLayer(AndroidGraphics gfx, Image image) {
     this(gfx);
-    this.image = image;
+    setImage(image);
   }
 
   @Override
   public void clearHeight() {
     heightSet = false;
+    boundsChanged();
   }
 
   @Override
   public void clearSourceRect() {
     sourceRectSet = false;
+    renderChanged();
   }
 
   @Override
   public void clearWidth() {
     widthSet = false;
+    boundsChanged();
   }
 
   @Override
   public Image image() {
-    return image;
+    return (atlasImage != null) ? atlasImage : image;
   }
 
   @Override
@@ -65,36 +72,46 @@ class AndroidImageLayer extends AndroidLayer implements ImageLayer {
 
     heightSet = true;
     this.height = height;
+    boundsChanged();
   }
 
   @Override
   public void setImage(Image image) {
-    Asserts.checkArgument(image instanceof AndroidImage);
-    this.image = (AndroidImage) image;
+    if (image instanceof AtlasImage) {
+      Asserts.checkState(!repeatX && !repeatY, "Cannot repeat atlas images");
+      this.atlasImage = (AtlasImage) image;
+      this.image = null;
+    } else {
+      Asserts.checkArgument(image instanceof AndroidImage);
+      this.atlasImage = null;
+      this.image = (AndroidImage) image;
+    }
+    boundsChanged();
   }
 
   @Override
   public void setRepeatX(boolean repeat) {
     Asserts.checkArgument(!repeat || !sourceRectSet, "Cannot repeat when source rect is used");
+    Asserts.checkArgument(!repeat || atlasImage == null, "Cannot repeat atlas images");
 
-    if (repeatX != repeat) {
-      repeatX = repeat;
-    }
+    repeatX = repeat;
+    renderChanged();
   }
 
   @Override
   public void setRepeatY(boolean repeat) {
     Asserts.checkArgument(!repeat || !sourceRectSet, "Cannot repeat when source rect is used");
+    Asserts.checkArgument(!repeat || atlasImage == null, "Cannot repeat atlas images");
 
-    if (repeatY != repeat) {
-      repeatY = repeat;
-    }
+    repeatY = repeat;
+    renderChanged();
   }
 
   @Override
   public void setSize(float width, float height) {
     setWidth(width);
     setHeight(height);
+    boundsChanged();
   }
 
   @Override
@@ -106,6 +123,7 @@ class AndroidImageLayer extends AndroidLayer implements ImageLayer {
     this.sy = sy;
     this.sw = sw;
     this.sh = sh;
+    renderChanged();
   }
 
   @Override
@@ -114,6 +132,7 @@ class AndroidImageLayer extends AndroidLayer implements ImageLayer {
 
     widthSet = true;
     this.width = width;
+    boundsChanged();
   }
 
   @Override
@@ -124,42 +143,66 @@ class AndroidImageLayer extends AndroidLayer implements ImageLayer {
     gfx.checkGlError("AndroidImageLayer.paint start");
     if (sourceRectSet) Asserts.check(repeatX == false && repeatY == false);
 
+    // atlas images are drawn from a region of their page's texture
+    AndroidImage image = this.image;
+    float ox = 0, oy = 0;
+    if (atlasImage != null) {
+      if (!atlasImage.isReady()) {
+        gfx.noteIncomplete();
+        return;
+      }
+      image = (AndroidImage) atlasImage.page();
+      ox = atlasImage.x();
+      oy = atlasImage.y();
+    }
+
     int tex = image.ensureTexture(gfx, repeatX, repeatY);
     if (tex != -1) {
+      gfx.watch(image);
       InternalTransform xform = localTransform(parentTransform);
       float childAlpha = parentAlpha * alpha;
 
-      float width = widthSet ? this.width : image.width();
-      float height = heightSet ? this.height : image.height();
+      float width = widthSet ? this.width : image().width();
+      float height = heightSet ? this.height : image().height();
 
       if (sourceRectSet) {
-        gfx.drawTexture(tex, image.width(), image.height(), xform, 0, 0, width, height, sx,
-            sy, sw, sh, childAlpha);
+        gfx.drawTexture(tex, image.width(), image.height(), xform, 0, 0, width, height, ox + sx,
+            oy + sy, sw, sh, childAlpha);
+      } else if (atlasImage != null) {
+        gfx.drawTexture(tex, image.width(), image.height(), xform, 0, 0, width, height, ox, oy,
+            atlasImage.width(), atlasImage.height(), childAlpha);
       } else {
         gfx.drawTexture(tex, image.width(), image.height(), xform, width, height, repeatX,
             repeatY, childAlpha);
       }
+    } else {
+      gfx.noteIncomplete();
     }
     gfx.checkGlError("AndroidImageLayer.paint end");
   }
 
+  @Override
+  public boolean bounds(Rectangle into) {
+    return image() != null && super.bounds(into);
+  }
+
   @Override
   public float width() {
-    Asserts.checkNotNull(image, "Image must not be null");
+    Asserts.checkNotNull(image(), "Image must not be null");
     if (widthSet) {
       return width;
     } else {
-      return image.width();
+      return image().width();
     }
   }
 
   @Override
   public float height() {
-    Asserts.checkNotNull(image, "Image must not be null");
+    Asserts.checkNotNull(image(), "Image must not be null");
     if (heightSet) {
       return height;
     } else {
-      return image.height();
+      return image().height();
     }
   }
 
@@ -15,6 +15,7 @@
  */
 package playn.android;
 
+import playn.core.FrameMetrics;
 import playn.core.Game;
 import playn.core.Json;
 import playn.core.Mouse;
@@ -55,6 +56,7 @@ public class AndroidPlatform implements Platform {
   private AndroidTouchEventHandler touchHandler;
   private AndroidAssetManager assetManager;
   private AndroidAnalytics analytics;
+  private FrameMetrics metrics = new FrameMetrics();
 
   public Bitmap.Config preferredBitmapConfig;
 
@@ -62,7 +64,7 @@ public class AndroidPlatform implements Platform {
     instance = this;
     this.activity = activity;
     audio = new AndroidAudio();
-    graphics = new AndroidGraphics(gl20);
+    graphics = new AndroidGraphics(gl20, metrics);
     json = new JavaJson();
     keyboard = new AndroidKeyboard();
     log = new AndroidLog();
@@ -106,6 +108,11 @@ public class AndroidPlatform implements Platform {
     return analytics;
   }
 
+  @Override
+  public FrameMetrics metrics() {
+    return metrics;
+  }
+
   @Override
   public AndroidAudio audio() {
     return audio;
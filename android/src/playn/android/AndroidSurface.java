@@ -42,6 +42,7 @@ class AndroidSurface implements Surface {
   private File cachedPixels;
 
   private int fillColor;
+  private int version;
   private AndroidPattern fillPattern;
 
   AndroidSurface(AndroidGraphics gfx, int width, int height) {
@@ -135,7 +136,7 @@ class AndroidSurface implements Surface {
   @Override
   public void clear() {
     checkRefreshGL();
-    gfx.bindFramebuffer(fbuf, width, height);
+    bind();
     gfx.gl20.glClearColor(0, 0, 0, 0);
     gfx.gl20.glClear(GL20.GL_COLOR_BUFFER_BIT);
   }
@@ -147,6 +148,13 @@ class AndroidSurface implements Surface {
     gfx.removeSurface(this);
   }
 
+  /**
+   * Returns a count that changes every time this surface is drawn into.
+   */
+  int version() {
+    return version;
+  }
+
   int tex() {
     checkRefreshGL();
     return tex;
@@ -165,7 +173,7 @@ class AndroidSurface implements Surface {
 
   @Override
   public void drawImage(Image image, float x, float y, float dw, float dh) {
-    gfx.bindFramebuffer(fbuf, width, height);
+    bind();
 
     Asserts.checkArgument(image instanceof AndroidImage);
     AndroidImage aimage = (AndroidImage) image;
@@ -183,7 +191,7 @@ class AndroidSurface implements Surface {
   public void drawImage(Image image, float dx, float dy, float dw, float dh, float sx, float sy,
       float sw, float sh) {
     checkRefreshGL();
-    gfx.bindFramebuffer(fbuf, width, height);
+    bind();
 
     Asserts.checkArgument(image instanceof AndroidImage);
     AndroidImage aimage = (AndroidImage) image;
@@ -205,7 +213,7 @@ class AndroidSurface implements Surface {
   @Override
   public void drawLine(float x0, float y0, float x1, float y1, float width) {
     checkRefreshGL();
-    gfx.bindFramebuffer(fbuf, this.width, this.height);
+    bind();
 
     float dx = x1 - x0, dy = y1 - y0;
     float len = (float) Math.sqrt(dx * dx + dy * dy);
@@ -227,7 +235,7 @@ class AndroidSurface implements Surface {
   @Override
   public void fillRect(float x, float y, float width, float height) {
     checkRefreshGL();
-    gfx.bindFramebuffer(fbuf, this.width, this.height);
+    bind();
 
     if (fillPattern != null) {
       AndroidImage image = fillPattern.image;
@@ -300,6 +308,11 @@ class AndroidSurface implements Surface {
     return width;
   }
 
+  private void bind() {
+    gfx.bindFramebuffer(fbuf, width, height);
+    version++;
+  }
+
   private InternalTransform topTransform() {
     return transformStack.get(transformStack.size() - 1);
   }
@@ -309,5 +322,4 @@ class AndroidSurface implements Surface {
     destroy();
     super.finalize();
   }
-
 }
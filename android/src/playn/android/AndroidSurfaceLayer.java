@@ -57,6 +57,7 @@ class AndroidSurfaceLayer extends AndroidLayer implements SurfaceLayer {
     // which flips vertically to put the origin at the top-left).
     gfx.drawTexture(surface.tex(), width, height, localTransform(parentTransform), 0, height, width, -height,
         false, false, parentAlpha * alpha);
+    gfx.watch(surface);
   }
 
   @Override
@@ -73,12 +74,12 @@ class AndroidSurfaceLayer extends AndroidLayer implements SurfaceLayer {
 
   @Override
   public float scaledWidth() {
-    return transform().scaleX() * width();
+    return transform.scaleX() * width();
   }
 
   @Override
   public float scaledHeight() {
-    return transform().scaleY() * height();
+    return transform.scaleY() * height();
   }
 
 }
@@ -0,0 +1,1690 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.android;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import playn.core.gl.GLStats;
+
+import android.graphics.Bitmap;
+
+/**
+ * Wraps another {@link AndroidGL20}, reporting every call made through it to a {@link GLStats}
+ * before passing it on. State that is commonly set redundantly (the bound program, buffers,
+ * textures and framebuffer, enabled capabilities, blend function, viewport, clear color and
+ * scalar uniforms) is tracked, so that we can report calls that leave it unchanged. Enabled by
+ * overriding {@link GameActivity#countGLCalls}; the statistics are then available via {@link
+ * AndroidGraphics#glStats}.
+ */
+public class CountingGL20 extends AndroidGL20 {
+
+  public CountingGL20(AndroidGL20 gl) {
+    this.gl = gl;
+    Arrays.fill(boundTextures, UNKNOWN);
+    Arrays.fill(blendFunc, UNKNOWN);
+    Arrays.fill(viewport, UNKNOWN);
+    Arrays.fill(clearColor, Float.NaN);
+  }
+
+  /**
+   * Returns the statistics gathered by this wrapper.
+   */
+  public GLStats stats() {
+    return stats;
+  }
+
+  /**
+   * Forgets the GL state we have tracked, and the textures that are alive. Called when the GL
+   * context is recreated, at which point all state and textures are lost.
+   */
+  public void reset() {
+    program = arrayBuffer = elementBuffer = framebuffer = UNKNOWN;
+    activeTexture = GL_TEXTURE0;
+    Arrays.fill(boundTextures, UNKNOWN);
+    Arrays.fill(blendFunc, UNKNOWN);
+    Arrays.fill(viewport, UNKNOWN);
+    Arrays.fill(clearColor, Float.NaN);
+    caps.clear();
+    uniforms.clear();
+    stats.resetTextures();
+  }
+
+  @Override
+  public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+    if (stats.call("texImage2D")) stats.arg(target).arg(level).arg(bitmap).arg(border);
+    if (target == GL_TEXTURE_2D && level == 0) {
+      stats.textureAllocated(boundTexture(), bitmap.getRowBytes() * bitmap.getHeight());
+    }
+    gl.texImage2D(target, level, bitmap, border);
+  }
+
+  @Override
+  public String getPlatformGLExtensions() {
+    return gl.getPlatformGLExtensions();
+  }
+
+  @Override
+  public int getSwapInterval() {
+    return gl.getSwapInterval();
+  }
+
+  @Override
+  public void glActiveTexture(int texture) {
+    if (stats.call("glActiveTexture")) stats.arg(texture);
+    if (texture == activeTexture) stats.redundant("glActiveTexture");
+    activeTexture = texture;
+    gl.glActiveTexture(texture);
+  }
+
+  @Override
+  public void glAttachShader(int program, int shader) {
+    if (stats.call("glAttachShader")) stats.arg(program).arg(shader);
+    gl.glAttachShader(program, shader);
+  }
+
+  @Override
+  public void glBindAttribLocation(int program, int index, String name) {
+    if (stats.call("glBindAttribLocation")) stats.arg(program).arg(index).arg(name);
+    gl.glBindAttribLocation(program, index, name);
+  }
+
+  @Override
+  public void glBindBuffer(int target, int buffer) {
+    if (stats.call("glBindBuffer")) stats.arg(target).arg(buffer);
+    if (target == GL_ARRAY_BUFFER) {
+      if (buffer == arrayBuffer) stats.redundant("glBindBuffer");
+      arrayBuffer = buffer;
+    } else if (target == GL_ELEMENT_ARRAY_BUFFER) {
+      if (buffer == elementBuffer) stats.redundant("glBindBuffer");
+      elementBuffer = buffer;
+    }
+    gl.glBindBuffer(target, buffer);
+  }
+
+  @Override
+  public void glBindFramebuffer(int target, int framebuffer) {
+    if (stats.call("glBindFramebuffer")) stats.arg(target).arg(framebuffer);
+    if (framebuffer == this.framebuffer) stats.redundant("glBindFramebuffer");
+    this.framebuffer = framebuffer;
+    gl.glBindFramebuffer(target, framebuffer);
+  }
+
+  @Override
+  public void glBindRenderbuffer(int target, int renderbuffer) {
+    if (stats.call("glBindRenderbuffer")) stats.arg(target).arg(renderbuffer);
+    gl.glBindRenderbuffer(target, renderbuffer);
+  }
+
+  @Override
+  public void glBindTexture(int target, int texture) {
+    if (stats.call("glBindTexture")) stats.arg(target).arg(texture);
+    if (target == GL_TEXTURE_2D) {
+      int unit = activeTexture - GL_TEXTURE0;
+      if (texture == boundTextures[unit]) stats.redundant("glBindTexture");
+      boundTextures[unit] = texture;
+    }
+    gl.glBindTexture(target, texture);
+  }
+
+  @Override
+  public void glBlendColor(float red, float green, float blue, float alpha) {
+    if (stats.call("glBlendColor")) stats.arg(red).arg(green).arg(blue).arg(alpha);
+    gl.glBlendColor(red, green, blue, alpha);
+  }
+
+  @Override
+  public void glBlendEquation(int mode) {
+    if (stats.call("glBlendEquation")) stats.arg(mode);
+    gl.glBlendEquation(mode);
+  }
+
+  @Override
+  public void glBlendEquationSeparate(int modeRGB, int modeAlpha) {
+    if (stats.call("glBlendEquationSeparate")) stats.arg(modeRGB).arg(modeAlpha);
+    gl.glBlendEquationSeparate(modeRGB, modeAlpha);
+  }
+
+  @Override
+  public void glBlendFunc(int sfactor, int dfactor) {
+    if (stats.call("glBlendFunc")) stats.arg(sfactor).arg(dfactor);
+    if (same(blendFunc, sfactor, dfactor, sfactor, dfactor)) stats.redundant("glBlendFunc");
+    gl.glBlendFunc(sfactor, dfactor);
+  }
+
+  @Override
+  public void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+    if (stats.call("glBlendFuncSeparate")) {
+      stats.arg(srcRGB).arg(dstRGB).arg(srcAlpha).arg(dstAlpha);
+    }
+    if (same(blendFunc, srcRGB, dstRGB, srcAlpha, dstAlpha)) stats.redundant("glBlendFuncSeparate");
+    gl.glBlendFuncSeparate(srcRGB, dstRGB, srcAlpha, dstAlpha);
+  }
+
+  @Override
+  public void glBufferData(int target, long size, Buffer data, int usage) {
+    if (stats.call("glBufferData")) stats.arg(target).arg(size).arg(data).arg(usage);
+    stats.uploaded((int) size);
+    gl.glBufferData(target, size, data, usage);
+  }
+
+  @Override
+  public void glBufferSubData(int target, long offset, long size, Buffer data) {
+    if (stats.call("glBufferSubData")) stats.arg(target).arg(offset).arg(size).arg(data);
+    stats.uploaded((int) size);
+    gl.glBufferSubData(target, offset, size, data);
+  }
+
+  @Override
+  public int glCheckFramebufferStatus(int target) {
+    if (stats.call("glCheckFramebufferStatus")) stats.arg(target);
+    return gl.glCheckFramebufferStatus(target);
+  }
+
+  @Override
+  public void glClear(int mask) {
+    if (stats.call("glClear")) stats.arg(mask);
+    gl.glClear(mask);
+  }
+
+  @Override
+  public void glClearColor(float red, float green, float blue, float alpha) {
+    if (stats.call("glClearColor")) stats.arg(red).arg(green).arg(blue).arg(alpha);
+    if (same(clearColor, red, green, blue, alpha)) stats.redundant("glClearColor");
+    gl.glClearColor(red, green, blue, alpha);
+  }
+
+  @Override
+  public void glClearDepth(double depth) {
+    if (stats.call("glClearDepth")) stats.arg(depth);
+    gl.glClearDepth(depth);
+  }
+
+  @Override
+  public void glClearDepthf(float depth) {
+    if (stats.call("glClearDepthf")) stats.arg(depth);
+    gl.glClearDepthf(depth);
+  }
+
+  @Override
+  public void glClearStencil(int s) {
+    if (stats.call("glClearStencil")) stats.arg(s);
+    gl.glClearStencil(s);
+  }
+
+  @Override
+  public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+    if (stats.call("glColorMask")) stats.arg(red).arg(green).arg(blue).arg(alpha);
+    gl.glColorMask(red, green, blue, alpha);
+  }
+
+  @Override
+  public void glCompileShader(int shader) {
+    if (stats.call("glCompileShader")) stats.arg(shader);
+    gl.glCompileShader(shader);
+  }
+
+  @Override
+  public void glCompressedTexImage2D(int target, int level, int internalformat, int width,
+      int height, int border, int imageSize, Buffer data) {
+    if (stats.call("glCompressedTexImage2D")) {
+      stats.arg(target).arg(level).arg(internalformat).arg(width).arg(height).arg(border)
+        .arg(imageSize).arg(data);
+    }
+    gl.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize,
+        data);
+  }
+
+  @Override
+  public void glCompressedTexImage2D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5,
+      int arg6, long arg7) {
+    if (stats.call("glCompressedTexImage2D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7);
+    }
+    gl.glCompressedTexImage2D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7);
+  }
+
+  @Override
+  public void glCompressedTexImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5,
+      int arg6, int arg7, Buffer arg8) {
+    if (stats.call("glCompressedTexImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8);
+    }
+    gl.glCompressedTexImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+  }
+
+  @Override
+  public void glCompressedTexImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5,
+      int arg6, int arg7, long arg8) {
+    if (stats.call("glCompressedTexImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8);
+    }
+    gl.glCompressedTexImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+  }
+
+  @Override
+  public void glCompressedTexSubImage2D(int target, int level, int xoffset, int yoffset, int width,
+      int height, int format, int imageSize, Buffer data) {
+    if (stats.call("glCompressedTexSubImage2D")) {
+      stats.arg(target).arg(level).arg(xoffset).arg(yoffset).arg(width).arg(height).arg(format)
+        .arg(imageSize).arg(data);
+    }
+    gl.glCompressedTexSubImage2D(target, level, xoffset, yoffset, width, height, format, imageSize,
+        data);
+  }
+
+  @Override
+  public void glCompressedTexSubImage2D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5,
+      int arg6, int arg7, long arg8) {
+    if (stats.call("glCompressedTexSubImage2D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8);
+    }
+    gl.glCompressedTexSubImage2D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+  }
+
+  @Override
+  public void glCompressedTexSubImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5,
+      int arg6, int arg7, int arg8, int arg9, Buffer arg10) {
+    if (stats.call("glCompressedTexSubImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8).arg(arg9).arg(arg10);
+    }
+    gl.glCompressedTexSubImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9, arg10);
+  }
+
+  @Override
+  public void glCompressedTexSubImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5,
+      int arg6, int arg7, int arg8, int arg9, long arg10) {
+    if (stats.call("glCompressedTexSubImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8).arg(arg9).arg(arg10);
+    }
+    gl.glCompressedTexSubImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9, arg10);
+  }
+
+  @Override
+  public void glCopyTexImage2D(int target, int level, int internalformat, int x, int y, int width,
+      int height, int border) {
+    if (stats.call("glCopyTexImage2D")) {
+      stats.arg(target).arg(level).arg(internalformat).arg(x).arg(y).arg(width).arg(height)
+        .arg(border);
+    }
+    gl.glCopyTexImage2D(target, level, internalformat, x, y, width, height, border);
+  }
+
+  @Override
+  public void glCopyTexSubImage2D(int target, int level, int xoffset, int yoffset, int x, int y,
+      int width, int height) {
+    if (stats.call("glCopyTexSubImage2D")) {
+      stats.arg(target).arg(level).arg(xoffset).arg(yoffset).arg(x).arg(y).arg(width).arg(height);
+    }
+    gl.glCopyTexSubImage2D(target, level, xoffset, yoffset, x, y, width, height);
+  }
+
+  @Override
+  public void glCopyTexSubImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5,
+      int arg6, int arg7, int arg8) {
+    if (stats.call("glCopyTexSubImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8);
+    }
+    gl.glCopyTexSubImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+  }
+
+  @Override
+  public int glCreateProgram() {
+    stats.call("glCreateProgram");
+    return gl.glCreateProgram();
+  }
+
+  @Override
+  public int glCreateShader(int type) {
+    if (stats.call("glCreateShader")) stats.arg(type);
+    return gl.glCreateShader(type);
+  }
+
+  @Override
+  public void glCullFace(int mode) {
+    if (stats.call("glCullFace")) stats.arg(mode);
+    gl.glCullFace(mode);
+  }
+
+  @Override
+  public void glDeleteBuffers(int n, int[] buffers, int offset) {
+    if (stats.call("glDeleteBuffers")) stats.arg(n).arg(buffers).arg(offset);
+    gl.glDeleteBuffers(n, buffers, offset);
+  }
+
+  @Override
+  public void glDeleteBuffers(int n, IntBuffer buffers) {
+    if (stats.call("glDeleteBuffers")) stats.arg(n).arg(buffers);
+    gl.glDeleteBuffers(n, buffers);
+  }
+
+  @Override
+  public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+    if (stats.call("glDeleteFramebuffers")) stats.arg(n).arg(framebuffers).arg(offset);
+    gl.glDeleteFramebuffers(n, framebuffers, offset);
+  }
+
+  @Override
+  public void glDeleteFramebuffers(int n, IntBuffer framebuffers) {
+    if (stats.call("glDeleteFramebuffers")) stats.arg(n).arg(framebuffers);
+    gl.glDeleteFramebuffers(n, framebuffers);
+  }
+
+  @Override
+  public void glDeleteProgram(int program) {
+    if (stats.call("glDeleteProgram")) stats.arg(program);
+    gl.glDeleteProgram(program);
+  }
+
+  @Override
+  public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+    if (stats.call("glDeleteRenderbuffers")) stats.arg(n).arg(renderbuffers).arg(offset);
+    gl.glDeleteRenderbuffers(n, renderbuffers, offset);
+  }
+
+  @Override
+  public void glDeleteRenderbuffers(int n, IntBuffer renderbuffers) {
+    if (stats.call("glDeleteRenderbuffers")) stats.arg(n).arg(renderbuffers);
+    gl.glDeleteRenderbuffers(n, renderbuffers);
+  }
+
+  @Override
+  public void glDeleteShader(int shader) {
+    if (stats.call("glDeleteShader")) stats.arg(shader);
+    gl.glDeleteShader(shader);
+  }
+
+  @Override
+  public void glDeleteTextures(int n, int[] textures, int offset) {
+    if (stats.call("glDeleteTextures")) stats.arg(n).arg(textures).arg(offset);
+    for (int ii = 0; ii < n; ii++) textureDeleted(textures[offset + ii]);
+    gl.glDeleteTextures(n, textures, offset);
+  }
+
+  @Override
+  public void glDeleteTextures(int n, IntBuffer textures) {
+    if (stats.call("glDeleteTextures")) stats.arg(n).arg(textures);
+    for (int ii = 0; ii < n; ii++) textureDeleted(textures.get(textures.position() + ii));
+    gl.glDeleteTextures(n, textures);
+  }
+
+  @Override
+  public void glDepthFunc(int func) {
+    if (stats.call("glDepthFunc")) stats.arg(func);
+    gl.glDepthFunc(func);
+  }
+
+  @Override
+  public void glDepthMask(boolean flag) {
+    if (stats.call("glDepthMask")) stats.arg(flag);
+    gl.glDepthMask(flag);
+  }
+
+  @Override
+  public void glDepthRange(double zNear, double zFar) {
+    if (stats.call("glDepthRange")) stats.arg(zNear).arg(zFar);
+    gl.glDepthRange(zNear, zFar);
+  }
+
+  @Override
+  public void glDepthRangef(float zNear, float zFar) {
+    if (stats.call("glDepthRangef")) stats.arg(zNear).arg(zFar);
+    gl.glDepthRangef(zNear, zFar);
+  }
+
+  @Override
+  public void glDetachShader(int program, int shader) {
+    if (stats.call("glDetachShader")) stats.arg(program).arg(shader);
+    gl.glDetachShader(program, shader);
+  }
+
+  @Override
+  public void glDisable(int cap) {
+    if (stats.call("glDisable")) stats.arg(cap);
+    if (Boolean.FALSE.equals(caps.put(cap, false))) stats.redundant("glDisable");
+    gl.glDisable(cap);
+  }
+
+  @Override
+  public void glDisableVertexAttribArray(int index) {
+    if (stats.call("glDisableVertexAttribArray")) stats.arg(index);
+    gl.glDisableVertexAttribArray(index);
+  }
+
+  @Override
+  public void glDrawArrays(int mode, int first, int count) {
+    if (stats.call("glDrawArrays")) stats.arg(mode).arg(first).arg(count);
+    gl.glDrawArrays(mode, first, count);
+  }
+
+  @Override
+  public void glDrawElements(int mode, int count, int type, Buffer indices) {
+    if (stats.call("glDrawElements")) stats.arg(mode).arg(count).arg(type).arg(indices);
+    gl.glDrawElements(mode, count, type, indices);
+  }
+
+  @Override
+  public void glDrawElements(int mode, int count, int type, long offset) {
+    if (stats.call("glDrawElements")) stats.arg(mode).arg(count).arg(type).arg(offset);
+    gl.glDrawElements(mode, count, type, offset);
+  }
+
+  @Override
+  public void glDrawElements(int mode, int count, int type, int offset) {
+    if (stats.call("glDrawElements")) stats.arg(mode).arg(count).arg(type).arg(offset);
+    gl.glDrawElements(mode, count, type, offset);
+  }
+
+  @Override
+  public void glEnable(int cap) {
+    if (stats.call("glEnable")) stats.arg(cap);
+    if (Boolean.TRUE.equals(caps.put(cap, true))) stats.redundant("glEnable");
+    gl.glEnable(cap);
+  }
+
+  @Override
+  public void glEnableVertexAttribArray(int index) {
+    if (stats.call("glEnableVertexAttribArray")) stats.arg(index);
+    gl.glEnableVertexAttribArray(index);
+  }
+
+  @Override
+  public void glFinish() {
+    stats.call("glFinish");
+    gl.glFinish();
+  }
+
+  @Override
+  public void glFlush() {
+    stats.call("glFlush");
+    gl.glFlush();
+  }
+
+  @Override
+  public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget,
+      int renderbuffer) {
+    if (stats.call("glFramebufferRenderbuffer")) {
+      stats.arg(target).arg(attachment).arg(renderbuffertarget).arg(renderbuffer);
+    }
+    gl.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, renderbuffer);
+  }
+
+  @Override
+  public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture,
+      int level) {
+    if (stats.call("glFramebufferTexture2D")) {
+      stats.arg(target).arg(attachment).arg(textarget).arg(texture).arg(level);
+    }
+    gl.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+  }
+
+  @Override
+  public void glFramebufferTexture3D(int target, int attachment, int textarget, int texture,
+      int level, int zoffset) {
+    if (stats.call("glFramebufferTexture3D")) {
+      stats.arg(target).arg(attachment).arg(textarget).arg(texture).arg(level).arg(zoffset);
+    }
+    gl.glFramebufferTexture3D(target, attachment, textarget, texture, level, zoffset);
+  }
+
+  @Override
+  public void glFrontFace(int mode) {
+    if (stats.call("glFrontFace")) stats.arg(mode);
+    gl.glFrontFace(mode);
+  }
+
+  @Override
+  public void glGenBuffers(int n, int[] buffers, int offset) {
+    if (stats.call("glGenBuffers")) stats.arg(n).arg(buffers).arg(offset);
+    gl.glGenBuffers(n, buffers, offset);
+  }
+
+  @Override
+  public void glGenBuffers(int n, IntBuffer buffers) {
+    if (stats.call("glGenBuffers")) stats.arg(n).arg(buffers);
+    gl.glGenBuffers(n, buffers);
+  }
+
+  @Override
+  public void glGenerateMipmap(int target) {
+    if (stats.call("glGenerateMipmap")) stats.arg(target);
+    gl.glGenerateMipmap(target);
+  }
+
+  @Override
+  public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+    if (stats.call("glGenFramebuffers")) stats.arg(n).arg(framebuffers).arg(offset);
+    gl.glGenFramebuffers(n, framebuffers, offset);
+  }
+
+  @Override
+  public void glGenFramebuffers(int n, IntBuffer framebuffers) {
+    if (stats.call("glGenFramebuffers")) stats.arg(n).arg(framebuffers);
+    gl.glGenFramebuffers(n, framebuffers);
+  }
+
+  @Override
+  public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+    if (stats.call("glGenRenderbuffers")) stats.arg(n).arg(renderbuffers).arg(offset);
+    gl.glGenRenderbuffers(n, renderbuffers, offset);
+  }
+
+  @Override
+  public void glGenRenderbuffers(int n, IntBuffer renderbuffers) {
+    if (stats.call("glGenRenderbuffers")) stats.arg(n).arg(renderbuffers);
+    gl.glGenRenderbuffers(n, renderbuffers);
+  }
+
+  @Override
+  public void glGenTextures(int n, int[] textures, int offset) {
+    if (stats.call("glGenTextures")) stats.arg(n).arg(textures).arg(offset);
+    gl.glGenTextures(n, textures, offset);
+  }
+
+  @Override
+  public void glGenTextures(int n, IntBuffer textures) {
+    if (stats.call("glGenTextures")) stats.arg(n).arg(textures);
+    gl.glGenTextures(n, textures);
+  }
+
+  @Override
+  public void glGetActiveAttrib(int program, int index, int bufsize, int[] length,
+      int lengthOffset, int[] size, int sizeOffset, int[] type, int typeOffset, byte[] name,
+      int nameOffset) {
+    if (stats.call("glGetActiveAttrib")) {
+      stats.arg(program).arg(index).arg(bufsize).arg(length).arg(lengthOffset).arg(size)
+        .arg(sizeOffset).arg(type).arg(typeOffset).arg(name).arg(nameOffset);
+    }
+    gl.glGetActiveAttrib(program, index, bufsize, length, lengthOffset, size, sizeOffset, type,
+        typeOffset, name, nameOffset);
+  }
+
+  @Override
+  public void glGetActiveAttrib(int program, int index, int bufsize, IntBuffer length,
+      IntBuffer size, IntBuffer type, ByteBuffer name) {
+    if (stats.call("glGetActiveAttrib")) {
+      stats.arg(program).arg(index).arg(bufsize).arg(length).arg(size).arg(type).arg(name);
+    }
+    gl.glGetActiveAttrib(program, index, bufsize, length, size, type, name);
+  }
+
+  @Override
+  public void glGetActiveUniform(int program, int index, int bufsize, int[] length,
+      int lengthOffset, int[] size, int sizeOffset, int[] type, int typeOffset, byte[] name,
+      int nameOffset) {
+    if (stats.call("glGetActiveUniform")) {
+      stats.arg(program).arg(index).arg(bufsize).arg(length).arg(lengthOffset).arg(size)
+        .arg(sizeOffset).arg(type).arg(typeOffset).arg(name).arg(nameOffset);
+    }
+    gl.glGetActiveUniform(program, index, bufsize, length, lengthOffset, size, sizeOffset, type,
+        typeOffset, name, nameOffset);
+  }
+
+  @Override
+  public void glGetActiveUniform(int program, int index, int bufsize, IntBuffer length,
+      IntBuffer size, IntBuffer type, ByteBuffer name) {
+    if (stats.call("glGetActiveUniform")) {
+      stats.arg(program).arg(index).arg(bufsize).arg(length).arg(size).arg(type).arg(name);
+    }
+    gl.glGetActiveUniform(program, index, bufsize, length, size, type, name);
+  }
+
+  @Override
+  public void glGetAttachedShaders(int program, int maxcount, int[] count, int countOffset,
+      int[] shaders, int shadersOffset) {
+    if (stats.call("glGetAttachedShaders")) {
+      stats.arg(program).arg(maxcount).arg(count).arg(countOffset).arg(shaders).arg(shadersOffset);
+    }
+    gl.glGetAttachedShaders(program, maxcount, count, countOffset, shaders, shadersOffset);
+  }
+
+  @Override
+  public void glGetAttachedShaders(int program, int maxcount, IntBuffer count, IntBuffer shaders) {
+    if (stats.call("glGetAttachedShaders")) {
+      stats.arg(program).arg(maxcount).arg(count).arg(shaders);
+    }
+    gl.glGetAttachedShaders(program, maxcount, count, shaders);
+  }
+
+  @Override
+  public int glGetAttribLocation(int program, String name) {
+    if (stats.call("glGetAttribLocation")) stats.arg(program).arg(name);
+    return gl.glGetAttribLocation(program, name);
+  }
+
+  @Override
+  public void glGetBooleanv(int pname, byte[] params, int offset) {
+    if (stats.call("glGetBooleanv")) stats.arg(pname).arg(params).arg(offset);
+    gl.glGetBooleanv(pname, params, offset);
+  }
+
+  @Override
+  public void glGetBooleanv(int pname, ByteBuffer params) {
+    if (stats.call("glGetBooleanv")) stats.arg(pname).arg(params);
+    gl.glGetBooleanv(pname, params);
+  }
+
+  @Override
+  public int glGetBoundBuffer(int arg0) {
+    if (stats.call("glGetBoundBuffer")) stats.arg(arg0);
+    return gl.glGetBoundBuffer(arg0);
+  }
+
+  @Override
+  public void glGetBufferParameteriv(int target, int pname, int[] params, int offset) {
+    if (stats.call("glGetBufferParameteriv")) stats.arg(target).arg(pname).arg(params).arg(offset);
+    gl.glGetBufferParameteriv(target, pname, params, offset);
+  }
+
+  @Override
+  public void glGetBufferParameteriv(int target, int pname, IntBuffer params) {
+    if (stats.call("glGetBufferParameteriv")) stats.arg(target).arg(pname).arg(params);
+    gl.glGetBufferParameteriv(target, pname, params);
+  }
+
+  @Override
+  public int glGetError() {
+    stats.call("glGetError");
+    return gl.glGetError();
+  }
+
+  @Override
+  public void glGetFloatv(int pname, float[] params, int offset) {
+    if (stats.call("glGetFloatv")) stats.arg(pname).arg(params).arg(offset);
+    gl.glGetFloatv(pname, params, offset);
+  }
+
+  @Override
+  public void glGetFloatv(int pname, FloatBuffer params) {
+    if (stats.call("glGetFloatv")) stats.arg(pname).arg(params);
+    gl.glGetFloatv(pname, params);
+  }
+
+  @Override
+  public void glGetFramebufferAttachmentParameteriv(int target, int attachment, int pname,
+      int[] params, int offset) {
+    if (stats.call("glGetFramebufferAttachmentParameteriv")) {
+      stats.arg(target).arg(attachment).arg(pname).arg(params).arg(offset);
+    }
+    gl.glGetFramebufferAttachmentParameteriv(target, attachment, pname, params, offset);
+  }
+
+  @Override
+  public void glGetFramebufferAttachmentParameteriv(int target, int attachment, int pname,
+      IntBuffer params) {
+    if (stats.call("glGetFramebufferAttachmentParameteriv")) {
+      stats.arg(target).arg(attachment).arg(pname).arg(params);
+    }
+    gl.glGetFramebufferAttachmentParameteriv(target, attachment, pname, params);
+  }
+
+  @Override
+  public void glGetIntegerv(int pname, int[] params, int offset) {
+    if (stats.call("glGetIntegerv")) stats.arg(pname).arg(params).arg(offset);
+    gl.glGetIntegerv(pname, params, offset);
+  }
+
+  @Override
+  public void glGetIntegerv(int pname, IntBuffer params) {
+    if (stats.call("glGetIntegerv")) stats.arg(pname).arg(params);
+    gl.glGetIntegerv(pname, params);
+  }
+
+  @Override
+  public void glGetProgramBinary(int arg0, int arg1, int[] arg2, int arg3, int[] arg4, int arg5,
+      Buffer arg6) {
+    if (stats.call("glGetProgramBinary")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6);
+    }
+    gl.glGetProgramBinary(arg0, arg1, arg2, arg3, arg4, arg5, arg6);
+  }
+
+  @Override
+  public void glGetProgramBinary(int arg0, int arg1, IntBuffer arg2, IntBuffer arg3, Buffer arg4) {
+    if (stats.call("glGetProgramBinary")) stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4);
+    gl.glGetProgramBinary(arg0, arg1, arg2, arg3, arg4);
+  }
+
+  @Override
+  public void glGetProgramInfoLog(int program, int bufsize, int[] length, int lengthOffset,
+      byte[] infolog, int infologOffset) {
+    if (stats.call("glGetProgramInfoLog")) {
+      stats.arg(program).arg(bufsize).arg(length).arg(lengthOffset).arg(infolog).arg(infologOffset);
+    }
+    gl.glGetProgramInfoLog(program, bufsize, length, lengthOffset, infolog, infologOffset);
+  }
+
+  @Override
+  public void glGetProgramInfoLog(int program, int bufsize, IntBuffer length, ByteBuffer infolog) {
+    if (stats.call("glGetProgramInfoLog")) stats.arg(program).arg(bufsize).arg(length).arg(infolog);
+    gl.glGetProgramInfoLog(program, bufsize, length, infolog);
+  }
+
+  @Override
+  public String glGetProgramInfoLog(int program) {
+    if (stats.call("glGetProgramInfoLog")) stats.arg(program);
+    return gl.glGetProgramInfoLog(program);
+  }
+
+  @Override
+  public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+    if (stats.call("glGetProgramiv")) stats.arg(program).arg(pname).arg(params).arg(offset);
+    gl.glGetProgramiv(program, pname, params, offset);
+  }
+
+  @Override
+  public void glGetProgramiv(int program, int pname, IntBuffer params) {
+    if (stats.call("glGetProgramiv")) stats.arg(program).arg(pname).arg(params);
+    gl.glGetProgramiv(program, pname, params);
+  }
+
+  @Override
+  public void glGetRenderbufferParameteriv(int target, int pname, int[] params, int offset) {
+    if (stats.call("glGetRenderbufferParameteriv")) {
+      stats.arg(target).arg(pname).arg(params).arg(offset);
+    }
+    gl.glGetRenderbufferParameteriv(target, pname, params, offset);
+  }
+
+  @Override
+  public void glGetRenderbufferParameteriv(int target, int pname, IntBuffer params) {
+    if (stats.call("glGetRenderbufferParameteriv")) stats.arg(target).arg(pname).arg(params);
+    gl.glGetRenderbufferParameteriv(target, pname, params);
+  }
+
+  @Override
+  public void glGetShaderInfoLog(int shader, int bufsize, int[] length, int lengthOffset,
+      byte[] infolog, int infologOffset) {
+    if (stats.call("glGetShaderInfoLog")) {
+      stats.arg(shader).arg(bufsize).arg(length).arg(lengthOffset).arg(infolog).arg(infologOffset);
+    }
+    gl.glGetShaderInfoLog(shader, bufsize, length, lengthOffset, infolog, infologOffset);
+  }
+
+  @Override
+  public void glGetShaderInfoLog(int shader, int bufsize, IntBuffer length, ByteBuffer infolog) {
+    if (stats.call("glGetShaderInfoLog")) stats.arg(shader).arg(bufsize).arg(length).arg(infolog);
+    gl.glGetShaderInfoLog(shader, bufsize, length, infolog);
+  }
+
+  @Override
+  public String glGetShaderInfoLog(int shader) {
+    if (stats.call("glGetShaderInfoLog")) stats.arg(shader);
+    return gl.glGetShaderInfoLog(shader);
+  }
+
+  @Override
+  public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+    if (stats.call("glGetShaderiv")) stats.arg(shader).arg(pname).arg(params).arg(offset);
+    gl.glGetShaderiv(shader, pname, params, offset);
+  }
+
+  @Override
+  public void glGetShaderiv(int shader, int pname, IntBuffer params) {
+    if (stats.call("glGetShaderiv")) stats.arg(shader).arg(pname).arg(params);
+    gl.glGetShaderiv(shader, pname, params);
+  }
+
+  @Override
+  public void glGetShaderPrecisionFormat(int shadertype, int precisiontype, int[] range,
+      int rangeOffset, int[] precision, int precisionOffset) {
+    if (stats.call("glGetShaderPrecisionFormat")) {
+      stats.arg(shadertype).arg(precisiontype).arg(range).arg(rangeOffset).arg(precision)
+        .arg(precisionOffset);
+    }
+    gl.glGetShaderPrecisionFormat(shadertype, precisiontype, range, rangeOffset, precision,
+        precisionOffset);
+  }
+
+  @Override
+  public void glGetShaderPrecisionFormat(int shadertype, int precisiontype, IntBuffer range,
+      IntBuffer precision) {
+    if (stats.call("glGetShaderPrecisionFormat")) {
+      stats.arg(shadertype).arg(precisiontype).arg(range).arg(precision);
+    }
+    gl.glGetShaderPrecisionFormat(shadertype, precisiontype, range, precision);
+  }
+
+  @Override
+  public void glGetShaderSource(int shader, int bufsize, int[] length, int lengthOffset,
+      byte[] source, int sourceOffset) {
+    if (stats.call("glGetShaderSource")) {
+      stats.arg(shader).arg(bufsize).arg(length).arg(lengthOffset).arg(source).arg(sourceOffset);
+    }
+    gl.glGetShaderSource(shader, bufsize, length, lengthOffset, source, sourceOffset);
+  }
+
+  @Override
+  public void glGetShaderSource(int shader, int bufsize, IntBuffer length, ByteBuffer source) {
+    if (stats.call("glGetShaderSource")) stats.arg(shader).arg(bufsize).arg(length).arg(source);
+    gl.glGetShaderSource(shader, bufsize, length, source);
+  }
+
+  @Override
+  public String glGetString(int name) {
+    if (stats.call("glGetString")) stats.arg(name);
+    return gl.glGetString(name);
+  }
+
+  @Override
+  public void glGetTexParameterfv(int target, int pname, float[] params, int offset) {
+    if (stats.call("glGetTexParameterfv")) stats.arg(target).arg(pname).arg(params).arg(offset);
+    gl.glGetTexParameterfv(target, pname, params, offset);
+  }
+
+  @Override
+  public void glGetTexParameterfv(int target, int pname, FloatBuffer params) {
+    if (stats.call("glGetTexParameterfv")) stats.arg(target).arg(pname).arg(params);
+    gl.glGetTexParameterfv(target, pname, params);
+  }
+
+  @Override
+  public void glGetTexParameteriv(int target, int pname, int[] params, int offset) {
+    if (stats.call("glGetTexParameteriv")) stats.arg(target).arg(pname).arg(params).arg(offset);
+    gl.glGetTexParameteriv(target, pname, params, offset);
+  }
+
+  @Override
+  public void glGetTexParameteriv(int target, int pname, IntBuffer params) {
+    if (stats.call("glGetTexParameteriv")) stats.arg(target).arg(pname).arg(params);
+    gl.glGetTexParameteriv(target, pname, params);
+  }
+
+  @Override
+  public void glGetUniformfv(int program, int location, float[] params, int offset) {
+    if (stats.call("glGetUniformfv")) stats.arg(program).arg(location).arg(params).arg(offset);
+    gl.glGetUniformfv(program, location, params, offset);
+  }
+
+  @Override
+  public void glGetUniformfv(int program, int location, FloatBuffer params) {
+    if (stats.call("glGetUniformfv")) stats.arg(program).arg(location).arg(params);
+    gl.glGetUniformfv(program, location, params);
+  }
+
+  @Override
+  public void glGetUniformiv(int program, int location, int[] params, int offset) {
+    if (stats.call("glGetUniformiv")) stats.arg(program).arg(location).arg(params).arg(offset);
+    gl.glGetUniformiv(program, location, params, offset);
+  }
+
+  @Override
+  public void glGetUniformiv(int program, int location, IntBuffer params) {
+    if (stats.call("glGetUniformiv")) stats.arg(program).arg(location).arg(params);
+    gl.glGetUniformiv(program, location, params);
+  }
+
+  @Override
+  public int glGetUniformLocation(int program, String name) {
+    if (stats.call("glGetUniformLocation")) stats.arg(program).arg(name);
+    return gl.glGetUniformLocation(program, name);
+  }
+
+  @Override
+  public void glGetVertexAttribfv(int index, int pname, float[] params, int offset) {
+    if (stats.call("glGetVertexAttribfv")) stats.arg(index).arg(pname).arg(params).arg(offset);
+    gl.glGetVertexAttribfv(index, pname, params, offset);
+  }
+
+  @Override
+  public void glGetVertexAttribfv(int index, int pname, FloatBuffer params) {
+    if (stats.call("glGetVertexAttribfv")) stats.arg(index).arg(pname).arg(params);
+    gl.glGetVertexAttribfv(index, pname, params);
+  }
+
+  @Override
+  public void glGetVertexAttribiv(int index, int pname, int[] params, int offset) {
+    if (stats.call("glGetVertexAttribiv")) stats.arg(index).arg(pname).arg(params).arg(offset);
+    gl.glGetVertexAttribiv(index, pname, params, offset);
+  }
+
+  @Override
+  public void glGetVertexAttribiv(int index, int pname, IntBuffer params) {
+    if (stats.call("glGetVertexAttribiv")) stats.arg(index).arg(pname).arg(params);
+    gl.glGetVertexAttribiv(index, pname, params);
+  }
+
+  @Override
+  public void glHint(int target, int mode) {
+    if (stats.call("glHint")) stats.arg(target).arg(mode);
+    gl.glHint(target, mode);
+  }
+
+  @Override
+  public boolean glIsBuffer(int buffer) {
+    if (stats.call("glIsBuffer")) stats.arg(buffer);
+    return gl.glIsBuffer(buffer);
+  }
+
+  @Override
+  public boolean glIsEnabled(int cap) {
+    if (stats.call("glIsEnabled")) stats.arg(cap);
+    return gl.glIsEnabled(cap);
+  }
+
+  @Override
+  public boolean glIsFramebuffer(int framebuffer) {
+    if (stats.call("glIsFramebuffer")) stats.arg(framebuffer);
+    return gl.glIsFramebuffer(framebuffer);
+  }
+
+  @Override
+  public boolean glIsProgram(int program) {
+    if (stats.call("glIsProgram")) stats.arg(program);
+    return gl.glIsProgram(program);
+  }
+
+  @Override
+  public boolean glIsRenderbuffer(int renderbuffer) {
+    if (stats.call("glIsRenderbuffer")) stats.arg(renderbuffer);
+    return gl.glIsRenderbuffer(renderbuffer);
+  }
+
+  @Override
+  public boolean glIsShader(int shader) {
+    if (stats.call("glIsShader")) stats.arg(shader);
+    return gl.glIsShader(shader);
+  }
+
+  @Override
+  public boolean glIsTexture(int texture) {
+    if (stats.call("glIsTexture")) stats.arg(texture);
+    return gl.glIsTexture(texture);
+  }
+
+  @Override
+  public boolean glIsVBOArrayEnabled() {
+    stats.call("glIsVBOArrayEnabled");
+    return gl.glIsVBOArrayEnabled();
+  }
+
+  @Override
+  public boolean glIsVBOElementEnabled() {
+    stats.call("glIsVBOElementEnabled");
+    return gl.glIsVBOElementEnabled();
+  }
+
+  @Override
+  public void glLineWidth(float width) {
+    if (stats.call("glLineWidth")) stats.arg(width);
+    gl.glLineWidth(width);
+  }
+
+  @Override
+  public void glLinkProgram(int program) {
+    if (stats.call("glLinkProgram")) stats.arg(program);
+    gl.glLinkProgram(program);
+  }
+
+  @Override
+  public ByteBuffer glMapBuffer(int arg0, int arg1) {
+    if (stats.call("glMapBuffer")) stats.arg(arg0).arg(arg1);
+    return gl.glMapBuffer(arg0, arg1);
+  }
+
+  @Override
+  public void glPixelStorei(int pname, int param) {
+    if (stats.call("glPixelStorei")) stats.arg(pname).arg(param);
+    gl.glPixelStorei(pname, param);
+  }
+
+  @Override
+  public void glPolygonOffset(float factor, float units) {
+    if (stats.call("glPolygonOffset")) stats.arg(factor).arg(units);
+    gl.glPolygonOffset(factor, units);
+  }
+
+  @Override
+  public void glProgramBinary(int arg0, int arg1, Buffer arg2, int arg3) {
+    if (stats.call("glProgramBinary")) stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3);
+    gl.glProgramBinary(arg0, arg1, arg2, arg3);
+  }
+
+  @Override
+  public void glReadPixels(int x, int y, int width, int height, int format, int type,
+      Buffer pixels) {
+    if (stats.call("glReadPixels")) {
+      stats.arg(x).arg(y).arg(width).arg(height).arg(format).arg(type).arg(pixels);
+    }
+    gl.glReadPixels(x, y, width, height, format, type, pixels);
+  }
+
+  @Override
+  public void glReadPixels(int x, int y, int width, int height, int format, int type,
+      long pixelsBufferOffset) {
+    if (stats.call("glReadPixels")) {
+      stats.arg(x).arg(y).arg(width).arg(height).arg(format).arg(type).arg(pixelsBufferOffset);
+    }
+    gl.glReadPixels(x, y, width, height, format, type, pixelsBufferOffset);
+  }
+
+  @Override
+  public void glReleaseShaderCompiler() {
+    stats.call("glReleaseShaderCompiler");
+    gl.glReleaseShaderCompiler();
+  }
+
+  @Override
+  public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+    if (stats.call("glRenderbufferStorage")) {
+      stats.arg(target).arg(internalformat).arg(width).arg(height);
+    }
+    gl.glRenderbufferStorage(target, internalformat, width, height);
+  }
+
+  @Override
+  public void glSampleCoverage(float value, boolean invert) {
+    if (stats.call("glSampleCoverage")) stats.arg(value).arg(invert);
+    gl.glSampleCoverage(value, invert);
+  }
+
+  @Override
+  public void glScissor(int x, int y, int width, int height) {
+    if (stats.call("glScissor")) stats.arg(x).arg(y).arg(width).arg(height);
+    gl.glScissor(x, y, width, height);
+  }
+
+  @Override
+  public void glShaderBinary(int n, int[] shaders, int offset, int binaryformat, Buffer binary,
+      int length) {
+    if (stats.call("glShaderBinary")) {
+      stats.arg(n).arg(shaders).arg(offset).arg(binaryformat).arg(binary).arg(length);
+    }
+    gl.glShaderBinary(n, shaders, offset, binaryformat, binary, length);
+  }
+
+  @Override
+  public void glShaderBinary(int n, IntBuffer shaders, int binaryformat, Buffer binary,
+      int length) {
+    if (stats.call("glShaderBinary")) {
+      stats.arg(n).arg(shaders).arg(binaryformat).arg(binary).arg(length);
+    }
+    gl.glShaderBinary(n, shaders, binaryformat, binary, length);
+  }
+
+  @Override
+  public void glShaderSource(int shader, int count, String[] strings, int[] length,
+      int lengthOffset) {
+    if (stats.call("glShaderSource")) {
+      stats.arg(shader).arg(count).arg(strings).arg(length).arg(lengthOffset);
+    }
+    gl.glShaderSource(shader, count, strings, length, lengthOffset);
+  }
+
+  @Override
+  public void glShaderSource(int shader, int count, String[] strings, IntBuffer length) {
+    if (stats.call("glShaderSource")) stats.arg(shader).arg(count).arg(strings).arg(length);
+    gl.glShaderSource(shader, count, strings, length);
+  }
+
+  @Override
+  public void glShaderSource(int shader, String string) {
+    if (stats.call("glShaderSource")) stats.arg(shader).arg(string);
+    gl.glShaderSource(shader, string);
+  }
+
+  @Override
+  public void glStencilFunc(int func, int ref, int mask) {
+    if (stats.call("glStencilFunc")) stats.arg(func).arg(ref).arg(mask);
+    gl.glStencilFunc(func, ref, mask);
+  }
+
+  @Override
+  public void glStencilFuncSeparate(int face, int func, int ref, int mask) {
+    if (stats.call("glStencilFuncSeparate")) stats.arg(face).arg(func).arg(ref).arg(mask);
+    gl.glStencilFuncSeparate(face, func, ref, mask);
+  }
+
+  @Override
+  public void glStencilMask(int mask) {
+    if (stats.call("glStencilMask")) stats.arg(mask);
+    gl.glStencilMask(mask);
+  }
+
+  @Override
+  public void glStencilMaskSeparate(int face, int mask) {
+    if (stats.call("glStencilMaskSeparate")) stats.arg(face).arg(mask);
+    gl.glStencilMaskSeparate(face, mask);
+  }
+
+  @Override
+  public void glStencilOp(int fail, int zfail, int zpass) {
+    if (stats.call("glStencilOp")) stats.arg(fail).arg(zfail).arg(zpass);
+    gl.glStencilOp(fail, zfail, zpass);
+  }
+
+  @Override
+  public void glStencilOpSeparate(int face, int fail, int zfail, int zpass) {
+    if (stats.call("glStencilOpSeparate")) stats.arg(face).arg(fail).arg(zfail).arg(zpass);
+    gl.glStencilOpSeparate(face, fail, zfail, zpass);
+  }
+
+  @Override
+  public void glTexImage2D(int target, int level, int internalformat, int width, int height,
+      int border, int format, int type, Buffer pixels) {
+    if (stats.call("glTexImage2D")) {
+      stats.arg(target).arg(level).arg(internalformat).arg(width).arg(height).arg(border)
+        .arg(format).arg(type).arg(pixels);
+    }
+    if (target == GL_TEXTURE_2D && level == 0) {
+      stats.textureAllocated(boundTexture(), width * height * GLStats.bytesPerPixel(format, type));
+    }
+    gl.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+  }
+
+  @Override
+  public void glTexImage2D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6,
+      int arg7, long arg8) {
+    if (stats.call("glTexImage2D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8);
+    }
+    gl.glTexImage2D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+  }
+
+  @Override
+  public void glTexImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6,
+      int arg7, int arg8, Buffer arg9) {
+    if (stats.call("glTexImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8).arg(arg9);
+    }
+    gl.glTexImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9);
+  }
+
+  @Override
+  public void glTexImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6,
+      int arg7, int arg8, long arg9) {
+    if (stats.call("glTexImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8).arg(arg9);
+    }
+    gl.glTexImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9);
+  }
+
+  @Override
+  public void glTexParameterf(int target, int pname, float param) {
+    if (stats.call("glTexParameterf")) stats.arg(target).arg(pname).arg(param);
+    gl.glTexParameterf(target, pname, param);
+  }
+
+  @Override
+  public void glTexParameterfv(int target, int pname, float[] params, int offset) {
+    if (stats.call("glTexParameterfv")) stats.arg(target).arg(pname).arg(params).arg(offset);
+    gl.glTexParameterfv(target, pname, params, offset);
+  }
+
+  @Override
+  public void glTexParameterfv(int target, int pname, FloatBuffer params) {
+    if (stats.call("glTexParameterfv")) stats.arg(target).arg(pname).arg(params);
+    gl.glTexParameterfv(target, pname, params);
+  }
+
+  @Override
+  public void glTexParameteri(int target, int pname, int param) {
+    if (stats.call("glTexParameteri")) stats.arg(target).arg(pname).arg(param);
+    gl.glTexParameteri(target, pname, param);
+  }
+
+  @Override
+  public void glTexParameteriv(int target, int pname, int[] params, int offset) {
+    if (stats.call("glTexParameteriv")) stats.arg(target).arg(pname).arg(params).arg(offset);
+    gl.glTexParameteriv(target, pname, params, offset);
+  }
+
+  @Override
+  public void glTexParameteriv(int target, int pname, IntBuffer params) {
+    if (stats.call("glTexParameteriv")) stats.arg(target).arg(pname).arg(params);
+    gl.glTexParameteriv(target, pname, params);
+  }
+
+  @Override
+  public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width,
+      int height, int format, int type, Buffer pixels) {
+    if (stats.call("glTexSubImage2D")) {
+      stats.arg(target).arg(level).arg(xoffset).arg(yoffset).arg(width).arg(height).arg(format)
+        .arg(type).arg(pixels);
+    }
+    gl.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+  }
+
+  @Override
+  public void glTexSubImage2D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6,
+      int arg7, long arg8) {
+    if (stats.call("glTexSubImage2D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8);
+    }
+    gl.glTexSubImage2D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+  }
+
+  @Override
+  public void glTexSubImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6,
+      int arg7, int arg8, int arg9, Buffer arg10) {
+    if (stats.call("glTexSubImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8).arg(arg9).arg(arg10);
+    }
+    gl.glTexSubImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9, arg10);
+  }
+
+  @Override
+  public void glTexSubImage3D(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6,
+      int arg7, int arg8, int arg9, long arg10) {
+    if (stats.call("glTexSubImage3D")) {
+      stats.arg(arg0).arg(arg1).arg(arg2).arg(arg3).arg(arg4).arg(arg5).arg(arg6).arg(arg7)
+        .arg(arg8).arg(arg9).arg(arg10);
+    }
+    gl.glTexSubImage3D(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9, arg10);
+  }
+
+  @Override
+  public void glUniform1f(int location, float x) {
+    if (stats.call("glUniform1f")) stats.arg(location).arg(x);
+    if (same(uniform(location), x, 0, 0, 0)) stats.redundant("glUniform1f");
+    gl.glUniform1f(location, x);
+  }
+
+  @Override
+  public void glUniform1fv(int location, int count, float[] v, int offset) {
+    if (stats.call("glUniform1fv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform1fv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform1fv(int location, int count, FloatBuffer v) {
+    if (stats.call("glUniform1fv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform1fv(location, count, v);
+  }
+
+  @Override
+  public void glUniform1i(int location, int x) {
+    if (stats.call("glUniform1i")) stats.arg(location).arg(x);
+    if (same(uniform(location), x, 0, 0, 0)) stats.redundant("glUniform1i");
+    gl.glUniform1i(location, x);
+  }
+
+  @Override
+  public void glUniform1iv(int location, int count, int[] v, int offset) {
+    if (stats.call("glUniform1iv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform1iv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform1iv(int location, int count, IntBuffer v) {
+    if (stats.call("glUniform1iv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform1iv(location, count, v);
+  }
+
+  @Override
+  public void glUniform2f(int location, float x, float y) {
+    if (stats.call("glUniform2f")) stats.arg(location).arg(x).arg(y);
+    if (same(uniform(location), x, y, 0, 0)) stats.redundant("glUniform2f");
+    gl.glUniform2f(location, x, y);
+  }
+
+  @Override
+  public void glUniform2fv(int location, int count, float[] v, int offset) {
+    if (stats.call("glUniform2fv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform2fv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform2fv(int location, int count, FloatBuffer v) {
+    if (stats.call("glUniform2fv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform2fv(location, count, v);
+  }
+
+  @Override
+  public void glUniform2i(int location, int x, int y) {
+    if (stats.call("glUniform2i")) stats.arg(location).arg(x).arg(y);
+    gl.glUniform2i(location, x, y);
+  }
+
+  @Override
+  public void glUniform2iv(int location, int count, int[] v, int offset) {
+    if (stats.call("glUniform2iv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform2iv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform2iv(int location, int count, IntBuffer v) {
+    if (stats.call("glUniform2iv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform2iv(location, count, v);
+  }
+
+  @Override
+  public void glUniform3f(int location, float x, float y, float z) {
+    if (stats.call("glUniform3f")) stats.arg(location).arg(x).arg(y).arg(z);
+    gl.glUniform3f(location, x, y, z);
+  }
+
+  @Override
+  public void glUniform3fv(int location, int count, float[] v, int offset) {
+    if (stats.call("glUniform3fv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform3fv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform3fv(int location, int count, FloatBuffer v) {
+    if (stats.call("glUniform3fv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform3fv(location, count, v);
+  }
+
+  @Override
+  public void glUniform3i(int location, int x, int y, int z) {
+    if (stats.call("glUniform3i")) stats.arg(location).arg(x).arg(y).arg(z);
+    gl.glUniform3i(location, x, y, z);
+  }
+
+  @Override
+  public void glUniform3iv(int location, int count, int[] v, int offset) {
+    if (stats.call("glUniform3iv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform3iv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform3iv(int location, int count, IntBuffer v) {
+    if (stats.call("glUniform3iv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform3iv(location, count, v);
+  }
+
+  @Override
+  public void glUniform4f(int location, float x, float y, float z, float w) {
+    if (stats.call("glUniform4f")) stats.arg(location).arg(x).arg(y).arg(z).arg(w);
+    if (same(uniform(location), x, y, z, w)) stats.redundant("glUniform4f");
+    gl.glUniform4f(location, x, y, z, w);
+  }
+
+  @Override
+  public void glUniform4fv(int location, int count, float[] v, int offset) {
+    if (stats.call("glUniform4fv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform4fv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform4fv(int location, int count, FloatBuffer v) {
+    if (stats.call("glUniform4fv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform4fv(location, count, v);
+  }
+
+  @Override
+  public void glUniform4i(int location, int x, int y, int z, int w) {
+    if (stats.call("glUniform4i")) stats.arg(location).arg(x).arg(y).arg(z).arg(w);
+    gl.glUniform4i(location, x, y, z, w);
+  }
+
+  @Override
+  public void glUniform4iv(int location, int count, int[] v, int offset) {
+    if (stats.call("glUniform4iv")) stats.arg(location).arg(count).arg(v).arg(offset);
+    gl.glUniform4iv(location, count, v, offset);
+  }
+
+  @Override
+  public void glUniform4iv(int location, int count, IntBuffer v) {
+    if (stats.call("glUniform4iv")) stats.arg(location).arg(count).arg(v);
+    gl.glUniform4iv(location, count, v);
+  }
+
+  @Override
+  public void glUniformMatrix2fv(int location, int count, boolean transpose, float[] value,
+      int offset) {
+    if (stats.call("glUniformMatrix2fv")) {
+      stats.arg(location).arg(count).arg(transpose).arg(value).arg(offset);
+    }
+    gl.glUniformMatrix2fv(location, count, transpose, value, offset);
+  }
+
+  @Override
+  public void glUniformMatrix2fv(int location, int count, boolean transpose, FloatBuffer value) {
+    if (stats.call("glUniformMatrix2fv")) stats.arg(location).arg(count).arg(transpose).arg(value);
+    gl.glUniformMatrix2fv(location, count, transpose, value);
+  }
+
+  @Override
+  public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value,
+      int offset) {
+    if (stats.call("glUniformMatrix3fv")) {
+      stats.arg(location).arg(count).arg(transpose).arg(value).arg(offset);
+    }
+    gl.glUniformMatrix3fv(location, count, transpose, value, offset);
+  }
+
+  @Override
+  public void glUniformMatrix3fv(int location, int count, boolean transpose, FloatBuffer value) {
+    if (stats.call("glUniformMatrix3fv")) stats.arg(location).arg(count).arg(transpose).arg(value);
+    gl.glUniformMatrix3fv(location, count, transpose, value);
+  }
+
+  @Override
+  public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value,
+      int offset) {
+    if (stats.call("glUniformMatrix4fv")) {
+      stats.arg(location).arg(count).arg(transpose).arg(value).arg(offset);
+    }
+    gl.glUniformMatrix4fv(location, count, transpose, value, offset);
+  }
+
+  @Override
+  public void glUniformMatrix4fv(int location, int count, boolean transpose, FloatBuffer value) {
+    if (stats.call("glUniformMatrix4fv")) stats.arg(location).arg(count).arg(transpose).arg(value);
+    gl.glUniformMatrix4fv(location, count, transpose, value);
+  }
+
+  @Override
+  public boolean glUnmapBuffer(int arg0) {
+    if (stats.call("glUnmapBuffer")) stats.arg(arg0);
+    return gl.glUnmapBuffer(arg0);
+  }
+
+  @Override
+  public void glUseProgram(int program) {
+    if (stats.call("glUseProgram")) stats.arg(program);
+    if (program == this.program) stats.redundant("glUseProgram");
+    this.program = program;
+    gl.glUseProgram(program);
+  }
+
+  @Override
+  public void glValidateProgram(int program) {
+    if (stats.call("glValidateProgram")) stats.arg(program);
+    gl.glValidateProgram(program);
+  }
+
+  @Override
+  public void glVertexAttrib1f(int indx, float x) {
+    if (stats.call("glVertexAttrib1f")) stats.arg(indx).arg(x);
+    gl.glVertexAttrib1f(indx, x);
+  }
+
+  @Override
+  public void glVertexAttrib1fv(int indx, float[] values, int offset) {
+    if (stats.call("glVertexAttrib1fv")) stats.arg(indx).arg(values).arg(offset);
+    gl.glVertexAttrib1fv(indx, values, offset);
+  }
+
+  @Override
+  public void glVertexAttrib1fv(int indx, FloatBuffer values) {
+    if (stats.call("glVertexAttrib1fv")) stats.arg(indx).arg(values);
+    gl.glVertexAttrib1fv(indx, values);
+  }
+
+  @Override
+  public void glVertexAttrib2f(int indx, float x, float y) {
+    if (stats.call("glVertexAttrib2f")) stats.arg(indx).arg(x).arg(y);
+    gl.glVertexAttrib2f(indx, x, y);
+  }
+
+  @Override
+  public void glVertexAttrib2fv(int indx, float[] values, int offset) {
+    if (stats.call("glVertexAttrib2fv")) stats.arg(indx).arg(values).arg(offset);
+    gl.glVertexAttrib2fv(indx, values, offset);
+  }
+
+  @Override
+  public void glVertexAttrib2fv(int indx, FloatBuffer values) {
+    if (stats.call("glVertexAttrib2fv")) stats.arg(indx).arg(values);
+    gl.glVertexAttrib2fv(indx, values);
+  }
+
+  @Override
+  public void glVertexAttrib3f(int indx, float x, float y, float z) {
+    if (stats.call("glVertexAttrib3f")) stats.arg(indx).arg(x).arg(y).arg(z);
+    gl.glVertexAttrib3f(indx, x, y, z);
+  }
+
+  @Override
+  public void glVertexAttrib3fv(int indx, float[] values, int offset) {
+    if (stats.call("glVertexAttrib3fv")) stats.arg(indx).arg(values).arg(offset);
+    gl.glVertexAttrib3fv(indx, values, offset);
+  }
+
+  @Override
+  public void glVertexAttrib3fv(int indx, FloatBuffer values) {
+    if (stats.call("glVertexAttrib3fv")) stats.arg(indx).arg(values);
+    gl.glVertexAttrib3fv(indx, values);
+  }
+
+  @Override
+  public void glVertexAttrib4f(int indx, float x, float y, float z, float w) {
+    if (stats.call("glVertexAttrib4f")) stats.arg(indx).arg(x).arg(y).arg(z).arg(w);
+    gl.glVertexAttrib4f(indx, x, y, z, w);
+  }
+
+  @Override
+  public void glVertexAttrib4fv(int indx, float[] values, int offset) {
+    if (stats.call("glVertexAttrib4fv")) stats.arg(indx).arg(values).arg(offset);
+    gl.glVertexAttrib4fv(indx, values, offset);
+  }
+
+  @Override
+  public void glVertexAttrib4fv(int indx, FloatBuffer values) {
+    if (stats.call("glVertexAttrib4fv")) stats.arg(indx).arg(values);
+    gl.glVertexAttrib4fv(indx, values);
+  }
+
+  @Override
+  public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride,
+      Buffer ptr) {
+    if (stats.call("glVertexAttribPointer")) {
+      stats.arg(indx).arg(size).arg(type).arg(normalized).arg(stride).arg(ptr);
+    }
+    gl.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+  }
+
+  @Override
+  public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride,
+      long ptr) {
+    if (stats.call("glVertexAttribPointer")) {
+      stats.arg(indx).arg(size).arg(type).arg(normalized).arg(stride).arg(ptr);
+    }
+    gl.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+  }
+
+  @Override
+  public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride,
+      int ptr) {
+    if (stats.call("glVertexAttribPointer")) {
+      stats.arg(indx).arg(size).arg(type).arg(normalized).arg(stride).arg(ptr);
+    }
+    gl.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+  }
+
+  @Override
+  public void glViewport(int x, int y, int width, int height) {
+    if (stats.call("glViewport")) stats.arg(x).arg(y).arg(width).arg(height);
+    if (same(viewport, x, y, width, height)) stats.redundant("glViewport");
+    gl.glViewport(x, y, width, height);
+  }
+
+  @Override
+  public boolean hasGLSL() {
+    return gl.hasGLSL();
+  }
+
+  @Override
+  public boolean isExtensionAvailable(String extension) {
+    return gl.isExtensionAvailable(extension);
+  }
+
+  @Override
+  public boolean isFunctionAvailable(String function) {
+    return gl.isFunctionAvailable(function);
+  }
+
+  private int boundTexture() {
+    return boundTextures[activeTexture - GL_TEXTURE0];
+  }
+
+  private void textureDeleted(int texture) {
+    stats.textureDeleted(texture);
+    for (int ii = 0; ii < boundTextures.length; ii++) {
+      if (boundTextures[ii] == texture) boundTextures[ii] = 0;
+    }
+  }
+
+  private float[] uniform(int location) {
+    Long key = ((long) program << 32) | (location & 0xFFFFFFFFL);
+    float[] values = uniforms.get(key);
+    if (values == null) {
+      uniforms.put(key, values = new float[] { Float.NaN, Float.NaN, Float.NaN, Float.NaN });
+    }
+    return values;
+  }
+
+  // updates state to the supplied values, returning true if it already had those values
+  private static boolean same(int[] state, int a, int b, int c, int d) {
+    boolean same = (state[0] == a && state[1] == b && state[2] == c && state[3] == d);
+    state[0] = a; state[1] = b; state[2] = c; state[3] = d;
+    return same;
+  }
+
+  // updates state to the supplied values, returning true if it already had those values
+  private static boolean same(float[] state, float a, float b, float c, float d) {
+    boolean same = (state[0] == a && state[1] == b && state[2] == c && state[3] == d);
+    state[0] = a; state[1] = b; state[2] = c; state[3] = d;
+    return same;
+  }
+
+  // the value of tracked state that has not yet been set through this wrapper
+  private static final int UNKNOWN = Integer.MIN_VALUE;
+
+  // GL ES 2 guarantees at least 8 texture units, and no device offers more than 32
+  private static final int MAX_TEXTURE_UNITS = 32;
+
+  private final AndroidGL20 gl;
+  private final GLStats stats = new GLStats();
+
+  // the state that we track, to detect redundant calls
+  private int program = UNKNOWN, activeTexture = GL_TEXTURE0, arrayBuffer = UNKNOWN,
+    elementBuffer = UNKNOWN, framebuffer = UNKNOWN;
+  private final int[] boundTextures = new int[MAX_TEXTURE_UNITS];
+  private final int[] blendFunc = new int[4], viewport = new int[4];
+  private final float[] clearColor = new float[4];
+  private final Map<Integer, Boolean> caps = new HashMap<Integer, Boolean>();
+  private final Map<Long, float[]> uniforms = new HashMap<Long, float[]>();
+}
@@ -67,6 +67,9 @@ public abstract class GameActivity extends Activity {
       // Provide our own native bindings for some missing methods.
       gl20 = new AndroidGL20Native();
     }
+    if (countGLCalls()) {
+      gl20 = new CountingGL20(gl20);
+    }
 
     // Build a View to hold the surface view and report changes to the screen
     // size.
@@ -133,6 +136,16 @@ public abstract class GameActivity extends Activity {
     return false;
   }
 
+  /**
+   * Determines whether the game's GL calls are counted (see {@link CountingGL20}), which is
+   * useful for spotting batching regressions and leaked textures, but slows rendering. Defaults
+   * to false. Override this method to return true to count calls; the statistics are available
+   * via {@link AndroidGraphics#glStats}.
+   */
+  public boolean countGLCalls() {
+    return false;
+  }
+
   public LinearLayout viewLayout() {
     return viewLayout;
   }
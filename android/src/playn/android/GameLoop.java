@@ -19,6 +19,8 @@ import static playn.core.PlayN.log;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import playn.core.FrameMetrics;
+
 public class GameLoop implements Runnable {
   private static final boolean LOG_FPS = false;
   private static final int MAX_DELTA = 100;
@@ -79,8 +81,14 @@ public class GameLoop implements Runnable {
       }
     }
 
+    int updated = time();
+    FrameMetrics metrics = AndroidPlatform.instance.metrics();
+    metrics.add(FrameMetrics.Stat.UPDATE_TIME, updated - now);
+
     paintAlpha = (updateRate == 0) ? 0 : accum / updateRate;
     paint();
+    metrics.add(FrameMetrics.Stat.PAINT_TIME, time() - updated);
+    metrics.endFrame();
 
     if (LOG_FPS) {
       totalTime += delta / 1000;
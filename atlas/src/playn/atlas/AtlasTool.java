@@ -0,0 +1,171 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.atlas;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import playn.core.gl.AtlasIndex;
+import playn.core.gl.AtlasPacker;
+import playn.core.gl.TextureAtlas;
+
+/**
+ * Packs the images in an asset directory into atlas pages and writes an {@link AtlasIndex} that
+ * maps each image's logical path to its region of a page. A game loads the index via {@link
+ * playn.core.AssetManager#loadAtlas} and then continues to request images by their original
+ * paths, which are served from the (few) atlas pages rather than being loaded individually.
+ *
+ * <p>Usage: {@code AtlasTool [-size N] assetRoot indexPath}, where {@code indexPath} is relative
+ * to {@code assetRoot}. Pages are written next to the index, named after it. Images that are too
+ * large to share a page with others are left alone.</p>
+ */
+public class AtlasTool {
+
+  public static void main(String[] args) throws IOException {
+    int size = TextureAtlas.DEFAULT_PAGE_SIZE, aa = 0;
+    if (args.length > 1 && args[0].equals("-size")) {
+      size = Integer.parseInt(args[1]);
+      aa = 2;
+    }
+    if (args.length - aa != 2) {
+      System.err.println("Usage: AtlasTool [-size N] assetRoot indexPath");
+      System.exit(255);
+    }
+    AtlasTool tool = new AtlasTool(new File(args[aa]), args[aa+1], size);
+    tool.build();
+  }
+
+  public AtlasTool(File root, String indexPath, int pageSize) {
+    this.root = root;
+    this.indexPath = indexPath;
+    this.pageSize = pageSize;
+    int slash = indexPath.lastIndexOf('/');
+    String name = indexPath.substring(slash + 1);
+    int dot = name.lastIndexOf('.');
+    this.pagePrefix = (dot < 0) ? name : name.substring(0, dot);
+    this.indexDir = new File(root, (slash < 0) ? "" : indexPath.substring(0, slash));
+  }
+
+  /**
+   * Scans the asset directory, packs the images found therein and writes the pages and index.
+   */
+  public void build() throws IOException {
+    List<Source> sources = new ArrayList<Source>();
+    scan(root, "", sources);
+
+    // packing tallest images first makes for better use of shelves
+    Collections.sort(sources, new Comparator<Source>() {
+      public int compare(Source a, Source b) {
+        return b.image.getHeight() - a.image.getHeight();
+      }
+    });
+
+    AtlasPacker packer = new AtlasPacker(pageSize, pageSize, TextureAtlas.PADDING);
+    List<AtlasPacker.Region> regions = new ArrayList<AtlasPacker.Region>();
+    for (Source source : sources) {
+      regions.add(packer.pack(source.image.getWidth(), source.image.getHeight()));
+    }
+
+    AtlasIndex index = new AtlasIndex();
+    List<BufferedImage> pages = new ArrayList<BufferedImage>();
+    for (int ii = 0, ll = packer.pageCount(); ii < ll; ii++) {
+      index.addPage(pagePrefix + "-" + ii + ".png");
+      pages.add(new BufferedImage(packer.pageWidth(ii), packer.pageHeight(ii),
+                                  BufferedImage.TYPE_INT_ARGB));
+    }
+    for (int ii = 0, ll = sources.size(); ii < ll; ii++) {
+      Source source = sources.get(ii);
+      AtlasPacker.Region region = regions.get(ii);
+      Graphics2D gfx = pages.get(region.page).createGraphics();
+      gfx.setComposite(AlphaComposite.Src);
+      gfx.drawImage(source.image, region.x, region.y, null);
+      gfx.dispose();
+      index.addEntry(new AtlasIndex.Entry(source.path, region.page, region.x, region.y,
+                                          region.width, region.height));
+    }
+
+    indexDir.mkdirs();
+    for (int ii = 0, ll = pages.size(); ii < ll; ii++) {
+      ImageIO.write(pages.get(ii), "png", new File(indexDir, index.pages().get(ii)));
+    }
+    Writer out = new OutputStreamWriter(new FileOutputStream(new File(root, indexPath)), "UTF-8");
+    try {
+      out.write(index.encode());
+    } finally {
+      out.close();
+    }
+    System.out.println("Packed " + sources.size() + " images into " + pages.size() + " page(s).");
+  }
+
+  protected void scan(File dir, String prefix, List<Source> sources) throws IOException {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      throw new IOException("Unable to list " + dir);
+    }
+    for (File file : files) {
+      String path = prefix + file.getName();
+      if (file.isDirectory()) {
+        scan(file, path + "/", sources);
+      } else if (isImage(file.getName()) && !isPage(file)) {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+          System.err.println("Skipping unreadable image " + path);
+        } else if (image.getWidth() > pageSize / 2 || image.getHeight() > pageSize / 2) {
+          System.err.println("Skipping " + path + ", too large to share a page");
+        } else {
+          sources.add(new Source(path, image));
+        }
+      }
+    }
+  }
+
+  protected boolean isImage(String name) {
+    String lname = name.toLowerCase();
+    return lname.endsWith(".png") || lname.endsWith(".jpg") || lname.endsWith(".jpeg");
+  }
+
+  protected boolean isPage(File file) throws IOException {
+    // don't pack the pages written by a previous run of this tool
+    return file.getParentFile().getCanonicalFile().equals(indexDir.getCanonicalFile()) &&
+      file.getName().startsWith(pagePrefix + "-");
+  }
+
+  protected static class Source {
+    public final String path;
+    public final BufferedImage image;
+
+    public Source(String path, BufferedImage image) {
+      this.path = path;
+      this.image = image;
+    }
+  }
+
+  protected final File root, indexDir;
+  protected final String indexPath, pagePrefix;
+  protected final int pageSize;
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.atlas;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.gl.AtlasIndex;
+
+/**
+ * Tests {@link AtlasTool} by packing a directory of images and decoding the resulting index.
+ */
+public class AtlasToolTest {
+
+  @Before public void createRoot() throws IOException {
+    root = File.createTempFile("atlastool", "");
+    root.delete();
+    root.mkdirs();
+  }
+
+  @After public void deleteRoot() {
+    delete(root);
+  }
+
+  @Test public void testRoundTrip() throws IOException {
+    Map<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+    images.put("tile.png", writeImage("tile.png", 16, 16, 0xFFFF0000));
+    images.put("sprites/hero.png", writeImage("sprites/hero.png", 24, 40, 0xFF00FF00));
+    images.put("sprites/foe.png", writeImage("sprites/foe.png", 30, 12, 0x8000FFFF));
+    for (int ii = 0; ii < 20; ii++) {
+      String path = "bits/bit" + ii + ".png";
+      images.put(path, writeImage(path, 24 + ii, 20 + ii, 0xFF000000 | (ii * 0x0A0B0C)));
+    }
+    // too large to share a 128 pixel page, so it is left out of the atlas
+    writeImage("backdrop.png", 100, 100, 0xFFFFFFFF);
+
+    new AtlasTool(root, "atlas/index.txt", 128).build();
+    AtlasIndex index = readIndex("atlas/index.txt");
+
+    assertTrue(index.pages().size() > 1);
+    assertEquals(images.size(), index.entries().size());
+    for (AtlasIndex.Entry entry : index.entries()) {
+      BufferedImage source = images.get(entry.path);
+      assertNotNull("Unexpected entry " + entry.path, source);
+      assertEquals(source.getWidth(), entry.width);
+      assertEquals(source.getHeight(), entry.height);
+
+      // the region of the page must contain the source image's pixels
+      BufferedImage page = ImageIO.read(new File(root, "atlas/" + index.pages().get(entry.page)));
+      assertTrue(entry.x + entry.width <= page.getWidth());
+      assertTrue(entry.y + entry.height <= page.getHeight());
+      for (int yy = 0; yy < entry.height; yy++) {
+        for (int xx = 0; xx < entry.width; xx++) {
+          assertEquals(entry.path, source.getRGB(xx, yy),
+                       page.getRGB(entry.x + xx, entry.y + yy));
+        }
+      }
+
+      // and must not overlap any other entry on the same page
+      for (AtlasIndex.Entry other : index.entries()) {
+        if (other != entry && other.page == entry.page) {
+          assertFalse(entry.path + " overlaps " + other.path,
+                      entry.x < other.x + other.width && other.x < entry.x + entry.width &&
+                      entry.y < other.y + other.height && other.y < entry.y + entry.height);
+        }
+      }
+    }
+
+    // rebuilding must not pack the pages written by the first build
+    new AtlasTool(root, "atlas/index.txt", 128).build();
+    assertEquals(images.size(), readIndex("atlas/index.txt").entries().size());
+  }
+
+  protected BufferedImage writeImage(String path, int width, int height, int argb)
+      throws IOException {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    for (int yy = 0; yy < height; yy++) {
+      for (int xx = 0; xx < width; xx++) {
+        image.setRGB(xx, yy, argb);
+      }
+    }
+    File file = new File(root, path);
+    file.getParentFile().mkdirs();
+    ImageIO.write(image, "png", file);
+    return image;
+  }
+
+  protected AtlasIndex readIndex(String path) throws IOException {
+    Reader in = new InputStreamReader(new FileInputStream(new File(root, path)), "UTF-8");
+    try {
+      StringBuilder buf = new StringBuilder();
+      char[] chars = new char[1024];
+      for (int read; (read = in.read(chars)) > 0; ) {
+        buf.append(chars, 0, read);
+      }
+      return AtlasIndex.decode(buf.toString());
+    } finally {
+      in.close();
+    }
+  }
+
+  protected static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  protected File root;
+}
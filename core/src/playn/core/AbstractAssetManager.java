@@ -1,10 +1,21 @@
 package playn.core;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import playn.core.gl.AtlasImage;
+import playn.core.gl.AtlasIndex;
+
 public abstract class AbstractAssetManager implements AssetManager {
   
   private int totalRequestsCount = 0;
   private int successCount = 0;
   private int errorsCount = 0;
+
+  // maps logical image paths to their location in a loaded atlas
+  private Map<String, AtlasRegion> atlasRegions = new HashMap<String, AtlasRegion>();
+  // atlas pages, loaded on demand when an image in the page is first requested
+  private Map<String, Image> atlasPages = new HashMap<String, Image>();
   
   @SuppressWarnings("rawtypes")
   private ResourceCallback callback = new ResourceCallback() {
@@ -23,13 +34,23 @@ public abstract class AbstractAssetManager implements AssetManager {
   @Override
   public final Image getImage(String path) {
     incrementRequestCount();
-    Image image = doGetImage(path);
+    AtlasRegion region = rendersAtlasImages() ? atlasRegions.get(path) : null;
+    Image image = (region == null) ? doGetImage(path) : getAtlasImage(region);
     image.addCallback(callback);
     return image;
   }
 
   protected abstract Image doGetImage(String path);
 
+  /**
+   * Returns true if this platform's image layers can draw an {@link AtlasImage}. Images are only
+   * served from loaded atlases on such platforms; elsewhere they continue to be loaded
+   * individually.
+   */
+  protected boolean rendersAtlasImages() {
+    return false;
+  }
+
   @Override
   public final Sound getSound(String path) {
     Sound sound = doGetSound(path);
@@ -48,6 +69,41 @@ public abstract class AbstractAssetManager implements AssetManager {
 
   protected abstract void doGetText(String path, ResourceCallback<String> callback);
 
+  @Override
+  public void loadAtlas(final String path, final ResourceCallback<AtlasIndex> callback) {
+    doGetText(path, new ResourceCallback<String>() {
+      @Override
+      public void done(String text) {
+        AtlasIndex index;
+        try {
+          index = AtlasIndex.decode(text);
+        } catch (Exception e) {
+          callback.error(e);
+          return;
+        }
+        int slash = path.lastIndexOf('/');
+        addAtlas((slash < 0) ? "" : path.substring(0, slash + 1), index);
+        callback.done(index);
+      }
+
+      @Override
+      public void error(Throwable err) {
+        callback.error(err);
+      }
+    });
+  }
+
+  /**
+   * Registers the images in the supplied atlas index, whose page paths are relative to {@code
+   * pagePrefix}.
+   */
+  protected void addAtlas(String pagePrefix, AtlasIndex index) {
+    for (AtlasIndex.Entry entry : index.entries()) {
+      String pagePath = pagePrefix + index.pages().get(entry.page);
+      atlasRegions.put(entry.path, new AtlasRegion(pagePath, entry));
+    }
+  }
+
   @Override
   public final boolean isDone() {
     boolean done = (this.totalRequestsCount == this.errorsCount + this.successCount);
@@ -62,4 +118,23 @@ public abstract class AbstractAssetManager implements AssetManager {
   private void incrementRequestCount() {
     ++totalRequestsCount;
   }
+
+  private Image getAtlasImage(AtlasRegion region) {
+    Image page = atlasPages.get(region.pagePath);
+    if (page == null) {
+      atlasPages.put(region.pagePath, page = doGetImage(region.pagePath));
+    }
+    AtlasIndex.Entry entry = region.entry;
+    return new AtlasImage(page, entry.x, entry.y, entry.width, entry.height);
+  }
+
+  private static class AtlasRegion {
+    public final String pagePath;
+    public final AtlasIndex.Entry entry;
+
+    public AtlasRegion(String pagePath, AtlasIndex.Entry entry) {
+      this.pagePath = pagePath;
+      this.entry = entry;
+    }
+  }
 }
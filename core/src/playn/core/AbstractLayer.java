@@ -13,6 +13,7 @@
  */
 package playn.core;
 
+import pythagoras.f.Rectangle;
 import pythagoras.f.Transform;
 
 import playn.core.Layer;
@@ -26,7 +27,12 @@ public abstract class AbstractLayer implements Layer {
   protected static enum Flag {
     DESTROYED(1 << 0),
     VISIBLE(1 << 1),
-    SHOWN(1 << 2); // used by HtmlLayerDom
+    SHOWN(1 << 2), // used by HtmlLayerDom
+    XFDIRTY(1 << 3), // set when our transform (or origin) may have changed
+    BOUNDSDIRTY(1 << 4), // set when a group's cached bounds may have changed
+    HITDIRTY(1 << 5), // set when our bounds may have changed since a HitTester indexed us
+    HITCHILDDIRTY(1 << 6), // set when a descendant's HITDIRTY flag is set
+    RENDERDIRTY(1 << 7); // set when we or a descendant changed since a frozen group recorded us
 
     public final int bitmask;
 
@@ -47,6 +53,8 @@ public abstract class AbstractLayer implements Layer {
     transform = createTransform();
     alpha = 1;
     setFlag(Flag.VISIBLE, true);
+    setFlag(Flag.XFDIRTY, true);
+    setFlag(Flag.BOUNDSDIRTY, true);
   }
 
   @Override
@@ -70,6 +78,7 @@ public abstract class AbstractLayer implements Layer {
   @Override
   public void setVisible(boolean visible) {
     setFlag(Flag.VISIBLE, visible);
+    boundsChanged();
   }
 
   @Override
@@ -86,6 +95,7 @@ public abstract class AbstractLayer implements Layer {
     } else {
       this.alpha = alpha;
     }
+    renderChanged();
   }
 
   @Override
@@ -102,6 +112,7 @@ public abstract class AbstractLayer implements Layer {
   public void setOrigin(float x, float y) {
     this.originX = x;
     this.originY = y;
+    transformChanged();
   }
 
   @Override
@@ -117,33 +128,46 @@ public abstract class AbstractLayer implements Layer {
       if (parent != null) {
         ((ParentLayer)parent).depthChanged(this, oldDepth);
       }
+      renderChanged();
     }
   }
 
   @Override
   public void setRotation(float angle) {
     transform.setRotation(angle);
+    transformChanged();
   }
 
   @Override
   public void setScale(float s) {
     Asserts.checkArgument(s != 0, "Scale must be non-zero");
     transform.setUniformScale(s);
+    transformChanged();
   }
 
   @Override
   public void setScale(float x, float y) {
     Asserts.checkArgument(x != 0 && y != 0, "Scale must be non-zero (got x=%s, y=%s)", x, y);
     transform.setScale(x, y);
+    transformChanged();
   }
 
   @Override
   public void setTranslation(float x, float y) {
     transform.setTranslation(x, y);
+    transformChanged();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Because the caller may modify the returned transform, this marks the transform as changed.
+   * Code that retains the transform and modifies it later must call this method again to ensure
+   * that the change is noticed.</p>
+   */
   @Override
   public Transform transform() {
+    transformChanged();
     return transform;
   }
 
@@ -160,7 +184,39 @@ public abstract class AbstractLayer implements Layer {
   }
 
   public void setParent(GroupLayer parent) {
+    boundsChanged(); // our old parent's bounds
     this.parent = parent;
+    transformChanged();
+  }
+
+  /**
+   * Computes the bounds of this layer in its own coordinate system and stores them into {@code
+   * into}. Layers that paint nothing (e.g. empty groups) report empty bounds.
+   *
+   * @return false if this layer's bounds are not known (for example, because it is waiting on an
+   * image to load), in which case it must never be culled.
+   */
+  public boolean bounds(Rectangle into) {
+    if (!(this instanceof HasSize)) {
+      return false;
+    }
+    HasSize sized = (HasSize) this;
+    float width = sized.width(), height = sized.height();
+    if (width <= 0 || height <= 0) {
+      return false;
+    }
+    into.setBounds(0, 0, width, height);
+    return true;
+  }
+
+  /**
+   * Returns the transform from this layer's coordinate system (accounting for its origin) to
+   * screen coordinates, if the backend has cached it while painting and it is still valid.
+   * Otherwise returns null, and {@link Layer.Util} computes the transform from the layer's
+   * ancestors.
+   */
+  protected InternalTransform screenTransform() {
+    return null;
   }
 
   protected boolean isSet(Flag flag) {
@@ -175,6 +231,54 @@ public abstract class AbstractLayer implements Layer {
     }
   }
 
+  /**
+   * Notes that this layer's transform has changed, or may have changed.
+   */
+  protected void transformChanged() {
+    setFlag(Flag.XFDIRTY, true);
+    boundsChanged();
+  }
+
+  /**
+   * Notes that this layer's bounds in its parent's coordinate system may have changed, which
+   * invalidates the cached bounds of its ancestors (and any {@link HitTester} index entries for
+   * this layer and its descendants). Subclasses must call this when their size changes.
+   */
+  protected void boundsChanged() {
+    // if an ancestor's bounds are already dirty, so are those of all of its ancestors
+    AbstractLayer layer = (AbstractLayer) parent;
+    while (layer != null && !layer.isSet(Flag.BOUNDSDIRTY)) {
+      layer.setFlag(Flag.BOUNDSDIRTY, true);
+      layer = (AbstractLayer) layer.parent;
+    }
+    // likewise for the flags that lead a hit tester to the layers that need reindexing
+    setFlag(Flag.HITDIRTY, true);
+    layer = (AbstractLayer) parent;
+    while (layer != null && !layer.isSet(Flag.HITCHILDDIRTY)) {
+      layer.setFlag(Flag.HITCHILDDIRTY, true);
+      layer = (AbstractLayer) layer.parent;
+    }
+    renderChanged();
+  }
+
+  /**
+   * Notes that this layer has changed in a way that affects how it is painted, which invalidates
+   * the render list of any frozen group that contains it (see {@link GroupLayer#setFrozen}).
+   * Changes that affect the layer's bounds are covered by {@link #boundsChanged}; subclasses must
+   * call this for other changes to their appearance (other than changes to the content of their
+   * textures).
+   */
+  protected void renderChanged() {
+    setFlag(Flag.RENDERDIRTY, true);
+    // we start with our parent regardless of our own state, because a layer that has just been
+    // added to a frozen group may have been marked while outside it
+    AbstractLayer layer = (AbstractLayer) parent;
+    while (layer != null && !layer.isSet(Flag.RENDERDIRTY)) {
+      layer.setFlag(Flag.RENDERDIRTY, true);
+      layer = (AbstractLayer) layer.parent;
+    }
+  }
+
   protected InternalTransform createTransform() {
     return new StockInternalTransform();
   }
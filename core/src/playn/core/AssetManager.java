@@ -15,6 +15,8 @@
  */
 package playn.core;
 
+import playn.core.gl.AtlasIndex;
+
 /**
  * Fetches and returns assets.  This interface assumes that some or all assets
  * are asynchronously loaded.  Loading
@@ -44,6 +46,19 @@ public interface AssetManager {
    */
   void getText(String path, ResourceCallback<String> callback);
 
+  /**
+   * Loads an atlas index (produced by the offline atlas tool) from the specified path. Once the
+   * index is loaded, calls to {@link #getImage} for any image contained in the atlas will return
+   * a region of the appropriate atlas page rather than loading the image individually. Page image
+   * paths are resolved relative to the directory containing the index. Platforms that cannot
+   * render atlas regions (currently all but the GL backends) load the index but continue to load
+   * images individually.
+   *
+   * @param path a path to the atlas index resource
+   * @param callback notified when the index is loaded (or fails to load)
+   */
+  void loadAtlas(String path, ResourceCallback<AtlasIndex> callback);
+
   /**
    * @return <code>true</code> if all requested assets have been loaded or errored out,
    * or <code>false</code> if there are assets remaining to be retrieved
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.RandomAccess;
+
+/**
+ * The children of a {@link GroupLayerImpl}, kept in order of increasing depth. Rather than moving
+ * a child every time its depth changes, the list can be marked as unsorted (see {@link
+ * #invalidate}), in which case it is re-sorted in a single pass the next time its elements are
+ * accessed. Thus changing the depths of all {@code n} children costs {@code O(n log n)} rather
+ * than {@code O(n^2)}.
+ */
+public class ChildList<L extends AbstractLayer> extends AbstractList<L> implements RandomAccess
+{
+  /**
+   * Notes that the depth of one or more children has changed. The list will be re-sorted before
+   * its elements are next accessed.
+   */
+  public void invalidate() {
+    unsorted = true;
+  }
+
+  /**
+   * Returns true if this list must be re-sorted before its elements are accessed.
+   */
+  public boolean unsorted() {
+    return unsorted;
+  }
+
+  /**
+   * Sorts this list by depth, if any of its children's depths have changed since it was last
+   * sorted. The sort is stable, so children with the same depth retain their relative order.
+   */
+  public void sortByDepth() {
+    if (!unsorted) {
+      return;
+    }
+    unsorted = false;
+    // in the common case (little or no reordering) this check saves us the sort
+    for (int ii = 1; ii < size; ii++) {
+      if (elems[ii-1].depth() > elems[ii].depth()) {
+        Arrays.sort(elems, 0, size, DEPTH_ORDER);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Merges the supplied layers, which must be sorted by depth, into this list in a single pass.
+   * Layers are placed after any existing children of the same depth.
+   */
+  public void merge(AbstractLayer[] sorted) {
+    if (unsorted) sortByDepth();
+    ensureCapacity(size + sorted.length);
+    // merge from the back so that no child need be moved more than once
+    int ii = size-1, jj = sorted.length-1, kk = size + sorted.length - 1;
+    while (jj >= 0) {
+      if (ii >= 0 && compareDepth(elems[ii], sorted[jj]) > 0) {
+        elems[kk--] = elems[ii--];
+      } else {
+        elems[kk--] = sorted[jj--];
+      }
+    }
+    size += sorted.length;
+    modCount++;
+  }
+
+  /**
+   * Appends a layer to this list without regard to its depth, and marks the list as unsorted.
+   * Thus appending {@code n} layers costs a single sort, which happens the next time the list's
+   * elements are accessed.
+   */
+  public void append(L elem) {
+    ensureCapacity(size+1);
+    elems[size++] = elem;
+    unsorted = true;
+    modCount++;
+  }
+
+  /**
+   * Removes, in a single pass, all of the layers in this list that are contained in {@code
+   * layers}, which should be a collection with a fast {@code contains}, e.g. a set.
+   */
+  @Override
+  public boolean removeAll(Collection<?> layers) {
+    int kept = 0;
+    for (int ii = 0; ii < size; ii++) {
+      if (!layers.contains(elems[ii])) {
+        elems[kept++] = elems[ii];
+      }
+    }
+    if (kept == size) {
+      return false;
+    }
+    Arrays.fill(elems, kept, size, null);
+    size = kept;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Returns a count that changes whenever children are added to or removed from this list.
+   */
+  public int modCount() {
+    return modCount;
+  }
+
+  @Override
+  public L get(int index) {
+    checkIndex(index, size);
+    if (unsorted) sortByDepth();
+    @SuppressWarnings("unchecked") L elem = (L)elems[index];
+    return elem;
+  }
+
+  @Override
+  public L set(int index, L elem) {
+    L old = get(index);
+    elems[index] = elem;
+    return old;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void add(int index, L elem) {
+    checkIndex(index, size+1);
+    if (unsorted) sortByDepth();
+    ensureCapacity(size+1);
+    System.arraycopy(elems, index, elems, index+1, size-index);
+    elems[index] = elem;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public L remove(int index) {
+    L old = get(index);
+    System.arraycopy(elems, index+1, elems, index, size-index-1);
+    elems[--size] = null;
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(elems, 0, size, null);
+    size = 0;
+    unsorted = false;
+    modCount++;
+  }
+
+  private static int compareDepth(AbstractLayer a, AbstractLayer b) {
+    float ad = a.depth(), bd = b.depth();
+    return (ad < bd) ? -1 : ((ad > bd) ? 1 : 0);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > elems.length) {
+      AbstractLayer[] nelems = new AbstractLayer[Math.max(capacity, elems.length * 2)];
+      System.arraycopy(elems, 0, nelems, 0, size);
+      elems = nelems;
+    }
+  }
+
+  private static void checkIndex(int index, int limit) {
+    if (index < 0 || index >= limit) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (limit-1));
+    }
+  }
+
+  static final Comparator<AbstractLayer> DEPTH_ORDER = new Comparator<AbstractLayer>() {
+    public int compare(AbstractLayer a, AbstractLayer b) {
+      return compareDepth(a, b);
+    }
+  };
+
+  private AbstractLayer[] elems = new AbstractLayer[8];
+  private int size;
+  private boolean unsorted;
+}
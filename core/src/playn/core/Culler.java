@@ -0,0 +1,119 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import pythagoras.f.Rectangle;
+
+/**
+ * Determines whether layers lie entirely outside the viewport, so that the backends can skip
+ * painting them (and, for groups, all of their descendants). Layers whose bounds are not known
+ * (see {@link AbstractLayer#bounds}) are never culled.
+ */
+public class Culler {
+
+  /**
+   * Prepares this culler for a new frame, which will be painted into the specified viewport.
+   */
+  public void reset(float x, float y, float width, float height) {
+    viewport.setBounds(x, y, width, height);
+    culled = visited = 0;
+  }
+
+  /**
+   * Returns the number of layers checked by {@link #cull} since the last call to {@link #reset},
+   * whether or not they were culled.
+   */
+  public int visited() {
+    return visited;
+  }
+
+  /**
+   * Returns the number of layers culled since the last call to {@link #reset}. A culled group
+   * counts as a single layer, regardless of how many descendants it has.
+   */
+  public int culled() {
+    return culled;
+  }
+
+  /**
+   * Disables culling until the matching call to {@link #resume}. This is used when painting
+   * layers somewhere other than the viewport (e.g. into an offscreen cache), or when everything
+   * must be painted regardless of visibility. Calls may be nested.
+   */
+  public void suspend() {
+    suspended++;
+  }
+
+  /**
+   * Re-enables culling disabled by {@link #suspend}.
+   */
+  public void resume() {
+    Asserts.checkState(suspended > 0, "resume() called without matching suspend()");
+    suspended--;
+  }
+
+  /**
+   * Returns true if {@code layer} lies entirely outside the viewport, and should not be painted.
+   *
+   * @param parentTransform the transform from the coordinate system of the layer's parent to that
+   * of the viewport.
+   */
+  public boolean cull(AbstractLayer layer, InternalTransform parentTransform) {
+    visited++;
+    if (suspended > 0 || !layer.bounds(bounds)) {
+      return false;
+    }
+    transformBounds(layer, parentTransform.m00(), parentTransform.m01(), parentTransform.m10(),
+                    parentTransform.m11(), parentTransform.tx(), parentTransform.ty(), bounds);
+    if (bounds.x > viewport.x + viewport.width || bounds.x + bounds.width < viewport.x ||
+        bounds.y > viewport.y + viewport.height || bounds.y + bounds.height < viewport.y) {
+      culled++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Transforms {@code bounds}, which are in the coordinate system of {@code layer}, into the
+   * coordinate system of the layer's parent, and then by the supplied parent transform. The
+   * bounding box of the result is stored back into {@code bounds}.
+   */
+  static void transformBounds(AbstractLayer layer, float p00, float p01, float p10, float p11,
+                              float ptx, float pty, Rectangle bounds) {
+    // combine the layer's transform (accounting for its origin) with the parent transform
+    InternalTransform lt = layer.transform;
+    float ox = layer.originX, oy = layer.originY;
+    float l00 = lt.m00(), l01 = lt.m01(), l10 = lt.m10(), l11 = lt.m11();
+    float ltx = lt.tx() - (l00 * ox + l10 * oy), lty = lt.ty() - (l01 * ox + l11 * oy);
+    float m00 = p00 * l00 + p10 * l01, m01 = p01 * l00 + p11 * l01;
+    float m10 = p00 * l10 + p10 * l11, m11 = p01 * l10 + p11 * l11;
+    float tx = p00 * ltx + p10 * lty + ptx, ty = p01 * ltx + p11 * lty + pty;
+
+    // the transformed origin of the bounds, plus the extents contributed by each axis
+    float x = m00 * bounds.x + m10 * bounds.y + tx, y = m01 * bounds.x + m11 * bounds.y + ty;
+    float wx = m00 * bounds.width, wy = m01 * bounds.width;
+    float hx = m10 * bounds.height, hy = m11 * bounds.height;
+    float minX = x + Math.min(wx, 0) + Math.min(hx, 0);
+    float maxX = x + Math.max(wx, 0) + Math.max(hx, 0);
+    float minY = y + Math.min(wy, 0) + Math.min(hy, 0);
+    float maxY = y + Math.max(wy, 0) + Math.max(hy, 0);
+    bounds.setBounds(minX, minY, maxX - minX, maxY - minY);
+  }
+
+  protected final Rectangle viewport = new Rectangle();
+  protected final Rectangle bounds = new Rectangle();
+  protected int culled, visited, suspended;
+}
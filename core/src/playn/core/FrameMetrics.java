@@ -0,0 +1,203 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.Arrays;
+
+/**
+ * Records per-frame statistics (time spent updating and painting, number of layers visited, and
+ * the work submitted to the GPU) for the most recent frames, and summarizes them as percentiles.
+ *
+ * <p>The platform's game loop accumulates each frame's statistics via {@link #add} and commits
+ * them via {@link #endFrame}, which stores them into a fixed size ring buffer. Recording is done
+ * by a single thread and never locks or allocates; the summary methods may be called from any
+ * thread, but may see a frame that is being overwritten if the buffer wraps while they run.</p>
+ */
+public class FrameMetrics {
+
+  /** The statistics recorded for each frame. */
+  public enum Stat {
+    /** Milliseconds spent in {@link Game#update}. */
+    UPDATE_TIME,
+    /** Milliseconds spent in {@link Game#paint} and painting the layer hierarchy. */
+    PAINT_TIME,
+    /** The number of layers visited while painting, including culled layers. */
+    LAYERS,
+    /** The number of draw calls issued. */
+    DRAW_CALLS,
+    /** The number of times batched geometry was flushed to the GPU. */
+    FLUSHES,
+    /** The number of textures bound. */
+    TEXTURE_BINDS,
+    /** The number of vertices drawn. */
+    VERTICES;
+  }
+
+  /** Notified each time a frame's statistics are recorded. */
+  public interface Listener {
+    /** Called (on the thread that recorded the frame) after a frame is recorded. */
+    void frameRecorded(FrameMetrics metrics);
+  }
+
+  /** The number of frames retained by default. */
+  public static final int DEFAULT_CAPACITY = 256;
+
+  /**
+   * Creates a metrics recorder that retains the last {@link #DEFAULT_CAPACITY} frames.
+   */
+  public FrameMetrics() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a metrics recorder that retains the last {@code capacity} frames.
+   */
+  public FrameMetrics(int capacity) {
+    Asserts.checkArgument(capacity > 0, "Capacity must be positive");
+    this.capacity = capacity;
+    this.ring = new float[capacity * STATS];
+  }
+
+  /**
+   * Configures the listener notified when each frame is recorded, or null.
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Adds {@code amount} to the value of {@code stat} for the frame currently being recorded.
+   */
+  public void add(Stat stat, float amount) {
+    current[stat.ordinal()] += amount;
+  }
+
+  /**
+   * Records the statistics accumulated since the previous call, and starts a new frame.
+   */
+  public void endFrame() {
+    int frame = recorded;
+    System.arraycopy(current, 0, ring, (frame % capacity) * STATS, STATS);
+    Arrays.fill(current, 0);
+    recorded = frame + 1;
+    if (listener != null) {
+      listener.frameRecorded(this);
+    }
+  }
+
+  /**
+   * Discards all recorded frames.
+   */
+  public void reset() {
+    Arrays.fill(current, 0);
+    recorded = 0;
+  }
+
+  /**
+   * Returns the total number of frames recorded, including those no longer retained.
+   */
+  public int recorded() {
+    return recorded;
+  }
+
+  /**
+   * Returns the number of recorded frames that are retained, and hence summarized.
+   */
+  public int frames() {
+    return Math.min(recorded, capacity);
+  }
+
+  /**
+   * Returns the value of {@code stat} in the most recently recorded frame, or 0 if no frames have
+   * been recorded.
+   */
+  public float last(Stat stat) {
+    int frame = recorded;
+    return (frame == 0) ? 0 : ring[((frame-1) % capacity) * STATS + stat.ordinal()];
+  }
+
+  /**
+   * Returns the mean value of {@code stat} over the retained frames, or 0 if no frames have been
+   * recorded.
+   */
+  public float mean(Stat stat) {
+    int count = frames();
+    if (count == 0) {
+      return 0;
+    }
+    float sum = 0;
+    for (int ii = 0, idx = stat.ordinal(); ii < count; ii++, idx += STATS) {
+      sum += ring[idx];
+    }
+    return sum / count;
+  }
+
+  /**
+   * Returns the {@code percent}th percentile (e.g. 50, 95, 99) of {@code stat} over the retained
+   * frames, using the nearest-rank method, or 0 if no frames have been recorded.
+   */
+  public float percentile(Stat stat, float percent) {
+    Asserts.checkArgument(percent >= 0 && percent <= 100, "Percent must be in [0, 100]");
+    int count = frames();
+    if (count == 0) {
+      return 0;
+    }
+    float[] values = new float[count];
+    for (int ii = 0, idx = stat.ordinal(); ii < count; ii++, idx += STATS) {
+      values[ii] = ring[idx];
+    }
+    Arrays.sort(values);
+    int rank = (int) Math.ceil(percent / 100 * count);
+    return values[Math.max(rank, 1) - 1];
+  }
+
+  /**
+   * Returns a one line summary of the 50th, 95th and 99th percentiles of {@code stat}.
+   */
+  public String summary(Stat stat) {
+    return stat.name().toLowerCase() + " p50=" + format(percentile(stat, 50)) +
+      " p95=" + format(percentile(stat, 95)) + " p99=" + format(percentile(stat, 99));
+  }
+
+  /**
+   * Returns a multi-line summary of all statistics (see {@link #summary(Stat)}).
+   */
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder();
+    for (Stat stat : Stat.values()) {
+      if (buf.length() > 0) buf.append("\n");
+      buf.append(summary(stat));
+    }
+    return buf.toString();
+  }
+
+  private static String format(float value) {
+    // avoid String.format, which is not available under GWT
+    int hundredths = Math.round(value * 100);
+    int frac = Math.abs(hundredths % 100);
+    return (hundredths < 0 ? "-" : "") + Math.abs(hundredths / 100) + "." +
+      (frac < 10 ? "0" : "") + frac;
+  }
+
+  private static final int STATS = Stat.values().length;
+
+  private final int capacity;
+  private final float[] ring;
+  private final float[] current = new float[STATS];
+  private volatile int recorded;
+  private Listener listener;
+}
@@ -119,4 +119,11 @@ public interface Graphics {
    * Sets the size of the drawable surface, in pixels.
    */
   void setSize(int width, int height);
+
+  /**
+   * Returns the number of layers that were not painted during the most recent frame because they
+   * lay entirely outside the drawable surface. A culled group layer counts once, regardless of
+   * how many descendants it has. Backends that do not cull layers always return zero.
+   */
+  int culledLayerCount();
 }
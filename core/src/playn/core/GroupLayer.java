@@ -15,6 +15,8 @@
  */
 package playn.core;
 
+import java.util.Collection;
+
 /**
  * GroupLayer creates a Layer hierarchy by maintaining an ordered group of child Layers.
  */
@@ -36,6 +38,13 @@ public interface GroupLayer extends Layer {
    */
   void add(Layer layer);
 
+  /**
+   * Adds all of the supplied layers to this group. This is equivalent to calling {@link
+   * #add(Layer)} for each layer, but is considerably more efficient when adding many layers. The
+   * collection must not contain duplicates.
+   */
+  void addAll(Collection<? extends Layer> layers);
+
   /**
    * @deprecated Use {@link Layer#setDepth} to manage render order.
    */
@@ -47,6 +56,12 @@ public interface GroupLayer extends Layer {
    */
   void remove(Layer layer);
 
+  /**
+   * Removes all of the supplied layers from this group. This is equivalent to calling {@link
+   * #remove(Layer)} for each layer, but is considerably more efficient when removing many layers.
+   */
+  void removeAll(Collection<? extends Layer> layers);
+
   /**
    * @deprecated Manual index management has been deprecated in favor of {@link Layer#setDepth}.
    * Use {@link #remove(Layer)} to remove layers.
@@ -63,4 +78,40 @@ public interface GroupLayer extends Layer {
    * Returns the number of layers in this group.
    */
   int size();
+
+  /**
+   * Returns whether this group is frozen. See {@link #setFrozen}.
+   */
+  boolean frozen();
+
+  /**
+   * Freezes or unfreezes this group. A frozen group is intended for content that rarely changes,
+   * such as UI panels and level backgrounds. Backends that support it record the geometry
+   * generated by the group's descendants once, and replay that recording on subsequent frames
+   * (with one draw call per texture or color change) rather than traversing the descendants.
+   * The recording is made relative to the group, so the group (or any of its ancestors) can be
+   * moved, scaled or rotated without invalidating it. It is discarded and made anew whenever a
+   * descendant changes, or when the group's alpha changes. Freezing a group whose contents change
+   * every frame will make it more expensive to paint, not less. Backends that don't support
+   * recording paint frozen groups normally.
+   */
+  void setFrozen(boolean frozen);
+
+  /**
+   * Returns whether this group caches its rendered contents. See {@link #setCached}.
+   */
+  boolean cached();
+
+  /**
+   * Enables or disables caching of this group's rendered contents. A cached group renders its
+   * descendants into an offscreen image (the size of the group's bounds, in the group's own
+   * coordinate system), and thereafter paints that image, until a descendant changes. This suits
+   * complex subtrees that rarely change, such as HUDs and dialogs containing many text layers.
+   *
+   * <p>The cached image is not rescaled when the group or its ancestors are scaled, and the
+   * group's alpha is applied to the cached image as a whole. Groups whose bounds are not known,
+   * or are very large, are painted normally. Backends that don't support caching paint cached
+   * groups normally.</p>
+   */
+  void setCached(boolean cached);
 }
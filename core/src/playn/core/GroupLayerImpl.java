@@ -16,8 +16,13 @@
 
 package playn.core;
 
-import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import pythagoras.f.Rectangle;
 
 /**
  * Provides implementations for per-platform concrete {@link GroupLayer}s. Because of single
@@ -26,13 +31,31 @@ import java.util.ArrayList;
  */
 public class GroupLayerImpl<L extends AbstractLayer>
 {
-  /** This group's children. */
-  public List<L> children = new ArrayList<L>();
+  /** This group's children, in order of increasing depth. */
+  public final ChildList<L> children = new ChildList<L>();
+
+  /** Whether this group is frozen. See {@link GroupLayer#setFrozen}. */
+  public boolean frozen;
+
+  /** Whether this group caches its rendered contents. See {@link GroupLayer#setCached}. */
+  public boolean cached;
 
   /**
-   * @return the index into the children array at which the layer was inserted (based on depth).
+   * @return the index into the children array at which the layer was inserted (based on depth),
+   * or -1 if a batch is in progress (see {@link #beginBatch}).
    */
   public int add(GroupLayer self, L child) {
+    if (batchDepth > 0) {
+      // append the child, and defer the sort and its notification until the batch ends
+      if (child.parent() != null) {
+        child.parent().remove(child);
+      }
+      children.append(child);
+      child.setParent(self);
+      batchAdded.add(child);
+      return -1;
+    }
+
     // check whether the last child has the same depth as this child, in which case append this
     // child to our list; this is a fast path for when all children have the same depth
     int count = children.size(), index;
@@ -53,6 +76,38 @@ public class GroupLayerImpl<L extends AbstractLayer>
     return index;
   }
 
+  /**
+   * Adds all of the supplied layers (which must not contain duplicates) to this group. The layers
+   * are sorted by depth and merged into the existing children in a single pass, and are notified
+   * that they have been added once they are all in place.
+   */
+  public void addAll(GroupLayer self, Collection<? extends Layer> layers) {
+    if (batchDepth > 0) {
+      for (Layer layer : layers) {
+        @SuppressWarnings("unchecked") L child = (L)layer;
+        add(self, child);
+      }
+      return;
+    }
+
+    // remove the children from any existing parents, preventing multiple parents
+    AbstractLayer[] added = layers.toArray(new AbstractLayer[layers.size()]);
+    for (AbstractLayer child : added) {
+      if (child.parent() != null) {
+        child.parent().remove(child);
+      }
+    }
+    // this sort is stable, so layers of equal depth are added in the order supplied
+    Arrays.sort(added, ChildList.DEPTH_ORDER);
+    children.merge(added);
+    for (AbstractLayer child : added) {
+      child.setParent(self);
+    }
+    for (AbstractLayer child : added) {
+      child.onAdd();
+    }
+  }
+
   // TODO: remove this when GroupLayer.add(int,Layer) is removed
   public void add(GroupLayer self, int index, L child) {
     // remove the child from any existing parent, preventing multiple parents
@@ -73,17 +128,71 @@ public class GroupLayerImpl<L extends AbstractLayer>
     remove(index);
   }
 
+  /**
+   * Removes all of the supplied layers from this group, in a single pass over its children. The
+   * layers are notified that they have been removed once they have all been removed.
+   */
+  public void removeAll(GroupLayer self, Collection<? extends Layer> layers) {
+    for (Layer layer : layers) {
+      if (layer.parent() != self) {
+        throw new UnsupportedOperationException(
+          "Could not remove Layer because it is not a child of the GroupLayer");
+      }
+    }
+    children.removeAll(new HashSet<Layer>(layers));
+    // notify the layers as do remove() and clear(): while they still know their parent
+    for (Layer layer : layers) {
+      AbstractLayer child = (AbstractLayer)layer;
+      if (child.parent() == self) { // skip duplicates
+        child.onRemove();
+        child.setParent(null);
+      }
+    }
+  }
+
   // TODO: remove this when GroupLayer.remove(int) is removed
   public void remove(GroupLayer self, int index) {
     remove(index);
   }
 
   public void clear(GroupLayer self) {
-    while (!children.isEmpty()) {
-      remove(children.size() - 1);
+    AbstractLayer[] removed = children.toArray(new AbstractLayer[children.size()]);
+    children.clear();
+    for (AbstractLayer child : removed) {
+      child.onRemove();
+      child.setParent(null);
     }
   }
 
+  /**
+   * Starts a batch of additions. Until the matching call to {@link #endBatch}, children are
+   * appended without regard to their depth, and are neither sorted nor notified that they have
+   * been added until the batch ends. Batches may be nested. Backends that must know the index of
+   * each added child (to maintain a native display list) must not use batches.
+   */
+  public void beginBatch() {
+    batchDepth++;
+  }
+
+  /**
+   * Ends a batch started by {@link #beginBatch}. When the outermost batch ends, the children are
+   * sorted by depth, and the layers added during the batch are notified.
+   */
+  public void endBatch(GroupLayer self) {
+    Asserts.checkState(batchDepth > 0, "endBatch() called without matching beginBatch()");
+    if (--batchDepth > 0) {
+      return;
+    }
+    children.sortByDepth();
+    for (AbstractLayer child : batchAdded) {
+      // skip layers that were removed again during the batch
+      if (child.parent() == self) {
+        child.onAdd();
+      }
+    }
+    batchAdded.clear();
+  }
+
   public void destroy(GroupLayer self) {
     AbstractLayer[] toDestroy = children.toArray(new AbstractLayer[children.size()]);
     // first remove all children efficiently
@@ -107,6 +216,26 @@ public class GroupLayerImpl<L extends AbstractLayer>
   }
 
   /**
+   * Computes the bounds of {@code self}, which are the union of the bounds of its visible
+   * children. The bounds are cached until a descendant reports that its bounds have changed.
+   *
+   * @see AbstractLayer#bounds
+   */
+  public boolean bounds(AbstractLayer self, Rectangle into) {
+    if (self.isSet(AbstractLayer.Flag.BOUNDSDIRTY)) {
+      if (!computeBounds()) {
+        return false; // leave our bounds dirty so that we try again next time
+      }
+      self.setFlag(AbstractLayer.Flag.BOUNDSDIRTY, false);
+    }
+    into.setBounds(bounds.x, bounds.y, bounds.width, bounds.height);
+    return true;
+  }
+
+  /**
+   * Moves a child whose depth has changed to its new position. Backends that don't need to know
+   * the child's new index immediately should use {@link #depthChangedDeferred}.
+   *
    * @return the new index of the depth-changed layer.
    */
   public int depthChanged(GroupLayer self, Layer layer, float oldDepth) {
@@ -114,6 +243,12 @@ public class GroupLayerImpl<L extends AbstractLayer>
     // making AbstractLayer and ParentLayer more complex than is worth it
     @SuppressWarnings("unchecked") L child = (L)layer;
 
+    // if a deferred change is pending, we can't locate the child by its old depth
+    if (children.unsorted()) {
+      children.sortByDepth();
+      return children.indexOf(child);
+    }
+
     // it would be great if we could move an element from one place in an ArrayList to another
     // (portably), but instead we have to remove and re-add
     int oldIndex = findChild(child, oldDepth);
@@ -123,6 +258,94 @@ public class GroupLayerImpl<L extends AbstractLayer>
     return newIndex;
   }
 
+  /**
+   * Notes that a child's depth has changed. Rather than moving the child immediately, the children
+   * are re-sorted the next time they are accessed, so changing the depths of many children (e.g.
+   * y-sorting sprites every frame) requires only a single sort.
+   */
+  public void depthChangedDeferred(GroupLayer self, Layer layer, float oldDepth) {
+    children.invalidate();
+  }
+
+  /**
+   * Returns true if {@code self} or any of its descendants has changed since {@link
+   * #clearRenderDirty} was last called.
+   */
+  public boolean renderDirty(AbstractLayer self) {
+    return self.isSet(AbstractLayer.Flag.RENDERDIRTY);
+  }
+
+  /**
+   * Returns true if any of {@code self}'s descendants has changed, or children have been added or
+   * removed, since {@link #clearRenderDirty} was last called. Unlike {@link #renderDirty}, this
+   * ignores changes to {@code self}'s own transform and alpha, which don't affect the appearance
+   * of a cached image of its contents.
+   */
+  public boolean contentsDirty(AbstractLayer self) {
+    if (children.modCount() != clearedModCount) {
+      return true;
+    }
+    for (L child : children) {
+      if (child.isSet(AbstractLayer.Flag.RENDERDIRTY)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Notes that {@code self} has recorded the current state of its subtree, so that changes to any
+   * of its descendants will once again be reported to it.
+   */
+  public void clearRenderDirty(AbstractLayer self) {
+    self.setFlag(AbstractLayer.Flag.RENDERDIRTY, false);
+    clearedModCount = children.modCount();
+    for (L child : children) {
+      clearSubtree(child);
+    }
+  }
+
+  private static void clearSubtree(AbstractLayer layer) {
+    layer.setFlag(AbstractLayer.Flag.RENDERDIRTY, false);
+    if (layer instanceof GroupLayer) {
+      GroupLayer group = (GroupLayer) layer;
+      for (int ii = 0, ll = group.size(); ii < ll; ii++) {
+        clearSubtree((AbstractLayer) group.get(ii));
+      }
+    }
+  }
+
+  private boolean computeBounds() {
+    float minX = 0, minY = 0, maxX = 0, maxY = 0;
+    boolean empty = true;
+    for (L child : children) {
+      if (!child.visible()) {
+        continue;
+      }
+      if (!child.bounds(scratch)) {
+        return false;
+      }
+      if (scratch.width == 0 && scratch.height == 0) {
+        continue; // nothing to paint
+      }
+      Culler.transformBounds(child, 1, 0, 0, 1, 0, 0, scratch);
+      if (empty) {
+        minX = scratch.x;
+        minY = scratch.y;
+        maxX = scratch.x + scratch.width;
+        maxY = scratch.y + scratch.height;
+        empty = false;
+      } else {
+        minX = Math.min(minX, scratch.x);
+        minY = Math.min(minY, scratch.y);
+        maxX = Math.max(maxX, scratch.x + scratch.width);
+        maxY = Math.max(maxY, scratch.y + scratch.height);
+      }
+    }
+    bounds.setBounds(minX, minY, maxX - minX, maxY - minY);
+    return true;
+  }
+
   private void remove(int index) {
     L child = children.remove(index);
     child.onRemove();
@@ -172,4 +395,8 @@ public class GroupLayerImpl<L extends AbstractLayer>
     }
     return low;
   }
+
+  private final Rectangle bounds = new Rectangle(), scratch = new Rectangle();
+  private final List<AbstractLayer> batchAdded = new ArrayList<AbstractLayer>();
+  private int batchDepth, clearedModCount = -1;
 }
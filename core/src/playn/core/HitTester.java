@@ -0,0 +1,329 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import pythagoras.f.Point;
+import pythagoras.f.Rectangle;
+
+/**
+ * Finds the topmost of a set of interactive layers under a point without testing every layer.
+ * The bounds of each registered layer (relative to a root group layer) are kept in a uniform
+ * grid. The grid is updated lazily: when a layer (or one of its ancestors) is moved, resized or
+ * reparented, the layer is reindexed the next time the grid is queried.
+ *
+ * <p>A layer can be indexed by at most one hit tester, and the subtrees of different hit testers
+ * must not overlap.</p>
+ */
+public class HitTester {
+
+  /** The default width and height of a grid cell. */
+  public static final float DEFAULT_CELL_SIZE = 64;
+
+  /**
+   * Creates a hit tester for layers in the subtree rooted at {@code root}.
+   */
+  public HitTester(GroupLayer root) {
+    this(root, DEFAULT_CELL_SIZE);
+  }
+
+  /**
+   * Creates a hit tester for layers in the subtree rooted at {@code root}, with the specified grid
+   * cell size (in the coordinate system of {@code root}).
+   */
+  public HitTester(GroupLayer root, float cellSize) {
+    Asserts.checkArgument(cellSize > 0, "Cell size must be > 0 (got %s)", cellSize);
+    this.root = (AbstractLayer) root;
+    this.cellSize = cellSize;
+  }
+
+  /**
+   * Registers {@code layer} as a candidate for hit testing. The layer must be a descendant of this
+   * tester's root (though it may be removed from and added back to the root's subtree later).
+   */
+  public void add(Layer.HasSize layer) {
+    Asserts.checkArgument(!entries.containsKey(layer), "Layer already registered");
+    Entry entry = new Entry((AbstractLayer) layer);
+    entries.put(layer, entry);
+    index(entry);
+  }
+
+  /**
+   * Removes {@code layer} from this tester.
+   */
+  public void remove(Layer.HasSize layer) {
+    Entry entry = entries.remove(layer);
+    if (entry != null) {
+      unindex(entry);
+    }
+  }
+
+  /**
+   * Returns the topmost visible registered layer that contains the supplied screen coordinate,
+   * or null if no registered layer contains it.
+   */
+  public Layer.HasSize hit(float x, float y) {
+    point.set(x, y);
+    Layer.Util.screenToLayer(root, point, point);
+    return hitLocal(point.x, point.y);
+  }
+
+  /**
+   * Returns the topmost visible registered layer that contains the supplied coordinate, which is
+   * in the coordinate system of this tester's root, or null if no registered layer contains it.
+   */
+  public Layer.HasSize hitLocal(float x, float y) {
+    validate();
+    Entry top = null;
+    List<Entry> cell = cells.get(key(cell(x), cell(y)));
+    if (cell != null) {
+      for (Entry entry : cell) {
+        if (entry.contains(x, y) && (top == null || isAbove(entry.layer, top.layer))) {
+          top = entry;
+        }
+      }
+    }
+    for (Entry entry : unindexed) {
+      if (entry.contains(x, y) && (top == null || isAbove(entry.layer, top.layer))) {
+        top = entry;
+      }
+    }
+    return (top == null) ? null : (Layer.HasSize) top.layer;
+  }
+
+  /**
+   * Reindexes the registered layers whose bounds might have changed since they were last indexed.
+   * This is done automatically by {@link #hit}, but may be called explicitly to control when the
+   * work is done.
+   */
+  public void validate() {
+    if (root.isSet(AbstractLayer.Flag.HITCHILDDIRTY)) {
+      validate(root, false);
+    }
+  }
+
+  protected void validate(AbstractLayer layer, boolean moved) {
+    // the root's own transform is not part of our coordinate system, so we ignore its changes
+    moved = moved || (layer != root && layer.isSet(AbstractLayer.Flag.HITDIRTY));
+    if (moved) {
+      Entry entry = entries.get(layer);
+      if (entry != null) {
+        unindex(entry);
+        index(entry);
+      }
+    }
+    if ((moved || layer.isSet(AbstractLayer.Flag.HITCHILDDIRTY)) && layer instanceof GroupLayer) {
+      GroupLayer group = (GroupLayer) layer;
+      for (int ii = 0, ll = group.size(); ii < ll; ii++) {
+        validate((AbstractLayer) group.get(ii), moved);
+      }
+    }
+    layer.setFlag(AbstractLayer.Flag.HITDIRTY, false);
+    layer.setFlag(AbstractLayer.Flag.HITCHILDDIRTY, false);
+  }
+
+  protected void index(Entry entry) {
+    if (!entry.update()) {
+      unindexed.add(entry);
+      return;
+    }
+    int x0 = cell(entry.minX), y0 = cell(entry.minY), x1 = cell(entry.maxX), y1 = cell(entry.maxY);
+    // layers that span a great many cells are cheaper to test directly
+    if ((x1 - x0 + 1) * (y1 - y0 + 1) > MAX_CELLS) {
+      unindexed.add(entry);
+      return;
+    }
+    entry.setCells(x0, y0, x1, y1);
+    for (int cy = y0; cy <= y1; cy++) {
+      for (int cx = x0; cx <= x1; cx++) {
+        Integer key = key(cx, cy);
+        List<Entry> cell = cells.get(key);
+        if (cell == null) {
+          cells.put(key, cell = new ArrayList<Entry>());
+        }
+        cell.add(entry);
+      }
+    }
+  }
+
+  protected void unindex(Entry entry) {
+    if (!entry.indexed) {
+      unindexed.remove(entry);
+      return;
+    }
+    for (int cy = entry.y0; cy <= entry.y1; cy++) {
+      for (int cx = entry.x0; cx <= entry.x1; cx++) {
+        Integer key = key(cx, cy);
+        List<Entry> cell = cells.get(key);
+        cell.remove(entry);
+        if (cell.isEmpty()) {
+          cells.remove(key);
+        }
+      }
+    }
+    entry.indexed = false;
+  }
+
+  /**
+   * Returns true if {@code a} is painted above {@code b}.
+   */
+  protected boolean isAbove(AbstractLayer a, AbstractLayer b) {
+    // find the children of the closest common ancestor that contain a and b
+    int adepth = treeDepth(a), bdepth = treeDepth(b);
+    for (; adepth > bdepth; adepth--) a = (AbstractLayer) a.parent();
+    for (; bdepth > adepth; bdepth--) b = (AbstractLayer) b.parent();
+    if (a == b) {
+      return false; // one contains the other, which doesn't happen with sized layers
+    }
+    while (a.parent() != b.parent()) {
+      a = (AbstractLayer) a.parent();
+      b = (AbstractLayer) b.parent();
+    }
+    if (a.depth() != b.depth()) {
+      return a.depth() > b.depth();
+    }
+    // layers with the same depth are painted in the order they appear in their parent
+    GroupLayer parent = a.parent();
+    for (int ii = parent.size() - 1; ii >= 0; ii--) {
+      Layer child = parent.get(ii);
+      if (child == a) return true;
+      if (child == b) return false;
+    }
+    return false;
+  }
+
+  protected int treeDepth(Layer layer) {
+    int depth = 0;
+    for (; layer != root; layer = layer.parent()) depth++;
+    return depth;
+  }
+
+  protected int cell(float coord) {
+    return (int) Math.floor(coord / cellSize);
+  }
+
+  protected static Integer key(int cx, int cy) {
+    return (cx << 16) ^ (cy & 0xFFFF);
+  }
+
+  protected class Entry {
+    public final AbstractLayer layer;
+    /** The bounding box of the layer, in the coordinates of the root. */
+    public float minX, minY, maxX, maxY;
+    /** The grid cells that contain this entry (if {@link #indexed}). */
+    public int x0, y0, x1, y1;
+    public boolean indexed;
+
+    public Entry(AbstractLayer layer) {
+      this.layer = layer;
+    }
+
+    /**
+     * Recomputes this entry's bounding box.
+     *
+     * @return false if the layer's bounds are unknown, or it is not currently in our subtree.
+     */
+    public boolean update() {
+      if (!layer.bounds(bounds) || !computeTransform(layer)) {
+        return false;
+      }
+      float x = m00 * bounds.x + m10 * bounds.y + tx, y = m01 * bounds.x + m11 * bounds.y + ty;
+      float wx = m00 * bounds.width, wy = m01 * bounds.width;
+      float hx = m10 * bounds.height, hy = m11 * bounds.height;
+      minX = x + Math.min(wx, 0) + Math.min(hx, 0);
+      maxX = x + Math.max(wx, 0) + Math.max(hx, 0);
+      minY = y + Math.min(wy, 0) + Math.min(hy, 0);
+      maxY = y + Math.max(wy, 0) + Math.max(hy, 0);
+      return true;
+    }
+
+    public void setCells(int x0, int y0, int x1, int y1) {
+      this.x0 = x0;
+      this.y0 = y0;
+      this.x1 = x1;
+      this.y1 = y1;
+      this.indexed = true;
+    }
+
+    /**
+     * Returns true if this entry's layer is visible and contains the supplied point (in the
+     * coordinates of the root).
+     */
+    public boolean contains(float x, float y) {
+      if (indexed && (x < minX || x > maxX || y < minY || y > maxY)) {
+        return false;
+      }
+      for (Layer l = layer; l != root; l = l.parent()) {
+        if (l == null || !l.visible()) return false;
+      }
+      if (!layer.bounds(bounds) || !computeTransform(layer)) {
+        return false;
+      }
+      // transform the point into the layer's coordinate system
+      float det = m00 * m11 - m01 * m10;
+      if (det == 0) {
+        return false;
+      }
+      float dx = x - tx, dy = y - ty;
+      float lx = (dx * m11 - dy * m10) / det, ly = (dy * m00 - dx * m01) / det;
+      return lx >= bounds.x && ly >= bounds.y &&
+        lx <= bounds.x + bounds.width && ly <= bounds.y + bounds.height;
+    }
+  }
+
+  /**
+   * Computes the transform from the coordinates of {@code layer} to those of the root into {@link
+   * #m00} et al.
+   *
+   * @return false if the layer is not in the root's subtree.
+   */
+  protected boolean computeTransform(AbstractLayer layer) {
+    m00 = 1; m01 = 0; m10 = 0; m11 = 1; tx = 0; ty = 0;
+    for (AbstractLayer l = layer; l != root; l = (AbstractLayer) l.parent()) {
+      if (l == null) {
+        return false;
+      }
+      // premultiply by the layer's transform, accounting for its origin
+      InternalTransform lt = l.transform;
+      float l00 = lt.m00(), l01 = lt.m01(), l10 = lt.m10(), l11 = lt.m11();
+      float ltx = lt.tx() - (l00 * l.originX + l10 * l.originY);
+      float lty = lt.ty() - (l01 * l.originX + l11 * l.originY);
+      float n00 = l00 * m00 + l10 * m01, n01 = l01 * m00 + l11 * m01;
+      float n10 = l00 * m10 + l10 * m11, n11 = l01 * m10 + l11 * m11;
+      float ntx = l00 * tx + l10 * ty + ltx, nty = l01 * tx + l11 * ty + lty;
+      m00 = n00; m01 = n01; m10 = n10; m11 = n11; tx = ntx; ty = nty;
+    }
+    return true;
+  }
+
+  // we don't index layers that span more than this many cells
+  protected static final int MAX_CELLS = 256;
+
+  protected final AbstractLayer root;
+  protected final float cellSize;
+  protected final Map<Layer, Entry> entries = new HashMap<Layer, Entry>();
+  protected final Map<Integer, List<Entry>> cells = new HashMap<Integer, List<Entry>>();
+  protected final List<Entry> unindexed = new ArrayList<Entry>();
+
+  // scratch storage
+  protected final Point point = new Point();
+  protected final Rectangle bounds = new Rectangle();
+  protected float m00, m01, m10, m11, tx, ty;
+}
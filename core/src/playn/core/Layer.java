@@ -18,6 +18,7 @@ package playn.core;
 import pythagoras.f.IPoint;
 import pythagoras.f.Point;
 import pythagoras.f.Transform;
+import pythagoras.util.NoninvertibleTransformException;
 
 /**
  * Layer is the base element for all rendering in PlayN
@@ -199,6 +200,11 @@ public interface Layer {
 
   /**
    * Utility class for transforming coordinates between {@link Layer}s.
+   *
+   * <p>The variants that accept an {@code into} (or {@code scratch}) point do not allocate, which
+   * makes them suitable for use in input handlers that are called many times per frame. Where a
+   * backend has cached a layer's screen transform while painting (and that transform is still
+   * valid), it is used directly rather than walking the layer's ancestors.</p>
    */
   public static class Util {
     /**
@@ -207,7 +213,20 @@ public interface Layer {
      * which is returned for convenience.
      */
     public static Point layerToScreen(Layer layer, IPoint point, Point into) {
-      return layerToParent(layer, null, point, into);
+      return layerToScreen(layer, point.x(), point.y(), into);
+    }
+
+    /**
+     * Converts the supplied point from coordinates relative to the specified
+     * layer to screen coordinates. The results are stored into {@code into},
+     * which is returned for convenience.
+     */
+    public static Point layerToScreen(Layer layer, float x, float y, Point into) {
+      InternalTransform cached = screenTransform(layer);
+      if (cached != null) {
+        return cached.transform(into.set(x, y), into);
+      }
+      return layerToParent(layer, null, into.set(x, y), into);
     }
 
     /**
@@ -215,8 +234,7 @@ public interface Layer {
      * layer to screen coordinates.
      */
     public static Point layerToScreen(Layer layer, float x, float y) {
-      Point into = new Point(x, y);
-      return layerToScreen(layer, into, into);
+      return layerToScreen(layer, x, y, new Point());
     }
 
     /**
@@ -234,7 +252,7 @@ public interface Layer {
         }
         into.x -= layer.originX();
         into.y -= layer.originY();
-        layer.transform().transform(into, into);
+        rawTransform(layer).transform(into, into);
         layer = layer.parent();
       }
       return into;
@@ -255,12 +273,41 @@ public interface Layer {
      * , which is returned for convenience.
      */
     public static Point screenToLayer(Layer layer, IPoint point, Point into) {
-      Layer parent = layer.parent();
-      IPoint cur = (parent == null) ? point : screenToLayer(parent, point, into);
-      into = layer.transform().inverseTransform(cur, into);
-      into.x += layer.originX();
-      into.y += layer.originY();
-      return into;
+      return screenToLayer(layer, point.x(), point.y(), into);
+    }
+
+    /**
+     * Converts the supplied point from screen coordinates to coordinates
+     * relative to the specified layer. The results are stored into {@code into}
+     * , which is returned for convenience.
+     */
+    public static Point screenToLayer(Layer layer, float x, float y, Point into) {
+      InternalTransform cached = screenTransform(layer);
+      if (cached != null) {
+        return cached.inverseTransform(into.set(x, y), into);
+      }
+
+      // compose the layer-to-screen transform bottom up, then invert it
+      float m00 = 1, m01 = 0, m10 = 0, m11 = 1, tx = 0, ty = 0;
+      for (Layer l = layer; l != null; l = l.parent()) {
+        if (!(l instanceof AbstractLayer)) {
+          return screenToLayerRec(layer, x, y, into);
+        }
+        InternalTransform lt = ((AbstractLayer) l).transform;
+        float l00 = lt.m00(), l01 = lt.m01(), l10 = lt.m10(), l11 = lt.m11();
+        float ltx = lt.tx() - (l00 * l.originX() + l10 * l.originY());
+        float lty = lt.ty() - (l01 * l.originX() + l11 * l.originY());
+        float n00 = l00 * m00 + l10 * m01, n01 = l01 * m00 + l11 * m01;
+        float n10 = l00 * m10 + l10 * m11, n11 = l01 * m10 + l11 * m11;
+        float ntx = l00 * tx + l10 * ty + ltx, nty = l01 * tx + l11 * ty + lty;
+        m00 = n00; m01 = n01; m10 = n10; m11 = n11; tx = ntx; ty = nty;
+      }
+      float det = m00 * m11 - m01 * m10;
+      if (det == 0) {
+        throw new NoninvertibleTransformException("Layer transform is not invertible");
+      }
+      float dx = x - tx, dy = y - ty;
+      return into.set((dx * m11 - dy * m10) / det, (dy * m00 - dx * m01) / det);
     }
 
     /**
@@ -268,8 +315,7 @@ public interface Layer {
      * relative to the specified layer.
      */
     public static Point screenToLayer(Layer layer, float x, float y) {
-      Point into = new Point(x, y);
-      return screenToLayer(layer, into.set(x, y), into);
+      return screenToLayer(layer, x, y, new Point());
     }
 
     /**
@@ -290,11 +336,43 @@ public interface Layer {
      * Returns true if a coordinate on the screen touches a {@link Layer.HasSize}.
      */
     public static boolean hitTest(Layer.HasSize layer, float x, float y) {
-      Point point = new Point(x, y);
-      screenToLayer(layer, point, point);
+      return hitTest(layer, x, y, new Point());
+    }
+
+    /**
+     * Returns true if a coordinate on the screen touches a {@link Layer.HasSize}. The supplied
+     * scratch point is used to avoid allocation; its contents are overwritten.
+     */
+    public static boolean hitTest(Layer.HasSize layer, float x, float y, Point scratch) {
+      Point point = screenToLayer(layer, x, y, scratch);
       return (
-          point.x() >= 0 &&  point.y() >= 0 && 
+          point.x() >= 0 &&  point.y() >= 0 &&
           point.x() <= layer.width() && point.y() <= layer.height());
     }
+
+    // fallback for layer implementations that don't expose their transform matrix
+    private static Point screenToLayerRec(Layer layer, float x, float y, Point into) {
+      Layer parent = layer.parent();
+      if (parent == null) {
+        into.set(x, y);
+      } else {
+        screenToLayerRec(parent, x, y, into);
+      }
+      rawTransform(layer).inverseTransform(into, into);
+      into.x += layer.originX();
+      into.y += layer.originY();
+      return into;
+    }
+
+    // Layer.transform() marks the layer's transform as changed (as the caller might modify it),
+    // so we read the transforms of our own layers directly to avoid invalidating their caches
+    private static Transform rawTransform(Layer layer) {
+      return (layer instanceof AbstractLayer) ? ((AbstractLayer) layer).transform :
+        layer.transform();
+    }
+
+    private static InternalTransform screenTransform(Layer layer) {
+      return (layer instanceof AbstractLayer) ? ((AbstractLayer) layer).screenTransform() : null;
+    }
   }
 }
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+/**
+ * Displays a summary of the platform's {@link FrameMetrics} in a layer, which the game can add
+ * wherever it likes (usually atop everything else):
+ *
+ * <pre>{@code
+ * MetricsOverlay overlay = new MetricsOverlay(PlayN.metrics(), 30);
+ * PlayN.graphics().rootLayer().add(overlay.layer());
+ * }</pre>
+ *
+ * The summary is redrawn every {@code interval} frames, to avoid the overlay itself dominating
+ * the statistics it displays.
+ */
+public class MetricsOverlay implements FrameMetrics.Listener {
+
+  /**
+   * Creates an overlay that displays {@code metrics}, redrawn every {@code interval} frames.
+   */
+  public MetricsOverlay(FrameMetrics metrics, int interval) {
+    Asserts.checkArgument(interval > 0, "Interval must be positive");
+    this.metrics = metrics;
+    this.interval = interval;
+    this.layer = PlayN.graphics().createImageLayer();
+    metrics.setListener(this);
+  }
+
+  /**
+   * Returns the layer into which the summary is drawn.
+   */
+  public ImageLayer layer() {
+    return layer;
+  }
+
+  /**
+   * Stops updating this overlay and destroys its layer.
+   */
+  public void destroy() {
+    metrics.setListener(null);
+    layer.destroy();
+  }
+
+  @Override
+  public void frameRecorded(FrameMetrics metrics) {
+    if (++frames % interval == 0) {
+      redraw();
+    }
+  }
+
+  /**
+   * Lays out and draws the current summary, growing the image if necessary.
+   */
+  protected void redraw() {
+    FrameMetrics.Stat[] stats = FrameMetrics.Stat.values();
+    TextLayout[] lines = new TextLayout[stats.length];
+    float width = 0, height = 0;
+    for (int ii = 0; ii < stats.length; ii++) {
+      lines[ii] = PlayN.graphics().layoutText(metrics.summary(stats[ii]), FORMAT);
+      width = Math.max(width, lines[ii].width());
+      height += lines[ii].height();
+    }
+
+    int iwidth = (int) Math.ceil(width) + 2*PAD, iheight = (int) Math.ceil(height) + 2*PAD;
+    if (image == null || image.width() < iwidth || image.height() < iheight) {
+      image = PlayN.graphics().createImage(iwidth, iheight);
+      layer.setImage(image);
+    }
+
+    Canvas canvas = image.canvas();
+    canvas.clear();
+    canvas.setFillColor(BACKGROUND);
+    canvas.fillRect(0, 0, iwidth, iheight);
+    float y = PAD;
+    for (TextLayout line : lines) {
+      canvas.drawText(line, PAD, y);
+      y += line.height();
+    }
+  }
+
+  protected static final int PAD = 3;
+  protected static final int BACKGROUND = 0xA0000000;
+  protected static final TextFormat FORMAT = new TextFormat().withTextColor(0xFFFFFFFF);
+
+  private final FrameMetrics metrics;
+  private final int interval;
+  private final ImageLayer layer;
+  private CanvasImage image;
+  private int frames;
+}
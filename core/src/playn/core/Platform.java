@@ -45,6 +45,8 @@ public interface Platform {
 
   Analytics analytics();
 
+  FrameMetrics metrics();
+
   float random();
 
   void run(Game game);
@@ -134,6 +134,13 @@ public class PlayN {
     return platform.analytics();
   }
 
+  /**
+   * Gets the {@link FrameMetrics} recorded by the game loop.
+   */
+  public static FrameMetrics metrics() {
+    return platform.metrics();
+  }
+
   /**
    * Gets a random floating-point value in the range [0, 1).
    */
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.Asserts;
+import playn.core.Image;
+import playn.core.ResourceCallback;
+
+/**
+ * An image that lives in a region of a larger page image, either packed at runtime by a {@link
+ * TextureAtlas} or built offline and described by an {@link AtlasIndex}. The GL backends render
+ * it using the page's texture and the texture coordinates of the image's region of that page.
+ */
+public class AtlasImage implements Image {
+
+  /**
+   * Creates an image that refers to the specified region of {@code page}.
+   */
+  public AtlasImage(Image page, int x, int y, int width, int height) {
+    this.source = null;
+    this.page = page;
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns the page that contains this image, or null if the image has not yet been packed.
+   */
+  public Image page() {
+    return page;
+  }
+
+  /**
+   * Returns the x position of this image in its page, in pixels.
+   */
+  public int x() {
+    return x;
+  }
+
+  /**
+   * Returns the y position of this image in its page, in pixels.
+   */
+  public int y() {
+    return y;
+  }
+
+  /**
+   * Returns the left texture coordinate of this image in its page.
+   */
+  public float u0() {
+    return (float) x / page.width();
+  }
+
+  /**
+   * Returns the top texture coordinate of this image in its page.
+   */
+  public float v0() {
+    return (float) y / page.height();
+  }
+
+  /**
+   * Returns the right texture coordinate of this image in its page.
+   */
+  public float u1() {
+    return (float) (x + width()) / page.width();
+  }
+
+  /**
+   * Returns the bottom texture coordinate of this image in its page.
+   */
+  public float v1() {
+    return (float) (y + height()) / page.height();
+  }
+
+  /**
+   * Returns the image from which this atlas image was packed, or null if it was loaded from a
+   * prebuilt atlas.
+   */
+  public Image source() {
+    return source;
+  }
+
+  @Override
+  public int width() {
+    return (source != null) ? source.width() : (wholePage ? page.width() : width);
+  }
+
+  @Override
+  public int height() {
+    return (source != null) ? source.height() : (wholePage ? page.height() : height);
+  }
+
+  @Override
+  public boolean isReady() {
+    return page != null && page.isReady();
+  }
+
+  @Override
+  public void addCallback(final ResourceCallback<Image> callback) {
+    if (error != null) {
+      callback.error(error);
+    } else if (page == null) {
+      callbacks.add(callback);
+    } else {
+      page.addCallback(new ResourceCallback<Image>() {
+        public void done(Image page) {
+          callback.done(AtlasImage.this);
+        }
+        public void error(Throwable err) {
+          callback.error(err);
+        }
+      });
+    }
+  }
+
+  /**
+   * Replaces this image with {@code image}. If that is also an atlas image, this image takes on
+   * its page and region, otherwise this image's page becomes {@code image} in its entirety.
+   */
+  @Override
+  public void replaceWith(Image image) {
+    Asserts.checkNotNull(image);
+    if (image instanceof AtlasImage) {
+      AtlasImage aimage = (AtlasImage) image;
+      Asserts.checkArgument(aimage.page != null, "Cannot replace with an unpacked atlas image");
+      page = aimage.page;
+      x = aimage.x;
+      y = aimage.y;
+      width = aimage.width();
+      height = aimage.height();
+      wholePage = false;
+    } else {
+      page = image;
+      x = y = 0;
+      wholePage = true;
+    }
+    source = null;
+    error = null;
+    // anyone waiting on a pending pack now waits on the replacement instead
+    for (ResourceCallback<Image> callback : callbacks) {
+      addCallback(callback);
+    }
+    callbacks.clear();
+  }
+
+  AtlasImage(Image source) {
+    this.source = source;
+  }
+
+  void packed(Image page, int x, int y) {
+    this.page = page;
+    this.x = x;
+    this.y = y;
+    for (ResourceCallback<Image> callback : callbacks) {
+      callback.done(this);
+    }
+    callbacks.clear();
+  }
+
+  void failed(Throwable error) {
+    if (page != null) {
+      return; // replaced while our source was loading
+    }
+    this.error = error;
+    for (ResourceCallback<Image> callback : callbacks) {
+      callback.error(error);
+    }
+    callbacks.clear();
+  }
+
+  private Image source;
+  private final List<ResourceCallback<Image>> callbacks = new ArrayList<ResourceCallback<Image>>();
+  private Image page;
+  private int x, y, width, height;
+  private boolean wholePage;
+  private Throwable error;
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a set of prebuilt atlas pages and the regions of those pages occupied by individual
+ * images, keyed by the images' logical asset paths. Indexes are produced by the offline atlas tool
+ * and are loaded via {@link playn.core.AssetManager#loadAtlas}.
+ *
+ * <p>The index is stored in a compact binary format. Because not all platforms can load binary
+ * assets, the binary data is base64 encoded so that it can be fetched as text. The binary layout
+ * (all integers big-endian) is:</p>
+ * <pre>
+ * magic      4 bytes, "PLAT"
+ * version    1 byte
+ * pageCount  u16, followed by pageCount strings (page image paths, relative to the index)
+ * entryCount u32, followed by entryCount entries:
+ *   path     string (logical image path)
+ *   page     u16
+ *   x, y     u16, u16
+ *   w, h     u16, u16
+ * string     u16 byte length, followed by that many bytes of UTF-8
+ * </pre>
+ */
+public class AtlasIndex {
+
+  /** The version of the binary format written by {@link #encode}. */
+  public static final int VERSION = 1;
+
+  /** The region of an atlas page occupied by a single image. */
+  public static class Entry {
+    /** The logical path of the image. */
+    public final String path;
+    /** The index of the page that contains the image. */
+    public final int page;
+    /** The position and size of the image on its page, in pixels. */
+    public final int x, y, width, height;
+
+    public Entry(String path, int page, int x, int y, int width, int height) {
+      this.path = path;
+      this.page = page;
+      this.x = x;
+      this.y = y;
+      this.width = width;
+      this.height = height;
+    }
+  }
+
+  /**
+   * Decodes an index from the (base64 encoded) text produced by {@link #encode}.
+   *
+   * @throws IllegalArgumentException if the data is not a valid atlas index.
+   */
+  public static AtlasIndex decode(String text) {
+    // indexes are loaded from untrusted assets, so these checks must not be compiled out
+    Reader in = new Reader(Base64.decode(text));
+    if (in.u8() != 'P' || in.u8() != 'L' || in.u8() != 'A' || in.u8() != 'T') {
+      throw new IllegalArgumentException("Not an atlas index");
+    }
+    int version = in.u8();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported atlas index version " + version);
+    }
+
+    AtlasIndex index = new AtlasIndex();
+    for (int ii = 0, ll = in.u16(); ii < ll; ii++) {
+      index.addPage(in.string());
+    }
+    for (int ii = 0, ll = in.u32(); ii < ll; ii++) {
+      index.addEntry(new Entry(in.string(), in.u16(), in.u16(), in.u16(), in.u16(), in.u16()));
+    }
+    return index;
+  }
+
+  /**
+   * Adds a page to this index.
+   *
+   * @return the index of the added page.
+   */
+  public int addPage(String path) {
+    pages.add(path);
+    return pages.size() - 1;
+  }
+
+  /**
+   * Adds an entry to this index.
+   */
+  public void addEntry(Entry entry) {
+    if (entry.page < 0 || entry.page >= pages.size()) {
+      throw new IllegalArgumentException("Entry refers to unknown page " + entry.page);
+    }
+    entries.add(entry);
+  }
+
+  /**
+   * Returns the paths of this index's pages, relative to the location of the index.
+   */
+  public List<String> pages() {
+    return Collections.unmodifiableList(pages);
+  }
+
+  /**
+   * Returns the entries in this index.
+   */
+  public List<Entry> entries() {
+    return Collections.unmodifiableList(entries);
+  }
+
+  /**
+   * Encodes this index into its binary format, base64 encoded.
+   */
+  public String encode() {
+    Writer out = new Writer();
+    out.u8('P'); out.u8('L'); out.u8('A'); out.u8('T');
+    out.u8(VERSION);
+    out.u16(pages.size());
+    for (String page : pages) {
+      out.string(page);
+    }
+    out.u32(entries.size());
+    for (Entry entry : entries) {
+      out.string(entry.path);
+      out.u16(entry.page);
+      out.u16(entry.x);
+      out.u16(entry.y);
+      out.u16(entry.width);
+      out.u16(entry.height);
+    }
+    return Base64.encode(out.bytes, out.size);
+  }
+
+  protected static class Reader {
+    public Reader(byte[] data) {
+      this.data = data;
+    }
+
+    public int u8() {
+      if (pos >= data.length) {
+        throw new IllegalArgumentException("Truncated atlas index");
+      }
+      return data[pos++] & 0xFF;
+    }
+
+    public int u16() {
+      return (u8() << 8) | u8();
+    }
+
+    public int u32() {
+      return (u16() << 16) | u16();
+    }
+
+    public String string() {
+      int end = u16() + pos;
+      StringBuilder buf = new StringBuilder();
+      while (pos < end) {
+        int c = u8();
+        if (c >= 0xE0) {
+          c = ((c & 0x0F) << 12) | ((u8() & 0x3F) << 6) | (u8() & 0x3F);
+        } else if (c >= 0xC0) {
+          c = ((c & 0x1F) << 6) | (u8() & 0x3F);
+        }
+        buf.append((char) c);
+      }
+      return buf.toString();
+    }
+
+    protected final byte[] data;
+    protected int pos;
+  }
+
+  protected static class Writer {
+    public byte[] bytes = new byte[256];
+    public int size;
+
+    public void u8(int value) {
+      if (size == bytes.length) {
+        byte[] nbytes = new byte[bytes.length * 2];
+        System.arraycopy(bytes, 0, nbytes, 0, size);
+        bytes = nbytes;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    public void u16(int value) {
+      if (value < 0 || value > 0xFFFF) {
+        throw new IllegalArgumentException("Value out of range: " + value);
+      }
+      u8(value >> 8);
+      u8(value);
+    }
+
+    public void u32(int value) {
+      u16(value >>> 16);
+      u16(value & 0xFFFF);
+    }
+
+    public void string(String value) {
+      // we write the length after the fact, so reserve room for it
+      int lenpos = size;
+      u16(0);
+      for (int ii = 0, ll = value.length(); ii < ll; ii++) {
+        char c = value.charAt(ii);
+        if (c < 0x80) {
+          u8(c);
+        } else if (c < 0x800) {
+          u8(0xC0 | (c >> 6));
+          u8(0x80 | (c & 0x3F));
+        } else {
+          u8(0xE0 | (c >> 12));
+          u8(0x80 | ((c >> 6) & 0x3F));
+          u8(0x80 | (c & 0x3F));
+        }
+      }
+      int length = size - lenpos - 2;
+      if (length > 0xFFFF) {
+        throw new IllegalArgumentException("String too long: " + value);
+      }
+      bytes[lenpos] = (byte) (length >> 8);
+      bytes[lenpos+1] = (byte) length;
+    }
+  }
+
+  /** A minimal base64 codec; neither GWT nor Java 6 provide one. */
+  protected static class Base64 {
+    public static String encode(byte[] data, int length) {
+      StringBuilder buf = new StringBuilder((length + 2) / 3 * 4);
+      for (int ii = 0; ii < length; ii += 3) {
+        int b0 = data[ii] & 0xFF;
+        int b1 = (ii + 1 < length) ? data[ii+1] & 0xFF : 0;
+        int b2 = (ii + 2 < length) ? data[ii+2] & 0xFF : 0;
+        buf.append(CHARS.charAt(b0 >> 2));
+        buf.append(CHARS.charAt(((b0 & 0x03) << 4) | (b1 >> 4)));
+        buf.append((ii + 1 < length) ? CHARS.charAt(((b1 & 0x0F) << 2) | (b2 >> 6)) : '=');
+        buf.append((ii + 2 < length) ? CHARS.charAt(b2 & 0x3F) : '=');
+      }
+      return buf.toString();
+    }
+
+    public static byte[] decode(String text) {
+      // ignore whitespace (e.g. a trailing newline added by an editor)
+      StringBuilder clean = new StringBuilder(text.length());
+      for (int ii = 0, ll = text.length(); ii < ll; ii++) {
+        char c = text.charAt(ii);
+        if (c != ' ' && c != '\n' && c != '\r' && c != '\t') clean.append(c);
+      }
+      if (clean.length() % 4 != 0) {
+        throw new IllegalArgumentException("Invalid base64 length");
+      }
+
+      int length = clean.length() / 4 * 3;
+      if (clean.length() > 0 && clean.charAt(clean.length()-1) == '=') length--;
+      if (clean.length() > 1 && clean.charAt(clean.length()-2) == '=') length--;
+      byte[] data = new byte[length];
+      for (int ii = 0, pos = 0, ll = clean.length(); ii < ll; ii += 4) {
+        int bits = 0;
+        for (int jj = 0; jj < 4; jj++) {
+          char c = clean.charAt(ii + jj);
+          int value = (c == '=') ? 0 : CHARS.indexOf(c);
+          if (value < 0) {
+            throw new IllegalArgumentException("Invalid base64 character '" + c + "'");
+          }
+          bits = (bits << 6) | value;
+        }
+        for (int jj = 2; jj >= 0 && pos < length; jj--) {
+          data[pos++] = (byte) (bits >> (8 * jj));
+        }
+      }
+      return data;
+    }
+
+    private static final String CHARS =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+  }
+
+  protected final List<String> pages = new ArrayList<String>();
+  protected final List<Entry> entries = new ArrayList<Entry>();
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.Asserts;
+
+/**
+ * Packs rectangles into fixed-size pages using a shelf packer: each page is divided into
+ * horizontal shelves, and a rectangle goes onto the shelf that wastes the least vertical space.
+ * When no shelf on any page can hold a rectangle, a new shelf or page is started. Rectangles that
+ * are larger than a page get a page of their own, sized to fit.
+ */
+public class AtlasPacker {
+
+  /** Describes where a rectangle was placed. */
+  public static class Region {
+    /** The index of the page on which the rectangle was placed. */
+    public final int page;
+    /** The position and size of the rectangle on its page, in pixels. */
+    public final int x, y, width, height;
+
+    public Region(int page, int x, int y, int width, int height) {
+      this.page = page;
+      this.x = x;
+      this.y = y;
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override
+    public String toString() {
+      return "[page=" + page + ", " + width + "x" + height + "+" + x + "+" + y + "]";
+    }
+  }
+
+  /**
+   * Creates a packer that lays rectangles out on pages of the specified size, leaving {@code
+   * padding} pixels between adjacent rectangles (to avoid bleeding when textures are filtered).
+   */
+  public AtlasPacker(int pageWidth, int pageHeight, int padding) {
+    Asserts.checkArgument(pageWidth > 0 && pageHeight > 0, "Page size must be > 0 (got %sx%s)",
+                          pageWidth, pageHeight);
+    Asserts.checkArgument(padding >= 0, "Padding must be >= 0 (got %s)", padding);
+    this.pageWidth = pageWidth;
+    this.pageHeight = pageHeight;
+    this.padding = padding;
+  }
+
+  /**
+   * Finds a place for a rectangle of the specified size.
+   */
+  public Region pack(int width, int height) {
+    Asserts.checkArgument(width > 0 && height > 0, "Size must be > 0 (got %sx%s)", width, height);
+    int pw = width + padding, ph = height + padding;
+    for (int ii = 0, ll = pages.size(); ii < ll; ii++) {
+      Region region = pages.get(ii).pack(ii, width, height, pw, ph);
+      if (region != null) {
+        return region;
+      }
+    }
+    // nothing fits, so start a new page (which will be larger than normal if need be)
+    Page page = new Page(Math.max(pageWidth, pw), Math.max(pageHeight, ph));
+    pages.add(page);
+    return page.pack(pages.size()-1, width, height, pw, ph);
+  }
+
+  /**
+   * Returns the number of pages created so far.
+   */
+  public int pageCount() {
+    return pages.size();
+  }
+
+  /**
+   * Returns the width of the specified page. This is the configured page width unless the page
+   * was created to hold an oversized rectangle.
+   */
+  public int pageWidth(int page) {
+    return pages.get(page).width;
+  }
+
+  /**
+   * Returns the height of the specified page. This is the configured page height unless the page
+   * was created to hold an oversized rectangle.
+   */
+  public int pageHeight(int page) {
+    return pages.get(page).height;
+  }
+
+  protected static class Shelf {
+    public final int y, height;
+    public int x;
+
+    public Shelf(int y, int height) {
+      this.y = y;
+      this.height = height;
+    }
+  }
+
+  protected static class Page {
+    public final int width, height;
+    public final List<Shelf> shelves = new ArrayList<Shelf>();
+    public int top;
+
+    public Page(int width, int height) {
+      this.width = width;
+      this.height = height;
+    }
+
+    public Region pack(int index, int width, int height, int pw, int ph) {
+      // find the existing shelf that fits this rectangle with the least wasted height
+      Shelf best = null;
+      for (Shelf shelf : shelves) {
+        if (shelf.height >= ph && shelf.x + pw <= this.width &&
+            (best == null || shelf.height < best.height)) {
+          best = shelf;
+        }
+      }
+      // if we didn't find one, try to start a new shelf
+      if (best == null) {
+        if (top + ph > this.height || pw > this.width) {
+          return null;
+        }
+        best = new Shelf(top, ph);
+        shelves.add(best);
+        top += ph;
+      }
+      Region region = new Region(index, best.x, best.y, width, height);
+      best.x += pw;
+      return region;
+    }
+  }
+
+  protected final int pageWidth, pageHeight, padding;
+  protected final List<Page> pages = new ArrayList<Page>();
+}
@@ -0,0 +1,291 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics about the GL calls made while painting, gathered by a platform's counting GL wrapper
+ * (which must be enabled; it is not used by default). For each frame we count the calls made to
+ * each GL function, the calls that set state to the value it already had (a sign that batching
+ * has regressed), and the bytes uploaded into buffers. We also track the memory used by the
+ * textures that are alive, which reveals textures that are leaked. Finally, a single frame can be
+ * traced, recording every call made during that frame along with its arguments.
+ *
+ * <p>The statistics reported by the accessors pertain to the most recently completed frame (see
+ * {@link #endFrame}), except for the texture statistics, which are current.</p>
+ */
+public class GLStats {
+
+  /**
+   * Notes a call to the GL function {@code name}. Returns true if the current frame is being
+   * traced, in which case the caller should supply the call's arguments via the {@code arg}
+   * methods.
+   */
+  public boolean call(String name) {
+    counter(name).calls++;
+    if (tracing) {
+      closeTraceLine();
+      if (trace.length() > 0) trace.append('\n');
+      trace.append(name).append('(');
+      traceArgs = 0;
+      traceOpen = true;
+    }
+    return tracing;
+  }
+
+  /** Appends an argument to the call most recently traced. */
+  public GLStats arg(int value) {
+    argSep().append(value);
+    return this;
+  }
+
+  /** Appends an argument to the call most recently traced. */
+  public GLStats arg(float value) {
+    argSep().append(value);
+    return this;
+  }
+
+  /** Appends an argument to the call most recently traced. */
+  public GLStats arg(boolean value) {
+    argSep().append(value);
+    return this;
+  }
+
+  /** Appends an argument to the call most recently traced. */
+  public GLStats arg(Object value) {
+    argSep().append(value);
+    return this;
+  }
+
+  /**
+   * Notes that the most recent call to {@code name} set state to the value it already had.
+   */
+  public void redundant(String name) {
+    counter(name).redundant++;
+  }
+
+  /**
+   * Notes that {@code bytes} were uploaded into a vertex or element buffer.
+   */
+  public void uploaded(int bytes) {
+    uploaded += bytes;
+  }
+
+  /**
+   * Notes that {@code bytes} of texture memory were allocated for {@code texture}, replacing any
+   * memory previously allocated for it.
+   */
+  public void textureAllocated(Object texture, int bytes) {
+    Integer old = textures.put(texture, bytes);
+    textureBytes += bytes - (old == null ? 0 : old);
+  }
+
+  /**
+   * Notes that {@code texture} was deleted, freeing its memory.
+   */
+  public void textureDeleted(Object texture) {
+    Integer old = textures.remove(texture);
+    if (old != null) {
+      textureBytes -= old;
+    }
+  }
+
+  /**
+   * Forgets all textures, which were lost along with the GL context.
+   */
+  public void resetTextures() {
+    textures.clear();
+    textureBytes = 0;
+  }
+
+  /**
+   * Requests that every call made during the next frame be recorded. The trace is available via
+   * {@link #trace} once that frame is complete.
+   */
+  public void traceNextFrame() {
+    traceRequested = true;
+  }
+
+  /**
+   * Completes the current frame. Called by the platform after each frame is painted.
+   */
+  public void endFrame() {
+    if (tracing) {
+      closeTraceLine();
+      lastTrace = trace.toString();
+      trace.setLength(0);
+      tracing = false;
+    }
+    if (traceRequested) {
+      tracing = true;
+      traceRequested = false;
+    }
+
+    for (Counter counter : counters.values()) {
+      counter.lastCalls = counter.calls;
+      counter.lastRedundant = counter.redundant;
+      counter.calls = counter.redundant = 0;
+    }
+    lastUploaded = uploaded;
+    uploaded = 0;
+  }
+
+  /** Returns the number of GL calls made during the last frame. */
+  public int calls() {
+    int total = 0;
+    for (Counter counter : counters.values()) total += counter.lastCalls;
+    return total;
+  }
+
+  /** Returns the number of calls to {@code name} made during the last frame. */
+  public int calls(String name) {
+    Counter counter = counters.get(name);
+    return (counter == null) ? 0 : counter.lastCalls;
+  }
+
+  /** Returns the number of redundant state changes made during the last frame. */
+  public int redundantCalls() {
+    int total = 0;
+    for (Counter counter : counters.values()) total += counter.lastRedundant;
+    return total;
+  }
+
+  /** Returns the number of redundant calls to {@code name} made during the last frame. */
+  public int redundantCalls(String name) {
+    Counter counter = counters.get(name);
+    return (counter == null) ? 0 : counter.lastRedundant;
+  }
+
+  /** Returns the number of bytes uploaded into buffers during the last frame. */
+  public int uploadedBytes() {
+    return lastUploaded;
+  }
+
+  /** Returns the number of textures currently alive (that have had memory allocated). */
+  public int textures() {
+    return textures.size();
+  }
+
+  /** Returns the number of bytes of texture memory currently allocated. */
+  public long textureBytes() {
+    return textureBytes;
+  }
+
+  /**
+   * Returns the calls made during the most recently traced frame, one per line, or null if no
+   * frame has been traced.
+   */
+  public String trace() {
+    return lastTrace;
+  }
+
+  /**
+   * Returns a summary of the last frame: the totals, followed by the calls made to each function
+   * (and how many of them were redundant), most frequent first.
+   */
+  @Override
+  public String toString() {
+    List<Map.Entry<String, Counter>> entries =
+      new ArrayList<Map.Entry<String, Counter>>(counters.entrySet());
+    Collections.sort(entries, new Comparator<Map.Entry<String, Counter>>() {
+      public int compare(Map.Entry<String, Counter> a, Map.Entry<String, Counter> b) {
+        return b.getValue().lastCalls - a.getValue().lastCalls;
+      }
+    });
+    StringBuilder buf = new StringBuilder();
+    buf.append("calls=").append(calls()).append(" redundant=").append(redundantCalls());
+    buf.append(" uploaded=").append(lastUploaded).append(" textures=").append(textures());
+    buf.append(" textureBytes=").append(textureBytes);
+    for (Map.Entry<String, Counter> entry : entries) {
+      Counter counter = entry.getValue();
+      if (counter.lastCalls == 0) break;
+      buf.append('\n').append(entry.getKey()).append(' ').append(counter.lastCalls);
+      if (counter.lastRedundant > 0) buf.append(" (").append(counter.lastRedundant).append(')');
+    }
+    return buf.toString();
+  }
+
+  /**
+   * Returns the number of bytes per pixel used by a texture of the specified GL format and type.
+   */
+  public static int bytesPerPixel(int format, int type) {
+    switch (type) {
+    case UNSIGNED_SHORT_4_4_4_4:
+    case UNSIGNED_SHORT_5_5_5_1:
+    case UNSIGNED_SHORT_5_6_5:
+      return 2;
+    default:
+      switch (format) {
+      case ALPHA:
+      case LUMINANCE:
+        return 1;
+      case LUMINANCE_ALPHA:
+        return 2;
+      case RGB:
+        return 3;
+      default:
+        return 4;
+      }
+    }
+  }
+
+  private Counter counter(String name) {
+    Counter counter = counters.get(name);
+    if (counter == null) {
+      counters.put(name, counter = new Counter());
+    }
+    return counter;
+  }
+
+  private StringBuilder argSep() {
+    if (traceArgs++ > 0) trace.append(", ");
+    return trace;
+  }
+
+  private void closeTraceLine() {
+    if (traceOpen) {
+      trace.append(')');
+      traceOpen = false;
+    }
+  }
+
+  private static class Counter {
+    public int calls, redundant, lastCalls, lastRedundant;
+  }
+
+  // the GL enums needed to size textures, which are the same for GL ES and WebGL
+  private static final int ALPHA = 0x1906;
+  private static final int RGB = 0x1907;
+  private static final int LUMINANCE = 0x1909;
+  private static final int LUMINANCE_ALPHA = 0x190A;
+  private static final int UNSIGNED_SHORT_4_4_4_4 = 0x8033;
+  private static final int UNSIGNED_SHORT_5_5_5_1 = 0x8034;
+  private static final int UNSIGNED_SHORT_5_6_5 = 0x8363;
+
+  private final Map<String, Counter> counters = new HashMap<String, Counter>();
+  private final Map<Object, Integer> textures = new HashMap<Object, Integer>();
+  private final StringBuilder trace = new StringBuilder();
+  private int uploaded, lastUploaded, traceArgs;
+  private long textureBytes;
+  private boolean tracing, traceRequested, traceOpen;
+  private String lastTrace;
+}
@@ -16,15 +16,91 @@
 package playn.core.gl;
 
 import playn.core.AbstractLayer;
+import playn.core.GroupLayer;
 import playn.core.InternalTransform;
 
 public abstract class LayerGL extends AbstractLayer {
-  private final InternalTransform savedLocal = createTransform();
 
+  /**
+   * Returns this layer's transform concatenated onto {@code parentTransform}. The result is cached
+   * and is only recomputed when this layer's transform has changed, or when the parent transform
+   * has changed since it was last computed. A group layer's parent transform only changes when
+   * the group recomputes its own cached transform, so a change to a layer's transform results in
+   * recomputation for exactly the layers below it, and static subtrees are not recomputed at all.
+   */
   protected InternalTransform localTransform(InternalTransform parentTransform) {
-    savedLocal.set(parentTransform);
-    return savedLocal.concatenate(transform, originX, originY);
+    if (parentChanged(parentTransform) || isSet(Flag.XFDIRTY)) {
+      savedLocal.set(parentTransform);
+      savedLocal.concatenate(transform, originX, originY);
+      setFlag(Flag.XFDIRTY, false);
+      // stay non-negative so that we never match NO_VERSION
+      localVersion = (localVersion + 1) & Integer.MAX_VALUE;
+    }
+    return savedLocal;
   }
 
   public abstract void paint(InternalTransform parentTransform, float parentAlpha);
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The transform cached by {@link #localTransform} is the screen transform if it was computed
+   * during the last paint, and neither this layer nor any of its ancestors have been changed
+   * since. The cache only tells us that it is consistent with our parent's cached transform, so
+   * we check every link up to the root (which must have been painted with the identity).</p>
+   */
+  @Override
+  protected InternalTransform screenTransform() {
+    LayerGL layer = this;
+    while (true) {
+      if (layer.isSet(Flag.XFDIRTY)) {
+        return null;
+      }
+      GroupLayer parent = layer.parent();
+      if (parent == null) {
+        return layer.isRootTransform() ? savedLocal : null;
+      }
+      if (!(parent instanceof LayerGL) || ((LayerGL) parent).localVersion != layer.parentVersion) {
+        return null;
+      }
+      layer = (LayerGL) parent;
+    }
+  }
+
+  private boolean parentChanged(InternalTransform parentTransform) {
+    GroupLayer parent = parent();
+    if (parent instanceof LayerGL && ((LayerGL) parent).savedLocal == parentTransform) {
+      // we're being painted by our parent, which versions its cached transform
+      int pversion = ((LayerGL) parent).localVersion;
+      if (pversion == parentVersion) {
+        return false;
+      }
+      parentVersion = pversion;
+      return true;
+    }
+
+    // otherwise (e.g. we're the root layer) we have to compare the transforms themselves
+    boolean same = (parentVersion == NO_VERSION) &&
+      savedParent.m00() == parentTransform.m00() && savedParent.m01() == parentTransform.m01() &&
+      savedParent.m10() == parentTransform.m10() && savedParent.m11() == parentTransform.m11() &&
+      savedParent.tx() == parentTransform.tx() && savedParent.ty() == parentTransform.ty();
+    if (same) {
+      return false;
+    }
+    parentVersion = NO_VERSION;
+    savedParent.set(parentTransform);
+    return true;
+  }
+
+  private boolean isRootTransform() {
+    return parentVersion == NO_VERSION &&
+      savedParent.m00() == 1 && savedParent.m01() == 0 && savedParent.m10() == 0 &&
+      savedParent.m11() == 1 && savedParent.tx() == 0 && savedParent.ty() == 0;
+  }
+
+  private static final int NO_VERSION = -1;
+
+  private final InternalTransform savedLocal = createTransform();
+  private final InternalTransform savedParent = createTransform();
+  private int localVersion, parentVersion = NO_VERSION;
 }
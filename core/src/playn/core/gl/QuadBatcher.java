@@ -0,0 +1,192 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import playn.core.Asserts;
+import playn.core.InternalTransform;
+
+/**
+ * Accumulates quads (and small polygons) into client-side vertex and element arrays and hands
+ * them to the GL in a single draw call. A batch is flushed when it fills up, or when the caller
+ * changes some piece of GL state (texture, alpha, color) and calls {@link #flush} explicitly.
+ *
+ * <p>Each vertex is {@link #VERTEX_SIZE} floats: the four matrix components and the translation
+ * of the layer transform, followed by the vertex position and its texture coordinates. Elements
+ * describe triangles (not strips) so that disjoint quads can share a single draw call.</p>
+ */
+public class QuadBatcher {
+
+  /**
+   * Receives batched geometry. The backends implement this atop their GL bindings; tests can
+   * implement it with a recording fake.
+   */
+  public interface Renderer {
+    /**
+     * Uploads the first {@code floatCount} floats of {@code vertices} and the first
+     * {@code elementCount} indices of {@code elements} into the currently bound array and element
+     * array buffers and draws them as triangles.
+     */
+    void draw(float[] vertices, int floatCount, short[] elements, int elementCount);
+  }
+
+  /** The number of floats per vertex. */
+  public static final int VERTEX_SIZE = 10;
+
+  /** The number of bytes per vertex. */
+  public static final int VERTEX_STRIDE = VERTEX_SIZE * 4;
+
+  /** The default number of quads that fit in a single batch. */
+  public static final int DEFAULT_MAX_QUADS = 1024;
+
+  public QuadBatcher(Renderer renderer) {
+    this(renderer, DEFAULT_MAX_QUADS);
+  }
+
+  public QuadBatcher(Renderer renderer, int maxQuads) {
+    // elements are unsigned shorts, so we can't address more than 64k vertices
+    Asserts.checkArgument(maxQuads > 0 && maxQuads * 4 <= 0x10000,
+                          "maxQuads must be in [1, 16384] (got %s)", maxQuads);
+    this.renderer = renderer;
+    this.maxVerts = maxQuads * 4;
+    this.maxElems = maxQuads * 6;
+    this.vertexData = new float[maxVerts * VERTEX_SIZE];
+    this.elementData = new short[maxElems];
+  }
+
+  /**
+   * Reserves space for a primitive with the specified number of vertices and elements, flushing
+   * the current batch if it lacks room.
+   *
+   * @return the index of the first vertex of the primitive, for use with {@link #addElement}.
+   */
+  public int beginPrimitive(int vertexCount, int elemCount) {
+    Asserts.checkArgument(vertexCount <= maxVerts && elemCount <= maxElems,
+                          "Primitive too large for batch (%s verts, %s elems)",
+                          vertexCount, elemCount);
+    int vertIdx = vertexOffset / VERTEX_SIZE;
+    if ((vertIdx + vertexCount > maxVerts) || (elementOffset + elemCount > maxElems)) {
+      flush();
+      return 0;
+    }
+    return vertIdx;
+  }
+
+  /**
+   * Adds an untextured vertex to the current primitive.
+   */
+  public void addVertex(InternalTransform local, float dx, float dy) {
+    addVertex(local, dx, dy, 0, 0);
+  }
+
+  /**
+   * Adds a vertex to the current primitive.
+   */
+  public void addVertex(InternalTransform local, float dx, float dy, float sx, float sy) {
+    addVertex(local.m00(), local.m01(), local.m10(), local.m11(), local.tx(), local.ty(),
+              dx, dy, sx, sy);
+  }
+
+  /**
+   * Adds a vertex to the current primitive, with the components of its layer transform supplied
+   * directly, so that callers adding many vertices with the same transform read it only once.
+   */
+  public void addVertex(float m00, float m01, float m10, float m11, float tx, float ty,
+                        float dx, float dy, float sx, float sy) {
+    float[] data = vertexData;
+    int off = vertexOffset;
+    data[off++] = m00;
+    data[off++] = m01;
+    data[off++] = m10;
+    data[off++] = m11;
+    data[off++] = tx;
+    data[off++] = ty;
+    data[off++] = dx;
+    data[off++] = dy;
+    data[off++] = sx;
+    data[off++] = sy;
+    vertexOffset = off;
+  }
+
+  /**
+   * Adds an element (vertex index) to the current primitive.
+   */
+  public void addElement(int index) {
+    elementData[elementOffset++] = (short) index;
+  }
+
+  /**
+   * Adds an untextured quad to the batch.
+   */
+  public void addQuad(InternalTransform local, float dx, float dy, float dw, float dh) {
+    addQuad(local, dx, dy, dw, dh, 0, 0, 0, 0);
+  }
+
+  /**
+   * Adds a textured quad to the batch. Texture coordinates are normalized, i.e. {@code (0, 0, 1,
+   * 1)} maps the entire texture onto the quad.
+   */
+  public void addQuad(InternalTransform local, float dx, float dy, float dw, float dh,
+                      float sx, float sy, float sw, float sh) {
+    int idx = beginPrimitive(4, 6);
+    float m00 = local.m00(), m01 = local.m01(), m10 = local.m10(), m11 = local.m11();
+    float tx = local.tx(), ty = local.ty();
+    addVertex(m00, m01, m10, m11, tx, ty, dx,      dy,      sx,      sy);
+    addVertex(m00, m01, m10, m11, tx, ty, dx + dw, dy,      sx + sw, sy);
+    addVertex(m00, m01, m10, m11, tx, ty, dx,      dy + dh, sx,      sy + sh);
+    addVertex(m00, m01, m10, m11, tx, ty, dx + dw, dy + dh, sx + sw, sy + sh);
+
+    addElement(idx + 0); addElement(idx + 1); addElement(idx + 2);
+    addElement(idx + 1); addElement(idx + 3); addElement(idx + 2);
+  }
+
+  /**
+   * Sends any accumulated geometry to the renderer and resets the batch.
+   */
+  public void flush() {
+    if (vertexOffset == 0) {
+      return;
+    }
+    renderer.draw(vertexData, vertexOffset, elementData, elementOffset);
+    vertexOffset = elementOffset = 0;
+  }
+
+  /**
+   * Returns true if no geometry has been added since the last flush.
+   */
+  public boolean isEmpty() {
+    return vertexOffset == 0;
+  }
+
+  /**
+   * Returns the number of vertices in the current batch.
+   */
+  public int vertexCount() {
+    return vertexOffset / VERTEX_SIZE;
+  }
+
+  /**
+   * Returns the number of elements in the current batch.
+   */
+  public int elementCount() {
+    return elementOffset;
+  }
+
+  private final Renderer renderer;
+  private final int maxVerts, maxElems;
+  private final float[] vertexData;
+  private final short[] elementData;
+  private int vertexOffset, elementOffset;
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.CanvasImage;
+import playn.core.Graphics;
+import playn.core.Image;
+import playn.core.ResourceCallback;
+
+/**
+ * Packs small images into shared pages at runtime. Each page is a single {@link CanvasImage}, and
+ * thus a single GL texture, so image layers that display images from the same page can be drawn
+ * in one batch without a texture switch. Images added to the atlas are returned as {@link
+ * AtlasImage}s, which can be used with {@link playn.core.ImageLayer} on the GL backends.
+ *
+ * <p>Images that are not yet loaded are packed when they finish loading. The returned {@link
+ * AtlasImage} reports itself as ready (and notifies its callbacks) once that has happened.</p>
+ */
+public class TextureAtlas {
+
+  /** The default width and height of an atlas page. */
+  public static final int DEFAULT_PAGE_SIZE = 1024;
+
+  /** The number of pixels left empty between packed images. */
+  public static final int PADDING = 1;
+
+  public TextureAtlas(Graphics gfx) {
+    this(gfx, DEFAULT_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+  }
+
+  public TextureAtlas(Graphics gfx, int pageWidth, int pageHeight) {
+    this.gfx = gfx;
+    this.packer = new AtlasPacker(pageWidth, pageHeight, PADDING);
+  }
+
+  /**
+   * Adds the supplied image to this atlas.
+   *
+   * @return an image that refers to the copy of {@code image} in one of this atlas's pages.
+   */
+  public AtlasImage add(Image image) {
+    final AtlasImage aimage = new AtlasImage(image);
+    if (image.isReady()) {
+      pack(aimage);
+    } else {
+      image.addCallback(new ResourceCallback<Image>() {
+        public void done(Image image) {
+          pack(aimage);
+        }
+        public void error(Throwable err) {
+          aimage.failed(err);
+        }
+      });
+    }
+    return aimage;
+  }
+
+  /**
+   * Returns the number of pages in this atlas.
+   */
+  public int pageCount() {
+    return pages.size();
+  }
+
+  /**
+   * Returns the specified page of this atlas.
+   */
+  public CanvasImage page(int index) {
+    return pages.get(index);
+  }
+
+  protected void pack(AtlasImage aimage) {
+    if (aimage.page() != null) {
+      return; // replaced while its source was loading
+    }
+    Image source = aimage.source();
+    AtlasPacker.Region region = packer.pack(source.width(), source.height());
+    while (pages.size() <= region.page) {
+      int pidx = pages.size();
+      pages.add(gfx.createImage(packer.pageWidth(pidx), packer.pageHeight(pidx)));
+    }
+    CanvasImage page = pages.get(region.page);
+    page.canvas().drawImage(source, region.x, region.y);
+    aimage.packed(page, region.x, region.y);
+  }
+
+  protected final Graphics gfx;
+  protected final AtlasPacker packer;
+  protected final List<CanvasImage> pages = new ArrayList<CanvasImage>();
+}
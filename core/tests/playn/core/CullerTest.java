@@ -0,0 +1,219 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.Collection;
+
+import pythagoras.f.Rectangle;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link Culler} and the bounds computation that supports it.
+ */
+public class CullerTest {
+
+  @Test public void testCullSized() {
+    Culler culler = new Culler();
+    culler.reset(0, 0, 100, 100);
+    SizedLayer layer = new SizedLayer(10, 10);
+
+    layer.setTranslation(50, 50);
+    assertFalse(culler.cull(layer, StockInternalTransform.IDENTITY));
+    layer.setTranslation(-20, 50);
+    assertTrue(culler.cull(layer, StockInternalTransform.IDENTITY));
+    layer.setTranslation(95, 95);
+    assertFalse(culler.cull(layer, StockInternalTransform.IDENTITY));
+    layer.setTranslation(150, 0);
+    assertTrue(culler.cull(layer, StockInternalTransform.IDENTITY));
+    assertEquals(2, culler.culled());
+
+    // nothing is culled while culling is suspended
+    culler.suspend();
+    culler.suspend();
+    assertFalse(culler.cull(layer, StockInternalTransform.IDENTITY));
+    culler.resume();
+    assertFalse(culler.cull(layer, StockInternalTransform.IDENTITY));
+    culler.resume();
+    assertTrue(culler.cull(layer, StockInternalTransform.IDENTITY));
+    assertEquals(3, culler.culled());
+    assertEquals(7, culler.visited());
+
+    // a scrolled parent transform brings it back into view
+    StockInternalTransform scroll = new StockInternalTransform();
+    scroll.setTranslation(-100, 0);
+    assertFalse(culler.cull(layer, scroll));
+
+    culler.reset(0, 0, 100, 100);
+    assertEquals(0, culler.culled());
+    assertEquals(0, culler.visited());
+  }
+
+  @Test public void testRotatedAndOrigin() {
+    Culler culler = new Culler();
+    culler.reset(0, 0, 100, 100);
+    SizedLayer layer = new SizedLayer(20, 20);
+    // centered on (-5, 50), so its right half is visible
+    layer.setOrigin(10, 10);
+    layer.setTranslation(-5, 50);
+    assertFalse(culler.cull(layer, StockInternalTransform.IDENTITY));
+    // rotated 45 degrees about its center, it reaches to about x=9
+    layer.setRotation((float) Math.PI / 4);
+    assertFalse(culler.cull(layer, StockInternalTransform.IDENTITY));
+    layer.setTranslation(-20, 50);
+    assertTrue(culler.cull(layer, StockInternalTransform.IDENTITY));
+  }
+
+  @Test public void testUnknownBounds() {
+    Culler culler = new Culler();
+    culler.reset(0, 0, 100, 100);
+    GroupLayerImplTest.TestLayer layer = new GroupLayerImplTest.TestLayer();
+    layer.setTranslation(-1000, -1000);
+    assertFalse(culler.cull(layer, StockInternalTransform.IDENTITY));
+    assertFalse(culler.cull(new SizedLayer(0, 10), StockInternalTransform.IDENTITY));
+  }
+
+  @Test public void testGroupBounds() {
+    BoundedGroupLayer root = new BoundedGroupLayer(), group = new BoundedGroupLayer();
+    SizedLayer a = new SizedLayer(10, 10), b = new SizedLayer(5, 5);
+    root.add(group);
+    group.add(a);
+    group.add(b);
+    a.setTranslation(10, 20);
+    b.setTranslation(-5, 0);
+    group.setTranslation(100, 100);
+
+    Rectangle r = new Rectangle();
+    assertTrue(group.bounds(r));
+    assertBounds(r, -5, 0, 25, 30);
+    assertTrue(root.bounds(r));
+    assertBounds(r, 95, 100, 25, 30);
+
+    // changes to a descendant propagate to all of its ancestors
+    b.setTranslation(-15, 0);
+    assertTrue(root.bounds(r));
+    assertBounds(r, 85, 100, 35, 30);
+
+    // invisible layers don't contribute
+    a.setVisible(false);
+    assertTrue(root.bounds(r));
+    assertBounds(r, 85, 100, 5, 5);
+
+    // a layer with unknown bounds makes its ancestors' bounds unknown
+    SizedLayer c = new SizedLayer(0, 0);
+    group.add(c);
+    assertFalse(root.bounds(r));
+    c.setSize(1, 1);
+    assertTrue(root.bounds(r));
+
+    // as does a layer that doesn't have a size
+    group.add(new GroupLayerImplTest.TestLayer());
+    assertFalse(root.bounds(r));
+    group.remove(group.get(group.size()-1));
+    assertTrue(root.bounds(r));
+
+    // empty groups have empty bounds
+    group.clear();
+    assertTrue(root.bounds(r));
+    assertEquals(0, r.width, 0);
+    assertEquals(0, r.height, 0);
+  }
+
+  protected void assertBounds(Rectangle r, float x, float y, float width, float height) {
+    assertEquals(x, r.x, 1e-4);
+    assertEquals(y, r.y, 1e-4);
+    assertEquals(width, r.width, 1e-4);
+    assertEquals(height, r.height, 1e-4);
+  }
+
+  protected static class SizedLayer extends GroupLayerImplTest.TestLayer implements Layer.HasSize {
+    public float width, height;
+
+    public SizedLayer(float width, float height) {
+      this.width = width;
+      this.height = height;
+    }
+    public void setSize(float width, float height) {
+      this.width = width;
+      this.height = height;
+      boundsChanged();
+    }
+    public float width() {
+      return width;
+    }
+    public float height() {
+      return height;
+    }
+    public float scaledWidth() {
+      return transform.scaleX() * width;
+    }
+    public float scaledHeight() {
+      return transform.scaleY() * height;
+    }
+  }
+
+  protected static class BoundedGroupLayer extends AbstractLayer
+    implements GroupLayer, ParentLayer {
+    public final GroupLayerImpl<AbstractLayer> impl = new GroupLayerImpl<AbstractLayer>();
+
+    public Layer get(int index) {
+      return impl.children.get(index);
+    }
+    public void add(Layer layer) {
+      impl.add(this, (AbstractLayer)layer);
+    }
+    @Deprecated public void add(int index, Layer layer) {
+      impl.add(this, index, (AbstractLayer)layer);
+    }
+    public void addAll(Collection<? extends Layer> layers) {
+      impl.addAll(this, layers);
+    }
+    public void remove(Layer layer) {
+      impl.remove(this, (AbstractLayer)layer);
+    }
+    @Deprecated public void remove(int index) {
+      impl.remove(this, index);
+    }
+    public void removeAll(Collection<? extends Layer> layers) {
+      impl.removeAll(this, layers);
+    }
+    public void clear() {
+      impl.clear(this);
+    }
+    public int size() {
+      return impl.children.size();
+    }
+    public boolean frozen() {
+      return impl.frozen;
+    }
+    public void setFrozen(boolean frozen) {
+      impl.frozen = frozen;
+    }
+    public boolean cached() {
+      return impl.cached;
+    }
+    public void setCached(boolean cached) {
+      impl.cached = cached;
+    }
+    public void depthChanged(Layer layer, float oldDepth) {
+      impl.depthChanged(this, layer, oldDepth);
+    }
+    @Override public boolean bounds(Rectangle into) {
+      return impl.bounds(this, into);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static playn.core.FrameMetrics.Stat.*;
+
+/**
+ * Tests {@link FrameMetrics}.
+ */
+public class FrameMetricsTest {
+
+  @Test public void testPercentiles() {
+    FrameMetrics metrics = new FrameMetrics();
+    assertEquals(0, metrics.percentile(PAINT_TIME, 50), 0);
+    assertEquals(0, metrics.last(PAINT_TIME), 0);
+
+    // record frames taking 1 through 100 ms, in scrambled order
+    for (int ii = 0; ii < 100; ii++) {
+      metrics.add(PAINT_TIME, (ii * 37) % 100 + 1);
+      metrics.add(DRAW_CALLS, 1);
+      metrics.add(DRAW_CALLS, 2);
+      metrics.endFrame();
+    }
+    assertEquals(100, metrics.frames());
+    assertEquals(50, metrics.percentile(PAINT_TIME, 50), 0);
+    assertEquals(95, metrics.percentile(PAINT_TIME, 95), 0);
+    assertEquals(99, metrics.percentile(PAINT_TIME, 99), 0);
+    assertEquals(1, metrics.percentile(PAINT_TIME, 0), 0);
+    assertEquals(100, metrics.percentile(PAINT_TIME, 100), 0);
+    assertEquals(50.5f, metrics.mean(PAINT_TIME), 1e-4);
+
+    // values are accumulated within a frame, and reset between frames
+    assertEquals(3, metrics.last(DRAW_CALLS), 0);
+    assertEquals(3, metrics.percentile(DRAW_CALLS, 99), 0);
+    assertEquals(0, metrics.last(FLUSHES), 0);
+    assertEquals("paint_time p50=50.00 p95=95.00 p99=99.00", metrics.summary(PAINT_TIME));
+  }
+
+  @Test public void testWrap() {
+    FrameMetrics metrics = new FrameMetrics(4);
+    for (int ii = 1; ii <= 10; ii++) {
+      metrics.add(UPDATE_TIME, ii);
+      metrics.endFrame();
+    }
+    // only the last four frames are retained
+    assertEquals(10, metrics.recorded());
+    assertEquals(4, metrics.frames());
+    assertEquals(10, metrics.last(UPDATE_TIME), 0);
+    assertEquals(7, metrics.percentile(UPDATE_TIME, 0), 0);
+    assertEquals(8.5f, metrics.mean(UPDATE_TIME), 0);
+
+    metrics.reset();
+    assertEquals(0, metrics.frames());
+    assertEquals(0, metrics.mean(UPDATE_TIME), 0);
+  }
+
+  @Test public void testListener() {
+    FrameMetrics metrics = new FrameMetrics();
+    final int[] notified = new int[1];
+    metrics.setListener(new FrameMetrics.Listener() {
+      public void frameRecorded(FrameMetrics metrics) {
+        notified[0] = metrics.recorded();
+      }
+    });
+    metrics.endFrame();
+    metrics.endFrame();
+    assertEquals(2, notified[0]);
+  }
+}
@@ -17,6 +17,7 @@ package playn.core;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -68,6 +69,169 @@ public class GroupLayerImplTest {
     }
   }
 
+  @Test public void testDeferredDepthUpdates() {
+    TestGroupLayer group = new TestGroupLayer();
+    group.deferred = true;
+    List<TestLayer> layers = createLayers();
+    for (TestLayer l : layers) group.add(l);
+
+    // change the depths of lots of layers at once (as when y-sorting), checking order only after
+    Random rando = new Random(42);
+    for (int iter = 0; iter < 50; iter++) {
+      for (TestLayer l : layers) {
+        if (rando.nextBoolean()) l.setDepth(rando.nextInt(10));
+      }
+      assertTrue(group.impl.children.unsorted());
+      validateOrder(group);
+      assertFalse(group.impl.children.unsorted());
+    }
+
+    // removing, adding and changing depths eagerly all work with pending changes
+    layers.get(0).setDepth(-1);
+    group.remove(layers.get(1));
+    layers.get(2).setDepth(20);
+    group.add(layers.get(1));
+    group.deferred = false;
+    layers.get(3).setDepth(5.5f);
+    validateOrder(group);
+    assertSame(layers.get(0), group.get(0));
+    assertSame(layers.get(2), group.get(group.size()-1));
+    assertEquals(layers.size(), group.size());
+  }
+
+  @Test public void testStableSort() {
+    TestGroupLayer group = new TestGroupLayer();
+    group.deferred = true;
+    List<TestLayer> layers = createLayers();
+    for (TestLayer l : layers) group.add(l);
+    // moving every layer to the same depth preserves their relative order
+    for (TestLayer l : layers) l.setDepth(7);
+    for (int ii = 0; ii < layers.size(); ii++) {
+      assertSame(layers.get(ii), group.get(ii));
+    }
+  }
+
+  @Test public void testAddAll() {
+    TestGroupLayer group = new TestGroupLayer();
+    List<TestLayer> layers = createLayers();
+    group.add(layers.get(12));
+    group.add(layers.get(0));
+    List<TestLayer> rest = new ArrayList<TestLayer>(layers.subList(1, 12));
+    Collections.shuffle(rest, new Random(42));
+    group.addAll(rest);
+    validateOrder(group);
+    assertEquals(layers.size(), group.size());
+    for (TestLayer l : layers) {
+      assertSame(group, l.parent());
+      assertEquals(1, l.added);
+    }
+
+    // layers already in another group are moved
+    TestGroupLayer other = new TestGroupLayer();
+    other.addAll(layers.subList(0, 3));
+    assertEquals(3, other.size());
+    assertEquals(layers.size()-3, group.size());
+    assertSame(other, layers.get(0).parent());
+  }
+
+  @Test public void testRemoveAll() {
+    TestGroupLayer group = new TestGroupLayer();
+    List<TestLayer> layers = createLayers();
+    group.addAll(layers);
+    List<TestLayer> odd = new ArrayList<TestLayer>();
+    for (int ii = 1; ii < layers.size(); ii += 2) odd.add(layers.get(ii));
+    group.removeAll(odd);
+    assertEquals(layers.size() - odd.size(), group.size());
+    validateOrder(group);
+    for (int ii = 0; ii < layers.size(); ii++) {
+      TestLayer l = layers.get(ii);
+      assertEquals(ii % 2 == 1 ? null : group, l.parent());
+      assertEquals(ii % 2 == 1 ? 1 : 0, l.removed);
+      // layers are notified before their parent is cleared, as with remove() and clear()
+      assertEquals(ii % 2 == 1 ? group : null, l.removedFrom);
+    }
+
+    group.clear();
+    assertEquals(0, group.size());
+    for (TestLayer l : layers) {
+      assertNull(l.parent());
+      assertEquals(1, l.removed);
+    }
+  }
+
+  @Test(expected=UnsupportedOperationException.class)
+  public void testRemoveAllNonChild() {
+    TestGroupLayer group = new TestGroupLayer();
+    group.removeAll(createLayers());
+  }
+
+  @Test public void testBatch() {
+    TestGroupLayer group = new TestGroupLayer();
+    List<TestLayer> layers = new ArrayList<TestLayer>(createLayers());
+    Collections.reverse(layers);
+    group.impl.beginBatch();
+    for (TestLayer l : layers) group.add(l);
+    // the children are sorted once, when they're next accessed, rather than on every add
+    assertTrue(group.impl.children.unsorted());
+    group.impl.beginBatch(); // batches nest
+    group.remove(layers.get(0));
+    group.impl.endBatch(group);
+    for (TestLayer l : layers) assertEquals(0, l.added);
+    group.impl.endBatch(group);
+
+    validateOrder(group);
+    assertEquals(layers.size()-1, group.size());
+    assertEquals(0, layers.get(0).added);
+    for (TestLayer l : layers.subList(1, layers.size())) assertEquals(1, l.added);
+  }
+
+  @Test public void testRenderDirty() {
+    // groups that can contain groups
+    CullerTest.BoundedGroupLayer root = new CullerTest.BoundedGroupLayer();
+    CullerTest.BoundedGroupLayer group = new CullerTest.BoundedGroupLayer();
+    CullerTest.BoundedGroupLayer inner = new CullerTest.BoundedGroupLayer();
+    TestLayer a = new TestLayer(), b = new TestLayer();
+    root.add(group);
+    group.add(inner);
+    inner.add(a);
+    assertTrue(group.impl.renderDirty(group));
+    group.impl.clearRenderDirty(group);
+    assertFalse(group.impl.renderDirty(group));
+    assertFalse(a.isSet(AbstractLayer.Flag.RENDERDIRTY));
+
+    // changes anywhere below the group are reported to it
+    a.setTranslation(1, 1);
+    assertTrue(group.impl.renderDirty(group));
+    group.impl.clearRenderDirty(group);
+    a.setAlpha(0.5f);
+    assertTrue(group.impl.renderDirty(group));
+    group.impl.clearRenderDirty(group);
+    a.setDepth(3);
+    assertTrue(group.impl.renderDirty(group));
+    group.impl.clearRenderDirty(group);
+
+    // including the addition of a layer that was changed before it was added
+    b.setAlpha(0.5f);
+    inner.add(b);
+    assertTrue(group.impl.renderDirty(group));
+    group.impl.clearRenderDirty(group);
+    inner.remove(b);
+    assertTrue(group.impl.renderDirty(group));
+    group.impl.clearRenderDirty(group);
+
+    // changes to the group itself affect only its own render state, not that of its contents
+    assertFalse(group.impl.contentsDirty(group));
+    group.setTranslation(5, 5);
+    group.setAlpha(0.5f);
+    assertTrue(group.impl.renderDirty(group));
+    assertFalse(group.impl.contentsDirty(group));
+    a.setTranslation(2, 2);
+    assertTrue(group.impl.contentsDirty(group));
+    group.impl.clearRenderDirty(group);
+    group.remove(inner);
+    assertTrue(group.impl.contentsDirty(group));
+  }
+
   protected List<TestLayer> createLayers() {
     int[] zs = { 0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 4 };
     TestLayer[] layers = new TestLayer[zs.length];
@@ -86,10 +250,22 @@ public class GroupLayerImplTest {
   }
 
   protected static class TestLayer extends AbstractLayer {
+    public int added, removed;
+    public GroupLayer removedFrom;
+    @Override public void onAdd() {
+      super.onAdd();
+      added++;
+    }
+    @Override public void onRemove() {
+      super.onRemove();
+      removed++;
+      removedFrom = parent();
+    }
   }
 
   protected static class TestGroupLayer extends AbstractLayer implements GroupLayer, ParentLayer {
     public final GroupLayerImpl<TestLayer> impl = new GroupLayerImpl<TestLayer>();
+    public boolean deferred;
     public Layer get(int index) {
       return impl.children.get(index);
     }
@@ -99,20 +275,42 @@ public class GroupLayerImplTest {
     @Deprecated public void add(int index, Layer layer) {
       impl.add(this, index, (TestLayer)layer);
     }
+    public void addAll(Collection<? extends Layer> layers) {
+      impl.addAll(this, layers);
+    }
     public void remove(Layer layer) {
       impl.remove(this, (TestLayer)layer);
     }
     @Deprecated public void remove(int index) {
       impl.remove(this, index);
     }
+    public void removeAll(Collection<? extends Layer> layers) {
+      impl.removeAll(this, layers);
+    }
     public void clear() {
       impl.clear(this);
     }
     public int size() {
       return impl.children.size();
     }
+    public boolean frozen() {
+      return impl.frozen;
+    }
+    public void setFrozen(boolean frozen) {
+      impl.frozen = frozen;
+    }
+    public boolean cached() {
+      return impl.cached;
+    }
+    public void setCached(boolean cached) {
+      impl.cached = cached;
+    }
     public void depthChanged(Layer layer, float oldDepth) {
-      impl.depthChanged(this, layer, oldDepth);
+      if (deferred) {
+        impl.depthChangedDeferred(this, layer, oldDepth);
+      } else {
+        impl.depthChanged(this, layer, oldDepth);
+      }
     }
   }
 }
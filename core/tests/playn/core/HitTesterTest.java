@@ -0,0 +1,121 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.CullerTest.BoundedGroupLayer;
+import playn.core.CullerTest.SizedLayer;
+
+/**
+ * Tests {@link HitTester}.
+ */
+public class HitTesterTest {
+
+  @Test public void testTopmost() {
+    BoundedGroupLayer root = new BoundedGroupLayer();
+    SizedLayer a = new SizedLayer(10, 10), b = new SizedLayer(10, 10);
+    root.add(a);
+    root.add(b);
+    b.setTranslation(5, 5);
+    HitTester tester = new HitTester(root, 8);
+    tester.add(a);
+    tester.add(b);
+
+    assertSame(a, tester.hit(2, 2));
+    assertSame(b, tester.hit(7, 7)); // b was added last, so it's on top
+    assertSame(b, tester.hit(14, 14));
+    assertNull(tester.hit(16, 16));
+
+    a.setDepth(1);
+    assertSame(a, tester.hit(7, 7));
+    a.setVisible(false);
+    assertSame(b, tester.hit(7, 7));
+  }
+
+  @Test public void testIncremental() {
+    BoundedGroupLayer root = new BoundedGroupLayer(), group = new BoundedGroupLayer();
+    SizedLayer a = new SizedLayer(10, 10);
+    root.add(group);
+    group.add(a);
+    HitTester tester = new HitTester(root, 16);
+    tester.add(a);
+    assertSame(a, tester.hit(5, 5));
+
+    // moving the layer itself
+    a.setTranslation(100, 0);
+    assertNull(tester.hit(5, 5));
+    assertSame(a, tester.hit(105, 5));
+
+    // moving an ancestor
+    group.setTranslation(0, 100);
+    assertNull(tester.hit(105, 5));
+    assertSame(a, tester.hit(105, 105));
+
+    // transforming the root moves the query point, not the index
+    root.setScale(2);
+    assertSame(a, tester.hit(210, 210));
+
+    // removing the layer from the hierarchy
+    group.remove(a);
+    assertNull(tester.hitLocal(105, 105));
+    group.add(a);
+    assertSame(a, tester.hitLocal(105, 105));
+
+    tester.remove(a);
+    assertNull(tester.hitLocal(105, 105));
+  }
+
+  @Test public void testRandom() {
+    BoundedGroupLayer root = new BoundedGroupLayer();
+    List<SizedLayer> layers = new ArrayList<SizedLayer>();
+    HitTester tester = new HitTester(root, 32);
+    Random rando = new Random(42);
+    for (int ii = 0; ii < 500; ii++) {
+      SizedLayer layer = new SizedLayer(1 + rando.nextInt(50), 1 + rando.nextInt(50));
+      layer.setTranslation(rando.nextInt(1000), rando.nextInt(1000));
+      layer.setRotation(rando.nextFloat());
+      layer.setDepth(rando.nextInt(5));
+      root.add(layer);
+      tester.add(layer);
+      layers.add(layer);
+    }
+    for (int ii = 0; ii < 500; ii++) {
+      if (ii % 10 == 0) {
+        layers.get(rando.nextInt(layers.size())).setTranslation(
+          rando.nextInt(1000), rando.nextInt(1000));
+      }
+      float x = rando.nextInt(1000), y = rando.nextInt(1000);
+      assertSame(bruteForceHit(root, x, y), tester.hit(x, y));
+    }
+  }
+
+  protected Layer bruteForceHit(GroupLayer root, float x, float y) {
+    // the topmost layer is the last one painted
+    for (int ii = root.size() - 1; ii >= 0; ii--) {
+      Layer.HasSize layer = (Layer.HasSize) root.get(ii);
+      if (Layer.Util.hitTest(layer, x, y)) {
+        return layer;
+      }
+    }
+    return null;
+  }
+}
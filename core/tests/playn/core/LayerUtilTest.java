@@ -1,5 +1,7 @@
 package playn.core;
 
+import java.util.Collection;
+
 import org.junit.Test;
 
 import pythagoras.f.Point;
@@ -102,6 +104,39 @@ public class LayerUtilTest {
     root.clear();
   }
 
+  @Test public void testNoAlloc() {
+    TestGroupLayer root = new TestGroupLayer();
+    TestGroupLayer middle = new TestGroupLayer();
+    TestLayer child = new TestLayer();
+    root.add(middle);
+    middle.add(child);
+
+    middle.setRotation((float)(Math.PI / 2.0));
+    middle.setTranslation(10, 20);
+    child.setOrigin(5, 5);
+
+    Point into = new Point();
+    assertSame(into, Layer.Util.screenToLayer(child, 10, 30, into));
+    assertEquals(15, into.x(), tol);
+    assertEquals(5, into.y(), tol);
+    assertSame(into, Layer.Util.layerToScreen(child, 15, 5, into));
+    assertEquals(10, into.x(), tol);
+    assertEquals(30, into.y(), tol);
+    // the iterative and recursive formulations agree
+    Point expect = Layer.Util.screenToLayer(middle, new Point(10, 30), new Point());
+    assertEquals(expect.x() + 5, Layer.Util.screenToLayer(child, 10, 30, into).x(), tol);
+
+    // converting coordinates must not mark transforms as changed
+    child.setFlag(AbstractLayer.Flag.XFDIRTY, false);
+    middle.setFlag(AbstractLayer.Flag.XFDIRTY, false);
+    Layer.Util.screenToLayer(child, 10, 30, into);
+    Layer.Util.layerToScreen(child, 15, 5, into);
+    assertFalse(child.isSet(AbstractLayer.Flag.XFDIRTY));
+    assertFalse(middle.isSet(AbstractLayer.Flag.XFDIRTY));
+
+    root.clear();
+  }
+
   protected static class TestLayer extends AbstractLayer {
   }
 
@@ -116,17 +151,35 @@ public class LayerUtilTest {
     @Deprecated public void add(int index, Layer layer) {
       impl.add(this, index, (AbstractLayer)layer);
     }
+    public void addAll(Collection<? extends Layer> layers) {
+      impl.addAll(this, layers);
+    }
     public void remove(Layer layer) {
       impl.remove(this, (AbstractLayer)layer);
     }
     @Deprecated public void remove(int index) {
       impl.remove(this, index);
     }
+    public void removeAll(Collection<? extends Layer> layers) {
+      impl.removeAll(this, layers);
+    }
     public void clear() {
       impl.clear(this);
     }
     public int size() {
       return impl.children.size();
     }
+    public boolean frozen() {
+      return impl.frozen;
+    }
+    public void setFrozen(boolean frozen) {
+      impl.frozen = frozen;
+    }
+    public boolean cached() {
+      return impl.cached;
+    }
+    public void setCached(boolean cached) {
+      impl.cached = cached;
+    }
   }
 }
\ No newline at end of file
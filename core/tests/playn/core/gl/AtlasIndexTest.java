@@ -0,0 +1,71 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link AtlasIndex}.
+ */
+public class AtlasIndexTest {
+
+  @Test public void testRoundTrip() {
+    AtlasIndex index = new AtlasIndex();
+    index.addPage("atlas-0.png");
+    index.addPage("atlas-1.png");
+    index.addEntry(new AtlasIndex.Entry("images/tile.png", 0, 0, 0, 32, 32));
+    index.addEntry(new AtlasIndex.Entry("images/caf\u00e9/\u2603.png", 1, 40, 65535, 7, 9));
+
+    AtlasIndex copy = AtlasIndex.decode(index.encode() + "\n");
+    assertEquals(index.pages(), copy.pages());
+    assertEquals(2, copy.entries().size());
+    for (int ii = 0; ii < 2; ii++) {
+      AtlasIndex.Entry a = index.entries().get(ii), b = copy.entries().get(ii);
+      assertEquals(a.path, b.path);
+      assertEquals(a.page, b.page);
+      assertEquals(a.x, b.x);
+      assertEquals(a.y, b.y);
+      assertEquals(a.width, b.width);
+      assertEquals(a.height, b.height);
+    }
+  }
+
+  @Test public void testEmpty() {
+    AtlasIndex copy = AtlasIndex.decode(new AtlasIndex().encode());
+    assertTrue(copy.pages().isEmpty());
+    assertTrue(copy.entries().isEmpty());
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testBadMagic() {
+    AtlasIndex.decode("AAAAAAAA");
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testTruncated() {
+    AtlasIndex index = new AtlasIndex();
+    index.addPage("atlas-0.png");
+    index.addEntry(new AtlasIndex.Entry("images/tile.png", 0, 0, 0, 32, 32));
+    byte[] data = AtlasIndex.Base64.decode(index.encode());
+    AtlasIndex.decode(AtlasIndex.Base64.encode(data, data.length - 3));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testUnknownPage() {
+    new AtlasIndex().addEntry(new AtlasIndex.Entry("foo.png", 0, 0, 0, 1, 1));
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link AtlasPacker}.
+ */
+public class AtlasPackerTest {
+
+  @Test public void testShelves() {
+    AtlasPacker packer = new AtlasPacker(100, 100, 0);
+    AtlasPacker.Region r1 = packer.pack(40, 20);
+    AtlasPacker.Region r2 = packer.pack(40, 20);
+    AtlasPacker.Region r3 = packer.pack(40, 20); // doesn't fit on the first shelf
+    assertRegion(r1, 0, 0, 0);
+    assertRegion(r2, 0, 40, 0);
+    assertRegion(r3, 0, 0, 20);
+
+    // a shorter rectangle goes onto the first existing shelf with room
+    AtlasPacker.Region r4 = packer.pack(10, 10);
+    assertRegion(r4, 0, 80, 0);
+    assertEquals(1, packer.pageCount());
+  }
+
+  @Test public void testNewPages() {
+    AtlasPacker packer = new AtlasPacker(64, 64, 0);
+    for (int ii = 0; ii < 4; ii++) {
+      assertEquals(0, packer.pack(32, 32).page);
+    }
+    assertEquals(1, packer.pack(32, 32).page);
+    assertEquals(2, packer.pageCount());
+  }
+
+  @Test public void testOversized() {
+    AtlasPacker packer = new AtlasPacker(64, 64, 1);
+    AtlasPacker.Region r = packer.pack(100, 10);
+    assertEquals(0, r.page);
+    assertTrue(packer.pageWidth(0) >= 101);
+    assertEquals(64, packer.pageHeight(0));
+  }
+
+  @Test public void testNoOverlaps() {
+    AtlasPacker packer = new AtlasPacker(256, 256, 1);
+    Random rando = new Random(42);
+    List<AtlasPacker.Region> regions = new ArrayList<AtlasPacker.Region>();
+    for (int ii = 0; ii < 500; ii++) {
+      regions.add(packer.pack(1 + rando.nextInt(40), 1 + rando.nextInt(40)));
+    }
+    for (AtlasPacker.Region r : regions) {
+      assertTrue(r.x + r.width <= packer.pageWidth(r.page));
+      assertTrue(r.y + r.height <= packer.pageHeight(r.page));
+    }
+    for (int ii = 0; ii < regions.size(); ii++) {
+      for (int jj = ii+1; jj < regions.size(); jj++) {
+        AtlasPacker.Region a = regions.get(ii), b = regions.get(jj);
+        boolean overlap = a.page == b.page &&
+          a.x < b.x + b.width + 1 && b.x < a.x + a.width + 1 &&
+          a.y < b.y + b.height + 1 && b.y < a.y + a.height + 1;
+        assertFalse(a + " overlaps " + b, overlap);
+      }
+    }
+  }
+
+  protected void assertRegion(AtlasPacker.Region r, int page, int x, int y) {
+    assertEquals(page, r.page);
+    assertEquals(x, r.x);
+    assertEquals(y, r.y);
+  }
+}
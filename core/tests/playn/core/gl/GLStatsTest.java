@@ -0,0 +1,88 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link GLStats}.
+ */
+public class GLStatsTest {
+
+  @Test public void testCounts() {
+    GLStats stats = new GLStats();
+    stats.call("glUseProgram");
+    stats.call("glUseProgram");
+    stats.redundant("glUseProgram");
+    stats.call("glDrawElements");
+    stats.uploaded(100);
+    stats.uploaded(20);
+    // nothing is reported until the frame is complete
+    assertEquals(0, stats.calls());
+    stats.endFrame();
+    assertEquals(3, stats.calls());
+    assertEquals(2, stats.calls("glUseProgram"));
+    assertEquals(1, stats.redundantCalls());
+    assertEquals(1, stats.redundantCalls("glUseProgram"));
+    assertEquals(0, stats.redundantCalls("glDrawElements"));
+    assertEquals(120, stats.uploadedBytes());
+
+    // the counts are reset for each frame
+    stats.call("glDrawElements");
+    stats.endFrame();
+    assertEquals(1, stats.calls());
+    assertEquals(0, stats.calls("glUseProgram"));
+    assertEquals(0, stats.uploadedBytes());
+    assertEquals("calls=1 redundant=0 uploaded=0 textures=0 textureBytes=0\nglDrawElements 1",
+                 stats.toString());
+  }
+
+  @Test public void testTextures() {
+    GLStats stats = new GLStats();
+    stats.textureAllocated(1, 16*16*GLStats.bytesPerPixel(0x1908, 0x1401)); // RGBA, UNSIGNED_BYTE
+    stats.textureAllocated(2, 100);
+    assertEquals(2, stats.textures());
+    assertEquals(1124, stats.textureBytes());
+    // reallocating a texture replaces its memory
+    stats.textureAllocated(2, 50);
+    assertEquals(1074, stats.textureBytes());
+    stats.textureDeleted(1);
+    stats.textureDeleted(3);
+    assertEquals(1, stats.textures());
+    assertEquals(50, stats.textureBytes());
+    stats.resetTextures();
+    assertEquals(0, stats.textureBytes());
+  }
+
+  @Test public void testTrace() {
+    GLStats stats = new GLStats();
+    assertFalse(stats.call("glClear"));
+    stats.traceNextFrame();
+    stats.endFrame();
+    assertNull(stats.trace());
+
+    // calls made during the next frame are traced
+    if (stats.call("glBindTexture")) stats.arg(3553).arg(5);
+    if (stats.call("glUniform1f")) stats.arg(2).arg(0.5f);
+    assertTrue(stats.call("glFlush"));
+    stats.endFrame();
+    assertEquals("glBindTexture(3553, 5)\nglUniform1f(2, 0.5)\nglFlush()", stats.trace());
+
+    // but not those of the following frame
+    assertFalse(stats.call("glClear"));
+  }
+}
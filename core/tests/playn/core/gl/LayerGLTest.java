@@ -0,0 +1,194 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.Collection;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.GroupLayer;
+import playn.core.GroupLayerImpl;
+import playn.core.InternalTransform;
+import playn.core.Layer;
+import playn.core.ParentLayer;
+import playn.core.StockInternalTransform;
+
+import pythagoras.f.Point;
+
+/**
+ * Tests the world transform caching in {@link LayerGL}.
+ */
+public class LayerGLTest {
+
+  @Test public void testPropagation() {
+    TestGroupLayer root = new TestGroupLayer(), middle = new TestGroupLayer();
+    TestLayer child = new TestLayer();
+    root.add(middle);
+    middle.add(child);
+    child.setTranslation(1, 2);
+
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertTranslation(child, 1, 2);
+
+    // changing a group's transform affects everything below it
+    middle.setTranslation(10, 20);
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertTranslation(child, 11, 22);
+
+    // as does modifying a transform directly
+    root.transform().translate(100, 200);
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertTranslation(child, 111, 222);
+
+    // as does changing the transform with which the root is painted
+    StockInternalTransform top = new StockInternalTransform();
+    top.setTranslation(1000, 2000);
+    root.paint(top, 1);
+    assertTranslation(child, 1111, 2222);
+  }
+
+  @Test public void testCached() {
+    TestGroupLayer root = new TestGroupLayer();
+    TestLayer child = new TestLayer();
+    root.add(child);
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertTranslation(child, 0, 0);
+
+    // sneak a change past the dirty tracking; the cached transform should be used
+    child.rawTransform().setTranslation(5, 5);
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertTranslation(child, 0, 0);
+  }
+
+  @Test public void testReparent() {
+    TestGroupLayer root = new TestGroupLayer(), a = new TestGroupLayer(), b = new TestGroupLayer();
+    TestLayer child = new TestLayer();
+    root.add(a);
+    root.add(b);
+    a.setTranslation(10, 0);
+    b.setTranslation(0, 10);
+
+    a.add(child);
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertTranslation(child, 10, 0);
+
+    b.add(child);
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertTranslation(child, 0, 10);
+  }
+
+  @Test public void testScreenTransform() {
+    TestGroupLayer root = new TestGroupLayer(), middle = new TestGroupLayer();
+    TestLayer child = new TestLayer();
+    root.add(middle);
+    middle.add(child);
+    middle.setTranslation(10, 20);
+    Point p = new Point();
+
+    // before painting there's nothing cached, so the transforms are composed
+    assertEquals(5, Layer.Util.screenToLayer(child, 15, 20, p).x(), 0);
+    root.paint(StockInternalTransform.IDENTITY, 1);
+    assertEquals(5, Layer.Util.screenToLayer(child, 15, 20, p).x(), 0);
+
+    // sneak a change past the dirty tracking; the cached transform should be used
+    child.rawTransform().setTranslation(5, 5);
+    assertEquals(5, Layer.Util.screenToLayer(child, 15, 20, p).x(), 0);
+    assertEquals(15, Layer.Util.layerToScreen(child, 5, 0, p).x(), 0);
+
+    // but not once an ancestor has changed
+    middle.setTranslation(0, 0);
+    assertEquals(10, Layer.Util.screenToLayer(child, 15, 20, p).x(), 0);
+
+    // nor if the root is painted with a non-identity transform
+    StockInternalTransform top = new StockInternalTransform();
+    top.setTranslation(1000, 2000);
+    root.paint(top, 1);
+    assertEquals(10, Layer.Util.screenToLayer(child, 15, 20, p).x(), 0);
+  }
+
+  protected void assertTranslation(TestLayer layer, float tx, float ty) {
+    assertEquals(tx, layer.painted.tx(), 0);
+    assertEquals(ty, layer.painted.ty(), 0);
+  }
+
+  protected static class TestLayer extends LayerGL {
+    public InternalTransform painted;
+
+    public InternalTransform rawTransform() {
+      return transform;
+    }
+
+    @Override
+    public void paint(InternalTransform parentTransform, float parentAlpha) {
+      painted = localTransform(parentTransform);
+    }
+  }
+
+  protected static class TestGroupLayer extends LayerGL implements GroupLayer, ParentLayer {
+    public final GroupLayerImpl<LayerGL> impl = new GroupLayerImpl<LayerGL>();
+
+    public Layer get(int index) {
+      return impl.children.get(index);
+    }
+    public void add(Layer layer) {
+      impl.add(this, (LayerGL)layer);
+    }
+    @Deprecated public void add(int index, Layer layer) {
+      impl.add(this, index, (LayerGL)layer);
+    }
+    public void addAll(Collection<? extends Layer> layers) {
+      impl.addAll(this, layers);
+    }
+    public void remove(Layer layer) {
+      impl.remove(this, (LayerGL)layer);
+    }
+    @Deprecated public void remove(int index) {
+      impl.remove(this, index);
+    }
+    public void removeAll(Collection<? extends Layer> layers) {
+      impl.removeAll(this, layers);
+    }
+    public void clear() {
+      impl.clear(this);
+    }
+    public int size() {
+      return impl.children.size();
+    }
+    public boolean frozen() {
+      return impl.frozen;
+    }
+    public void setFrozen(boolean frozen) {
+      impl.frozen = frozen;
+    }
+    public boolean cached() {
+      return impl.cached;
+    }
+    public void setCached(boolean cached) {
+      impl.cached = cached;
+    }
+    public void depthChanged(Layer layer, float oldDepth) {
+      impl.depthChanged(this, layer, oldDepth);
+    }
+
+    @Override
+    public void paint(InternalTransform parentTransform, float parentAlpha) {
+      for (LayerGL child : impl.children) {
+        child.paint(localTransform(parentTransform), parentAlpha * alpha);
+      }
+    }
+  }
+}
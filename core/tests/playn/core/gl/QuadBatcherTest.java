@@ -0,0 +1,159 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.StockInternalTransform;
+
+/**
+ * Tests {@link QuadBatcher} against a renderer that records the draw calls it receives.
+ */
+public class QuadBatcherTest {
+
+  @Test public void testManyQuadsOneDraw() {
+    RecordingRenderer gl = new RecordingRenderer();
+    QuadBatcher batch = new QuadBatcher(gl);
+    StockInternalTransform xf = new StockInternalTransform();
+    for (int ii = 0; ii < 500; ii++) {
+      batch.addQuad(xf, ii, ii, 10, 10, 0, 0, 1, 1);
+    }
+    assertEquals(0, gl.draws.size());
+    batch.flush();
+    assertEquals(1, gl.draws.size());
+    assertEquals(500 * 4 * QuadBatcher.VERTEX_SIZE, gl.draws.get(0).floatCount);
+    assertEquals(500 * 6, gl.draws.get(0).elementCount);
+    assertTrue(batch.isEmpty());
+
+    // flushing an empty batch is a no-op
+    batch.flush();
+    assertEquals(1, gl.draws.size());
+  }
+
+  @Test public void testFlushWhenFull() {
+    RecordingRenderer gl = new RecordingRenderer();
+    QuadBatcher batch = new QuadBatcher(gl, 8);
+    StockInternalTransform xf = new StockInternalTransform();
+    for (int ii = 0; ii < 20; ii++) {
+      batch.addQuad(xf, 0, 0, 1, 1);
+    }
+    batch.flush();
+    assertEquals(3, gl.draws.size());
+    assertEquals(8 * 6, gl.draws.get(0).elementCount);
+    assertEquals(8 * 6, gl.draws.get(1).elementCount);
+    assertEquals(4 * 6, gl.draws.get(2).elementCount);
+  }
+
+  @Test public void testElementsAndVertices() {
+    RecordingRenderer gl = new RecordingRenderer();
+    QuadBatcher batch = new QuadBatcher(gl);
+    StockInternalTransform xf = new StockInternalTransform();
+    xf.setTranslation(5, 7);
+    batch.addQuad(xf, 0, 0, 10, 20, 0, 0, 0.5f, 0.25f);
+    batch.addQuad(xf, 1, 2, 3, 4, 0, 0, 1, 1);
+    batch.flush();
+
+    Draw draw = gl.draws.get(0);
+    short[] expected = { 0, 1, 2, 1, 3, 2, 4, 5, 6, 5, 7, 6 };
+    assertEquals(expected.length, draw.elementCount);
+    for (int ii = 0; ii < expected.length; ii++) {
+      assertEquals(expected[ii], draw.elements[ii]);
+    }
+
+    // the last vertex of the first quad: transform, position (dx+dw, dy+dh), tex coords
+    float[] v3 = { 1, 0, 0, 1, 5, 7, 10, 20, 0.5f, 0.25f };
+    for (int ii = 0; ii < v3.length; ii++) {
+      assertEquals(v3[ii], draw.vertices[3 * QuadBatcher.VERTEX_SIZE + ii], 0.0001f);
+    }
+  }
+
+  @Test public void testExplicitFlushSplitsBatch() {
+    RecordingRenderer gl = new RecordingRenderer();
+    QuadBatcher batch = new QuadBatcher(gl);
+    StockInternalTransform xf = new StockInternalTransform();
+
+    // the backends flush explicitly on a texture, alpha or color change
+    batch.addQuad(xf, 0, 0, 1, 1, 0, 0, 1, 1);
+    batch.addQuad(xf, 2, 0, 1, 1, 0, 0, 1, 1);
+    batch.flush();
+    batch.addQuad(xf, 4, 0, 1, 1, 0, 0, 1, 1);
+    batch.flush();
+
+    assertEquals(2, gl.draws.size());
+    Draw first = gl.draws.get(0), second = gl.draws.get(1);
+    assertEquals(2 * 4 * QuadBatcher.VERTEX_SIZE, first.floatCount);
+    assertEquals(2 * 6, first.elementCount);
+    assertEquals(4 * QuadBatcher.VERTEX_SIZE, second.floatCount);
+    assertEquals(6, second.elementCount);
+
+    // the second batch starts over at vertex zero, with only the quad added after the flush
+    short[] expected = { 0, 1, 2, 1, 3, 2 };
+    for (int ii = 0; ii < expected.length; ii++) {
+      assertEquals(expected[ii], second.elements[ii]);
+    }
+    assertEquals(4, second.vertices[6], 0.0001f);
+    assertEquals(2, first.vertices[4 * QuadBatcher.VERTEX_SIZE + 6], 0.0001f);
+  }
+
+  @Test public void testOverflowStartsNewBatch() {
+    RecordingRenderer gl = new RecordingRenderer();
+    QuadBatcher batch = new QuadBatcher(gl, 2);
+    StockInternalTransform xf = new StockInternalTransform();
+    batch.addQuad(xf, 0, 0, 1, 1);
+    batch.addQuad(xf, 1, 0, 1, 1);
+    // no room for a third quad, so the first two are handed off before it is added
+    batch.addQuad(xf, 7, 0, 1, 1);
+    assertEquals(1, gl.draws.size());
+    assertEquals(4, batch.vertexCount());
+    assertEquals(6, batch.elementCount());
+
+    batch.flush();
+    Draw draw = gl.draws.get(1);
+    assertEquals(0, draw.elements[0]);
+    assertEquals(7, draw.vertices[6], 0.0001f);
+  }
+
+  @Test(expected=IllegalArgumentException.class) public void testTooManyQuads() {
+    new QuadBatcher(new RecordingRenderer(), 0x4001);
+  }
+
+  protected static class Draw {
+    public final float[] vertices;
+    public final int floatCount;
+    public final short[] elements;
+    public final int elementCount;
+
+    public Draw(float[] vertices, int floatCount, short[] elements, int elementCount) {
+      this.vertices = new float[floatCount];
+      System.arraycopy(vertices, 0, this.vertices, 0, floatCount);
+      this.floatCount = floatCount;
+      this.elements = new short[elementCount];
+      System.arraycopy(elements, 0, this.elements, 0, elementCount);
+      this.elementCount = elementCount;
+    }
+  }
+
+  protected static class RecordingRenderer implements QuadBatcher.Renderer {
+    public final List<Draw> draws = new ArrayList<Draw>();
+    public void draw(float[] vertices, int floatCount, short[] elements, int elementCount) {
+      draws.add(new Draw(vertices, floatCount, elements, elementCount));
+    }
+  }
+}
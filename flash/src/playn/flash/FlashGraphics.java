@@ -152,6 +152,11 @@ class FlashGraphics implements Graphics {
     Sprite.getRootSprite().setHeight(height);
   }
 
+  @Override
+  public int culledLayerCount() {
+    return 0;
+  }
+
   public void updateLayers() {
     rootLayer.update();
   }
@@ -15,6 +15,8 @@
  */
 package playn.flash;
 
+import java.util.Collection;
+
 import flash.display.DisplayObject;
 import flash.display.DisplayObjectContainer;
 import flash.display.Sprite;
@@ -60,6 +62,14 @@ public class FlashGroupLayer extends FlashLayer implements GroupLayer, ParentLay
     container().addChildAt(display(layer), index);
   }
 
+  @Override
+  public void addAll(Collection<? extends Layer> layers) {
+    // our native display list must be updated as each layer is inserted
+    for (Layer layer : layers) {
+      add(layer);
+    }
+  }
+
   @Override
   public void remove(Layer layer) {
     impl.remove(this, (FlashLayer) layer);
@@ -72,6 +82,13 @@ public class FlashGroupLayer extends FlashLayer implements GroupLayer, ParentLay
     container().removeChildAt(index);
   }
 
+  @Override
+  public void removeAll(Collection<? extends Layer> layers) {
+    for (Layer layer : layers) {
+      remove(layer);
+    }
+  }
+
   @Override
   public void clear() {
     impl.clear(this);
@@ -85,6 +102,28 @@ public class FlashGroupLayer extends FlashLayer implements GroupLayer, ParentLay
     return impl.children.size();
   }
 
+  @Override
+  public boolean frozen() {
+    return impl.frozen;
+  }
+
+  @Override
+  public void setFrozen(boolean frozen) {
+    // we don't record render lists, so frozen groups are painted normally
+    impl.frozen = frozen;
+  }
+
+  @Override
+  public boolean cached() {
+    return impl.cached;
+  }
+
+  @Override
+  public void setCached(boolean cached) {
+    // we don't render offscreen, so cached groups are painted normally
+    impl.cached = cached;
+  }
+
   @Override
   public void destroy() {
     super.destroy();
@@ -35,7 +35,7 @@ import playn.core.ImageLayer;
 // TODO(pdr): fix setWidth, setHeight, setRepeat*, etc.
 public class FlashImageLayer extends FlashLayer implements ImageLayer {
 
-  private final Image image;
+  private Image image;
 
   private BitmapData bitmapData;
 
@@ -80,6 +80,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
   private void setBitmapData(FlashImage resource) {
     bitmapData = resource.bitmapData();
     applySourceRect();
+    boundsChanged();
   }
 
   private void applySourceRect() {
@@ -112,6 +113,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
   public void clearHeight() {
     height = NOT_SET;
     dirty = true;
+    boundsChanged();
   }
 
   private void applySettingIfDirty() {
@@ -149,6 +151,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
     dirty = true;
     applySourceRect();
     applySettingIfDirty();
+    boundsChanged();
   }
 
   /* (non-Javadoc)
@@ -158,6 +161,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
   public void clearWidth() {
     width = NOT_SET;
     dirty = true;
+    boundsChanged();
   }
 
   /* (non-Javadoc)
@@ -175,6 +179,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
   public void setHeight(float height) {
     this.height = height;
     dirty = true;
+    boundsChanged();
   }
 
   /* (non-Javadoc)
@@ -182,6 +187,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
    */
   @Override
   public void setImage(Image image) {
+    this.image = image;
     setBitmapData((FlashImage) image);
   }
 
@@ -212,6 +218,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
     dirty = true;
     applySourceRect();
     applySettingIfDirty();
+    boundsChanged();
   }
 
   /* (non-Javadoc)
@@ -221,6 +228,7 @@ public class FlashImageLayer extends FlashLayer implements ImageLayer {
   public void setWidth(float width) {
     this.width = width;
     dirty = true;
+    boundsChanged();
   }
 
   /* (non-Javadoc)
@@ -30,6 +30,7 @@ import flash.events.EventType;
 
 import playn.core.Analytics;
 import playn.core.Audio;
+import playn.core.FrameMetrics;
 import playn.core.PlayN;
 import playn.core.Game;
 import playn.core.Graphics;
@@ -85,6 +86,7 @@ public class FlashPlatform implements Platform {
   private TimerCallback updateCallback;
   private Storage storage;
   private Analytics analytics;
+  private FrameMetrics metrics = new FrameMetrics();
 
   // Non-instantiable.
   public FlashPlatform() {
@@ -201,22 +203,23 @@ public class FlashPlatform implements Platform {
 
         if (updateRate == 0) {
           game.update(delta);
-//          log().info("Update took " + (time() - now));
           accum = 0;
         } else {
           accum += delta;
           while (accum > updateRate) {
             game.update(updateRate);
-//            log().info("Update took " + (time() - now));
             accum -= updateRate;
           }
         }
 
-//        double now2 = time();
-        game.paint(accum / updateRate);
-//        log().info("Paint took " + (time() - now2));
+        double updated = time();
+        metrics.add(FrameMetrics.Stat.UPDATE_TIME, (float) (updated - now));
 
+        game.paint(accum / updateRate);
         graphics.updateLayers();
+        metrics.add(FrameMetrics.Stat.PAINT_TIME, (float) (time() - updated));
+        metrics.endFrame();
+
         frameCounter++;
         if (frameCounter == FPS_COUNTER_MAX) {
           double frameRate = frameCounter / 
@@ -274,4 +277,9 @@ public class FlashPlatform implements Platform {
   public Analytics analytics() {
     return analytics;
   }
+
+  @Override
+  public FrameMetrics metrics() {
+    return metrics;
+  }
 }
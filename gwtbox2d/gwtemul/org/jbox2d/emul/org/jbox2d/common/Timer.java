@@ -0,0 +1,21 @@
+package org.jbox2d.common;
+
+import com.google.gwt.core.client.Duration;
+
+// System.nanoTime is not available under GWT
+public class Timer {
+
+  private double start;
+
+  public Timer() {
+    reset();
+  }
+
+  public void reset() {
+    start = Duration.currentTimeMillis();
+  }
+
+  public float getMilliseconds() {
+    return (float) (Duration.currentTimeMillis() - start);
+  }
+}
@@ -130,6 +130,16 @@ public class AABB {
 		out.y = (upperBound.y - lowerBound.y) * .5f; // thanks FDN1
 	}
 	
+	/**
+	 * Gets the perimeter of the AABB, which serves as its surface area when estimating the cost
+	 * of a tree of AABBs.
+	 * 
+	 * @return
+	 */
+	public final float getPerimeter() {
+		return 2.0f * (upperBound.x - lowerBound.x + upperBound.y - lowerBound.y);
+	}
+	
 	public final void getVertices(Vec2[] argRay) {
 		argRay[0].set(lowerBound);
 		argRay[1].set(lowerBound);
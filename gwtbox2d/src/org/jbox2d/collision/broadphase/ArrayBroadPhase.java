@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import org.jbox2d.callbacks.DebugDraw;
+import org.jbox2d.callbacks.PairCallback;
+import org.jbox2d.callbacks.ProxyTreeCallback;
+import org.jbox2d.callbacks.ProxyTreeRayCastCallback;
+import org.jbox2d.callbacks.TreeCallback;
+import org.jbox2d.callbacks.TreeRayCastCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.RayCastInput;
+import org.jbox2d.common.Vec2;
+
+/**
+ * A {@link BroadPhase} whose proxies are organized by an {@link ArrayDynamicTree} rather than a
+ * {@link DynamicTree}. Each proxy is still represented by a {@link DynamicTreeNode}, whose AABB
+ * mirrors the fattened AABB of its leaf in the tree, as {@link IBroadPhase}, fixtures and the
+ * pair manager all identify proxies by node; but the tree itself is traversed through primitive
+ * arrays, and the move buffer holds int handles. A proxy's node is allocated once, when it is
+ * created, and its AABB is only copied when it is reinserted. A moved proxy is only tested for
+ * new pairs if it was reinserted, which is to say if it left its fattened AABB.
+ */
+public class ArrayBroadPhase implements IBroadPhase, ProxyTreeCallback {
+	
+	private final ArrayDynamicTree m_tree;
+	
+	private int m_proxyCount;
+	private int m_keyCounter;
+	
+	private int[] m_moveBuffer;
+	private int m_moveCount;
+	
+	private final PairManager m_pairManager;
+	
+	private int m_queryProxy;
+	
+	public ArrayBroadPhase() {
+		m_tree = new ArrayDynamicTree();
+		m_pairManager = new PairManager();
+		m_moveBuffer = new int[16];
+		m_queryProxy = ArrayDynamicTree.NULL_NODE;
+	}
+	
+	public final DynamicTreeNode createProxy(final AABB aabb, Object userData) {
+		Proxy proxy = new Proxy();
+		proxy.userData = userData;
+		proxy.key = m_keyCounter++;
+		proxy.id = m_tree.createProxy(aabb, proxy);
+		m_tree.getFatAABB(proxy.id, proxy.aabb);
+		++m_proxyCount;
+		bufferMove(proxy.id);
+		return proxy;
+	}
+	
+	public final void destroyProxy(DynamicTreeNode proxy) {
+		Proxy p = (Proxy) proxy;
+		unbufferMove(p.id);
+		--m_proxyCount;
+		m_tree.destroyProxy(p.id);
+		p.id = ArrayDynamicTree.NULL_NODE;
+	}
+	
+	public final void moveProxy(DynamicTreeNode proxy, final AABB aabb, final Vec2 displacement) {
+		Proxy p = (Proxy) proxy;
+		if (m_tree.moveProxy(p.id, aabb, displacement)) {
+			m_tree.getFatAABB(p.id, p.aabb);
+			bufferMove(p.id);
+		}
+	}
+	
+	public boolean testOverlap(DynamicTreeNode proxyA, DynamicTreeNode proxyB) {
+		return m_tree.testOverlap(((Proxy) proxyA).id, ((Proxy) proxyB).id);
+	}
+	
+	public final int getProxyCount() {
+		return m_proxyCount;
+	}
+	
+	public void drawTree(DebugDraw argDraw) {
+		m_tree.drawTree(argDraw);
+	}
+	
+	public final void updatePairs(PairCallback callback) {
+		// Perform tree queries for all moving proxies, with their fattened AABBs, so that we
+		// don't fail to create a pair that may touch later.
+		for (int i = 0; i < m_moveCount; ++i) {
+			m_queryProxy = m_moveBuffer[i];
+			if (m_queryProxy == ArrayDynamicTree.NULL_NODE) {
+				continue;
+			}
+			m_tree.query(this, ((Proxy) m_tree.getUserData(m_queryProxy)).aabb);
+		}
+		m_queryProxy = ArrayDynamicTree.NULL_NODE;
+		
+		// Reset move buffer
+		m_moveCount = 0;
+		
+		// Sort the pairs to expose duplicates, and send them back to the client.
+		m_pairManager.reportPairs(callback);
+	}
+	
+	/**
+	 * This is called from {@link ArrayDynamicTree#query} when we are gathering pairs.
+	 */
+	public final boolean treeCallback(int proxyId) {
+		// A proxy cannot form a pair with itself.
+		if (proxyId == m_queryProxy) {
+			return true;
+		}
+		
+		m_pairManager.addPair((Proxy) m_tree.getUserData(proxyId),
+				(Proxy) m_tree.getUserData(m_queryProxy));
+		return true;
+	}
+	
+	private TreeCallback m_queryCallback;
+	private final ProxyTreeCallback m_queryWrapper = new ProxyTreeCallback() {
+		public boolean treeCallback(int proxyId) {
+			return m_queryCallback.treeCallback((Proxy) m_tree.getUserData(proxyId));
+		}
+	};
+	
+	public final void query(final TreeCallback callback, final AABB aabb) {
+		// restore the callback of any query that called us, rather than clearing it
+		final TreeCallback outer = m_queryCallback;
+		m_queryCallback = callback;
+		try {
+			m_tree.query(m_queryWrapper, aabb);
+		} finally {
+			m_queryCallback = outer;
+		}
+	}
+	
+	private TreeRayCastCallback m_raycastCallback;
+	private final ProxyTreeRayCastCallback m_raycastWrapper = new ProxyTreeRayCastCallback() {
+		public float raycastCallback(RayCastInput input, int proxyId) {
+			return m_raycastCallback.raycastCallback(input, (Proxy) m_tree.getUserData(proxyId));
+		}
+	};
+	
+	public final void raycast(final TreeRayCastCallback callback, final RayCastInput input) {
+		// restore the callback of any ray cast that called us, rather than clearing it
+		final TreeRayCastCallback outer = m_raycastCallback;
+		m_raycastCallback = callback;
+		try {
+			m_tree.raycast(m_raycastWrapper, input);
+		} finally {
+			m_raycastCallback = outer;
+		}
+	}
+	
+	/**
+	 * Compute the height of the embedded tree.
+	 */
+	public final int computeHeight() {
+		return m_tree.computeHeight();
+	}
+	
+	private final void bufferMove(int proxyId) {
+		if (m_moveCount == m_moveBuffer.length) {
+			int[] old = m_moveBuffer;
+			m_moveBuffer = new int[old.length * 2];
+			System.arraycopy(old, 0, m_moveBuffer, 0, old.length);
+		}
+		m_moveBuffer[m_moveCount++] = proxyId;
+	}
+	
+	private final void unbufferMove(int proxyId) {
+		for (int i = 0; i < m_moveCount; i++) {
+			if (m_moveBuffer[i] == proxyId) {
+				m_moveBuffer[i] = ArrayDynamicTree.NULL_NODE;
+			}
+		}
+	}
+	
+	private static final class Proxy extends DynamicTreeNode {
+		// the handle of this proxy's leaf in the tree
+		int id = ArrayDynamicTree.NULL_NODE;
+	}
+}
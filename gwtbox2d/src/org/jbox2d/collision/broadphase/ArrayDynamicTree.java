@@ -0,0 +1,856 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import org.jbox2d.callbacks.DebugDraw;
+import org.jbox2d.callbacks.ProxyTreeCallback;
+import org.jbox2d.callbacks.ProxyTreeRayCastCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.RayCastInput;
+import org.jbox2d.common.Color3f;
+import org.jbox2d.common.MathUtils;
+import org.jbox2d.common.Settings;
+import org.jbox2d.common.Vec2;
+
+/**
+ * A {@link DynamicTree} whose nodes live in parallel arrays of primitives, rather than in
+ * {@link DynamicTreeNode} objects. A proxy is identified by the index of its node (an int
+ * handle), freed nodes are recycled via a free list, and queries and ray casts traverse the tree
+ * using an int stack rather than by recursion. Inserting, moving and querying proxies allocates
+ * nothing, except to grow the arrays as the tree grows.
+ * 
+ * <p>The tree is built and balanced in the same manner as {@link DynamicTree}, except that a
+ * proxy is only reinserted by {@link #moveProxy} if its new AABB is not contained by its
+ * fattened AABB.</p>
+ */
+public class ArrayDynamicTree {
+	
+	/** The handle of no node. */
+	public static final int NULL_NODE = -1;
+	
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int INITIAL_STACK_SIZE = 64;
+	
+	private int m_root;
+	private int m_nodeCount;
+	private int m_nodeCapacity;
+	private int m_freeList;
+	private int m_path;
+	private int m_insertionCount;
+	private int m_queryCount;
+	private int m_queryVisits;
+	
+	// per node: the (fattened) AABB as lowerX, lowerY, upperX, upperY at index node * 4
+	private float[] m_aabb;
+	// per node: the parent, or the next free node if the node is free
+	private int[] m_parent;
+	// per node: the children, which are both NULL_NODE for a leaf
+	private int[] m_child1;
+	private int[] m_child2;
+	// per node: the height of its subtree, 0 for a leaf
+	private int[] m_height;
+	private Object[] m_userData;
+	
+	// the stacks used by queries and ray casts, one per level of nesting (a callback may itself
+	// query the tree), so that a nested traversal doesn't clobber the one that invoked it
+	private int[][] m_stacks = new int[4][];
+	private int m_stackDepth;
+	
+	public ArrayDynamicTree() {
+		m_root = NULL_NODE;
+		m_nodeCount = 0;
+		m_nodeCapacity = 0;
+		m_freeList = NULL_NODE;
+		m_path = 0;
+		m_insertionCount = 0;
+		m_aabb = new float[0];
+		m_parent = new int[0];
+		m_child1 = new int[0];
+		m_child2 = new int[0];
+		m_height = new int[0];
+		m_userData = new Object[0];
+		grow(INITIAL_CAPACITY);
+		for (int i = 0; i < drawVecs.length; i++) {
+			drawVecs[i] = new Vec2();
+		}
+	}
+	
+	/**
+	 * Create a proxy. Provide a tight fitting AABB and a userData pointer.
+	 * 
+	 * @param argAABB
+	 * @param argUserData
+	 * @return the proxy's handle
+	 */
+	public final int createProxy(final AABB argAABB, Object argUserData) {
+		int proxyId = allocateNode();
+		
+		// Fatten the aabb
+		final int a = proxyId * 4;
+		m_aabb[a] = argAABB.lowerBound.x - Settings.aabbExtension;
+		m_aabb[a + 1] = argAABB.lowerBound.y - Settings.aabbExtension;
+		m_aabb[a + 2] = argAABB.upperBound.x + Settings.aabbExtension;
+		m_aabb[a + 3] = argAABB.upperBound.y + Settings.aabbExtension;
+		m_userData[proxyId] = argUserData;
+		
+		insertLeaf(proxyId);
+		
+		return proxyId;
+	}
+	
+	/**
+	 * Destroy a proxy
+	 * 
+	 * @param argProxyId
+	 */
+	public final void destroyProxy(int argProxyId) {
+		assert (0 <= argProxyId && argProxyId < m_nodeCapacity);
+		assert (isLeaf(argProxyId));
+		
+		removeLeaf(argProxyId);
+		freeNode(argProxyId);
+	}
+	
+	/**
+	 * Move a proxy with a swepted AABB. If the proxy has moved outside of its fattened
+	 * AABB, then the proxy is removed from the tree and re-inserted. Otherwise
+	 * the function returns immediately.
+	 * 
+	 * @return true if the proxy was re-inserted.
+	 */
+	public final boolean moveProxy(int argProxyId, final AABB argAABB, Vec2 displacement) {
+		assert (0 <= argProxyId && argProxyId < m_nodeCapacity);
+		assert (isLeaf(argProxyId));
+		
+		final int a = argProxyId * 4;
+		if (m_aabb[a] <= argAABB.lowerBound.x && m_aabb[a + 1] <= argAABB.lowerBound.y
+				&& argAABB.upperBound.x <= m_aabb[a + 2] && argAABB.upperBound.y <= m_aabb[a + 3]) {
+			return false;
+		}
+		
+		removeLeaf(argProxyId);
+		
+		// Extend AABB
+		float lowerX = argAABB.lowerBound.x - Settings.aabbExtension;
+		float lowerY = argAABB.lowerBound.y - Settings.aabbExtension;
+		float upperX = argAABB.upperBound.x + Settings.aabbExtension;
+		float upperY = argAABB.upperBound.y + Settings.aabbExtension;
+		
+		// Predict AABB displacement.
+		final float dx = Settings.aabbMultiplier * displacement.x;
+		final float dy = Settings.aabbMultiplier * displacement.y;
+		if (dx < 0.0f) {
+			lowerX += dx;
+		}
+		else {
+			upperX += dx;
+		}
+		
+		if (dy < 0.0f) {
+			lowerY += dy;
+		}
+		else {
+			upperY += dy;
+		}
+		
+		m_aabb[a] = lowerX;
+		m_aabb[a + 1] = lowerY;
+		m_aabb[a + 2] = upperX;
+		m_aabb[a + 3] = upperY;
+		
+		insertLeaf(argProxyId);
+		return true;
+	}
+	
+	/**
+	 * Get the user data of a proxy.
+	 */
+	public final Object getUserData(int argProxyId) {
+		assert (0 <= argProxyId && argProxyId < m_nodeCapacity);
+		return m_userData[argProxyId];
+	}
+	
+	/**
+	 * Get the fattened AABB of a proxy.
+	 */
+	public final void getFatAABB(int argProxyId, AABB argOut) {
+		assert (0 <= argProxyId && argProxyId < m_nodeCapacity);
+		final int a = argProxyId * 4;
+		argOut.lowerBound.x = m_aabb[a];
+		argOut.lowerBound.y = m_aabb[a + 1];
+		argOut.upperBound.x = m_aabb[a + 2];
+		argOut.upperBound.y = m_aabb[a + 3];
+	}
+	
+	/**
+	 * Do the fattened AABBs of two proxies overlap?
+	 */
+	public final boolean testOverlap(int argProxyIdA, int argProxyIdB) {
+		final int a = argProxyIdA * 4, b = argProxyIdB * 4;
+		final float[] aabb = m_aabb;
+		if (aabb[b] - aabb[a + 2] > 0.0f || aabb[b + 1] - aabb[a + 3] > 0.0f) {
+			return false;
+		}
+		
+		if (aabb[a] - aabb[b + 2] > 0.0f || aabb[a + 1] - aabb[b + 3] > 0.0f) {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Rebalances the tree for the given iterations. Goes through
+	 * the tree by child1-child2 order (then back to root). If given enough
+	 * iterations it will hit all the nodes. This is not needed to keep the tree
+	 * balanced, as insertion and removal rotate the tree as they go.
+	 * 
+	 * @param argIterations
+	 */
+	public final void rebalance(int argIterations) {
+		if (m_root == NULL_NODE) {
+			return;
+		}
+		for (int i = 0; i < argIterations; i++) {
+			int node = m_root;
+			
+			int bit = 0;
+			while (isLeaf(node) == false) {
+				int goLeft = (m_path >> bit) & 1;
+				if (goLeft == 0) {
+					node = m_child1[node];
+				}
+				else {
+					node = m_child2[node];
+				}
+				bit = (bit + 1) & 31;
+			}
+			++m_path;
+			
+			removeLeaf(node);
+			insertLeaf(node);
+		}
+	}
+	
+	/**
+	 * Query an AABB for overlapping proxies. The callback class
+	 * is called for each proxy that overlaps the supplied AABB.
+	 * 
+	 * @param argCallback
+	 * @param argAABB
+	 */
+	public final void query(ProxyTreeCallback argCallback, AABB argAABB) {
+		final float lowerX = argAABB.lowerBound.x, lowerY = argAABB.lowerBound.y;
+		final float upperX = argAABB.upperBound.x, upperY = argAABB.upperBound.y;
+		final float[] aabb = m_aabb;
+		if (Settings.TREE_QUERY_STATS) {
+			++m_queryCount;
+		}
+		
+		final int depth = m_stackDepth++;
+		int[] stack = stackAt(depth);
+		try {
+			int count = 0;
+			stack[count++] = m_root;
+			while (count > 0) {
+				final int node = stack[--count];
+				if (node == NULL_NODE) {
+					continue;
+				}
+				if (Settings.TREE_QUERY_STATS) {
+					++m_queryVisits;
+				}
+				
+				final int a = node * 4;
+				if (aabb[a] - upperX > 0.0f || aabb[a + 1] - upperY > 0.0f ||
+						lowerX - aabb[a + 2] > 0.0f || lowerY - aabb[a + 3] > 0.0f) {
+					continue;
+				}
+				
+				if (m_child1[node] == NULL_NODE) {
+					if (argCallback.treeCallback(node) == false) {
+						return;
+					}
+				}
+				else {
+					// push child2 first, so that child1 is visited first
+					if (count + 2 > stack.length) {
+						stack = growStack(depth);
+					}
+					stack[count++] = m_child2[node];
+					stack[count++] = m_child1[node];
+				}
+			}
+		}
+		finally {
+			m_stackDepth = depth;
+		}
+	}
+	
+	private final RayCastInput subInput = new RayCastInput();
+	
+	/**
+	 * Ray-cast against the proxies in the tree. This relies on the callback
+	 * to perform a exact ray-cast in the case were the proxy contains a shape.
+	 * The callback also performs the any collision filtering. This has performance
+	 * roughly equal to k * log(n), where k is the number of collisions and n is the
+	 * number of proxies in the tree.
+	 * 
+	 * @param argInput
+	 *            the ray-cast input data. The ray extends from p1 to p1 + maxFraction *
+	 *            (p2 - p1).
+	 * @param argCallback
+	 *            a callback class that is called for each proxy that is hit by the ray.
+	 */
+	public void raycast(ProxyTreeRayCastCallback argCallback, RayCastInput argInput) {
+		final Vec2 p1 = argInput.p1;
+		final Vec2 p2 = argInput.p2;
+		float rx = p2.x - p1.x, ry = p2.y - p1.y;
+		final float length = MathUtils.sqrt(rx * rx + ry * ry);
+		assert (length > 0f);
+		rx /= length;
+		ry /= length;
+		
+		// v is perpendicular to the segment.
+		final float vx = -ry, vy = rx;
+		final float absVx = MathUtils.abs(vx), absVy = MathUtils.abs(vy);
+		
+		// Separating axis for segment (Gino, p80).
+		// |dot(v, p1 - c)| > dot(|v|, h)
+		
+		float maxFraction = argInput.maxFraction;
+		
+		// Build a bounding box for the segment.
+		float tx = p1.x + maxFraction * (p2.x - p1.x);
+		float ty = p1.y + maxFraction * (p2.y - p1.y);
+		float segLowerX = MathUtils.min(p1.x, tx), segLowerY = MathUtils.min(p1.y, ty);
+		float segUpperX = MathUtils.max(p1.x, tx), segUpperY = MathUtils.max(p1.y, ty);
+		
+		final float[] aabb = m_aabb;
+		final int depth = m_stackDepth++;
+		int[] stack = stackAt(depth);
+		try {
+			int count = 0;
+			stack[count++] = m_root;
+			while (count > 0) {
+				final int node = stack[--count];
+				if (node == NULL_NODE) {
+					continue;
+				}
+				
+				final int a = node * 4;
+				if (aabb[a] - segUpperX > 0.0f || aabb[a + 1] - segUpperY > 0.0f ||
+						segLowerX - aabb[a + 2] > 0.0f || segLowerY - aabb[a + 3] > 0.0f) {
+					continue;
+				}
+				
+				final float cx = (aabb[a] + aabb[a + 2]) * .5f;
+				final float cy = (aabb[a + 1] + aabb[a + 3]) * .5f;
+				final float hx = (aabb[a + 2] - aabb[a]) * .5f;
+				final float hy = (aabb[a + 3] - aabb[a + 1]) * .5f;
+				final float separation = MathUtils.abs(vx * (p1.x - cx) + vy * (p1.y - cy))
+						- (absVx * hx + absVy * hy);
+				if (separation > 0.0f) {
+					continue;
+				}
+				
+				if (m_child1[node] == NULL_NODE) {
+					subInput.p1.set(p1);
+					subInput.p2.set(p2);
+					subInput.maxFraction = maxFraction;
+					
+					float value = argCallback.raycastCallback(subInput, node);
+					
+					if (value == 0.0f) {
+						// The client has terminated the ray cast.
+						return;
+					}
+					
+					if (value > 0.0f) {
+						// Update segment bounding box.
+						maxFraction = value;
+						tx = p1.x + maxFraction * (p2.x - p1.x);
+						ty = p1.y + maxFraction * (p2.y - p1.y);
+						segLowerX = MathUtils.min(p1.x, tx);
+						segLowerY = MathUtils.min(p1.y, ty);
+						segUpperX = MathUtils.max(p1.x, tx);
+						segUpperY = MathUtils.max(p1.y, ty);
+					}
+				}
+				else {
+					if (count + 2 > stack.length) {
+						stack = growStack(depth);
+					}
+					stack[count++] = m_child2[node];
+					stack[count++] = m_child1[node];
+				}
+			}
+		}
+		finally {
+			m_stackDepth = depth;
+		}
+	}
+	
+	/**
+	 * Compute the height of the tree.
+	 */
+	public final int computeHeight() {
+		if (m_root == NULL_NODE) {
+			return 0;
+		}
+		return m_height[m_root] + 1;
+	}
+	
+	/**
+	 * Compute the total surface area (perimeter) of the nodes of the tree. The lower this is,
+	 * the fewer nodes a query must visit.
+	 */
+	public final float computeTotalArea() {
+		float area = 0;
+		final int depth = m_stackDepth++;
+		int[] stack = stackAt(depth);
+		int count = 0;
+		stack[count++] = m_root;
+		while (count > 0) {
+			final int node = stack[--count];
+			if (node == NULL_NODE) {
+				continue;
+			}
+			area += perimeter(node);
+			if (count + 2 > stack.length) {
+				stack = growStack(depth);
+			}
+			stack[count++] = m_child2[node];
+			stack[count++] = m_child1[node];
+		}
+		m_stackDepth = depth;
+		return area;
+	}
+	
+	/**
+	 * Get the average number of nodes visited by the queries made since the last call to
+	 * {@link #resetQueryStats()}. Queries are only counted if {@link Settings#TREE_QUERY_STATS}
+	 * is true, otherwise this returns zero.
+	 */
+	public final float getAverageQueryVisits() {
+		return m_queryCount == 0 ? 0 : (float) m_queryVisits / m_queryCount;
+	}
+	
+	/**
+	 * Reset the count of queries and of the nodes they visited.
+	 */
+	public final void resetQueryStats() {
+		m_queryCount = 0;
+		m_queryVisits = 0;
+	}
+	
+	/**
+	 * Get the number of nodes in the tree (leaves and internal nodes).
+	 */
+	public final int getNodeCount() {
+		return m_nodeCount;
+	}
+	
+	private final boolean isLeaf(int argNode) {
+		return m_child1[argNode] == NULL_NODE;
+	}
+	
+	// returns the traversal stack for the given level of nesting, creating it if need be
+	private final int[] stackAt(int argDepth) {
+		if (argDepth == m_stacks.length) {
+			int[][] old = m_stacks;
+			m_stacks = new int[old.length * 2][];
+			System.arraycopy(old, 0, m_stacks, 0, old.length);
+		}
+		int[] stack = m_stacks[argDepth];
+		if (stack == null) {
+			stack = m_stacks[argDepth] = new int[INITIAL_STACK_SIZE];
+		}
+		return stack;
+	}
+	
+	// doubles the size of the traversal stack for the given level of nesting, keeping its contents
+	private final int[] growStack(int argDepth) {
+		int[] old = m_stacks[argDepth];
+		int[] stack = m_stacks[argDepth] = new int[old.length * 2];
+		System.arraycopy(old, 0, stack, 0, old.length);
+		return stack;
+	}
+	
+	private final void grow(int argCapacity) {
+		assert (argCapacity > m_nodeCapacity);
+		float[] aabb = new float[argCapacity * 4];
+		int[] parent = new int[argCapacity];
+		int[] child1 = new int[argCapacity];
+		int[] child2 = new int[argCapacity];
+		int[] height = new int[argCapacity];
+		Object[] userData = new Object[argCapacity];
+		System.arraycopy(m_aabb, 0, aabb, 0, m_nodeCapacity * 4);
+		System.arraycopy(m_parent, 0, parent, 0, m_nodeCapacity);
+		System.arraycopy(m_child1, 0, child1, 0, m_nodeCapacity);
+		System.arraycopy(m_child2, 0, child2, 0, m_nodeCapacity);
+		System.arraycopy(m_height, 0, height, 0, m_nodeCapacity);
+		System.arraycopy(m_userData, 0, userData, 0, m_nodeCapacity);
+		m_aabb = aabb;
+		m_parent = parent;
+		m_child1 = child1;
+		m_child2 = child2;
+		m_height = height;
+		m_userData = userData;
+		
+		// link the new nodes into the free list
+		for (int i = argCapacity - 1; i >= m_nodeCapacity; i--) {
+			m_parent[i] = m_freeList;
+			m_freeList = i;
+		}
+		m_nodeCapacity = argCapacity;
+	}
+	
+	private final int allocateNode() {
+		if (m_freeList == NULL_NODE) {
+			grow(m_nodeCapacity * 2);
+		}
+		int node = m_freeList;
+		m_freeList = m_parent[node];
+		m_parent[node] = NULL_NODE;
+		m_child1[node] = NULL_NODE;
+		m_child2[node] = NULL_NODE;
+		m_height[node] = 0;
+		m_userData[node] = null;
+		m_nodeCount++;
+		return node;
+	}
+	
+	/**
+	 * returns a node to the pool
+	 * 
+	 * @param argNode
+	 */
+	private final void freeNode(int argNode) {
+		assert (0 < m_nodeCount);
+		m_parent[argNode] = m_freeList;
+		m_userData[argNode] = null;
+		m_freeList = argNode;
+		m_nodeCount--;
+	}
+	
+	// the perimeter of the AABB of node a
+	private final float perimeter(int argA) {
+		final int a = argA * 4;
+		final float[] aabb = m_aabb;
+		return 2.0f * (aabb[a + 2] - aabb[a] + aabb[a + 3] - aabb[a + 1]);
+	}
+	
+	// the perimeter of the AABB that would contain those of nodes a and b
+	private final float combinedPerimeter(int argA, int argB) {
+		final int a = argA * 4, b = argB * 4;
+		final float[] aabb = m_aabb;
+		final float lowerX = aabb[a] < aabb[b] ? aabb[a] : aabb[b];
+		final float lowerY = aabb[a + 1] < aabb[b + 1] ? aabb[a + 1] : aabb[b + 1];
+		final float upperX = aabb[a + 2] > aabb[b + 2] ? aabb[a + 2] : aabb[b + 2];
+		final float upperY = aabb[a + 3] > aabb[b + 3] ? aabb[a + 3] : aabb[b + 3];
+		return 2.0f * (upperX - lowerX + upperY - lowerY);
+	}
+	
+	// the Manhattan distance between the centers of the AABBs of nodes a and b, doubled
+	private final float centerDistance(int argA, int argB) {
+		final int a = argA * 4, b = argB * 4;
+		final float[] aabb = m_aabb;
+		return MathUtils.abs(aabb[a] + aabb[a + 2] - aabb[b] - aabb[b + 2])
+				+ MathUtils.abs(aabb[a + 1] + aabb[a + 3] - aabb[b + 1] - aabb[b + 3]);
+	}
+	
+	// sets the AABB of node out to the union of those of nodes a and b
+	private final void combine(int argOut, int argA, int argB) {
+		final int o = argOut * 4, a = argA * 4, b = argB * 4;
+		final float[] aabb = m_aabb;
+		aabb[o] = aabb[a] < aabb[b] ? aabb[a] : aabb[b];
+		aabb[o + 1] = aabb[a + 1] < aabb[b + 1] ? aabb[a + 1] : aabb[b + 1];
+		aabb[o + 2] = aabb[a + 2] > aabb[b + 2] ? aabb[a + 2] : aabb[b + 2];
+		aabb[o + 3] = aabb[a + 3] > aabb[b + 3] ? aabb[a + 3] : aabb[b + 3];
+	}
+	
+	private final void insertLeaf(int argLeaf) {
+		m_insertionCount++;
+		
+		if (m_root == NULL_NODE) {
+			m_root = argLeaf;
+			m_parent[argLeaf] = NULL_NODE;
+			return;
+		}
+		
+		// find the best sibling, descending while that is cheaper than making the leaf a
+		// sibling of the current node; we only stop above a node of height one or less, so
+		// that the new parent is balanced
+		int sibling = m_root;
+		while (isLeaf(sibling) == false) {
+			final int child1 = m_child1[sibling];
+			final int child2 = m_child2[sibling];
+			
+			float area = perimeter(sibling);
+			float combinedArea = combinedPerimeter(sibling, argLeaf);
+			
+			// Cost of creating a new parent for this node and the new leaf
+			float cost = 2.0f * combinedArea;
+			
+			// Minimum cost of pushing the leaf further down the tree
+			float inheritanceCost = 2.0f * (combinedArea - area);
+			
+			// Cost of descending into child1
+			float cost1 = combinedPerimeter(argLeaf, child1) + inheritanceCost;
+			if (isLeaf(child1) == false) {
+				cost1 -= perimeter(child1);
+			}
+			
+			// Cost of descending into child2
+			float cost2 = combinedPerimeter(argLeaf, child2) + inheritanceCost;
+			if (isLeaf(child2) == false) {
+				cost2 -= perimeter(child2);
+			}
+			
+			if (cost < cost1 && cost < cost2 && m_height[sibling] <= 1) {
+				break;
+			}
+			
+			if (cost1 < cost2) {
+				sibling = child1;
+			}
+			else if (cost2 < cost1) {
+				sibling = child2;
+			}
+			else {
+				// the leaf is likely within both children, so descend into the nearer one
+				sibling = centerDistance(child1, argLeaf) < centerDistance(child2, argLeaf) ? child1
+						: child2;
+			}
+		}
+		
+		// Create a parent for the siblings
+		int node1 = m_parent[sibling];
+		int node2 = allocateNode();
+		m_parent[node2] = node1;
+		m_userData[node2] = null;
+		combine(node2, argLeaf, sibling);
+		
+		// was that the head node?
+		if (node1 != NULL_NODE) {
+			if (m_child1[node1] == sibling) {
+				m_child1[node1] = node2;
+			}
+			else {
+				m_child2[node1] = node2;
+			}
+		}
+		else {
+			m_root = node2;
+		}
+		m_child1[node2] = sibling;
+		m_child2[node2] = argLeaf;
+		m_parent[sibling] = node2;
+		m_parent[argLeaf] = node2;
+		
+		// node2 is balanced, as the sibling's height is at most one, but may still be improved
+		rotate(node2);
+		m_height[node2] = 1 + MathUtils.max(m_height[m_child1[node2]], m_height[m_child2[node2]]);
+		
+		// walk back up the tree, fixing heights and AABBs
+		fixAncestors(node1);
+	}
+	
+	private final void removeLeaf(int argLeaf) {
+		if (argLeaf == m_root) {
+			m_root = NULL_NODE;
+			return;
+		}
+		
+		int node2 = m_parent[argLeaf];
+		int node1 = m_parent[node2];
+		int sibling;
+		if (m_child1[node2] == argLeaf) {
+			sibling = m_child2[node2];
+		}
+		else {
+			sibling = m_child1[node2];
+		}
+		
+		if (node1 != NULL_NODE) {
+			// Destroy node2 and connect node1 to sibling.
+			if (m_child1[node1] == node2) {
+				m_child1[node1] = sibling;
+			}
+			else {
+				m_child2[node1] = sibling;
+			}
+			
+			m_parent[sibling] = node1;
+			freeNode(node2);
+			
+			fixAncestors(node1);
+		}
+		else {
+			m_root = sibling;
+			m_parent[sibling] = NULL_NODE;
+			freeNode(node2);
+		}
+	}
+	
+	// balances argNode and its ancestors, and recomputes their heights and AABBs
+	private final void fixAncestors(int argNode) {
+		final float[] aabb = m_aabb;
+		while (argNode != NULL_NODE) {
+			rotate(argNode);
+			
+			final int a = argNode * 4;
+			final int oldHeight = m_height[argNode];
+			final float oldLowerX = aabb[a], oldLowerY = aabb[a + 1];
+			final float oldUpperX = aabb[a + 2], oldUpperY = aabb[a + 3];
+			final int child1 = m_child1[argNode];
+			final int child2 = m_child2[argNode];
+			m_height[argNode] = 1 + MathUtils.max(m_height[child1], m_height[child2]);
+			combine(argNode, child1, child2);
+			
+			// if neither changed, then neither will those of its ancestors
+			if (m_height[argNode] == oldHeight && oldLowerX == aabb[a] && oldLowerY == aabb[a + 1]
+					&& oldUpperX == aabb[a + 2] && oldUpperY == aabb[a + 3]) {
+				break;
+			}
+			
+			argNode = m_parent[argNode];
+		}
+	}
+	
+	private int rotateChild = NULL_NODE, rotateGrandchild = NULL_NODE;
+	private float rotateBenefit;
+	
+	/**
+	 * Rotates the subtree rooted at A, as {@link DynamicTree} does. A remains the root of the
+	 * subtree, and its AABB is unchanged, but its height must be recomputed.
+	 */
+	private final void rotate(int iA) {
+		final int iB = m_child1[iA];
+		final int iC = m_child2[iA];
+		final int balance = m_height[iC] - m_height[iB];
+		assert (-2 <= balance && balance <= 2);
+		
+		rotateChild = NULL_NODE;
+		rotateGrandchild = NULL_NODE;
+		rotateBenefit = 0;
+		if (balance >= -1) {
+			// C is not too short, so B may be swapped with one of C's children
+			considerSwap(iB, iC, true, balance > 1);
+			considerSwap(iB, iC, false, balance > 1);
+		}
+		if (balance <= 1) {
+			// B is not too short, so C may be swapped with one of B's children
+			considerSwap(iC, iB, true, balance < -1);
+			considerSwap(iC, iB, false, balance < -1);
+		}
+		if (rotateChild == NULL_NODE) {
+			assert (balance >= -1 && balance <= 1);
+			return;
+		}
+		
+		final int child = rotateChild;
+		final int grandchild = rotateGrandchild;
+		final int other = m_parent[grandchild];
+		if (m_child1[iA] == child) {
+			m_child1[iA] = grandchild;
+		}
+		else {
+			m_child2[iA] = grandchild;
+		}
+		m_parent[grandchild] = iA;
+		if (m_child1[other] == grandchild) {
+			m_child1[other] = child;
+		}
+		else {
+			m_child2[other] = child;
+		}
+		m_parent[child] = other;
+		combine(other, m_child1[other], m_child2[other]);
+		m_height[other] = 1 + MathUtils.max(m_height[m_child1[other]], m_height[m_child2[other]]);
+	}
+	
+	// considers swapping argChild with the first or second child of argOther, noting the swap if
+	// it keeps the tree balanced and is more beneficial than any considered so far (or required)
+	private final void considerSwap(int argChild, int argOther, boolean argFirst,
+			boolean argRequired) {
+		if (isLeaf(argOther)) {
+			return;
+		}
+		final int grandchild = argFirst ? m_child1[argOther] : m_child2[argOther];
+		final int sibling = argFirst ? m_child2[argOther] : m_child1[argOther];
+		
+		// the swap would make argOther the parent of argChild and sibling, and the sibling of
+		// grandchild
+		if (MathUtils.abs(m_height[argChild] - m_height[sibling]) > 1) {
+			return;
+		}
+		int height = 1 + MathUtils.max(m_height[argChild], m_height[sibling]);
+		if (MathUtils.abs(height - m_height[grandchild]) > 1) {
+			return;
+		}
+		
+		float benefit = perimeter(argOther) - combinedPerimeter(argChild, sibling);
+		if ((argRequired || benefit > 0) && (rotateChild == NULL_NODE || benefit > rotateBenefit)) {
+			rotateChild = argChild;
+			rotateGrandchild = grandchild;
+			rotateBenefit = benefit;
+		}
+	}
+	
+	private final Vec2[] drawVecs = new Vec2[4];
+	private final AABB drawAABB = new AABB();
+	private final Color3f color = new Color3f();
+	private final Vec2 textVec = new Vec2();
+	
+	public void drawTree(DebugDraw argDraw) {
+		if (m_root == NULL_NODE) {
+			return;
+		}
+		int height = computeHeight();
+		drawTree(argDraw, m_root, 0, height);
+	}
+	
+	public void drawTree(DebugDraw argDraw, int argNode, int spot, int height) {
+		getFatAABB(argNode, drawAABB);
+		drawAABB.getVertices(drawVecs);
+		
+		color.set(1, (height - spot) * 1f / height, (height - spot) * 1f / height);
+		argDraw.drawPolygon(drawVecs, 4, color);
+		
+		argDraw.getViewportTranform().getWorldToScreen(drawAABB.upperBound, textVec);
+		argDraw.drawString(textVec.x, textVec.y, (spot + 1) + "/" + height, color);
+		
+		if (m_child1[argNode] != NULL_NODE) {
+			drawTree(argDraw, m_child1[argNode], spot + 1, height);
+		}
+		if (m_child2[argNode] != NULL_NODE) {
+			drawTree(argDraw, m_child2[argNode], spot + 1, height);
+		}
+	}
+}
@@ -26,16 +26,12 @@
  ******************************************************************************/
 package org.jbox2d.collision.broadphase;
 
-import java.util.Arrays;
-
 import org.jbox2d.callbacks.DebugDraw;
 import org.jbox2d.callbacks.PairCallback;
 import org.jbox2d.callbacks.TreeCallback;
 import org.jbox2d.callbacks.TreeRayCastCallback;
 import org.jbox2d.collision.AABB;
 import org.jbox2d.collision.RayCastInput;
-import org.jbox2d.common.FastSort;
-import org.jbox2d.common.Settings;
 import org.jbox2d.common.Vec2;
 
 // updated to rev 100
@@ -47,7 +43,7 @@ import org.jbox2d.common.Vec2;
  * 
  * @author Daniel Murphy
  */
-public class BroadPhase implements TreeCallback {
+public class BroadPhase implements IBroadPhase, TreeCallback {
 	
 	public static final int NULL_PROXY = -1;
 	
@@ -59,21 +55,14 @@ public class BroadPhase implements TreeCallback {
 	private int m_moveCapacity;
 	private int m_moveCount;
 	
-	private Pair[] m_pairBuffer;
-	private int m_pairCapacity;
-	private int m_pairCount;
+	private final PairManager m_pairManager;
 	
 	private DynamicTreeNode m_queryProxy;
 	
 	public BroadPhase() {
 		m_proxyCount = 0;
 		
-		m_pairCapacity = 16;
-		m_pairCount = 0;
-		m_pairBuffer = new Pair[m_pairCapacity];
-		for (int i = 0; i < m_pairCapacity; i++) {
-			m_pairBuffer[i] = new Pair();
-		}
+		m_pairManager = new PairManager();
 		
 		m_moveCapacity = 16;
 		m_moveCount = 0;
@@ -155,9 +144,6 @@ public class BroadPhase implements TreeCallback {
 	 */
 	public final void updatePairs(PairCallback callback) {
 		// log.debug("beginning to update pairs");
-		// Reset pair buffer
-		m_pairCount = 0;
-		
 		// Perform tree queries for all moving proxies.
 		for (int i = 0; i < m_moveCount; ++i) {
 			m_queryProxy = m_moveBuffer[i];
@@ -173,46 +159,13 @@ public class BroadPhase implements TreeCallback {
 			// log.debug("quering aabb: "+m_queryProxy.aabb);
 			m_tree.query(this, m_queryProxy.aabb);
 		}
-		// log.debug("Number of pairs found: "+m_pairCount);
+		// log.debug("Number of pairs found: "+m_pairManager.getPairCount());
 		
 		// Reset move buffer
 		m_moveCount = 0;
 		
-		// Sort the pair buffer to expose duplicates.
-		if (Settings.USE_NATIVE_SORT /*&& GWT.isProdMode()*/) {
-		  // need to set the stable ids to ensure a stable sort.
-		  for (int i = 0; i < m_pairCount; i++) {
-		    m_pairBuffer[i].stableIdx = i;
-		  }
-		  FastSort.unstableSort(m_pairBuffer, 0, m_pairCount, new Pair.StableComparator());
-		} else {
-		  Arrays.sort(m_pairBuffer, 0, m_pairCount, new Pair.PairComparator());
-		}
-		
-		// Send the pairs back to the client.
-		int i = 0;
-		while (i < m_pairCount) {
-			Pair primaryPair = m_pairBuffer[i];
-			Object userDataA = primaryPair.proxyA.userData;
-			Object userDataB = primaryPair.proxyB.userData;
-			
-			// log.debug("returning pair: "+userDataA+", "+userDataB);
-			callback.addPair(userDataA, userDataB);
-			++i;
-			
-			// Skip any duplicate pairs.
-			while (i < m_pairCount) {
-				Pair pair = m_pairBuffer[i];
-				if (pair.proxyA != primaryPair.proxyA || pair.proxyB != primaryPair.proxyB) {
-					break;
-				}
-				// log.debug("skipping duplicate");
-				++i;
-			}
-		}
-		
-		// Try to keep the tree balanced.
-		m_tree.rebalance(Settings.TREE_REBALANCE_STEPS);
+		// Sort the pairs to expose duplicates, and send them back to the client.
+		m_pairManager.reportPairs(callback);
 	}
 	
 	/**
@@ -288,34 +241,7 @@ public class BroadPhase implements TreeCallback {
 			return true;
 		}
 		
-		// Grow the pair buffer as needed.
-		if (m_pairCount == m_pairCapacity) {
-			Pair[] oldBuffer = m_pairBuffer;
-			m_pairCapacity *= 2;
-			m_pairBuffer = new Pair[m_pairCapacity];
-			for (int i = 0; i < oldBuffer.length; i++) {
-				m_pairBuffer[i] = oldBuffer[i];
-			}
-			for (int i = oldBuffer.length; i < m_pairCapacity; i++) {
-				m_pairBuffer[i] = new Pair();
-			}
-		}
-		
-		// m_pairBuffer[m_pairCount]proxyIdA = b2Min(proxyId, m_queryProxyId);
-		// m_pairBuffer[m_pairCount].proxyIdB = b2Max(proxyId, m_queryProxyId);
-		
-		if (proxy.key < m_queryProxy.key) {
-			// log.debug("new proxy is first");
-			m_pairBuffer[m_pairCount].proxyA = proxy;
-			m_pairBuffer[m_pairCount].proxyB = m_queryProxy;
-		}
-		else {
-			// log.debug("new proxy is second");
-			m_pairBuffer[m_pairCount].proxyA = m_queryProxy;
-			m_pairBuffer[m_pairCount].proxyB = proxy;
-		}
-		
-		++m_pairCount;
+		m_pairManager.addPair(proxy, m_queryProxy);
 		return true;
 	}
 }
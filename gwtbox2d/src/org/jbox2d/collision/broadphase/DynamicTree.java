@@ -49,6 +49,10 @@ import org.jbox2d.pooling.OrderedStackVec2;
  * so that the proxy AABB is bigger than the client object. This allows the client
  * object to move by small amounts without triggering a tree update.
  * 
+ * Leaves are inserted next to the sibling that least increases the total surface area (perimeter)
+ * of the tree, and the tree is kept balanced by AVL-style rotations as nodes are inserted and
+ * removed, so its height stays logarithmic in the number of proxies.
+ * 
  * @author daniel
  */
 public class DynamicTree {
@@ -64,6 +68,10 @@ public class DynamicTree {
 	
 	private int m_path;
 	
+	private int m_queryCount;
+	
+	private int m_queryVisits;
+	
 	private final Stack<DynamicTreeNode> nodeStack = new Stack<DynamicTreeNode>();
 	private final Vec2[] drawVecs = new Vec2[4];
 	private int nodeCounter = 0;
@@ -98,15 +106,6 @@ public class DynamicTree {
 		
 		insertLeaf(proxy);
 		
-		int iterationCount = m_nodeCount >> 4;
-		int tryCount = 0;
-		int height = computeHeight();
-		while (height > 64 && tryCount < 10) {
-			rebalance(iterationCount);
-			height = computeHeight();
-			++tryCount;
-		}
-		
 		return proxy;
 	}
 	
@@ -176,7 +175,8 @@ public class DynamicTree {
 	 * Rebalances the tree for the given iterations. Goes through
 	 * the tree by child1-child2 order (then back to root). If given enough
 	 * iterations it will hit all the nodes. It starts off at the last leaf
-	 * that it reinserted.
+	 * that it reinserted. This is no longer needed to keep the tree balanced, as
+	 * insertion and removal rotate the tree as they go.
 	 * 
 	 * @param argIterations
 	 */
@@ -214,6 +214,9 @@ public class DynamicTree {
 	 * @param argAABB
 	 */
 	public final void query(TreeCallback argCallback, AABB argAABB) {
+		if (Settings.TREE_QUERY_STATS) {
+			++m_queryCount;
+		}
 		query(argCallback, argAABB, m_root, 1);
 	}
 	
@@ -223,6 +226,9 @@ public class DynamicTree {
 		if (argNode == null) {
 			return true;
 		}
+		if (Settings.TREE_QUERY_STATS) {
+			++m_queryVisits;
+		}
 		
 		if (AABB.testOverlap(argAABB, argNode.aabb)) {
 			
@@ -371,18 +377,82 @@ public class DynamicTree {
 	 * Compute the height of the tree.
 	 */
 	public final int computeHeight() {
-		return computeHeight(m_root);
+		if (m_root == null) {
+			return 0;
+		}
+		return m_root.height + 1;
 	}
 	
-	private final int computeHeight(DynamicTreeNode argNode) {
+	/**
+	 * Compute the total surface area (perimeter) of the nodes of the tree. The lower this is,
+	 * the fewer nodes a query must visit.
+	 */
+	public final float computeTotalArea() {
+		return computeTotalArea(m_root);
+	}
+	
+	private final float computeTotalArea(DynamicTreeNode argNode) {
+		if (argNode == null) {
+			return 0;
+		}
+		return argNode.aabb.getPerimeter() + computeTotalArea(argNode.child1)
+				+ computeTotalArea(argNode.child2);
+	}
+	
+	/**
+	 * Validate the structure of the tree: that parent and child links agree, that each node's
+	 * height and AABB are those of its children, that no node's children differ in height by
+	 * more than one, and that every allocated node is in the tree. Failures are reported by
+	 * assertions, so this does nothing unless they are enabled.
+	 */
+	public final void validate() {
+		assert (m_root == null || m_root.parent == null);
+		assert (validate(m_root) == m_nodeCount);
+	}
+	
+	// validates the subtree rooted at argNode, returning the number of nodes in it
+	private final int validate(DynamicTreeNode argNode) {
 		if (argNode == null) {
 			return 0;
 		}
+		if (argNode.isLeaf()) {
+			assert (argNode.child2 == null);
+			assert (argNode.height == 0);
+			return 1;
+		}
 		
-		assert (argNode != null);
-		int height1 = computeHeight(argNode.child1);
-		int height2 = computeHeight(argNode.child2);
-		return 1 + MathUtils.max(height1, height2);
+		final DynamicTreeNode child1 = argNode.child1;
+		final DynamicTreeNode child2 = argNode.child2;
+		assert (child2 != null);
+		assert (child1.parent == argNode && child2.parent == argNode);
+		assert (argNode.height == 1 + MathUtils.max(child1.height, child2.height));
+		assert (MathUtils.abs(child1.height - child2.height) <= 1);
+		assert (argNode.aabb.lowerBound.x == MathUtils.min(child1.aabb.lowerBound.x,
+				child2.aabb.lowerBound.x));
+		assert (argNode.aabb.lowerBound.y == MathUtils.min(child1.aabb.lowerBound.y,
+				child2.aabb.lowerBound.y));
+		assert (argNode.aabb.upperBound.x == MathUtils.max(child1.aabb.upperBound.x,
+				child2.aabb.upperBound.x));
+		assert (argNode.aabb.upperBound.y == MathUtils.max(child1.aabb.upperBound.y,
+				child2.aabb.upperBound.y));
+		return 1 + validate(child1) + validate(child2);
+	}
+	
+	/**
+	 * Get the average number of nodes visited by the queries made since the last call to
+	 * {@link #resetQueryStats()}. Queries are only counted if {@link Settings#TREE_QUERY_STATS}
+	 * is true, otherwise this returns zero.
+	 */
+	public final float getAverageQueryVisits() {
+		return m_queryCount == 0 ? 0 : (float) m_queryVisits / m_queryCount;
+	}
+	
+	/**
+	 * Reset the count of queries and of the nodes they visited.
+	 */
+	public final void resetQueryStats() {
+		m_queryCount = 0;
+		m_queryVisits = 0;
 	}
 	
 	private final DynamicTreeNode allocateNode() {
@@ -399,6 +469,7 @@ public class DynamicTree {
 		node.child1 = null;
 		node.child2 = null;
 		node.userData = null;
+		node.height = 0;
 		node.key = nodeCounter++;
 		m_nodeCount++;
 		return node;
@@ -416,6 +487,16 @@ public class DynamicTree {
 		m_nodeCount--;
 	}
 	
+	// the perimeter of the AABB that would contain both argA and argB
+	private static final float combinedPerimeter(AABB argA, AABB argB) {
+		final float lowerX = MathUtils.min(argA.lowerBound.x, argB.lowerBound.x);
+		final float lowerY = MathUtils.min(argA.lowerBound.y, argB.lowerBound.y);
+		final float upperX = MathUtils.max(argA.upperBound.x, argB.upperBound.x);
+		final float upperY = MathUtils.max(argA.upperBound.y, argB.upperBound.y);
+		return 2.0f * (upperX - lowerX + upperY - lowerY);
+	}
+	
+	private final AABB oldAABB = new AABB();
 	private final Vec2 center = new Vec2();
 	private final Vec2 delta1 = new Vec2();
 	private final Vec2 delta2 = new Vec2();
@@ -429,34 +510,55 @@ public class DynamicTree {
 			return;
 		}
 		
-		// find the best sibling
-		
-		argNode.aabb.getCenterToOut(center);
+		// find the best sibling, descending while that is cheaper than making the leaf a
+		// sibling of the current node; we only stop above a node of height one or less, so
+		// that the new parent is balanced
+		final AABB leafAABB = argNode.aabb;
 		DynamicTreeNode sibling = m_root;
-		
-		DynamicTreeNode child1, child2;
-		if (sibling.isLeaf() == false) {
-			do {
-				child1 = sibling.child1;
-				child2 = sibling.child2;
-				
+		while (sibling.isLeaf() == false) {
+			final DynamicTreeNode child1 = sibling.child1;
+			final DynamicTreeNode child2 = sibling.child2;
+			
+			float area = sibling.aabb.getPerimeter();
+			float combinedArea = combinedPerimeter(sibling.aabb, leafAABB);
+			
+			// Cost of creating a new parent for this node and the new leaf
+			float cost = 2.0f * combinedArea;
+			
+			// Minimum cost of pushing the leaf further down the tree
+			float inheritanceCost = 2.0f * (combinedArea - area);
+			
+			// Cost of descending into child1
+			float cost1 = combinedPerimeter(leafAABB, child1.aabb) + inheritanceCost;
+			if (child1.isLeaf() == false) {
+				cost1 -= child1.aabb.getPerimeter();
+			}
+			
+			// Cost of descending into child2
+			float cost2 = combinedPerimeter(leafAABB, child2.aabb) + inheritanceCost;
+			if (child2.isLeaf() == false) {
+				cost2 -= child2.aabb.getPerimeter();
+			}
+			
+			if (cost < cost1 && cost < cost2 && sibling.height <= 1) {
+				break;
+			}
+			
+			if (cost1 < cost2) {
+				sibling = child1;
+			}
+			else if (cost2 < cost1) {
+				sibling = child2;
+			}
+			else {
+				// the leaf is likely within both children, so descend into the nearer one
 				child1.aabb.getCenterToOut(delta1);
 				child2.aabb.getCenterToOut(delta2);
+				leafAABB.getCenterToOut(center);
 				delta1.subLocal(center).absLocal();
 				delta2.subLocal(center).absLocal();
-				
-				float norm1 = delta1.x + delta1.y;
-				float norm2 = delta2.x + delta2.y;
-				
-				if (norm1 < norm2) {
-					sibling = child1;
-				}
-				else {
-					sibling = child2;
-				}
-				
+				sibling = delta1.x + delta1.y < delta2.x + delta2.y ? child1 : child2;
 			}
-			while (sibling.isLeaf() == false);
 		}
 		
 		// Create a parent for the siblings
@@ -464,45 +566,33 @@ public class DynamicTree {
 		DynamicTreeNode node2 = allocateNode();
 		node2.parent = node1;
 		node2.userData = null;
-		node2.aabb.combine(argNode.aabb, sibling.aabb);
+		node2.aabb.combine(leafAABB, sibling.aabb);
 		
 		// was that the head node?
 		if (node1 != null) {
-			if (sibling.parent.child1 == sibling) {
+			if (node1.child1 == sibling) {
 				node1.child1 = node2;
 			}
 			else {
 				node1.child2 = node2;
 			}
-			
-			node2.child1 = sibling;
-			node2.child2 = argNode;
-			sibling.parent = node2;
-			argNode.parent = node2;
-			
-			// build the aabb's up in case we expanded them out
-			do {
-				if (node1.aabb.contains(node2.aabb)) {
-					break;
-				}
-				
-				node1.aabb.combine(node1.child1.aabb, node1.child2.aabb);
-				node2 = node1;
-				node1 = node1.parent;
-			}
-			while (node1 != null);
 		}
 		else {
-			node2.child1 = sibling;
-			node2.child2 = argNode;
-			sibling.parent = node2;
-			argNode.parent = node2;
 			m_root = node2;
 		}
+		node2.child1 = sibling;
+		node2.child2 = argNode;
+		sibling.parent = node2;
+		argNode.parent = node2;
+		
+		// node2 is balanced, as the sibling's height is at most one, but may still be improved
+		rotate(node2);
+		node2.height = 1 + MathUtils.max(node2.child1.height, node2.child2.height);
+		
+		// walk back up the tree, fixing heights and AABBs
+		fixAncestors(node1);
 	}
 	
-	private final AABB oldAABB = new AABB();
-	
 	private final void removeLeaf(DynamicTreeNode argNode) {
 		if (argNode == m_root) {
 			m_root = null;
@@ -535,17 +625,7 @@ public class DynamicTree {
 			sibling.parent = node1;
 			freeNode(node2);
 			
-			// Adjust ancestor bounds. if the old one was larger, we just keep it
-			while (node1 != null) {
-				oldAABB.set(node1.aabb);
-				node1.aabb.combine(node1.child1.aabb, node1.child2.aabb);
-				
-				if (oldAABB.contains(node1.aabb)) {
-					break;
-				}
-				
-				node1 = node1.parent;
-			}
+			fixAncestors(node1);
 		}
 		else {
 			m_root = sibling;
@@ -560,6 +640,118 @@ public class DynamicTree {
 		}
 	}
 	
+	// balances argNode and its ancestors, and recomputes their heights and AABBs
+	private final void fixAncestors(DynamicTreeNode argNode) {
+		while (argNode != null) {
+			rotate(argNode);
+			
+			final DynamicTreeNode child1 = argNode.child1;
+			final DynamicTreeNode child2 = argNode.child2;
+			final int oldHeight = argNode.height;
+			oldAABB.set(argNode.aabb);
+			argNode.height = 1 + MathUtils.max(child1.height, child2.height);
+			argNode.aabb.combine(child1.aabb, child2.aabb);
+			
+			// if neither changed, then neither will those of its ancestors
+			if (argNode.height == oldHeight && oldAABB.lowerBound.x == argNode.aabb.lowerBound.x
+					&& oldAABB.lowerBound.y == argNode.aabb.lowerBound.y
+					&& oldAABB.upperBound.x == argNode.aabb.upperBound.x
+					&& oldAABB.upperBound.y == argNode.aabb.upperBound.y) {
+				break;
+			}
+			
+			argNode = argNode.parent;
+		}
+	}
+	
+	private DynamicTreeNode rotateChild, rotateGrandchild;
+	private float rotateBenefit;
+	
+	/**
+	 * Rotates the subtree rooted at A, by swapping a child of A with a grandchild of A under its
+	 * other child, if that would reduce the surface area of the subtree or if A is imbalanced. Of
+	 * the swaps that leave A and the child's new parent balanced (their children's heights differ
+	 * by no more than one), we make the one that most reduces the area of that new parent. If A is
+	 * imbalanced (which it can only be by two), then its shorter child must be swapped, and there is
+	 * always such a swap that restores the balance. A remains the root of the subtree, and its AABB
+	 * is unchanged, but its height must be recomputed.
+	 */
+	private final void rotate(DynamicTreeNode iA) {
+		final DynamicTreeNode iB = iA.child1;
+		final DynamicTreeNode iC = iA.child2;
+		final int balance = iC.height - iB.height;
+		assert (-2 <= balance && balance <= 2);
+		
+		rotateChild = null;
+		rotateGrandchild = null;
+		rotateBenefit = 0;
+		if (balance >= -1) {
+			// C is not too short, so B may be swapped with one of C's children
+			considerSwap(iB, iC, true, balance > 1);
+			considerSwap(iB, iC, false, balance > 1);
+		}
+		if (balance <= 1) {
+			// B is not too short, so C may be swapped with one of B's children
+			considerSwap(iC, iB, true, balance < -1);
+			considerSwap(iC, iB, false, balance < -1);
+		}
+		if (rotateChild == null) {
+			assert (balance >= -1 && balance <= 1);
+			return;
+		}
+		
+		final DynamicTreeNode child = rotateChild;
+		final DynamicTreeNode grandchild = rotateGrandchild;
+		final DynamicTreeNode other = grandchild.parent;
+		if (iA.child1 == child) {
+			iA.child1 = grandchild;
+		}
+		else {
+			iA.child2 = grandchild;
+		}
+		grandchild.parent = iA;
+		if (other.child1 == grandchild) {
+			other.child1 = child;
+		}
+		else {
+			other.child2 = child;
+		}
+		child.parent = other;
+		other.aabb.combine(other.child1.aabb, other.child2.aabb);
+		other.height = 1 + MathUtils.max(other.child1.height, other.child2.height);
+		rotateChild = null;
+		rotateGrandchild = null;
+	}
+	
+	// considers swapping argChild with the first or second child of argOther, noting the swap if
+	// it keeps the tree balanced and is more beneficial than any considered so far (or required)
+	private final void considerSwap(DynamicTreeNode argChild, DynamicTreeNode argOther,
+			boolean argFirst, boolean argRequired) {
+		if (argOther.isLeaf()) {
+			return;
+		}
+		final DynamicTreeNode grandchild = argFirst ? argOther.child1 : argOther.child2;
+		final DynamicTreeNode sibling = argFirst ? argOther.child2 : argOther.child1;
+		
+		// the swap would make argOther the parent of argChild and sibling, and the sibling of
+		// grandchild
+		if (MathUtils.abs(argChild.height - sibling.height) > 1) {
+			return;
+		}
+		int height = 1 + MathUtils.max(argChild.height, sibling.height);
+		if (MathUtils.abs(height - grandchild.height) > 1) {
+			return;
+		}
+		
+		float benefit = argOther.aabb.getPerimeter()
+				- combinedPerimeter(argChild.aabb, sibling.aabb);
+		if ((argRequired || benefit > 0) && (rotateChild == null || benefit > rotateBenefit)) {
+			rotateChild = argChild;
+			rotateGrandchild = grandchild;
+			rotateBenefit = benefit;
+		}
+	}
+	
 	public void drawTree(DebugDraw argDraw) {
 		if (m_root == null) {
 			return;
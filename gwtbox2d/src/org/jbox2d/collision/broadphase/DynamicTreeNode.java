@@ -42,6 +42,11 @@ public class DynamicTreeNode {
 	protected DynamicTreeNode child1;
 	protected DynamicTreeNode child2;
 	
+	/**
+	 * the height of the subtree rooted at this node, 0 for a leaf
+	 */
+	protected int height;
+	
 	/**
 	 * used for sorting purposes, don't modify
 	 */
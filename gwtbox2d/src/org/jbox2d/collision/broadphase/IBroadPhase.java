@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import org.jbox2d.callbacks.DebugDraw;
+import org.jbox2d.callbacks.PairCallback;
+import org.jbox2d.callbacks.TreeCallback;
+import org.jbox2d.callbacks.TreeRayCastCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.RayCastInput;
+import org.jbox2d.common.Vec2;
+
+/**
+ * The broad-phase is used for computing pairs and performing volume queries and ray
+ * casts. It does not persist pairs. Instead, it reports potentially new pairs, and it is up to
+ * the client to consume the new pairs and to track subsequent overlap. Each proxy is represented
+ * by a {@link DynamicTreeNode}, whose AABB is the proxy's fattened AABB, whichever structure the
+ * broad-phase uses to organize its proxies.
+ * 
+ * @see BroadPhase
+ * @see ArrayBroadPhase
+ * @see SweepAndPruneBroadPhase
+ */
+public interface IBroadPhase {
+	
+	/**
+	 * Create a proxy with an initial AABB. Pairs are not reported until
+	 * updatePairs is called.
+	 * 
+	 * @param aabb
+	 * @param userData
+	 * @return
+	 */
+	public DynamicTreeNode createProxy(AABB aabb, Object userData);
+	
+	/**
+	 * Destroy a proxy. It is up to the client to remove any pairs.
+	 * 
+	 * @param proxy
+	 */
+	public void destroyProxy(DynamicTreeNode proxy);
+	
+	/**
+	 * Call MoveProxy as many times as you like, then when you are done
+	 * call UpdatePairs to finalized the proxy pairs (for your time step).
+	 */
+	public void moveProxy(DynamicTreeNode proxy, AABB aabb, Vec2 displacement);
+	
+	/**
+	 * Do the fattened AABBs of two proxies overlap?
+	 */
+	public boolean testOverlap(DynamicTreeNode proxyA, DynamicTreeNode proxyB);
+	
+	/**
+	 * Get the number of proxies.
+	 * 
+	 * @return
+	 */
+	public int getProxyCount();
+	
+	/**
+	 * Draw the structure in which the proxies are organized.
+	 */
+	public void drawTree(DebugDraw argDraw);
+	
+	/**
+	 * Update the pairs. This results in pair callbacks for the pairs of overlapping proxies of
+	 * which at least one was created or moved since the last update. This can only add pairs.
+	 * 
+	 * @param callback
+	 */
+	public void updatePairs(PairCallback callback);
+	
+	/**
+	 * Query an AABB for overlapping proxies. The callback class
+	 * is called for each proxy that overlaps the supplied AABB.
+	 * 
+	 * @param callback
+	 * @param aabb
+	 */
+	public void query(TreeCallback callback, AABB aabb);
+	
+	/**
+	 * Ray-cast against the proxies. This relies on the callback
+	 * to perform a exact ray-cast in the case were the proxy contains a shape.
+	 * The callback also performs the any collision filtering.
+	 * 
+	 * @param input
+	 *            the ray-cast input data. The ray extends from p1 to p1 + maxFraction *
+	 *            (p2 - p1).
+	 * @param callback
+	 *            a callback class that is called for each proxy that is hit by the ray.
+	 */
+	public void raycast(TreeRayCastCallback callback, RayCastInput input);
+}
@@ -26,8 +26,6 @@
  ******************************************************************************/
 package org.jbox2d.collision.broadphase;
 
-import java.util.Comparator;
-
 // updated to rev 100
 /**
  * Java note: at the "creation" of each node, a random key is given to
@@ -36,7 +34,6 @@ import java.util.Comparator;
 public class Pair {
 	public DynamicTreeNode proxyA;
 	public DynamicTreeNode proxyB;
-	public int stableIdx;
 	
 	public int compareTo(Pair pair2) {
 		if (this.proxyA.key < pair2.proxyA.key) {
@@ -60,32 +57,4 @@ public class Pair {
 		
 		return 1;
 	}
-
-	/**
-	 * Note: Must set pair.stableIdx before using to ensure stability.
-	 */
-	public static class StableComparator implements Comparator<Pair> {
-    @Override
-    public int compare(Pair pair1, Pair pair2) {
-      int stdRtn = pair1.compareTo(pair2);
-      if (stdRtn == 0) {
-        if (pair1.stableIdx < pair2.stableIdx) {
-          return -1;
-        } else if (pair1.stableIdx > pair2.stableIdx) {
-          return 1;
-        } else {
-          return 0;
-        }
-      } else {
-        return stdRtn;
-      }
-    }
-  }
-
-	 public static class PairComparator implements Comparator<Pair> {
-	    @Override
-	    public int compare(Pair pair1, Pair pair2) {
-	      return pair1.compareTo(pair2);
-	    }
-	  }
 }
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import java.util.Arrays;
+
+import org.jbox2d.callbacks.PairCallback;
+
+/**
+ * Gathers the pairs of proxies found by the broad-phase during a step, and reports each distinct
+ * pair once, in order of the keys of its proxies. The keys of each pair are kept in primitive
+ * arrays and sorted with a radix sort, so nothing is allocated once the buffers have grown to fit
+ * the pairs of a step. The keys are kept in two int arrays rather than packed into longs, as long
+ * arithmetic is emulated, and slow, in GWT.
+ */
+public class PairManager {
+	
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX - 1;
+	// the number of digits in each of the two keys
+	private static final int DIGITS = 32 / RADIX_BITS;
+	
+	private int m_capacity;
+	private int m_count;
+	
+	// the keys and proxies of each pair, in the order in which they were added
+	private int[] m_keyA;
+	private int[] m_keyB;
+	private DynamicTreeNode[] m_proxyA;
+	private DynamicTreeNode[] m_proxyB;
+	
+	// the indices of the pairs, which are sorted, and a buffer for the sort
+	private int[] m_order;
+	private int[] m_buffer;
+	
+	// the histogram of each digit of the keys, the digits of key B first
+	private final int[] m_histograms = new int[DIGITS * 2 * RADIX];
+	
+	public PairManager() {
+		this(16);
+	}
+	
+	public PairManager(int argCapacity) {
+		m_capacity = argCapacity;
+		m_keyA = new int[m_capacity];
+		m_keyB = new int[m_capacity];
+		m_proxyA = new DynamicTreeNode[m_capacity];
+		m_proxyB = new DynamicTreeNode[m_capacity];
+		m_order = new int[m_capacity];
+		m_buffer = new int[m_capacity];
+	}
+	
+	/**
+	 * Gets the number of pairs added since the pairs were last reported, including duplicates.
+	 */
+	public final int getPairCount() {
+		return m_count;
+	}
+	
+	/**
+	 * Adds a pair of proxies, which may have been added before.
+	 */
+	public final void addPair(DynamicTreeNode proxyA, DynamicTreeNode proxyB) {
+		if (m_count == m_capacity) {
+			grow(m_capacity * 2);
+		}
+		
+		if (proxyB.key < proxyA.key) {
+			DynamicTreeNode temp = proxyA;
+			proxyA = proxyB;
+			proxyB = temp;
+		}
+		m_keyA[m_count] = proxyA.key;
+		m_keyB[m_count] = proxyB.key;
+		m_proxyA[m_count] = proxyA;
+		m_proxyB[m_count] = proxyB;
+		++m_count;
+	}
+	
+	/**
+	 * Reports each distinct pair added since the pairs were last reported to the callback, and
+	 * forgets them.
+	 */
+	public final void reportPairs(PairCallback callback) {
+		final int count = m_count;
+		if (count == 0) {
+			return;
+		}
+		
+		final int[] order = sort();
+		final int[] keyA = m_keyA;
+		final int[] keyB = m_keyB;
+		int i = 0;
+		while (i < count) {
+			final int primary = order[i];
+			callback.addPair(m_proxyA[primary].userData, m_proxyB[primary].userData);
+			++i;
+			
+			// Skip any duplicate pairs.
+			while (i < count) {
+				final int pair = order[i];
+				if (keyA[pair] != keyA[primary] || keyB[pair] != keyB[primary]) {
+					break;
+				}
+				++i;
+			}
+		}
+		
+		// don't keep destroyed proxies, and their user data, from being collected
+		Arrays.fill(m_proxyA, 0, count, null);
+		Arrays.fill(m_proxyB, 0, count, null);
+		m_count = 0;
+	}
+	
+	/**
+	 * Sorts the indices of the pairs by key A, then key B, with a least significant digit radix
+	 * sort. Digits that are the same for every pair are skipped. The sign bits of the keys are
+	 * flipped, so that they sort in the order of signed integers.
+	 * 
+	 * @return the sorted indices
+	 */
+	private final int[] sort() {
+		final int count = m_count;
+		final int[] keyA = m_keyA;
+		final int[] keyB = m_keyB;
+		final int[] histograms = m_histograms;
+		Arrays.fill(histograms, 0);
+		for (int i = 0; i < count; ++i) {
+			final int a = keyA[i] ^ Integer.MIN_VALUE;
+			final int b = keyB[i] ^ Integer.MIN_VALUE;
+			for (int digit = 0; digit < DIGITS; ++digit) {
+				final int shift = digit * RADIX_BITS;
+				++histograms[digit * RADIX + ((b >>> shift) & RADIX_MASK)];
+				++histograms[(DIGITS + digit) * RADIX + ((a >>> shift) & RADIX_MASK)];
+			}
+		}
+		
+		int[] order = m_order;
+		int[] buffer = m_buffer;
+		for (int i = 0; i < count; ++i) {
+			order[i] = i;
+		}
+		
+		for (int pass = 0; pass < DIGITS * 2; ++pass) {
+			final int[] keys = pass < DIGITS ? keyB : keyA;
+			final int shift = (pass % DIGITS) * RADIX_BITS;
+			final int offset = pass * RADIX;
+			
+			// skip the digit if every pair has the same one
+			final int first = ((keys[0] ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK;
+			if (histograms[offset + first] == count) {
+				continue;
+			}
+			
+			// turn the counts into the starting position of each digit
+			int position = 0;
+			for (int digit = 0; digit < RADIX; ++digit) {
+				final int digitCount = histograms[offset + digit];
+				histograms[offset + digit] = position;
+				position += digitCount;
+			}
+			
+			for (int i = 0; i < count; ++i) {
+				final int pair = order[i];
+				final int digit = ((keys[pair] ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK;
+				buffer[histograms[offset + digit]++] = pair;
+			}
+			
+			final int[] temp = order;
+			order = buffer;
+			buffer = temp;
+		}
+		
+		m_order = order;
+		m_buffer = buffer;
+		return order;
+	}
+	
+	private final void grow(int argCapacity) {
+		int[] oldKeyA = m_keyA;
+		int[] oldKeyB = m_keyB;
+		DynamicTreeNode[] oldProxyA = m_proxyA;
+		DynamicTreeNode[] oldProxyB = m_proxyB;
+		
+		m_keyA = new int[argCapacity];
+		m_keyB = new int[argCapacity];
+		m_proxyA = new DynamicTreeNode[argCapacity];
+		m_proxyB = new DynamicTreeNode[argCapacity];
+		m_order = new int[argCapacity];
+		m_buffer = new int[argCapacity];
+		System.arraycopy(oldKeyA, 0, m_keyA, 0, m_count);
+		System.arraycopy(oldKeyB, 0, m_keyB, 0, m_count);
+		System.arraycopy(oldProxyA, 0, m_proxyA, 0, m_count);
+		System.arraycopy(oldProxyB, 0, m_proxyB, 0, m_count);
+		m_capacity = argCapacity;
+	}
+}
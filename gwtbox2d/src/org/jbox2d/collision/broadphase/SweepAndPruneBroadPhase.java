@@ -0,0 +1,421 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.jbox2d.callbacks.DebugDraw;
+import org.jbox2d.callbacks.PairCallback;
+import org.jbox2d.callbacks.TreeCallback;
+import org.jbox2d.callbacks.TreeRayCastCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.RayCastInput;
+import org.jbox2d.common.Color3f;
+import org.jbox2d.common.MathUtils;
+import org.jbox2d.common.Settings;
+import org.jbox2d.common.Vec2;
+
+/**
+ * A sort and sweep broad-phase, which keeps its proxies in an array sorted by the lower bound
+ * of their fattened AABBs along the x axis. The array is re-sorted with an insertion sort before
+ * the pairs are updated, which is nearly linear as long as the proxies move slowly, and the pairs
+ * are found by sweeping along the array, testing each proxy against the proxies that follow it
+ * until they no longer overlap it along the x axis. This suits worlds whose bodies are spread out
+ * along the x axis and move slowly. When many proxies share the same range of x, or they move
+ * quickly, a {@link BroadPhase} is the better choice.
+ */
+public class SweepAndPruneBroadPhase implements IBroadPhase {
+	
+	/**
+	 * If more proxies than this have been created since the array was last sorted, it is sorted
+	 * from scratch rather than by insertion.
+	 */
+	private static final int INSERTION_SORT_LIMIT = 16;
+	
+	private Proxy[] m_proxies;
+	// the number of slots in use, including those of destroyed proxies
+	private int m_count;
+	
+	private int m_proxyCount;
+	private int m_keyCounter;
+	
+	// the number of proxies created, and destroyed, since the array was last sorted
+	private int m_createdCount;
+	private int m_destroyedCount;
+	
+	// true if the array may be out of order
+	private boolean m_unsorted;
+	// true if a proxy has been created or moved since the pairs were last updated
+	private boolean m_moved;
+	
+	// the widest of the proxies, along the x axis
+	private float m_maxWidth;
+	
+	public SweepAndPruneBroadPhase() {
+		m_proxies = new Proxy[16];
+	}
+	
+	public final DynamicTreeNode createProxy(final AABB aabb, Object userData) {
+		if (m_count == m_proxies.length) {
+			Proxy[] old = m_proxies;
+			m_proxies = new Proxy[m_count * 2];
+			System.arraycopy(old, 0, m_proxies, 0, m_count);
+		}
+		
+		Proxy proxy = new Proxy();
+		proxy.aabb.lowerBound.x = aabb.lowerBound.x - Settings.aabbExtension;
+		proxy.aabb.lowerBound.y = aabb.lowerBound.y - Settings.aabbExtension;
+		proxy.aabb.upperBound.x = aabb.upperBound.x + Settings.aabbExtension;
+		proxy.aabb.upperBound.y = aabb.upperBound.y + Settings.aabbExtension;
+		proxy.userData = userData;
+		proxy.key = m_keyCounter++;
+		proxy.index = m_count;
+		proxy.moved = true;
+		m_proxies[m_count++] = proxy;
+		
+		++m_proxyCount;
+		++m_createdCount;
+		m_unsorted = true;
+		m_moved = true;
+		m_maxWidth = MathUtils.max(m_maxWidth, proxy.aabb.upperBound.x - proxy.aabb.lowerBound.x);
+		return proxy;
+	}
+	
+	public final void destroyProxy(DynamicTreeNode proxy) {
+		Proxy p = (Proxy) proxy;
+		assert (m_proxies[p.index] == p);
+		m_proxies[p.index] = null;
+		p.index = -1;
+		
+		--m_proxyCount;
+		++m_destroyedCount;
+		m_unsorted = true;
+	}
+	
+	/**
+	 * Moves a proxy with a swept AABB. If the proxy has moved outside of its fattened AABB, its
+	 * AABB is fattened anew and it is flagged as moved, so that it is tested for new pairs.
+	 * Otherwise the function returns immediately.
+	 */
+	public final void moveProxy(DynamicTreeNode proxy, final AABB aabb, final Vec2 displacement) {
+		Proxy p = (Proxy) proxy;
+		final AABB fat = p.aabb;
+		if (fat.lowerBound.x <= aabb.lowerBound.x && fat.lowerBound.y <= aabb.lowerBound.y
+				&& aabb.upperBound.x <= fat.upperBound.x && aabb.upperBound.y <= fat.upperBound.y) {
+			return;
+		}
+		
+		// Extend the AABB, and predict its displacement.
+		fat.lowerBound.x = aabb.lowerBound.x - Settings.aabbExtension;
+		fat.lowerBound.y = aabb.lowerBound.y - Settings.aabbExtension;
+		fat.upperBound.x = aabb.upperBound.x + Settings.aabbExtension;
+		fat.upperBound.y = aabb.upperBound.y + Settings.aabbExtension;
+		
+		final float dx = displacement.x * Settings.aabbMultiplier;
+		final float dy = displacement.y * Settings.aabbMultiplier;
+		if (dx < 0.0f) {
+			fat.lowerBound.x += dx;
+		}
+		else {
+			fat.upperBound.x += dx;
+		}
+		if (dy < 0.0f) {
+			fat.lowerBound.y += dy;
+		}
+		else {
+			fat.upperBound.y += dy;
+		}
+		
+		p.moved = true;
+		m_unsorted = true;
+		m_moved = true;
+		m_maxWidth = MathUtils.max(m_maxWidth, fat.upperBound.x - fat.lowerBound.x);
+	}
+	
+	public boolean testOverlap(DynamicTreeNode proxyA, DynamicTreeNode proxyB) {
+		AABB a = proxyA.aabb;
+		AABB b = proxyB.aabb;
+		if (b.lowerBound.x - a.upperBound.x > 0.0f || b.lowerBound.y - a.upperBound.y > 0.0f) {
+			return false;
+		}
+		
+		if (a.lowerBound.x - b.upperBound.x > 0.0f || a.lowerBound.y - b.upperBound.y > 0.0f) {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	public final int getProxyCount() {
+		return m_proxyCount;
+	}
+	
+	private final Vec2[] drawVecs = new Vec2[] { new Vec2(), new Vec2(), new Vec2(), new Vec2() };
+	private final Color3f color = new Color3f(1, 1, 1);
+	
+	/**
+	 * Draws the fattened AABB of each proxy.
+	 */
+	public void drawTree(DebugDraw argDraw) {
+		for (int i = 0; i < m_count; ++i) {
+			if (m_proxies[i] != null) {
+				m_proxies[i].aabb.getVertices(drawVecs);
+				argDraw.drawPolygon(drawVecs, 4, color);
+			}
+		}
+	}
+	
+	public final void updatePairs(PairCallback callback) {
+		if (!m_moved) {
+			return;
+		}
+		sort();
+		
+		final Proxy[] proxies = m_proxies;
+		final int count = m_count;
+		for (int i = 0; i < count; ++i) {
+			final Proxy a = proxies[i];
+			final AABB aabbA = a.aabb;
+			final float upperX = aabbA.upperBound.x;
+			for (int j = i + 1; j < count; ++j) {
+				final Proxy b = proxies[j];
+				final AABB aabbB = b.aabb;
+				if (aabbB.lowerBound.x > upperX) {
+					break;
+				}
+				if (!a.moved && !b.moved) {
+					continue;
+				}
+				if (aabbB.lowerBound.y > aabbA.upperBound.y
+						|| aabbA.lowerBound.y > aabbB.upperBound.y) {
+					continue;
+				}
+				
+				if (a.key < b.key) {
+					callback.addPair(a.userData, b.userData);
+				}
+				else {
+					callback.addPair(b.userData, a.userData);
+				}
+			}
+			// the proxies that follow have been tested against this one
+			a.moved = false;
+		}
+		m_moved = false;
+	}
+	
+	public final void query(final TreeCallback callback, final AABB aabb) {
+		sort();
+		
+		final Proxy[] proxies = m_proxies;
+		final int count = m_count;
+		final float upperX = aabb.upperBound.x;
+		for (int i = lowerIndex(aabb.lowerBound.x - m_maxWidth); i < count; ++i) {
+			final Proxy proxy = proxies[i];
+			if (proxy == null) {
+				// destroyed by the callback
+				continue;
+			}
+			final AABB b = proxy.aabb;
+			if (b.lowerBound.x > upperX) {
+				break;
+			}
+			if (aabb.lowerBound.x > b.upperBound.x || b.lowerBound.y > aabb.upperBound.y
+					|| aabb.lowerBound.y > b.upperBound.y) {
+				continue;
+			}
+			if (!callback.treeCallback(proxy)) {
+				return;
+			}
+		}
+	}
+	
+	// djm pooling
+	private final Vec2 r = new Vec2();
+	private final Vec2 v = new Vec2();
+	private final Vec2 absV = new Vec2();
+	private final RayCastInput subInput = new RayCastInput();
+	
+	public final void raycast(final TreeRayCastCallback callback, final RayCastInput input) {
+		sort();
+		
+		final Vec2 p1 = input.p1;
+		final Vec2 p2 = input.p2;
+		r.set(p2).subLocal(p1);
+		assert (r.lengthSquared() > 0f);
+		r.normalize();
+		
+		// v is perpendicular to the segment.
+		Vec2.crossToOut(1f, r, v);
+		absV.set(v).absLocal();
+		
+		// Separating axis for segment (Gino, p80).
+		// |dot(v, p1 - c)| > dot(|v|, h)
+		
+		float maxFraction = input.maxFraction;
+		
+		// Build a bounding box for the segment.
+		float tx = p1.x + maxFraction * (p2.x - p1.x);
+		float ty = p1.y + maxFraction * (p2.y - p1.y);
+		float segLowerX = MathUtils.min(p1.x, tx), segLowerY = MathUtils.min(p1.y, ty);
+		float segUpperX = MathUtils.max(p1.x, tx), segUpperY = MathUtils.max(p1.y, ty);
+		
+		final Proxy[] proxies = m_proxies;
+		final int count = m_count;
+		for (int i = lowerIndex(segLowerX - m_maxWidth); i < count; ++i) {
+			final Proxy proxy = proxies[i];
+			if (proxy == null) {
+				// destroyed by the callback
+				continue;
+			}
+			final AABB b = proxy.aabb;
+			if (b.lowerBound.x > segUpperX) {
+				break;
+			}
+			if (segLowerX > b.upperBound.x || b.lowerBound.y > segUpperY
+					|| segLowerY > b.upperBound.y) {
+				continue;
+			}
+			
+			final float cx = (b.lowerBound.x + b.upperBound.x) * .5f;
+			final float cy = (b.lowerBound.y + b.upperBound.y) * .5f;
+			final float hx = (b.upperBound.x - b.lowerBound.x) * .5f;
+			final float hy = (b.upperBound.y - b.lowerBound.y) * .5f;
+			final float separation = MathUtils.abs(v.x * (p1.x - cx) + v.y * (p1.y - cy))
+					- (absV.x * hx + absV.y * hy);
+			if (separation > 0.0f) {
+				continue;
+			}
+			
+			subInput.p1.set(p1);
+			subInput.p2.set(p2);
+			subInput.maxFraction = maxFraction;
+			
+			float value = callback.raycastCallback(subInput, proxy);
+			
+			if (value == 0.0f) {
+				// The client has terminated the ray cast.
+				return;
+			}
+			
+			if (value > 0.0f) {
+				// Update segment bounding box.
+				maxFraction = value;
+				tx = p1.x + maxFraction * (p2.x - p1.x);
+				ty = p1.y + maxFraction * (p2.y - p1.y);
+				segLowerX = MathUtils.min(p1.x, tx);
+				segLowerY = MathUtils.min(p1.y, ty);
+				segUpperX = MathUtils.max(p1.x, tx);
+				segUpperY = MathUtils.max(p1.y, ty);
+			}
+		}
+	}
+	
+	/**
+	 * Finds the index of the first proxy whose lower bound is not less than the given x, in the
+	 * sorted array.
+	 */
+	private final int lowerIndex(float x) {
+		final Proxy[] proxies = m_proxies;
+		int low = 0, high = m_count;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (proxies[mid].aabb.lowerBound.x < x) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+	
+	private final Comparator<Proxy> comparator = new Comparator<Proxy>() {
+		public int compare(Proxy a, Proxy b) {
+			return Float.compare(a.aabb.lowerBound.x, b.aabb.lowerBound.x);
+		}
+	};
+	
+	/**
+	 * Removes the slots of destroyed proxies and sorts the array, if anything has changed since it
+	 * was last sorted.
+	 */
+	private final void sort() {
+		if (!m_unsorted) {
+			return;
+		}
+		
+		final Proxy[] proxies = m_proxies;
+		int count = m_count;
+		if (m_destroyedCount > 0) {
+			int j = 0;
+			for (int i = 0; i < count; ++i) {
+				if (proxies[i] != null) {
+					proxies[j++] = proxies[i];
+				}
+			}
+			Arrays.fill(proxies, j, count, null);
+			count = m_count = j;
+		}
+		
+		if (m_createdCount > INSERTION_SORT_LIMIT) {
+			Arrays.sort(proxies, 0, count, comparator);
+		}
+		else {
+			for (int i = 1; i < count; ++i) {
+				final Proxy proxy = proxies[i];
+				final float x = proxy.aabb.lowerBound.x;
+				int j = i - 1;
+				while (j >= 0 && proxies[j].aabb.lowerBound.x > x) {
+					proxies[j + 1] = proxies[j];
+					--j;
+				}
+				proxies[j + 1] = proxy;
+			}
+		}
+		
+		float maxWidth = 0;
+		for (int i = 0; i < count; ++i) {
+			final AABB aabb = proxies[i].aabb;
+			proxies[i].index = i;
+			maxWidth = MathUtils.max(maxWidth, aabb.upperBound.x - aabb.lowerBound.x);
+		}
+		m_maxWidth = maxWidth;
+		
+		m_createdCount = 0;
+		m_destroyedCount = 0;
+		m_unsorted = false;
+	}
+	
+	private static final class Proxy extends DynamicTreeNode {
+		// the index of this proxy in the array of proxies
+		int index;
+		// true if this proxy has been created or moved since the pairs were last updated
+		boolean moved;
+	}
+}
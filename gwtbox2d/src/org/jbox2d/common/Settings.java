@@ -107,6 +107,13 @@ public class Settings {
 	public static final boolean SINCOS_LUT_LERP = false;
 	
 	public static final int TREE_REBALANCE_STEPS = 4;
+	/**
+	 * True to count the queries made of dynamic trees and the nodes they visit,
+	 * as reported by
+	 * {@link org.jbox2d.collision.broadphase.DynamicTree#getAverageQueryVisits()}.
+	 * Final, so that the counting is compiled out of the query loop when off.
+	 */
+	public static final boolean TREE_QUERY_STATS = false;
 	
 	// Collision
 	
@@ -241,9 +248,4 @@ public class Settings {
 	public static final float mixRestitution(float restitution1, float restitution2) {
 		return restitution1 > restitution2 ? restitution1 : restitution2;
 	}
-
-	/**
-	 * True to use the browser's native sort.
-	 */
-	public static boolean USE_NATIVE_SORT = true;
 }
@@ -26,7 +26,7 @@
  ******************************************************************************/
 package org.jbox2d.dynamics;
 
-import org.jbox2d.collision.broadphase.BroadPhase;
+import org.jbox2d.collision.broadphase.IBroadPhase;
 import org.jbox2d.collision.shapes.MassData;
 import org.jbox2d.collision.shapes.Shape;
 import org.jbox2d.common.Mat22;
@@ -195,7 +195,7 @@ public class Body {
 		fixture.create(this, def);
 		
 		if ((m_flags & e_activeFlag) == e_activeFlag) {
-			BroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
+			IBroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
 			fixture.createProxy(broadPhase, m_xf);
 		}
 		
@@ -303,7 +303,7 @@ public class Body {
 		
 		if ((m_flags & e_activeFlag) == e_activeFlag) {
 			assert (fixture.m_proxy != null);
-			BroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
+			IBroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
 			fixture.destroyProxy(broadPhase);
 		}
 		else {
@@ -346,7 +346,7 @@ public class Body {
 		
 		m_sweep.a0 = m_sweep.a = angle;
 		
-		BroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
+		IBroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
 		for (Fixture f = m_fixtureList; f != null; f = f.m_next) {
 			f.synchronize(broadPhase, m_xf, m_xf);
 		}
@@ -981,7 +981,7 @@ public class Body {
 			m_flags |= e_activeFlag;
 			
 			// Create all proxies.
-			BroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
+			IBroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
 			for (Fixture f = m_fixtureList; f != null; f = f.m_next) {
 				f.createProxy(broadPhase, m_xf);
 			}
@@ -992,7 +992,7 @@ public class Body {
 			m_flags &= ~e_activeFlag;
 			
 			// Destroy all proxies.
-			BroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
+			IBroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
 			for (Fixture f = m_fixtureList; f != null; f = f.m_next) {
 				f.destroyProxy(broadPhase);
 			}
@@ -1097,7 +1097,7 @@ public class Body {
 		Mat22.mulToOut(xf1.R, m_sweep.localCenter, xf1.position);
 		xf1.position.mulLocal(-1).addLocal(m_sweep.c0);
 		
-		BroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
+		IBroadPhase broadPhase = m_world.m_contactManager.m_broadPhase;
 		for (Fixture f = m_fixtureList; f != null; f = f.m_next) {
 			f.synchronize(broadPhase, xf1, m_xf);
 		}
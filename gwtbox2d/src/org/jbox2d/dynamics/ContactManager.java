@@ -30,6 +30,7 @@ import org.jbox2d.callbacks.ContactFilter;
 import org.jbox2d.callbacks.ContactListener;
 import org.jbox2d.callbacks.PairCallback;
 import org.jbox2d.collision.broadphase.BroadPhase;
+import org.jbox2d.collision.broadphase.IBroadPhase;
 import org.jbox2d.collision.broadphase.DynamicTreeNode;
 import org.jbox2d.dynamics.contacts.Contact;
 import org.jbox2d.dynamics.contacts.ContactEdge;
@@ -42,14 +43,18 @@ import org.jbox2d.dynamics.contacts.ContactEdge;
  */
 public class ContactManager implements PairCallback {
 	
-	public BroadPhase m_broadPhase;
+	public IBroadPhase m_broadPhase;
 	public Contact m_contactList;
 	public int m_contactCount;
 	public ContactFilter m_contactFilter;
 	public ContactListener m_contactListener;
+	public ContactUpdater m_contactUpdater;
 	
 	private final World pool;
 	
+	// the contacts to be updated by m_contactUpdater
+	private Contact[] m_updateBuffer = new Contact[0];
+	
 	public ContactManager(World argPool) {
 		m_contactList = null;
 		m_contactCount = 0;
@@ -215,6 +220,11 @@ public class ContactManager implements PairCallback {
 	 * contact list.
 	 */
 	public void collide() {
+		if (m_contactUpdater != null && m_updateBuffer.length < m_contactCount) {
+			m_updateBuffer = new Contact[m_contactCount * 2];
+		}
+		int updateCount = 0;
+		
 		// Update awake contacts.
 		Contact c = m_contactList;
 		while (c != null) {
@@ -263,8 +273,20 @@ public class ContactManager implements PairCallback {
 			}
 			
 			// The contact persists.
-			c.update(m_contactListener);
+			if (m_contactUpdater != null) {
+				m_updateBuffer[updateCount++] = c;
+			} else {
+				c.update(m_contactListener);
+			}
 			c = c.getNext();
 		}
+		
+		if (updateCount > 0) {
+			// compute the manifolds en masse, then wake and report in contact list order
+			m_contactUpdater.updateManifolds(m_updateBuffer, updateCount);
+			for (int i = 0; i < updateCount; i++) {
+				m_updateBuffer[i].reportUpdate(m_contactListener);
+			}
+		}
 	}
 }
@@ -29,7 +29,7 @@ package org.jbox2d.dynamics;
 import org.jbox2d.collision.AABB;
 import org.jbox2d.collision.RayCastInput;
 import org.jbox2d.collision.RayCastOutput;
-import org.jbox2d.collision.broadphase.BroadPhase;
+import org.jbox2d.collision.broadphase.IBroadPhase;
 import org.jbox2d.collision.broadphase.DynamicTreeNode;
 import org.jbox2d.collision.shapes.MassData;
 import org.jbox2d.collision.shapes.Shape;
@@ -297,7 +297,7 @@ public class Fixture {
 	}
 	
 	// These support body activation/deactivation.
-	public void createProxy(BroadPhase broadPhase, final Transform xf){
+	public void createProxy(IBroadPhase broadPhase, final Transform xf){
 		assert(m_proxy == null);
 		
 		// Create proxy in the broad-phase.
@@ -309,7 +309,7 @@ public class Fixture {
 	 * Internal method
 	 * @param broadPhase
 	 */
-	public void destroyProxy(BroadPhase broadPhase){
+	public void destroyProxy(IBroadPhase broadPhase){
 		if(m_proxy == null){
 			return;
 		}
@@ -327,7 +327,7 @@ public class Fixture {
 	 * @param xf1
 	 * @param xf2
 	 */
-	protected void synchronize(BroadPhase broadPhase, final Transform transform1, final Transform transform2){
+	protected void synchronize(IBroadPhase broadPhase, final Transform transform1, final Transform transform2){
 		if(m_proxy == null){
 			return;
 		}
@@ -425,6 +425,14 @@ public class Island {
 	
 	private final ContactImpulse impulse = new ContactImpulse();
 	
+	/**
+	 * Reports the impulses applied by the most recent {@link #solve} to the listener. Used when the
+	 * island was solved without a listener, so that reports can be made later (and in order).
+	 */
+	public void report(){
+		report(contactSolver.m_constraints);
+	}
+	
 	public void report(ContactConstraint[] constraints){
 		if (m_listener == null){
 			return;
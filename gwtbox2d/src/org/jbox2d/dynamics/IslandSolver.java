@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.dynamics;
+
+import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.common.Vec2;
+
+/**
+ * Solves the islands found by {@link World#step} in some other manner than one after another, as
+ * they are found (see {@link World#setIslandSolver}). The world hands each island to
+ * {@link #add} as soon as it has been built, and then calls {@link #solve} once all islands have
+ * been found, before it synchronizes the bodies' fixtures.
+ * 
+ * <p>The island passed to {@link #add} is reused for the next island, so it must be copied. The
+ * islands never share a dynamic or kinematic body, contact or joint, but static bodies may appear
+ * in many islands.</p>
+ */
+public interface IslandSolver {
+
+	/**
+	 * Adds an island to those to be solved in the current step.
+	 */
+	public void add(Island island);
+	
+	/**
+	 * Solves all of the islands added since the last call, and then reports their contact impulses
+	 * to {@code listener} (if it is not null) in the order in which the islands were added.
+	 */
+	public void solve(TimeStep step, Vec2 gravity, boolean allowSleep, ContactListener listener);
+}
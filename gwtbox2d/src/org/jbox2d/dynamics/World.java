@@ -41,6 +41,7 @@ import org.jbox2d.collision.TimeOfImpact.TOIInput;
 import org.jbox2d.collision.TimeOfImpact.TOIOutput;
 import org.jbox2d.collision.TimeOfImpact.TOIOutputState;
 import org.jbox2d.collision.broadphase.BroadPhase;
+import org.jbox2d.collision.broadphase.IBroadPhase;
 import org.jbox2d.collision.broadphase.DynamicTreeNode;
 import org.jbox2d.collision.shapes.CircleShape;
 import org.jbox2d.collision.shapes.PolygonShape;
@@ -48,6 +49,7 @@ import org.jbox2d.collision.shapes.ShapeType;
 import org.jbox2d.common.Color3f;
 import org.jbox2d.common.Settings;
 import org.jbox2d.common.Sweep;
+import org.jbox2d.common.Timer;
 import org.jbox2d.common.Transform;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.contacts.Contact;
@@ -103,6 +105,8 @@ public class World {
 	
 	private final IWorldPool pool;
 	
+	private IslandSolver m_islandSolver;
+	
 	/**
 	 * This is used to compute the time step ratio to
 	 * support a variable time step.
@@ -516,6 +520,11 @@ public class World {
 	// djm pooling
 	private final TimeStep step = new TimeStep();
 	
+	private final Profile m_profile = new Profile();
+	private final Timer stepTimer = new Timer();
+	private final Timer timer = new Timer();
+	private final Timer broadphaseTimer = new Timer();
+	
 	/**
 	 * Take a time step. This performs collision detection, integration,
 	 * and constraint solution.
@@ -528,11 +537,15 @@ public class World {
 	 *            for the position constraint solver.
 	 */
 	public void step(float dt, int velocityIterations, int positionIterations) {
+		stepTimer.reset();
+		m_profile.setZero();
 		// log.debug("Starting step");
 		// If new fixtures were added, we need to find the new contacts.
 		if ((m_flags & NEW_FIXTURE) == NEW_FIXTURE) {
 			// log.debug("There's a new fixture, lets look for new contacts");
+			timer.reset();
 			m_contactManager.findNewContacts();
+			m_profile.broadphase += timer.getMilliseconds();
 			m_flags &= ~NEW_FIXTURE;
 		}
 		
@@ -553,16 +566,24 @@ public class World {
 		step.warmStarting = m_warmStarting;
 		
 		// Update contacts. This is where some contacts are destroyed.
+		timer.reset();
 		m_contactManager.collide();
+		m_profile.collide = timer.getMilliseconds();
 		
 		// Integrate velocities, solve velocity constraints, and integrate positions.
 		if (step.dt > 0.0f) {
+			// solve() adds the time spent updating the broad-phase to the profile itself
+			float broadphase = m_profile.broadphase;
+			timer.reset();
 			solve(step);
+			m_profile.solve = timer.getMilliseconds() - (m_profile.broadphase - broadphase);
 		}
 		
 		// Handle TOI events.
 		if (m_continuousPhysics && step.dt > 0.0f) {
+			timer.reset();
 			solveTOI();
+			m_profile.solveTOI = timer.getMilliseconds();
 		}
 		
 		if (step.dt > 0.0f) {
@@ -574,9 +595,94 @@ public class World {
 		}
 		
 		m_flags &= ~LOCKED;
+		m_profile.step = stepTimer.getMilliseconds();
 		// log.debug("ending step");
 	}
 	
+	/**
+	 * Returns the time spent in each phase of the most recent step.
+	 */
+	public Profile getProfile() {
+		return m_profile;
+	}
+	
+	/**
+	 * Configures the solver to which islands are handed once they are found, or null to solve each
+	 * island as soon as it is found (the default). A solver that solves islands concurrently may
+	 * require a particular kind of pool, see its documentation.
+	 * 
+	 * @param solver
+	 */
+	public void setIslandSolver(IslandSolver solver) {
+		m_islandSolver = solver;
+	}
+	
+	/**
+	 * Get the island solver, or null if islands are solved as they are found.
+	 * 
+	 * @return
+	 */
+	public IslandSolver getIslandSolver() {
+		return m_islandSolver;
+	}
+	
+	/**
+	 * Configures the updater that computes the manifolds of the contacts that persist into each
+	 * step, or null to update each contact in turn (the default). With an updater, all manifolds are
+	 * computed before any bodies are woken by contacts that begin or cease touching, so a contact
+	 * between two sleeping bodies is not updated until the step after one of them is woken by
+	 * another contact. The contact listener is still notified in contact list order.
+	 * 
+	 * @param updater
+	 */
+	public void setContactUpdater(ContactUpdater updater) {
+		m_contactManager.m_contactUpdater = updater;
+	}
+	
+	/**
+	 * Get the contact updater, or null if contacts are updated in turn.
+	 * 
+	 * @return
+	 */
+	public ContactUpdater getContactUpdater() {
+		return m_contactManager.m_contactUpdater;
+	}
+	
+	/**
+	 * Configures the broad-phase that finds the pairs of fixtures whose bounding boxes overlap,
+	 * which is a {@link BroadPhase} by default. The proxies of the existing fixtures are moved into
+	 * the new broad-phase, so this may be called once bodies have been created, but not during a
+	 * time step.
+	 * 
+	 * @param broadPhase
+	 */
+	public void setBroadPhase(IBroadPhase broadPhase) {
+		assert (isLocked() == false);
+		if (isLocked()) {
+			return;
+		}
+		
+		IBroadPhase old = m_contactManager.m_broadPhase;
+		m_contactManager.m_broadPhase = broadPhase;
+		for (Body b = m_bodyList; b != null; b = b.m_next) {
+			for (Fixture f = b.m_fixtureList; f != null; f = f.m_next) {
+				if (f.m_proxy != null) {
+					f.destroyProxy(old);
+					f.createProxy(broadPhase, b.m_xf);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the broad-phase that finds the pairs of fixtures whose bounding boxes overlap.
+	 * 
+	 * @return
+	 */
+	public IBroadPhase getBroadPhase() {
+		return m_contactManager.m_broadPhase;
+	}
+	
 	/**
 	 * Call this after you are done with time steps to clear the forces. You normally
 	 * call this after each call to Step, unless you are performing sub-steps. By default,
@@ -986,7 +1092,11 @@ public class World {
 				}
 			}
 			
-			island.solve(step, m_gravity, m_allowSleep);
+			if (m_islandSolver != null) {
+				m_islandSolver.add(island);
+			} else {
+				island.solve(step, m_gravity, m_allowSleep);
+			}
 			
 			// Post solve cleanup.
 			for (int i = 0; i < island.m_bodyCount; ++i) {
@@ -998,7 +1108,12 @@ public class World {
 			}
 		}
 		
+		if (m_islandSolver != null) {
+			m_islandSolver.solve(step, m_gravity, m_allowSleep, m_contactManager.m_contactListener);
+		}
+		
 		// Synchronize fixtures, check for out of range bodies.
+		broadphaseTimer.reset();
 		for (Body b = m_bodyList; b != null; b = b.getNext()) {
 			// If a body was not in an island then it did not move.
 			if ((b.m_flags & Body.e_islandFlag) == 0) {
@@ -1015,6 +1130,7 @@ public class World {
 		
 		// Look for new contacts.
 		m_contactManager.findNewContacts();
+		m_profile.broadphase += broadphaseTimer.getMilliseconds();
 	}
 	
 	private void solveTOI() {
@@ -1358,7 +1474,7 @@ class WorldQueryWrapper implements TreeCallback {
 		return callback.reportFixture(fixture);
 	}
 	
-	BroadPhase broadPhase;
+	IBroadPhase broadPhase;
 	QueryCallback callback;
 }
 
@@ -1385,6 +1501,6 @@ class WorldRayCastWrapper implements TreeRayCastCallback {
 		return input.maxFraction;
 	}
 	
-	BroadPhase broadPhase;
+	IBroadPhase broadPhase;
 	RayCastCallback callback;
 }
@@ -37,7 +37,6 @@ import org.jbox2d.common.Transform;
 import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.Fixture;
 import org.jbox2d.pooling.IWorldPool;
-import org.jbox2d.pooling.TLManifold;
 
 // updated to rev 100
 /**
@@ -78,6 +77,10 @@ public abstract class Contact {
 
 	public float m_toiCount;
 	
+	// the manifold as it was before the last call to updateManifold, and whether we were touching
+	private final Manifold m_oldManifold;
+	private boolean m_wasTouching;
+	
 	protected final IWorldPool pool;
 
 	protected Contact(IWorldPool argPool) {
@@ -86,6 +89,7 @@ public abstract class Contact {
 		m_nodeA = new ContactEdge();
 		m_nodeB = new ContactEdge();
 		m_manifold = new Manifold();
+		m_oldManifold = new Manifold();
 		pool = argPool;
 	}
 
@@ -205,12 +209,19 @@ public abstract class Contact {
 		m_flags |= FILTER_FLAG;
 	}
 
-	// djm pooling
-	private static final TLManifold tloldManifold = new TLManifold();
-
 	public void update(ContactListener listener) {
+		updateManifold();
+		reportUpdate(listener);
+	}
+	
+	/**
+	 * Computes this contact's manifold, and whether it is touching. This changes nothing but the
+	 * contact itself, so different contacts may be updated concurrently (if the world's pool allows
+	 * it). {@link #reportUpdate} must then be called to complete the update.
+	 */
+	public void updateManifold() {
 
-		Manifold oldManifold = tloldManifold.get();
+		Manifold oldManifold = m_oldManifold;
 		oldManifold.set(m_manifold);
 
 		// Re-enable this contact.
@@ -260,11 +271,6 @@ public abstract class Contact {
 					}
 				}
 			}
-
-			if (touching != wasTouching) {
-				bodyA.setAwake(true);
-				bodyB.setAwake(true);
-			}
 		}
 
 		if (touching) {
@@ -272,6 +278,22 @@ public abstract class Contact {
 		} else {
 			m_flags &= ~TOUCHING_FLAG;
 		}
+		m_wasTouching = wasTouching;
+	}
+	
+	/**
+	 * Completes the update begun by {@link #updateManifold}: wakes the bodies if the contact began
+	 * or ceased touching, and notifies the listener.
+	 */
+	public void reportUpdate(ContactListener listener) {
+		boolean touching = isTouching();
+		boolean wasTouching = m_wasTouching;
+		boolean sensor = m_fixtureA.isSensor() || m_fixtureB.isSensor();
+
+		if (sensor == false && touching != wasTouching) {
+			m_fixtureA.getBody().setAwake(true);
+			m_fixtureB.getBody().setAwake(true);
+		}
 
 		if (listener == null) {
 			return;
@@ -286,7 +308,7 @@ public abstract class Contact {
 		}
 
 		if (sensor == false && touching) {
-			listener.preSolve(this, oldManifold);
+			listener.preSolve(this, m_oldManifold);
 		}
 	}
 
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.parallel;
+
+import java.util.concurrent.ExecutorService;
+
+import org.jbox2d.dynamics.ContactUpdater;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.contacts.Contact;
+
+/**
+ * Computes a world's contact manifolds (the narrow-phase) concurrently, using the threads of an
+ * executor:
+ * 
+ * <pre>
+ * World world = new World(gravity, true, new ThreadLocalWorldPool(100, 10));
+ * world.setContactUpdater(new ParallelContactUpdater(world, executor));
+ * </pre>
+ * 
+ * The contacts are divided into contiguous runs of equal size, one per thread (but no more runs
+ * than there are {@link #MIN_CONTACTS_PER_THREAD} contacts), and the calling thread updates the
+ * first run itself. Each manifold depends only on its own contact, and bodies are woken and the
+ * contact listener notified afterwards, in order, on the calling thread, so the results do not
+ * depend on the number of threads.
+ * 
+ * <p>Contacts obtain their collision routines from the world's pool, so the world must use a
+ * {@link ThreadLocalWorldPool}.</p>
+ */
+public class ParallelContactUpdater implements ContactUpdater {
+	
+	/** The fewest contacts worth handing to another thread. */
+	public static final int MIN_CONTACTS_PER_THREAD = 32;
+	
+	private final TaskRunner runner;
+	private final Chunk[] chunks;
+	
+	/**
+	 * Creates an updater for {@code world} that uses as many threads as there are processors.
+	 */
+	public ParallelContactUpdater(World world, ExecutorService executor) {
+		this(world, executor, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates an updater for {@code world} that divides the contacts among {@code threads} threads:
+	 * the calling thread, and {@code threads-1} threads of {@code executor}.
+	 */
+	public ParallelContactUpdater(World world, ExecutorService executor, int threads) {
+		if (!(world.getPool() instanceof ThreadLocalWorldPool)) {
+			throw new IllegalArgumentException("World must use a ThreadLocalWorldPool");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be positive: " + threads);
+		}
+		runner = new TaskRunner(executor);
+		chunks = new Chunk[threads];
+		for (int i = 0; i < threads; i++) {
+			chunks[i] = new Chunk();
+		}
+	}
+	
+	public void updateManifolds(Contact[] contacts, int count) {
+		int chunkCount = Math.min(chunks.length,
+				(count + MIN_CONTACTS_PER_THREAD - 1) / MIN_CONTACTS_PER_THREAD);
+		for (int i = 0; i < chunkCount; i++) {
+			Chunk chunk = chunks[i];
+			chunk.contacts = contacts;
+			chunk.start = (int) ((long) count * i / chunkCount);
+			chunk.end = (int) ((long) count * (i + 1) / chunkCount);
+		}
+		try {
+			runner.run(chunks, chunkCount);
+		} finally {
+			for (int i = 0; i < chunkCount; i++) {
+				chunks[i].contacts = null;
+			}
+		}
+	}
+	
+	private static class Chunk implements Runnable {
+		Contact[] contacts;
+		int start, end;
+		
+		public void run() {
+			for (int i = start; i < end; i++) {
+				contacts[i].updateManifold();
+			}
+		}
+	}
+}
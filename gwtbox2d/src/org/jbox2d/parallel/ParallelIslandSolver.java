@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.parallel;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+
+import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Island;
+import org.jbox2d.dynamics.IslandSolver;
+import org.jbox2d.dynamics.TimeStep;
+import org.jbox2d.dynamics.World;
+
+/**
+ * Solves a world's islands concurrently, using the threads of an executor:
+ * 
+ * <pre>
+ * World world = new World(gravity, true, new ThreadLocalWorldPool(100, 10));
+ * world.setIslandSolver(new ParallelIslandSolver(world, executor));
+ * </pre>
+ * 
+ * Each step's islands are divided into contiguous runs of roughly equal size (by the number of
+ * bodies, contacts and joints they contain), one per thread, and the calling thread solves the
+ * first run itself. Islands share nothing but static bodies, whose motion solving does not change
+ * (an island that falls asleep only clears their awake flag), and each island is solved exactly as
+ * it would be serially, so the results do not depend on the number of threads. Contact impulses
+ * are reported to the contact listener on the calling thread, once all islands are solved, in the
+ * order in which the islands were found.
+ * 
+ * <p>Joints and contacts obtain temporary objects from the world's pool while they are solved,
+ * so the world must use a {@link ThreadLocalWorldPool}.</p>
+ */
+public class ParallelIslandSolver implements IslandSolver {
+	
+	private final TaskRunner runner;
+	private final Chunk[] chunks;
+	
+	// islands are copied into these, which are reused from step to step
+	private final ArrayList<Island> islands = new ArrayList<Island>();
+	private int islandCount;
+	private int totalWork;
+	
+	/**
+	 * Creates a solver for {@code world} that uses as many threads as there are processors.
+	 */
+	public ParallelIslandSolver(World world, ExecutorService executor) {
+		this(world, executor, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a solver for {@code world} that divides each step's islands among {@code threads}
+	 * threads: the calling thread, and {@code threads-1} threads of {@code executor}.
+	 */
+	public ParallelIslandSolver(World world, ExecutorService executor, int threads) {
+		if (!(world.getPool() instanceof ThreadLocalWorldPool)) {
+			throw new IllegalArgumentException("World must use a ThreadLocalWorldPool");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be positive: " + threads);
+		}
+		runner = new TaskRunner(executor);
+		chunks = new Chunk[threads];
+		for (int i = 0; i < threads; i++) {
+			chunks[i] = new Chunk();
+		}
+	}
+	
+	public void add(Island island) {
+		Island copy;
+		if (islandCount < islands.size()) {
+			copy = islands.get(islandCount);
+		} else {
+			copy = new Island();
+			islands.add(copy);
+		}
+		islandCount++;
+		
+		// impulses are reported once all islands are solved, see solve()
+		copy.init(island.m_bodyCount, island.m_contactCount, island.m_jointCount, null);
+		for (int i = 0; i < island.m_bodyCount; i++) {
+			copy.add(island.m_bodies[i]);
+		}
+		for (int i = 0; i < island.m_contactCount; i++) {
+			copy.add(island.m_contacts[i]);
+		}
+		for (int i = 0; i < island.m_jointCount; i++) {
+			copy.add(island.m_joints[i]);
+		}
+		totalWork += work(copy);
+	}
+	
+	public void solve(TimeStep step, Vec2 gravity, boolean allowSleep, ContactListener listener) {
+		try {
+			int chunkCount = partition();
+			for (int i = 0; i < chunkCount; i++) {
+				chunks[i].step = step;
+				chunks[i].gravity = gravity;
+				chunks[i].allowSleep = allowSleep;
+			}
+			runner.run(chunks, chunkCount);
+			
+			if (listener != null) {
+				for (int i = 0; i < islandCount; i++) {
+					Island island = islands.get(i);
+					island.m_listener = listener;
+					island.report();
+					island.m_listener = null;
+				}
+			}
+		} finally {
+			islandCount = 0;
+			totalWork = 0;
+		}
+	}
+	
+	/**
+	 * Divides the islands into contiguous runs of roughly equal work, and returns the number of
+	 * (non-empty) runs.
+	 */
+	private int partition() {
+		int chunkCount = 0, start = 0, work = 0;
+		for (int i = 0; i < islandCount; i++) {
+			work += work(islands.get(i));
+			// end this run once it reaches its share of the total work (the last run takes the rest)
+			boolean last = (chunkCount == chunks.length - 1);
+			if (i == islandCount - 1 ||
+					(!last && (long) work * chunks.length >= (long) totalWork * (chunkCount + 1))) {
+				chunks[chunkCount].start = start;
+				chunks[chunkCount].end = i + 1;
+				chunkCount++;
+				start = i + 1;
+			}
+		}
+		return chunkCount;
+	}
+	
+	private static int work(Island island) {
+		return island.m_bodyCount + island.m_contactCount + island.m_jointCount;
+	}
+	
+	private class Chunk implements Runnable {
+		int start, end;
+		TimeStep step;
+		Vec2 gravity;
+		boolean allowSleep;
+		
+		public void run() {
+			for (int i = start; i < end; i++) {
+				islands.get(i).solve(step, gravity, allowSleep);
+			}
+		}
+	}
+}
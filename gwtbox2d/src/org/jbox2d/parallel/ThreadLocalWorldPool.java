@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.parallel;
+
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.Collision;
+import org.jbox2d.collision.Distance;
+import org.jbox2d.collision.TimeOfImpact;
+import org.jbox2d.common.Mat22;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.common.Vec3;
+import org.jbox2d.dynamics.contacts.CircleContact;
+import org.jbox2d.dynamics.contacts.Contact;
+import org.jbox2d.dynamics.contacts.PolygonAndCircleContact;
+import org.jbox2d.dynamics.contacts.PolygonContact;
+import org.jbox2d.pooling.CircleContactStack;
+import org.jbox2d.pooling.IDynamicStack;
+import org.jbox2d.pooling.IOrderedStack;
+import org.jbox2d.pooling.IWorldPool;
+import org.jbox2d.pooling.MutableStack;
+import org.jbox2d.pooling.PolygonAndCircleContactStack;
+import org.jbox2d.pooling.PolygonContactStack;
+import org.jbox2d.pooling.WorldPool;
+
+/**
+ * A pool that gives each thread its own {@link WorldPool}, so that a world may be stepped with
+ * more than one thread, as is required by {@link ParallelIslandSolver}. The contact stacks are
+ * shared by all threads, as contacts are only created and destroyed by the thread that steps the
+ * world; the contacts they create use this pool, and so use the pool of the thread that updates
+ * them.
+ */
+public class ThreadLocalWorldPool implements IWorldPool {
+	
+	private final ThreadLocal<WorldPool> pools;
+	
+	private final MutableStack<Contact, PolygonContact> pcstack = new PolygonContactStack(this);
+	
+	private final MutableStack<Contact, CircleContact> ccstack = new CircleContactStack(this);
+	
+	private final MutableStack<Contact, PolygonAndCircleContact> cpstack = new PolygonAndCircleContactStack(this);
+	
+	/**
+	 * Creates a pool whose per-thread pools are created with the specified sizes (see
+	 * {@link WorldPool#WorldPool(int, int)}).
+	 */
+	public ThreadLocalWorldPool(final int argSize, final int argContainerSize) {
+		pools = new ThreadLocal<WorldPool>() {
+			@Override
+			protected WorldPool initialValue() {
+				return new WorldPool(argSize, argContainerSize);
+			}
+		};
+	}
+	
+	/**
+	 * Returns the calling thread's pool.
+	 */
+	public WorldPool get() {
+		return pools.get();
+	}
+	
+	public final IDynamicStack<Contact> getPolyContactStack() {
+		return pcstack;
+	}
+	
+	public final IDynamicStack<Contact> getCircleContactStack() {
+		return ccstack;
+	}
+	
+	public final IDynamicStack<Contact> getPolyCircleContactStack() {
+		return cpstack;
+	}
+	
+	public final IOrderedStack<Vec2> getVec2Stack() {
+		return pools.get().getVec2Stack();
+	}
+	
+	public final Vec2 popVec2() {
+		return pools.get().popVec2();
+	}
+	
+	public final Vec2[] popVec2(int argNum) {
+		return pools.get().popVec2(argNum);
+	}
+	
+	public final void pushVec2(int argNum) {
+		pools.get().pushVec2(argNum);
+	}
+	
+	public final IOrderedStack<Vec3> getVec3Stack() {
+		return pools.get().getVec3Stack();
+	}
+	
+	public final Vec3 popVec3() {
+		return pools.get().popVec3();
+	}
+	
+	public final Vec3[] popVec3(int argNum) {
+		return pools.get().popVec3(argNum);
+	}
+	
+	public final void pushVec3(int argNum) {
+		pools.get().pushVec3(argNum);
+	}
+	
+	public final IOrderedStack<Mat22> getMat22Stack() {
+		return pools.get().getMat22Stack();
+	}
+	
+	public final Mat22 popMat22() {
+		return pools.get().popMat22();
+	}
+	
+	public final Mat22[] popMat22(int argNum) {
+		return pools.get().popMat22(argNum);
+	}
+	
+	public final void pushMat22(int argNum) {
+		pools.get().pushMat22(argNum);
+	}
+	
+	public final IOrderedStack<AABB> getAABBStack() {
+		return pools.get().getAABBStack();
+	}
+	
+	public final AABB popAABB() {
+		return pools.get().popAABB();
+	}
+	
+	public final AABB[] popAABB(int argNum) {
+		return pools.get().popAABB(argNum);
+	}
+	
+	public final void pushAABB(int argNum) {
+		pools.get().pushAABB(argNum);
+	}
+	
+	public final Collision getCollision() {
+		return pools.get().getCollision();
+	}
+	
+	public final TimeOfImpact getTimeOfImpact() {
+		return pools.get().getTimeOfImpact();
+	}
+	
+	public final Distance getDistance() {
+		return pools.get().getDistance();
+	}
+	
+	public final float[] getFloatArray(int argLength) {
+		return pools.get().getFloatArray(argLength);
+	}
+	
+	public final int[] getIntArray(int argLength) {
+		return pools.get().getIntArray(argLength);
+	}
+	
+	public final Vec2[] getVec2Array(int argLength) {
+		return pools.get().getVec2Array(argLength);
+	}
+}
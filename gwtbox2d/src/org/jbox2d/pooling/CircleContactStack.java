@@ -6,9 +6,9 @@ import org.jbox2d.dynamics.contacts.Contact;
 
 public class CircleContactStack extends MutableStack<Contact, CircleContact> {
   
-  private final WorldPool pool;
+  private final IWorldPool pool;
 
-  public CircleContactStack(WorldPool argPool){
+  public CircleContactStack(IWorldPool argPool){
     super();
     pool = argPool;
     initStack(Settings.CONTACT_STACK_INIT_SIZE);
@@ -6,9 +6,9 @@ import org.jbox2d.dynamics.contacts.PolygonAndCircleContact;
 
 public class PolygonAndCircleContactStack extends MutableStack<Contact, PolygonAndCircleContact> {
   
-  private final WorldPool pool;
+  private final IWorldPool pool;
 
-  public PolygonAndCircleContactStack(WorldPool argPool){
+  public PolygonAndCircleContactStack(IWorldPool argPool){
     super();
     pool = argPool;
     initStack(Settings.CONTACT_STACK_INIT_SIZE);
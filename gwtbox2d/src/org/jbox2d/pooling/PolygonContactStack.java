@@ -6,9 +6,9 @@ import org.jbox2d.dynamics.contacts.PolygonContact;
 
 public class PolygonContactStack extends MutableStack<Contact, PolygonContact> {
   
-  private final WorldPool pool;
+  private final IWorldPool pool;
 
-  public PolygonContactStack(WorldPool argPool){
+  public PolygonContactStack(IWorldPool argPool){
     super();
     pool = argPool;
     initStack(Settings.CONTACT_STACK_INIT_SIZE);
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jbox2d.callbacks.PairCallback;
+import org.jbox2d.callbacks.TreeCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.common.Vec2;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ArrayBroadPhase} by checking the pairs it reports against brute-force tests of
+ * every pair of proxies.
+ */
+public class ArrayBroadPhaseTest {
+
+	@Test public void testPairsMatchBruteForce() {
+		Random rando = new Random(42);
+		ArrayBroadPhase broadPhase = new ArrayBroadPhase();
+		List<DynamicTreeNode> proxies = new ArrayList<DynamicTreeNode>();
+		for (int ii = 0; ii < 300; ii++) {
+			proxies.add(broadPhase.createProxy(randomAABB(rando), ii));
+		}
+		assertEquals(proxies.size(), broadPhase.getProxyCount());
+
+		// the first update reports every overlapping pair, once
+		Set<String> pairs = updatePairs(broadPhase);
+		assertEquals(overlappingPairs(broadPhase, proxies), pairs);
+
+		// thereafter, every pair that overlaps must have been reported at some point, as a world
+		// relies on that to create the contacts it then tracks
+		for (int iter = 0; iter < 30; iter++) {
+			for (DynamicTreeNode proxy : proxies) {
+				if (rando.nextInt(4) == 0) {
+					Vec2 displacement = new Vec2((rando.nextFloat() - 0.5f) * 2,
+					                             (rando.nextFloat() - 0.5f) * 2);
+					AABB aabb = new AABB(proxy.aabb);
+					aabb.lowerBound.addLocal(displacement);
+					aabb.upperBound.addLocal(displacement);
+					broadPhase.moveProxy(proxy, aabb, displacement);
+				}
+			}
+			for (int ii = 0; ii < 5; ii++) {
+				DynamicTreeNode proxy = proxies.remove(rando.nextInt(proxies.size()));
+				broadPhase.moveProxy(proxy, randomAABB(rando), new Vec2());
+				broadPhase.destroyProxy(proxy);
+				proxies.add(broadPhase.createProxy(randomAABB(rando), 1000 + iter * 5 + ii));
+			}
+			pairs.addAll(updatePairs(broadPhase));
+			Set<String> expected = overlappingPairs(broadPhase, proxies);
+			expected.removeAll(pairs);
+			assertTrue("Unreported pairs " + expected, expected.isEmpty());
+		}
+		assertEquals(proxies.size(), broadPhase.getProxyCount());
+	}
+
+	@Test public void testQueryMatchesBruteForce() {
+		Random rando = new Random(11);
+		ArrayBroadPhase broadPhase = new ArrayBroadPhase();
+		List<DynamicTreeNode> proxies = new ArrayList<DynamicTreeNode>();
+		for (int ii = 0; ii < 300; ii++) {
+			proxies.add(broadPhase.createProxy(randomAABB(rando), ii));
+		}
+
+		final Set<DynamicTreeNode> found = new HashSet<DynamicTreeNode>();
+		TreeCallback callback = new TreeCallback() {
+			public boolean treeCallback(DynamicTreeNode proxy) {
+				assertTrue(found.add(proxy));
+				return true;
+			}
+		};
+		for (int query = 0; query < 50; query++) {
+			AABB aabb = randomAABB(rando);
+			found.clear();
+			broadPhase.query(callback, aabb);
+			Set<DynamicTreeNode> expected = new HashSet<DynamicTreeNode>();
+			for (DynamicTreeNode proxy : proxies) {
+				if (AABB.testOverlap(proxy.aabb, aabb)) expected.add(proxy);
+			}
+			assertEquals(expected, found);
+		}
+	}
+
+	protected static Set<String> updatePairs(IBroadPhase broadPhase) {
+		final Set<String> pairs = new HashSet<String>();
+		broadPhase.updatePairs(new PairCallback() {
+			public void addPair(Object userDataA, Object userDataB) {
+				assertTrue("Reported twice: " + userDataA + "/" + userDataB,
+				           pairs.add(pairKey(userDataA, userDataB)));
+			}
+		});
+		return pairs;
+	}
+
+	protected static Set<String> overlappingPairs(IBroadPhase broadPhase,
+	                                              List<DynamicTreeNode> proxies) {
+		Set<String> pairs = new HashSet<String>();
+		for (int ii = 0; ii < proxies.size(); ii++) {
+			for (int jj = ii + 1; jj < proxies.size(); jj++) {
+				DynamicTreeNode a = proxies.get(ii), b = proxies.get(jj);
+				if (broadPhase.testOverlap(a, b)) {
+					assertTrue(AABB.testOverlap(a.aabb, b.aabb));
+					pairs.add(pairKey(a.userData, b.userData));
+				}
+			}
+		}
+		return pairs;
+	}
+
+	protected static String pairKey(Object userDataA, Object userDataB) {
+		int a = (Integer) userDataA, b = (Integer) userDataB;
+		return Math.min(a, b) + "/" + Math.max(a, b);
+	}
+
+	protected static AABB randomAABB(Random rando) {
+		float x = (rando.nextFloat() - 0.5f) * 100, y = (rando.nextFloat() - 0.5f) * 100;
+		return new AABB(new Vec2(x, y), new Vec2(x + 0.1f + rando.nextFloat() * 3,
+		                                         y + 0.1f + rando.nextFloat() * 3));
+	}
+}
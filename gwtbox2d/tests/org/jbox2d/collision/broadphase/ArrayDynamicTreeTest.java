@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jbox2d.callbacks.ProxyTreeCallback;
+import org.jbox2d.callbacks.ProxyTreeRayCastCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.RayCastInput;
+import org.jbox2d.common.Vec2;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ArrayDynamicTree} by checking its queries and ray casts against brute-force tests
+ * of every proxy, as proxies are created, moved and destroyed.
+ */
+public class ArrayDynamicTreeTest {
+
+	@Test public void testQueryMatchesBruteForce() {
+		Random rando = new Random(42);
+		ArrayDynamicTree tree = new ArrayDynamicTree();
+		List<Integer> proxies = new ArrayList<Integer>();
+		for (int ii = 0; ii < 500; ii++) {
+			proxies.add(tree.createProxy(randomAABB(rando), "p" + ii));
+		}
+		checkQueries(tree, proxies, rando);
+
+		for (int iter = 0; iter < 20; iter++) {
+			// move some proxies a little and some a lot, then destroy and create a few
+			for (int proxy : proxies) {
+				if (rando.nextInt(3) == 0) {
+					moveProxy(tree, proxy, rando, rando.nextBoolean() ? 0.05f : 20f);
+				}
+			}
+			for (int ii = 0; ii < 10; ii++) {
+				tree.destroyProxy(proxies.remove(rando.nextInt(proxies.size())));
+			}
+			for (int ii = 0; ii < 10; ii++) {
+				proxies.add(tree.createProxy(randomAABB(rando), "q" + iter + "_" + ii));
+			}
+			checkQueries(tree, proxies, rando);
+		}
+
+		// a proxy's user data survives the tree being reorganized around it
+		assertEquals("q19_9", tree.getUserData(proxies.get(proxies.size()-1)));
+	}
+
+	@Test public void testRaycastMatchesBruteForce() {
+		Random rando = new Random(7);
+		ArrayDynamicTree tree = new ArrayDynamicTree();
+		List<Integer> proxies = new ArrayList<Integer>();
+		for (int ii = 0; ii < 300; ii++) {
+			proxies.add(tree.createProxy(randomAABB(rando), null));
+		}
+		for (int proxy : proxies) {
+			if (rando.nextBoolean()) moveProxy(tree, proxy, rando, 10f);
+		}
+
+		final Set<Integer> hits = new HashSet<Integer>();
+		ProxyTreeRayCastCallback callback = new ProxyTreeRayCastCallback() {
+			public float raycastCallback(RayCastInput input, int proxyId) {
+				assertTrue("Reported twice: " + proxyId, hits.add(proxyId));
+				return -1; // ignore the proxy, so the whole ray is cast
+			}
+		};
+		AABB fat = new AABB();
+		for (int ray = 0; ray < 100; ray++) {
+			RayCastInput input = new RayCastInput();
+			input.p1.set(randomCoord(rando), randomCoord(rando));
+			input.p2.set(randomCoord(rando), randomCoord(rando));
+			input.maxFraction = 1;
+			hits.clear();
+			tree.raycast(callback, input);
+
+			for (int proxy : proxies) {
+				tree.getFatAABB(proxy, fat);
+				// every proxy crossed by the ray must be reported, and only proxies near it may be
+				if (crosses(input.p1, input.p2, fat)) {
+					assertTrue("Missed " + proxy, hits.contains(proxy));
+				}
+				if (hits.contains(proxy)) {
+					assertTrue(overlaps(fat, Math.min(input.p1.x, input.p2.x),
+					                    Math.min(input.p1.y, input.p2.y),
+					                    Math.max(input.p1.x, input.p2.x),
+					                    Math.max(input.p1.y, input.p2.y)));
+				}
+			}
+		}
+	}
+
+	@Test public void testNestedQuery() {
+		Random rando = new Random(11);
+		final ArrayDynamicTree tree = new ArrayDynamicTree();
+		List<Integer> proxies = new ArrayList<Integer>();
+		for (int ii = 0; ii < 300; ii++) {
+			proxies.add(tree.createProxy(randomAABB(rando), null));
+		}
+
+		// querying the tree from within a query callback doesn't disturb the outer query
+		final AABB inner = randomAABB(rando);
+		final ProxyTreeCallback innerCallback = new ProxyTreeCallback() {
+			public boolean treeCallback(int proxyId) {
+				return true;
+			}
+		};
+		final Set<Integer> found = new HashSet<Integer>();
+		ProxyTreeCallback callback = new ProxyTreeCallback() {
+			public boolean treeCallback(int proxyId) {
+				assertTrue("Reported twice: " + proxyId, found.add(proxyId));
+				tree.query(innerCallback, inner);
+				return true;
+			}
+		};
+		AABB aabb = new AABB(new Vec2(-50, -50), new Vec2(50, 50));
+		tree.query(callback, aabb);
+
+		Set<Integer> expected = new HashSet<Integer>();
+		AABB fat = new AABB();
+		for (int proxy : proxies) {
+			tree.getFatAABB(proxy, fat);
+			if (overlaps(fat, aabb.lowerBound.x, aabb.lowerBound.y,
+			             aabb.upperBound.x, aabb.upperBound.y)) {
+				expected.add(proxy);
+			}
+		}
+		assertEquals(expected, found);
+	}
+
+	@Test public void testDestroyAll() {
+		Random rando = new Random(3);
+		ArrayDynamicTree tree = new ArrayDynamicTree();
+		List<Integer> proxies = new ArrayList<Integer>();
+		for (int ii = 0; ii < 100; ii++) {
+			proxies.add(tree.createProxy(randomAABB(rando), null));
+		}
+		assertEquals(199, tree.getNodeCount());
+		for (int proxy : proxies) {
+			tree.destroyProxy(proxy);
+		}
+		assertEquals(0, tree.getNodeCount());
+		assertEquals(0, tree.computeHeight());
+		checkQueries(tree, new ArrayList<Integer>(), rando);
+	}
+
+	protected void checkQueries(ArrayDynamicTree tree, List<Integer> proxies, Random rando) {
+		final Set<Integer> found = new HashSet<Integer>();
+		ProxyTreeCallback callback = new ProxyTreeCallback() {
+			public boolean treeCallback(int proxyId) {
+				assertTrue("Reported twice: " + proxyId, found.add(proxyId));
+				return true;
+			}
+		};
+		AABB fat = new AABB();
+		for (int query = 0; query < 50; query++) {
+			AABB aabb = randomAABB(rando);
+			aabb.upperBound.x += rando.nextFloat() * 20;
+			aabb.upperBound.y += rando.nextFloat() * 20;
+			found.clear();
+			tree.query(callback, aabb);
+
+			Set<Integer> expected = new HashSet<Integer>();
+			for (int proxy : proxies) {
+				tree.getFatAABB(proxy, fat);
+				if (overlaps(fat, aabb.lowerBound.x, aabb.lowerBound.y,
+				             aabb.upperBound.x, aabb.upperBound.y)) {
+					expected.add(proxy);
+				}
+			}
+			assertEquals(expected, found);
+		}
+	}
+
+	protected static void moveProxy(ArrayDynamicTree tree, int proxy, Random rando, float range) {
+		AABB aabb = new AABB();
+		tree.getFatAABB(proxy, aabb);
+		Vec2 displacement = new Vec2((rando.nextFloat() - 0.5f) * range,
+		                             (rando.nextFloat() - 0.5f) * range);
+		aabb.lowerBound.addLocal(displacement);
+		aabb.upperBound.addLocal(displacement);
+		tree.moveProxy(proxy, aabb, displacement);
+
+		// the proxy's fattened AABB always contains its AABB
+		AABB fat = new AABB();
+		tree.getFatAABB(proxy, fat);
+		assertTrue(fat.lowerBound.x <= aabb.lowerBound.x && fat.lowerBound.y <= aabb.lowerBound.y);
+		assertTrue(fat.upperBound.x >= aabb.upperBound.x && fat.upperBound.y >= aabb.upperBound.y);
+	}
+
+	protected static AABB randomAABB(Random rando) {
+		float x = randomCoord(rando), y = randomCoord(rando);
+		return new AABB(new Vec2(x, y), new Vec2(x + 0.1f + rando.nextFloat() * 3,
+		                                         y + 0.1f + rando.nextFloat() * 3));
+	}
+
+	protected static float randomCoord(Random rando) {
+		return (rando.nextFloat() - 0.5f) * 200;
+	}
+
+	protected static boolean overlaps(AABB a, float lowerX, float lowerY, float upperX,
+	                                  float upperY) {
+		return a.lowerBound.x <= upperX && lowerX <= a.upperBound.x &&
+			a.lowerBound.y <= upperY && lowerY <= a.upperBound.y;
+	}
+
+	/** Returns whether the segment from p1 to p2 passes through the interior of the AABB. */
+	protected static boolean crosses(Vec2 p1, Vec2 p2, AABB aabb) {
+		float tmin = 0, tmax = 1;
+		float[] p = { p1.x, p1.y }, d = { p2.x - p1.x, p2.y - p1.y };
+		float[] lower = { aabb.lowerBound.x, aabb.lowerBound.y };
+		float[] upper = { aabb.upperBound.x, aabb.upperBound.y };
+		for (int ii = 0; ii < 2; ii++) {
+			if (d[ii] == 0) {
+				if (p[ii] <= lower[ii] || p[ii] >= upper[ii]) return false;
+				continue;
+			}
+			float t1 = (lower[ii] - p[ii]) / d[ii], t2 = (upper[ii] - p[ii]) / d[ii];
+			tmin = Math.max(tmin, Math.min(t1, t2));
+			tmax = Math.min(tmax, Math.max(t1, t2));
+		}
+		// require a margin, so that rays that graze the AABB may go either way
+		return tmax - tmin > 1e-3f;
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2011, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the <organization> nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL DANIEL MURPHY BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.collision.broadphase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jbox2d.callbacks.TreeCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.common.Vec2;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link DynamicTree} by validating its structure, and checking its queries against
+ * brute-force tests of every proxy, as proxies are created, moved and destroyed.
+ */
+public class DynamicTreeTest {
+
+	@Test public void testRandomOperations() {
+		Random rando = new Random(42);
+		DynamicTree tree = new DynamicTree();
+		List<DynamicTreeNode> proxies = new ArrayList<DynamicTreeNode>();
+		for (int iter = 0; iter < 2000; iter++) {
+			int op = rando.nextInt(10);
+			if (op < 4 || proxies.isEmpty()) {
+				proxies.add(tree.createProxy(ArrayDynamicTreeTest.randomAABB(rando), iter));
+			}
+			else if (op < 8) {
+				// move a proxy a little or a lot
+				DynamicTreeNode proxy = proxies.get(rando.nextInt(proxies.size()));
+				moveProxy(tree, proxy, rando, rando.nextBoolean() ? 0.05f : 20f);
+			}
+			else {
+				tree.destroyProxy(proxies.remove(rando.nextInt(proxies.size())));
+			}
+			tree.validate();
+			if (iter % 50 == 0) {
+				checkQueries(tree, proxies, rando);
+			}
+		}
+		checkQueries(tree, proxies, rando);
+
+		for (DynamicTreeNode proxy : proxies) {
+			tree.destroyProxy(proxy);
+			tree.validate();
+		}
+		assertEquals(0, tree.computeHeight());
+	}
+
+	@Test public void testRowStaysBalanced() {
+		// proxies created in a row, then moved along it, are the worst case for an unbalanced tree
+		Random rando = new Random(7);
+		DynamicTree tree = new DynamicTree();
+		List<DynamicTreeNode> proxies = new ArrayList<DynamicTreeNode>();
+		int count = 1000;
+		for (int ii = 0; ii < count; ii++) {
+			proxies.add(tree.createProxy(new AABB(new Vec2(ii, 0), new Vec2(ii + 1, 1)), null));
+		}
+		for (int step = 0; step < 10; step++) {
+			for (DynamicTreeNode proxy : proxies) {
+				AABB aabb = new AABB(proxy.aabb);
+				Vec2 displacement = new Vec2(rando.nextFloat() * 2, 0);
+				aabb.lowerBound.addLocal(displacement);
+				aabb.upperBound.addLocal(displacement);
+				tree.moveProxy(proxy, aabb, displacement);
+			}
+			tree.validate();
+		}
+		checkQueries(tree, proxies, rando);
+
+		// an AVL tree of n leaves is less than 1.44 log2(n) high
+		assertTrue(tree.computeHeight() < 1.44 * Math.log(count) / Math.log(2) + 2);
+	}
+
+	protected void checkQueries(DynamicTree tree, List<DynamicTreeNode> proxies, Random rando) {
+		final Set<DynamicTreeNode> found = new HashSet<DynamicTreeNode>();
+		TreeCallback callback = new TreeCallback() {
+			public boolean treeCallback(DynamicTreeNode proxy) {
+				assertTrue("Reported twice: " + proxy.userData, found.add(proxy));
+				return true;
+			}
+		};
+		for (int query = 0; query < 20; query++) {
+			AABB aabb = ArrayDynamicTreeTest.randomAABB(rando);
+			aabb.upperBound.x += rando.nextFloat() * 20;
+			aabb.upperBound.y += rando.nextFloat() * 20;
+			found.clear();
+			tree.query(callback, aabb);
+
+			Set<DynamicTreeNode> expected = new HashSet<DynamicTreeNode>();
+			for (DynamicTreeNode proxy : proxies) {
+				if (ArrayDynamicTreeTest.overlaps(proxy.aabb, aabb.lowerBound.x, aabb.lowerBound.y,
+				                                  aabb.upperBound.x, aabb.upperBound.y)) {
+					expected.add(proxy);
+				}
+			}
+			assertEquals(expected, found);
+		}
+	}
+
+	protected static void moveProxy(DynamicTree tree, DynamicTreeNode proxy, Random rando,
+	                                float range) {
+		AABB aabb = new AABB(proxy.aabb);
+		Vec2 displacement = new Vec2((rando.nextFloat() - 0.5f) * range,
+		                             (rando.nextFloat() - 0.5f) * range);
+		aabb.lowerBound.addLocal(displacement);
+		aabb.upperBound.addLocal(displacement);
+		// the tree fattens the AABB it is given, so give it a copy
+		tree.moveProxy(proxy, new AABB(aabb), displacement);
+		// the proxy's fattened AABB always contains its AABB
+		AABB fat = proxy.aabb;
+		assertTrue(fat.lowerBound.x <= aabb.lowerBound.x && fat.lowerBound.y <= aabb.lowerBound.y);
+		assertTrue(fat.upperBound.x >= aabb.upperBound.x && fat.upperBound.y >= aabb.upperBound.y);
+	}
+}
@@ -201,6 +201,12 @@ public class HtmlAssetManager extends AbstractCachingAssetManager {
     return sound;
   }
 
+  @Override
+  protected boolean rendersAtlasImages() {
+    // only the GL image layers know how to draw a region of an atlas page
+    return PlayN.graphics() instanceof HtmlGraphicsGL;
+  }
+
   @Override
   protected Image loadImage(String path) {
     String url = pathPrefix + path;
@@ -26,6 +26,7 @@ import playn.core.Image;
 import playn.core.Path;
 import playn.core.Pattern;
 import playn.core.TextLayout;
+import playn.core.gl.AtlasImage;
 
 class HtmlCanvas implements Canvas {
 
@@ -62,6 +63,10 @@ class HtmlCanvas implements Canvas {
 
   @Override
   public void drawImage(Image img, float x, float y) {
+    if (img instanceof AtlasImage) {
+      drawImage(img, x, y, img.width(), img.height());
+      return;
+    }
     Asserts.checkArgument(img instanceof HtmlImage);
     ctx.drawImage(((HtmlImage) img).img, x, y);
     dirty = true;
@@ -69,6 +74,10 @@ class HtmlCanvas implements Canvas {
 
   @Override
   public void drawImage(Image img, float x, float y, float w, float h) {
+    if (img instanceof AtlasImage) {
+      drawImage(img, x, y, w, h, 0, 0, img.width(), img.height());
+      return;
+    }
     Asserts.checkArgument(img instanceof HtmlImage);
     ctx.drawImage(((HtmlImage) img).img, x, y, w, h);
     dirty = true;
@@ -77,6 +86,13 @@ class HtmlCanvas implements Canvas {
   @Override
   public void drawImage(Image img, float dx, float dy, float dw, float dh,
       float sx, float sy, float sw, float sh) {
+    // atlas images are drawn from their region of their page
+    if (img instanceof AtlasImage) {
+      AtlasImage aimg = (AtlasImage) img;
+      img = aimg.page();
+      sx += aimg.x();
+      sy += aimg.y();
+    }
     Asserts.checkArgument(img instanceof HtmlImage);
     ctx.drawImage(((HtmlImage) img).img, sx, sy, sw, sh, dx,
         dy, dw, dh);
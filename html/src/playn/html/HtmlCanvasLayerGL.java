@@ -67,6 +67,7 @@ class HtmlCanvasLayerGL extends HtmlLayerGL implements CanvasLayer {
       canvas.clearDirty();
       gfx.updateTexture(tex, canvas.canvas());
     }
+    gfx.watch(canvas);
     gfx.drawTexture(tex, width, height, localTransform(parentTransform), width, height, false,
         false, parentAlpha * alpha);
   }
@@ -85,11 +86,11 @@ class HtmlCanvasLayerGL extends HtmlLayerGL implements CanvasLayer {
 
   @Override
   public float scaledWidth() {
-    return transform().scaleX() * width();
+    return transform.scaleX() * width();
   }
 
   @Override
   public float scaledHeight() {
-    return transform().scaleY() * height();
+    return transform.scaleY() * height();
   }
 }
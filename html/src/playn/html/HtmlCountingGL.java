@@ -0,0 +1,227 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.html;
+
+import static com.google.gwt.webgl.client.WebGLRenderingContext.ARRAY_BUFFER;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.ELEMENT_ARRAY_BUFFER;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.TEXTURE0;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.TEXTURE_2D;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import playn.core.gl.GLStats;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayMixed;
+import com.google.gwt.webgl.client.WebGLRenderingContext;
+
+/**
+ * Wraps a WebGL context in a shim that reports every call made through it to a {@link GLStats}
+ * before passing it on, in the manner of the debug context created by {@code WebGLDebugUtils}.
+ * State that is commonly set redundantly (the bound program, buffers, textures and framebuffer,
+ * enabled capabilities, blend function, viewport, clear color and uniforms other than matrices)
+ * is tracked, so that we can report calls that leave it unchanged. Enabled via the {@link
+ * HtmlUrlParameters.CountGL} URL parameter.
+ */
+class HtmlCountingGL {
+
+  /**
+   * Returns a shim that passes calls on to {@code gl}, reporting them to {@code stats}.
+   */
+  static WebGLRenderingContext wrap(WebGLRenderingContext gl, GLStats stats) {
+    return new HtmlCountingGL(stats).createShim(gl);
+  }
+
+  private HtmlCountingGL(GLStats stats) {
+    this.stats = stats;
+    Arrays.fill(boundTextures, UNKNOWN);
+    Arrays.fill(blendFunc, Integer.MIN_VALUE);
+    Arrays.fill(viewport, Integer.MIN_VALUE);
+    Arrays.fill(clearColor, Double.NaN);
+  }
+
+  // the shim copies the context's constants (and its other non-function properties, as they are
+  // when the shim is created), and wraps each of its functions
+  private native WebGLRenderingContext createShim(WebGLRenderingContext gl) /*-{
+    var self = this, shim = {};
+    var note = function(name, args) {
+      self.@playn.html.HtmlCountingGL::noteCall(Ljava/lang/String;Lcom/google/gwt/core/client/JsArrayMixed;)(name, args);
+    };
+    var wrap = function(name, fn) {
+      return function() {
+        note(name, Array.prototype.slice.call(arguments));
+        return fn.apply(gl, arguments);
+      };
+    };
+    for (var name in gl) {
+      var value = gl[name];
+      shim[name] = (typeof value == "function") ? wrap(name, value) : value;
+    }
+    return shim;
+  }-*/;
+
+  private void noteCall(String name, JsArrayMixed args) {
+    if (stats.call(name)) {
+      for (int ii = 0; ii < args.length(); ii++) {
+        stats.arg(describe(args, ii));
+      }
+    }
+
+    if (name.equals("useProgram")) {
+      JavaScriptObject program = args.getObject(0);
+      if (program == this.program) stats.redundant(name);
+      this.program = program;
+
+    } else if (name.equals("activeTexture")) {
+      int unit = (int) args.getNumber(0);
+      if (unit == activeTexture) stats.redundant(name);
+      activeTexture = unit;
+
+    } else if (name.equals("bindTexture")) {
+      if ((int) args.getNumber(0) == TEXTURE_2D) {
+        JavaScriptObject texture = args.getObject(1);
+        int unit = activeTexture - TEXTURE0;
+        if (texture == boundTextures[unit]) stats.redundant(name);
+        boundTextures[unit] = texture;
+      }
+
+    } else if (name.equals("bindBuffer")) {
+      int target = (int) args.getNumber(0);
+      JavaScriptObject buffer = args.getObject(1);
+      if (target == ARRAY_BUFFER) {
+        if (buffer == arrayBuffer) stats.redundant(name);
+        arrayBuffer = buffer;
+      } else if (target == ELEMENT_ARRAY_BUFFER) {
+        if (buffer == elementBuffer) stats.redundant(name);
+        elementBuffer = buffer;
+      }
+
+    } else if (name.equals("bindFramebuffer")) {
+      JavaScriptObject framebuffer = args.getObject(1);
+      if (framebuffer == this.framebuffer) stats.redundant(name);
+      this.framebuffer = framebuffer;
+
+    } else if (name.equals("enable") || name.equals("disable")) {
+      Boolean enabled = name.equals("enable");
+      if (enabled.equals(caps.put((int) args.getNumber(0), enabled))) stats.redundant(name);
+
+    } else if (name.equals("blendFunc") || name.equals("blendFuncSeparate")) {
+      int[] func = new int[4];
+      for (int ii = 0; ii < 4; ii++) {
+        func[ii] = (int) args.getNumber(ii % args.length());
+      }
+      if (Arrays.equals(func, blendFunc)) stats.redundant(name);
+      System.arraycopy(func, 0, blendFunc, 0, 4);
+
+    } else if (name.equals("viewport")) {
+      int[] view = new int[4];
+      for (int ii = 0; ii < 4; ii++) {
+        view[ii] = (int) args.getNumber(ii);
+      }
+      if (Arrays.equals(view, viewport)) stats.redundant(name);
+      System.arraycopy(view, 0, viewport, 0, 4);
+
+    } else if (name.equals("clearColor")) {
+      double[] color = new double[4];
+      for (int ii = 0; ii < 4; ii++) {
+        color[ii] = args.getNumber(ii);
+      }
+      if (Arrays.equals(color, clearColor)) stats.redundant(name);
+      System.arraycopy(color, 0, clearColor, 0, 4);
+
+    } else if (name.startsWith("uniform") && !name.startsWith("uniformMatrix")) {
+      // uniform locations are specific to a program, so they alone identify a uniform
+      double[] values = uniformValues(name, args);
+      if (Arrays.equals(values, uniforms.put(args.getObject(0), values))) stats.redundant(name);
+
+    } else if (name.equals("bufferData") || name.equals("bufferSubData")) {
+      stats.uploaded(byteLength(args, name.equals("bufferData") ? 1 : 2));
+
+    } else if (name.equals("texImage2D")) {
+      if ((int) args.getNumber(0) == TEXTURE_2D && (int) args.getNumber(1) == 0) {
+        // texImage2D(target, level, internalformat, width, height, border, format, type, pixels)
+        // or texImage2D(target, level, internalformat, format, type, image)
+        boolean sized = (args.length() > 6);
+        int width = sized ? (int) args.getNumber(3) : imageSize(args, 5, "width");
+        int height = sized ? (int) args.getNumber(4) : imageSize(args, 5, "height");
+        int format = (int) args.getNumber(sized ? 6 : 3);
+        int type = (int) args.getNumber(sized ? 7 : 4);
+        stats.textureAllocated(boundTextures[activeTexture - TEXTURE0],
+                               width * height * GLStats.bytesPerPixel(format, type));
+      }
+
+    } else if (name.equals("deleteTexture")) {
+      JavaScriptObject texture = args.getObject(0);
+      stats.textureDeleted(texture);
+      for (int ii = 0; ii < boundTextures.length; ii++) {
+        if (boundTextures[ii] == texture) boundTextures[ii] = null;
+      }
+    }
+  }
+
+  private static double[] uniformValues(String name, JsArrayMixed args) {
+    if (!name.endsWith("v")) {
+      double[] values = new double[args.length() - 1];
+      for (int ii = 0; ii < values.length; ii++) {
+        values[ii] = args.getNumber(ii + 1);
+      }
+      return values;
+    }
+    JsArrayMixed array = args.getObject(1);
+    double[] values = new double[array.length()];
+    for (int ii = 0; ii < values.length; ii++) {
+      values[ii] = array.getNumber(ii);
+    }
+    return values;
+  }
+
+  // describes an argument for a trace; arrays and objects are described by type, not contents
+  private static native String describe(JsArrayMixed args, int index) /*-{
+    var value = args[index];
+    if (value == null || typeof value != "object") return String(value);
+    return (value.constructor && value.constructor.name) || "object";
+  }-*/;
+
+  private static native int byteLength(JsArrayMixed args, int index) /*-{
+    var value = args[index];
+    return (typeof value == "number") ? value : (value ? value.byteLength : 0);
+  }-*/;
+
+  private static native int imageSize(JsArrayMixed args, int index, String dimen) /*-{
+    var image = args[index];
+    return image ? (image[dimen] || 0) : 0;
+  }-*/;
+
+  // the value of bound objects that have not yet been set through this shim
+  private static final JavaScriptObject UNKNOWN = JavaScriptObject.createObject();
+
+  // WebGL guarantees at least 8 texture units, and no implementation offers more than 32
+  private static final int MAX_TEXTURE_UNITS = 32;
+
+  private final GLStats stats;
+
+  // the state that we track, to detect redundant calls
+  private JavaScriptObject program = UNKNOWN, arrayBuffer = UNKNOWN, elementBuffer = UNKNOWN,
+    framebuffer = UNKNOWN;
+  private int activeTexture = TEXTURE0;
+  private final JavaScriptObject[] boundTextures = new JavaScriptObject[MAX_TEXTURE_UNITS];
+  private final int[] blendFunc = new int[4], viewport = new int[4];
+  private final double[] clearColor = new double[4];
+  private final Map<Integer, Boolean> caps = new HashMap<Integer, Boolean>();
+  private final Map<Object, double[]> uniforms = new HashMap<Object, double[]>();
+}
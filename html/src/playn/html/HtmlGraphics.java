@@ -38,6 +38,7 @@ import playn.core.Path;
 import playn.core.Pattern;
 import playn.core.TextFormat;
 import playn.core.TextLayout;
+import playn.core.gl.GLStats;
 
 public abstract class HtmlGraphics implements Graphics {
   
@@ -167,6 +168,19 @@ public abstract class HtmlGraphics implements Graphics {
     rootElement.getStyle().setHeight(height, Unit.PX);
   }
 
+  @Override
+  public int culledLayerCount() {
+    return 0;
+  }
+
+  /**
+   * Returns the statistics gathered about our GL calls, or null if we're not using GL or they
+   * are not being gathered (see {@link HtmlUrlParameters.CountGL}).
+   */
+  public GLStats glStats() {
+    return null;
+  }
+
   HtmlFontMetrics getFontMetrics(Font font) {
     HtmlFontMetrics metrics = fontMetrics.get(font);
     if (metrics == null) {
@@ -16,6 +16,7 @@ package playn.html;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.ARRAY_BUFFER;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.BLEND;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.CLAMP_TO_EDGE;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.COLOR_ATTACHMENT0;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.COLOR_BUFFER_BIT;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.CULL_FACE;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.DST_ALPHA;
@@ -29,6 +30,7 @@ import static com.google.gwt.webgl.client.WebGLRenderingContext.ONE_MINUS_SRC_AL
 import static com.google.gwt.webgl.client.WebGLRenderingContext.REPEAT;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.RGBA;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.SRC_ALPHA;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.STATIC_DRAW;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.STREAM_DRAW;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.TEXTURE0;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.TEXTURE_2D;
@@ -39,13 +41,23 @@ import static com.google.gwt.webgl.client.WebGLRenderingContext.TEXTURE_WRAP_T;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.TRIANGLES;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.UNSIGNED_BYTE;
 import static com.google.gwt.webgl.client.WebGLRenderingContext.UNSIGNED_SHORT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.Asserts;
 import playn.core.CanvasLayer;
+import playn.core.Culler;
+import playn.core.FrameMetrics;
+import playn.core.FrameMetrics.Stat;
 import playn.core.GroupLayer;
 import playn.core.Image;
 import playn.core.ImageLayer;
 import playn.core.InternalTransform;
 import playn.core.PlayN;
 import playn.core.SurfaceLayer;
+import playn.core.gl.GLStats;
+import playn.core.gl.QuadBatcher;
 
 import com.google.gwt.dom.client.CanvasElement;
 import com.google.gwt.dom.client.Document;
@@ -66,28 +78,21 @@ import com.google.gwt.webgl.client.WebGLUtil;
 
 class HtmlGraphicsGL extends HtmlGraphics {
 
-  private static final int VERTEX_SIZE = 10;              // 10 floats per vertex
-
-// TODO(jgw): Re-enable longer element buffers once we figure out why they're causing weird
-// performance degradation.
-//  private static final int MAX_VERTS = 400;               // 100 quads
-//  private static final int MAX_ELEMS = MAX_VERTS * 6 / 4; // At most 6 verts per quad
-
-// These values allow only one quad at a time (there's no generalized polygon rendering available
-// in Surface yet that would use more than 4 points / 2 triangles).
-  private static final int MAX_VERTS = 4;
-  private static final int MAX_ELEMS = 6;
-
-  private class Shader {
+  private class Shader implements QuadBatcher.Renderer {
     WebGLProgram program;
-    WebGLUniformLocation uScreenSizeLoc;
+    WebGLUniformLocation uScreenSizeLoc, uTransform;
     int aMatrix, aTranslation, aPosition, aTexture;
 
+    // the contents of u_Transform, which is the identity except while replaying render lists
+    Float32Array xformData = Float32Array.create(9);
+    boolean xformIdentity;
+
     WebGLBuffer vertexBuffer, elementBuffer;
 
-    Float32Array vertexData = Float32Array.create(VERTEX_SIZE * MAX_VERTS);
-    Uint16Array elementData = Uint16Array.create(MAX_ELEMS);
-    int vertexOffset, elementOffset;
+    QuadBatcher batch = new QuadBatcher(this);
+    Float32Array vertexData = Float32Array.create(
+      QuadBatcher.VERTEX_SIZE * QuadBatcher.DEFAULT_MAX_QUADS * 4);
+    Uint16Array elementData = Uint16Array.create(QuadBatcher.DEFAULT_MAX_QUADS * 6);
 
     Shader(String fragmentShader) {
       // Compile the shader.
@@ -100,81 +105,135 @@ class HtmlGraphicsGL extends HtmlGraphics {
       aTranslation = gl.getAttribLocation(program, "a_Translation");
       aPosition = gl.getAttribLocation(program, "a_Position");
       aTexture = gl.getAttribLocation(program, "a_Texture");
+      uTransform = gl.getUniformLocation(program, "u_Transform");
+      HtmlGraphicsGL.this.flush(); // so that the next prepare() switches back to its program
+      gl.useProgram(program);
+      setTransform(null);
 
-      // Create the vertex and index buffers.
+      // Create the vertex and index buffers, allocating their storage once; each batch is
+      // uploaded into the start of them with bufferSubData.
       vertexBuffer = gl.createBuffer();
       elementBuffer = gl.createBuffer();
+      gl.bindBuffer(ARRAY_BUFFER, vertexBuffer);
+      gl.bufferData(ARRAY_BUFFER, vertexData.getByteLength(), STREAM_DRAW);
+      gl.bindBuffer(ELEMENT_ARRAY_BUFFER, elementBuffer);
+      gl.bufferData(ELEMENT_ARRAY_BUFFER, elementData.getByteLength(), STREAM_DRAW);
     }
 
     boolean prepare() {
       if (useShader(this)) {
         gl.useProgram(program);
         gl.uniform2fv(uScreenSizeLoc, new float[] { screenWidth, screenHeight });
-        gl.bindBuffer(ARRAY_BUFFER, vertexBuffer);
-        gl.bindBuffer(ELEMENT_ARRAY_BUFFER, elementBuffer);
-
         gl.enableVertexAttribArray(aMatrix);
         gl.enableVertexAttribArray(aTranslation);
         gl.enableVertexAttribArray(aPosition);
         if (aTexture != -1) {
           gl.enableVertexAttribArray(aTexture);
         }
-
-        gl.vertexAttribPointer(aMatrix, 4, FLOAT, false, 40, 0);
-        gl.vertexAttribPointer(aTranslation, 2, FLOAT, false, 40, 16);
-        gl.vertexAttribPointer(aPosition, 2, FLOAT, false, 40, 24);
-        if (aTexture != -1) {
-          gl.vertexAttribPointer(aTexture, 2, FLOAT, false, 40, 32);
-        }
+        bindBuffers(vertexBuffer, elementBuffer);
 
         return true;
       }
       return false;
     }
 
-    void flush() {
-      if (vertexOffset == 0) {
-        return;
+    // the attribute pointers refer to whichever array buffer was bound when they were set
+    void bindBuffers(WebGLBuffer vertices, WebGLBuffer elements) {
+      gl.bindBuffer(ARRAY_BUFFER, vertices);
+      gl.bindBuffer(ELEMENT_ARRAY_BUFFER, elements);
+
+      int stride = QuadBatcher.VERTEX_STRIDE;
+      gl.vertexAttribPointer(aMatrix, 4, FLOAT, false, stride, 0);
+      gl.vertexAttribPointer(aTranslation, 2, FLOAT, false, stride, 16);
+      gl.vertexAttribPointer(aPosition, 2, FLOAT, false, stride, 24);
+      if (aTexture != -1) {
+        gl.vertexAttribPointer(aTexture, 2, FLOAT, false, stride, 32);
       }
+    }
 
-      // TODO(jgw): Change this back. It only works because we've limited MAX_VERTS, which only
-      // works because there are no >4 vertex draws happening.
-      // gl.bufferData(ARRAY_BUFFER, vertexData.subarray(0, vertexOffset), STREAM_DRAW);
-      // gl.bufferData(ELEMENT_ARRAY_BUFFER, elementData.subarray(0, elementOffset), STREAM_DRAW);
-      gl.bufferData(ARRAY_BUFFER, vertexData, STREAM_DRAW);
-      gl.bufferData(ELEMENT_ARRAY_BUFFER, elementData, STREAM_DRAW);
-
-      gl.drawElements(TRIANGLES, elementOffset, UNSIGNED_SHORT, 0);
-      vertexOffset = elementOffset = 0;
+    /**
+     * Draws geometry previously uploaded into static buffers, with this shader's current state,
+     * transformed by {@code xform}.
+     */
+    void drawStatic(WebGLBuffer vertices, WebGLBuffer elements, int vertexCount,
+                    int elementCount, InternalTransform xform) {
+      setTransform(xform);
+      bindBuffers(vertices, elements);
+      drawElements(vertexCount, elementCount);
+      bindBuffers(vertexBuffer, elementBuffer);
     }
 
-    int beginPrimitive(int vertexCount, int elemCount) {
-      int vertIdx = vertexOffset / VERTEX_SIZE;
-      if ((vertIdx + vertexCount > MAX_VERTS) || (elementOffset + elemCount > MAX_ELEMS)) {
-        flush();
-        return 0;
+    /**
+     * Sets the transform applied to all geometry drawn by this shader, which must be current. A
+     * null transform is the identity.
+     */
+    void setTransform(InternalTransform xform) {
+      if (xform == null) {
+        if (xformIdentity) return;
+        xformData.set(0, 1); xformData.set(1, 0); xformData.set(2, 0);
+        xformData.set(3, 0); xformData.set(4, 1); xformData.set(5, 0);
+        xformData.set(6, 0); xformData.set(7, 0); xformData.set(8, 1);
+      } else {
+        // column major, as in the vertex shader's per-vertex matrix
+        xformData.set(0, xform.m00()); xformData.set(1, xform.m01()); xformData.set(2, 0);
+        xformData.set(3, xform.m10()); xformData.set(4, xform.m11()); xformData.set(5, 0);
+        xformData.set(6, xform.tx());  xformData.set(7, xform.ty());  xformData.set(8, 1);
       }
-      return vertIdx;
+      xformIdentity = (xform == null);
+      gl.uniformMatrix3fv(uTransform, false, xformData);
     }
 
-    void buildVertex(InternalTransform local, float dx, float dy) {
-      buildVertex(local, dx, dy, 0, 0);
+    /**
+     * Stores this shader's current state (texture, color, alpha) into {@code cmd}.
+     */
+    void saveState(RenderList.Command cmd) {
     }
 
-    void buildVertex(InternalTransform local, float dx, float dy, float sx, float sy) {
-      vertexData.set(((HtmlInternalTransform)local).matrix(), vertexOffset);
-      vertexData.set(vertexOffset + 6, dx);
-      vertexData.set(vertexOffset + 7, dy);
-      vertexData.set(vertexOffset + 8, sx);
-      vertexData.set(vertexOffset + 9, sy);
-      vertexOffset += VERTEX_SIZE;
+    /**
+     * Prepares this shader with the state previously stored into {@code cmd}.
+     */
+    void restoreState(RenderList.Command cmd) {
     }
 
-    void addElement(int index) {
-      elementData.set(elementOffset++, index);
+    void flush() {
+      batch.flush();
+    }
+
+    @Override
+    public void draw(float[] vertices, int floatCount, short[] elements, int elementCount) {
+      metrics.add(Stat.FLUSHES, 1);
+      copy(vertices, vertexData, floatCount);
+      copy(elements, elementData, elementCount);
+
+      if (recording != null) {
+        // upload this batch into buffers retained by the render list; the batch was painted
+        // relative to the recording group, so we apply the group's transform as we draw it
+        RenderList.Command cmd = recording.add(this, vertexData.subarray(0, floatCount),
+                                               elementData.subarray(0, elementCount));
+        drawStatic(cmd.vertexBuffer, cmd.elementBuffer, cmd.vertexCount, elementCount,
+                   recording.xform);
+        return;
+      }
+
+      setTransform(null);
+      // only upload the portion of the buffers that we actually filled
+      gl.bufferSubData(ARRAY_BUFFER, 0, vertexData.subarray(0, floatCount));
+      gl.bufferSubData(ELEMENT_ARRAY_BUFFER, 0, elementData.subarray(0, elementCount));
+
+      drawElements(floatCount / QuadBatcher.VERTEX_SIZE, elementCount);
     }
   }
 
+  // copies the first count values of src (a JavaScript array, once compiled) into dst in a
+  // single call, rather than calling dst.set() for each value
+  private static native void copy(float[] src, Float32Array dst, int count) /*-{
+    for (var ii = 0; ii < count; ii++) dst[ii] = src[ii];
+  }-*/;
+
+  private static native void copy(short[] src, Uint16Array dst, int count) /*-{
+    for (var ii = 0; ii < count; ii++) dst[ii] = src[ii];
+  }-*/;
+
   private class TextureShader extends Shader {
     WebGLUniformLocation uTexture;
     WebGLUniformLocation uAlpha;
@@ -188,9 +247,9 @@ class HtmlGraphicsGL extends HtmlGraphics {
     }
 
     @Override
-    void flush() {
-      gl.bindTexture(TEXTURE_2D, lastTex);
-      super.flush();
+    public void draw(float[] vertices, int floatCount, short[] elements, int elementCount) {
+      bindTexture(lastTex);
+      super.draw(vertices, floatCount, elements, elementCount);
     }
 
     void prepare(WebGLTexture tex, float alpha) {
@@ -208,6 +267,18 @@ class HtmlGraphicsGL extends HtmlGraphics {
       lastAlpha = alpha;
       lastTex = tex;
     }
+
+    @Override
+    void saveState(RenderList.Command cmd) {
+      cmd.tex = lastTex;
+      cmd.alpha = lastAlpha;
+    }
+
+    @Override
+    void restoreState(RenderList.Command cmd) {
+      prepare(cmd.tex, cmd.alpha);
+      bindTexture(cmd.tex);
+    }
   }
 
   private class ColorShader extends Shader {
@@ -246,11 +317,178 @@ class HtmlGraphicsGL extends HtmlGraphics {
 
       lastColor = color;
     }
+
+    @Override
+    void saveState(RenderList.Command cmd) {
+      cmd.color = lastColor;
+      cmd.alpha = lastAlpha;
+    }
+
+    @Override
+    void restoreState(RenderList.Command cmd) {
+      prepare(cmd.color, cmd.alpha);
+    }
+  }
+
+  /**
+   * The mutable content (canvases and surfaces) drawn while painting a recorded or cached group,
+   * which tells us when the result of that painting has become stale.
+   */
+  class Capture {
+    /**
+     * Returns true if content drawn during this capture has since changed, or could not be drawn.
+     */
+    boolean stale() {
+      if (incomplete) {
+        return true;
+      }
+      for (HtmlCanvas canvas : canvases) {
+        if (canvas.dirty()) {
+          return true;
+        }
+      }
+      for (int ii = 0, ll = surfaces.size(); ii < ll; ii++) {
+        if (surfaces.get(ii).version() != surfaceVersions.get(ii)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void reset() {
+      canvases.clear();
+      surfaces.clear();
+      surfaceVersions.clear();
+      incomplete = false;
+    }
+
+    void addAll(Capture other) {
+      canvases.addAll(other.canvases);
+      surfaces.addAll(other.surfaces);
+      surfaceVersions.addAll(other.surfaceVersions);
+      incomplete |= other.incomplete;
+    }
+
+    private final List<HtmlCanvas> canvases = new ArrayList<HtmlCanvas>();
+    private final List<HtmlSurfaceGL> surfaces = new ArrayList<HtmlSurfaceGL>();
+    private final List<Integer> surfaceVersions = new ArrayList<Integer>();
+    private boolean incomplete;
+  }
+
+  /**
+   * A recording of the geometry painted by a frozen group layer, which can be replayed without
+   * repainting the group's descendants. Each flushed batch becomes a command, which retains the
+   * batch's geometry in static GL buffers along with the shader state with which it was drawn.
+   * Geometry is recorded relative to the group, and the group's current transform is applied
+   * when the list is replayed, so moving the group (or any of its ancestors) does not invalidate
+   * the recording.
+   */
+  class RenderList {
+    class Command {
+      Shader shader;
+      WebGLTexture tex;
+      int color;
+      float alpha;
+      WebGLBuffer vertexBuffer, elementBuffer;
+      int vertexCount, elementCount;
+    }
+
+    /**
+     * Returns true if this list can be replayed by a group painted with the supplied alpha, false
+     * if it must be recorded anew.
+     */
+    boolean valid(float alpha) {
+      return recorded && textureGen == texturesDestroyed && this.alpha == alpha &&
+        !capture.stale();
+    }
+
+    /**
+     * Deletes the GL buffers retained by this list.
+     */
+    void release() {
+      deleteCommands(0);
+      capture.reset();
+      recorded = false;
+    }
+
+    Command add(Shader shader, Float32Array vertices, Uint16Array elements) {
+      // reuse the buffers of the previous recording where we can
+      Command cmd;
+      if (count < commands.size()) {
+        cmd = commands.get(count);
+      } else {
+        cmd = new Command();
+        cmd.vertexBuffer = gl.createBuffer();
+        cmd.elementBuffer = gl.createBuffer();
+        commands.add(cmd);
+      }
+      count++;
+      cmd.shader = shader;
+      shader.saveState(cmd);
+      gl.bindBuffer(ARRAY_BUFFER, cmd.vertexBuffer);
+      gl.bufferData(ARRAY_BUFFER, vertices, STATIC_DRAW);
+      gl.bindBuffer(ELEMENT_ARRAY_BUFFER, cmd.elementBuffer);
+      gl.bufferData(ELEMENT_ARRAY_BUFFER, elements, STATIC_DRAW);
+      cmd.vertexCount = vertices.length() / QuadBatcher.VERTEX_SIZE;
+      cmd.elementCount = elements.length();
+      return cmd;
+    }
+
+    void begin(InternalTransform xform, float alpha) {
+      this.xform = xform;
+      this.alpha = alpha;
+      count = 0;
+      recorded = false;
+    }
+
+    void end() {
+      // free the buffers of any commands that this recording didn't need
+      deleteCommands(count);
+      xform = null;
+      // textures destroyed while recording (e.g. by a canvas image) don't invalidate us
+      textureGen = texturesDestroyed;
+      recorded = true;
+    }
+
+    void replay(InternalTransform xform) {
+      for (Command cmd : commands) {
+        cmd.shader.restoreState(cmd);
+        cmd.shader.drawStatic(cmd.vertexBuffer, cmd.elementBuffer, cmd.vertexCount,
+                              cmd.elementCount, xform);
+      }
+    }
+
+    private void deleteCommands(int from) {
+      for (int ii = commands.size() - 1; ii >= from; ii--) {
+        Command cmd = commands.remove(ii);
+        gl.deleteBuffer(cmd.vertexBuffer);
+        gl.deleteBuffer(cmd.elementBuffer);
+      }
+      count = Math.min(count, from);
+    }
+
+    final Capture capture = new Capture();
+    /** The transform of the group while it is being recorded, null otherwise. */
+    InternalTransform xform;
+    private final List<Command> commands = new ArrayList<Command>();
+    private int count;
+    private boolean recorded;
+    private int textureGen;
+    private float alpha;
   }
 
   WebGLRenderingContext gl;
+  final Culler culler = new Culler();
+  final FrameMetrics metrics;
+  private GLStats glStats;
+
+  /** The render list being recorded, if any. */
+  RenderList recording;
 
+  private final List<Capture> captures = new ArrayList<Capture>();
+  private final List<Target> targets = new ArrayList<Target>();
   private WebGLFramebuffer lastFBuf;
+  private int texturesDestroyed;
   private int screenWidth, screenHeight;
 
   private HtmlGroupLayerGL rootLayer;
@@ -261,10 +499,22 @@ class HtmlGraphicsGL extends HtmlGraphics {
   private TextureShader texShader;
   private ColorShader colorShader;
 
-  // Debug counters.
-  // private int texCount;
+  /** The render target and recording that were current when an offscreen target was bound. */
+  private static class Target {
+    final WebGLFramebuffer fbuf;
+    final int width, height;
+    final RenderList recording;
+
+    Target(WebGLFramebuffer fbuf, int width, int height, RenderList recording) {
+      this.fbuf = fbuf;
+      this.width = width;
+      this.height = height;
+      this.recording = recording;
+    }
+  }
 
-  HtmlGraphicsGL() {
+  HtmlGraphicsGL(FrameMetrics metrics) {
+    this.metrics = metrics;
     rootLayer = new HtmlGroupLayerGL(this);
 
     createCanvas();
@@ -276,6 +526,11 @@ class HtmlGraphicsGL extends HtmlGraphics {
     setSize(HtmlPlatform.DEFAULT_WIDTH, HtmlPlatform.DEFAULT_HEIGHT);
   }
 
+  @Override
+  public GLStats glStats() {
+    return glStats;
+  }
+
   @Override
   public CanvasLayer createCanvasLayer(int width, int height) {
     return new HtmlCanvasLayerGL(this, width, height);
@@ -325,6 +580,11 @@ class HtmlGraphicsGL extends HtmlGraphics {
     return canvas.getOffsetWidth();
   }
 
+  @Override
+  public int culledLayerCount() {
+    return culler.culled();
+  }
+
   void bindFramebuffer() {
     bindFramebuffer(null, canvas.getWidth(), canvas.getHeight());
   }
@@ -345,6 +605,19 @@ class HtmlGraphicsGL extends HtmlGraphics {
     }
   }
 
+  /**
+   * Creates a framebuffer that renders into {@code tex}. The current framebuffer remains bound.
+   */
+  WebGLFramebuffer createFramebuffer(WebGLTexture tex) {
+    flush();
+    WebGLFramebuffer fbuf = gl.createFramebuffer();
+    gl.bindFramebuffer(FRAMEBUFFER, fbuf);
+    gl.framebufferTexture2D(FRAMEBUFFER, COLOR_ATTACHMENT0, TEXTURE_2D, tex, 0);
+    gl.bindTexture(TEXTURE_2D, null);
+    gl.bindFramebuffer(FRAMEBUFFER, lastFBuf);
+    return fbuf;
+  }
+
   WebGLTexture createTexture(boolean repeatX, boolean repeatY) {
     WebGLTexture tex = gl.createTexture();
     gl.bindTexture(TEXTURE_2D, tex);
@@ -352,13 +625,125 @@ class HtmlGraphicsGL extends HtmlGraphics {
     gl.texParameteri(TEXTURE_2D, TEXTURE_MIN_FILTER, LINEAR);
     gl.texParameteri(TEXTURE_2D, TEXTURE_WRAP_S, repeatX ? REPEAT : CLAMP_TO_EDGE);
     gl.texParameteri(TEXTURE_2D, TEXTURE_WRAP_T, repeatY ? REPEAT : CLAMP_TO_EDGE);
-    // ++texCount;
     return tex;
   }
 
   void destroyTexture(WebGLTexture tex) {
+    // flush in case this texture is queued up to be drawn
+    flush();
     gl.deleteTexture(tex);
-    // --texCount;
+    // render lists may refer to this texture
+    texturesDestroyed++;
+  }
+
+  /**
+   * Starts recording everything painted into {@code list}, discarding its previous contents.
+   * Geometry must be painted relative to the recording group, whose transform is {@code xform};
+   * it is drawn with that transform as it is recorded.
+   */
+  void beginRecording(RenderList list, InternalTransform xform, float alpha) {
+    Asserts.checkState(recording == null, "Render lists cannot be recorded recursively");
+    // make sure that geometry painted before the recording began isn't included in it
+    flush();
+    list.begin(xform, alpha);
+    beginCapture(list.capture);
+    recording = list;
+  }
+
+  void endRecording() {
+    flush();
+    recording.end();
+    recording = null;
+    endCapture();
+  }
+
+  void replay(RenderList list, InternalTransform xform) {
+    // anything batched so far must be drawn beneath the recorded geometry
+    flush();
+    list.replay(xform);
+    inherit(list.capture);
+  }
+
+  /**
+   * Redirects painting into {@code fbuf} (which is cleared to transparent) until the matching call
+   * to {@link #endOffscreen}. Nothing is culled while painting offscreen, and the canvases and
+   * surfaces that are painted are noted in {@code capture}.
+   */
+  void beginOffscreen(WebGLFramebuffer fbuf, int width, int height, Capture capture) {
+    // geometry batched so far belongs to the current target (and recording, if any)
+    flush();
+    targets.add(new Target(lastFBuf, screenWidth, screenHeight, recording));
+    recording = null;
+    culler.suspend();
+    beginCapture(capture);
+    bindFramebuffer(fbuf, width, height);
+    gl.clearColor(0, 0, 0, 0);
+    gl.clear(COLOR_BUFFER_BIT);
+  }
+
+  void endOffscreen() {
+    Target target = targets.remove(targets.size() - 1);
+    bindFramebuffer(target.fbuf, target.width, target.height);
+    recording = target.recording;
+    culler.resume();
+    endCapture();
+  }
+
+  /**
+   * Notes that the content being painted includes {@code canvas}, so that recordings and caches
+   * of that content are discarded when the canvas is next drawn into.
+   */
+  void watch(HtmlCanvas canvas) {
+    if (!captures.isEmpty()) {
+      topCapture().canvases.add(canvas);
+    }
+  }
+
+  /**
+   * Notes that the content being painted includes {@code surface}, so that recordings and caches
+   * of that content are discarded when the surface is next drawn into.
+   */
+  void watch(HtmlSurfaceGL surface) {
+    if (!captures.isEmpty()) {
+      Capture capture = topCapture();
+      capture.surfaces.add(surface);
+      capture.surfaceVersions.add(surface.version());
+    }
+  }
+
+  /**
+   * Notes that a layer could not be painted (e.g. because its image has not yet loaded), so any
+   * recording or cache of the content being painted must not be reused.
+   */
+  void noteIncomplete() {
+    if (!captures.isEmpty()) {
+      topCapture().incomplete = true;
+    }
+  }
+
+  /**
+   * Notes that previously captured content (a replayed recording or a cached image) is being
+   * painted as part of the current capture, if any.
+   */
+  void inherit(Capture capture) {
+    if (!captures.isEmpty()) {
+      topCapture().addAll(capture);
+    }
+  }
+
+  private void beginCapture(Capture capture) {
+    capture.reset();
+    captures.add(capture);
+  }
+
+  private void endCapture() {
+    Capture capture = captures.remove(captures.size() - 1);
+    // anything that invalidates an inner capture also invalidates the enclosing one
+    inherit(capture);
+  }
+
+  private Capture topCapture() {
+    return captures.get(captures.size() - 1);
   }
 
   void updateLayers() {
@@ -368,10 +753,17 @@ class HtmlGraphicsGL extends HtmlGraphics {
     gl.clear(COLOR_BUFFER_BIT);
 
     // Paint all the layers.
+    culler.reset(0, 0, canvas.getWidth(), canvas.getHeight());
     rootLayer.paint(HtmlInternalTransform.IDENTITY, 1);
 
     // Guarantee a flush.
     useShader(null);
+
+    // the root is painted directly, so the culler doesn't see it
+    metrics.add(Stat.LAYERS, culler.visited() + 1);
+    if (glStats != null) {
+      glStats.endFrame();
+    }
   }
 
   public void updateTexture(WebGLTexture tex, Element img) {
@@ -398,15 +790,7 @@ class HtmlGraphicsGL extends HtmlGraphics {
 
     sx /= texWidth;  sw /= texWidth;
     sy /= texHeight; sh /= texHeight;
-
-    int idx = texShader.beginPrimitive(4, 6);
-    texShader.buildVertex(local, dx,      dy,      sx,      sy);
-    texShader.buildVertex(local, dx + dw, dy,      sx + sw, sy);
-    texShader.buildVertex(local, dx,      dy + dh, sx,      sy + sh);
-    texShader.buildVertex(local, dx + dw, dy + dh, sx + sw, sy + sh);
-
-    texShader.addElement(idx + 0); texShader.addElement(idx + 1); texShader.addElement(idx + 2);
-    texShader.addElement(idx + 1); texShader.addElement(idx + 3); texShader.addElement(idx + 2);
+    texShader.batch.addQuad(local, dx, dy, dw, dh, sx, sy, sw, sh);
   }
 
   void fillRect(InternalTransform local, float dx, float dy, float dw, float dh,
@@ -415,50 +799,33 @@ class HtmlGraphicsGL extends HtmlGraphics {
 
     float sx = dx / texWidth, sy = dy / texHeight;
     float sw = dw / texWidth, sh = dh / texHeight;
-
-    int idx = texShader.beginPrimitive(4, 6);
-    texShader.buildVertex(local, dx,      dy,      sx,      sy);
-    texShader.buildVertex(local, dx + dw, dy,      sx + sw, sy);
-    texShader.buildVertex(local, dx,      dy + dh, sx,      sy + sh);
-    texShader.buildVertex(local, dx + dw, dy + dh, sx + sw, sy + sh);
-
-    texShader.addElement(idx + 0); texShader.addElement(idx + 1); texShader.addElement(idx + 2);
-    texShader.addElement(idx + 1); texShader.addElement(idx + 3); texShader.addElement(idx + 2);
+    texShader.batch.addQuad(local, dx, dy, dw, dh, sx, sy, sw, sh);
   }
 
   void fillRect(InternalTransform local, float dx, float dy, float dw, float dh, int color,
                 float alpha) {
     colorShader.prepare(color, alpha);
-
-    int idx = colorShader.beginPrimitive(4, 6);
-    colorShader.buildVertex(local, dx,      dy);
-    colorShader.buildVertex(local, dx + dw, dy);
-    colorShader.buildVertex(local, dx,      dy + dh);
-    colorShader.buildVertex(local, dx + dw, dy + dh);
-
-    colorShader.addElement(idx + 0);
-    colorShader.addElement(idx + 1);
-    colorShader.addElement(idx + 2);
-    colorShader.addElement(idx + 1);
-    colorShader.addElement(idx + 3);
-    colorShader.addElement(idx + 2);
+    colorShader.batch.addQuad(local, dx, dy, dw, dh);
   }
 
   void fillPoly(InternalTransform local, float[] positions, int color, float alpha) {
     colorShader.prepare(color, alpha);
 
-    int idx = colorShader.beginPrimitive(4, 6);
+    QuadBatcher batch = colorShader.batch;
     int points = positions.length / 2;
+    int tris = points - 2;
+    int idx = batch.beginPrimitive(points, tris * 3);
+    float m00 = local.m00(), m01 = local.m01(), m10 = local.m10(), m11 = local.m11();
+    float tx = local.tx(), ty = local.ty();
     for (int i = 0; i < points; ++i) {
       float dx = positions[i * 2];
       float dy = positions[i * 2 + 1];
-      colorShader.buildVertex(local, dx, dy);
+      batch.addVertex(m00, m01, m10, m11, tx, ty, dx, dy, 0, 0);
     }
 
     int a = idx + 0, b = idx + 1, c = idx + 2;
-    int tris = points - 2;
     for (int i = 0; i < tris; ++i) {
-      colorShader.addElement(a); colorShader.addElement(b); colorShader.addElement(c);
+      batch.addElement(a); batch.addElement(b); batch.addElement(c);
       a = c;
       b = a + 1;
       c = (i == tris - 2) ? idx : b + 1;
@@ -470,6 +837,24 @@ class HtmlGraphicsGL extends HtmlGraphics {
     return canvas;
   }
 
+  /**
+   * Draws {@code elementCount} indices, which refer to {@code vertexCount} vertices, from the bound
+   * buffers, and notes the draw in our metrics.
+   */
+  private void drawElements(int vertexCount, int elementCount) {
+    gl.drawElements(TRIANGLES, elementCount, UNSIGNED_SHORT, 0);
+    metrics.add(Stat.DRAW_CALLS, 1);
+    metrics.add(Stat.VERTICES, vertexCount);
+  }
+
+  /**
+   * Binds {@code tex} for drawing, and notes the bind in our metrics.
+   */
+  private void bindTexture(WebGLTexture tex) {
+    gl.bindTexture(TEXTURE_2D, tex);
+    metrics.add(Stat.TEXTURE_BINDS, 1);
+  }
+
   void flush() {
     if (curShader != null) {
       curShader.flush();
@@ -486,6 +871,10 @@ class HtmlGraphicsGL extends HtmlGraphics {
     if (!tryCreateContext(null)) {
       giveUp();
     }
+    if (HtmlUrlParameters.CountGL.shouldCount()) {
+      glStats = new GLStats();
+      gl = HtmlCountingGL.wrap(gl, glStats);
+    }
 
     gl.disable(CULL_FACE);
     gl.enable(BLEND);
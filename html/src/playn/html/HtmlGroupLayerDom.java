@@ -15,6 +15,8 @@
  */
 package playn.html;
 
+import java.util.Collection;
+
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Node;
@@ -64,6 +66,14 @@ class HtmlGroupLayerDom extends HtmlLayerDom implements GroupLayer, ParentLayer
     impl.add(this, index, hlayer);
   }
 
+  @Override
+  public void addAll(Collection<? extends Layer> layers) {
+    // our native display list must be updated as each layer is inserted
+    for (Layer layer : layers) {
+      add(layer);
+    }
+  }
+
   @Override
   public void remove(Layer layer) {
     Asserts.checkArgument(layer instanceof HtmlLayerDom);
@@ -78,6 +88,13 @@ class HtmlGroupLayerDom extends HtmlLayerDom implements GroupLayer, ParentLayer
     element().removeChild(element().getChild(index));
   }
 
+  @Override
+  public void removeAll(Collection<? extends Layer> layers) {
+    for (Layer layer : layers) {
+      remove(layer);
+    }
+  }
+
   @Override
   public void clear() {
     impl.clear(this);
@@ -91,6 +108,28 @@ class HtmlGroupLayerDom extends HtmlLayerDom implements GroupLayer, ParentLayer
     return impl.children.size();
   }
 
+  @Override
+  public boolean frozen() {
+    return impl.frozen;
+  }
+
+  @Override
+  public void setFrozen(boolean frozen) {
+    // we don't record render lists, so frozen groups are painted normally
+    impl.frozen = frozen;
+  }
+
+  @Override
+  public boolean cached() {
+    return impl.cached;
+  }
+
+  @Override
+  public void setCached(boolean cached) {
+    // we don't render offscreen, so cached groups are painted normally
+    impl.cached = cached;
+  }
+
   @Override
   public void destroy() {
     super.destroy();
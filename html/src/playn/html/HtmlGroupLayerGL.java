@@ -13,6 +13,16 @@
  */
 package playn.html;
 
+import java.util.Collection;
+
+import com.google.gwt.webgl.client.WebGLFramebuffer;
+import com.google.gwt.webgl.client.WebGLTexture;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.RGBA;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.TEXTURE_2D;
+import static com.google.gwt.webgl.client.WebGLRenderingContext.UNSIGNED_BYTE;
+
+import pythagoras.f.Rectangle;
+
 import playn.core.Asserts;
 import playn.core.GroupLayer;
 import playn.core.GroupLayerImpl;
@@ -22,7 +32,22 @@ import playn.core.ParentLayer;
 
 class HtmlGroupLayerGL extends HtmlLayerGL implements GroupLayer, ParentLayer {
 
+  // cached groups larger than this (in either dimension) are painted normally
+  private static final int MAX_CACHE_SIZE = 2048;
+
   private GroupLayerImpl<HtmlLayerGL> impl = new GroupLayerImpl<HtmlLayerGL>();
+  private HtmlGraphicsGL.RenderList renderList;
+  // our children are recorded relative to us, i.e. with an identity parent transform
+  private HtmlInternalTransform recordXform;
+
+  // the offscreen cache of our contents, if we're cached
+  private WebGLTexture cacheTex;
+  private WebGLFramebuffer cacheFBuf;
+  private HtmlGraphicsGL.Capture cacheCapture;
+  private HtmlInternalTransform cacheXform;
+  private Rectangle cacheBounds;
+  private int cacheX, cacheY, cacheWidth, cacheHeight;
+  private boolean cacheValid;
 
   public HtmlGroupLayerGL(HtmlGraphicsGL gfx) {
     super(gfx);
@@ -45,6 +70,14 @@ class HtmlGroupLayerGL extends HtmlLayerGL implements GroupLayer, ParentLayer {
     impl.add(this, index, (HtmlLayerGL) layer);
   }
 
+  @Override
+  public void addAll(Collection<? extends Layer> layers) {
+    for (Layer layer : layers) {
+      Asserts.checkArgument(layer instanceof HtmlLayerGL);
+    }
+    impl.addAll(this, layers);
+  }
+
   @Override
   public void remove(Layer layer) {
     Asserts.checkArgument(layer instanceof HtmlLayerGL);
@@ -56,6 +89,11 @@ class HtmlGroupLayerGL extends HtmlLayerGL implements GroupLayer, ParentLayer {
     impl.remove(this, index);
   }
 
+  @Override
+  public void removeAll(Collection<? extends Layer> layers) {
+    impl.removeAll(this, layers);
+  }
+
   @Override
   public void clear() {
     impl.clear(this);
@@ -66,10 +104,39 @@ class HtmlGroupLayerGL extends HtmlLayerGL implements GroupLayer, ParentLayer {
     return impl.children.size();
   }
 
+  @Override
+  public boolean frozen() {
+    return impl.frozen;
+  }
+
+  @Override
+  public void setFrozen(boolean frozen) {
+    impl.frozen = frozen;
+    if (!frozen && renderList != null) {
+      renderList.release();
+      renderList = null;
+    }
+  }
+
+  @Override
+  public boolean cached() {
+    return impl.cached;
+  }
+
+  @Override
+  public void setCached(boolean cached) {
+    impl.cached = cached;
+    if (!cached) {
+      releaseCache();
+    }
+  }
+
   @Override
   public void destroy() {
     super.destroy();
     impl.destroy(this);
+    setFrozen(false);
+    setCached(false);
   }
 
   @Override
@@ -86,15 +153,122 @@ class HtmlGroupLayerGL extends HtmlLayerGL implements GroupLayer, ParentLayer {
 
   @Override
   public void depthChanged(Layer layer, float oldDepth) {
-    impl.depthChanged(this, layer, oldDepth);
+    impl.depthChangedDeferred(this, layer, oldDepth);
+  }
+
+  @Override
+  public boolean bounds(Rectangle into) {
+    return impl.bounds(this, into);
   }
 
   @Override
   public void paint(InternalTransform parentTransform, float parentAlpha) {
     if (!visible()) return;
 
+    InternalTransform xform = localTransform(parentTransform);
+    float childAlpha = parentAlpha * alpha;
+    if (impl.cached && paintCached(xform, childAlpha)) {
+      return;
+    }
+    // a frozen group being painted as part of another group's recording is painted normally
+    if (!impl.frozen || gfx.recording != null) {
+      paintChildren(xform, childAlpha);
+      return;
+    }
+
+    if (renderList == null) {
+      renderList = gfx.new RenderList();
+      recordXform = new HtmlInternalTransform();
+    }
+    // changes to our own transform (or our ancestors') are applied when the list is replayed
+    if (!impl.contentsDirty(this) && renderList.valid(childAlpha)) {
+      gfx.replay(renderList, xform);
+      return;
+    }
+
+    gfx.beginRecording(renderList, xform, childAlpha);
+    recordXform.setTransform(1, 0, 0, 1, 0, 0);
+    paintChildren(recordXform, childAlpha);
+    gfx.endRecording();
+    impl.clearRenderDirty(this);
+  }
+
+  private void paintChildren(InternalTransform xform, float childAlpha) {
+    // we can't cull while recording, as the recording must contain everything
+    if (gfx.recording != null) {
+      gfx.culler.suspend();
+    }
     for (HtmlLayerGL child : impl.children) {
-      child.paint(localTransform(parentTransform), parentAlpha * alpha);
+      if (gfx.culler.cull(child, xform)) continue;
+      child.paint(xform, childAlpha);
+    }
+    if (gfx.recording != null) {
+      gfx.culler.resume();
+    }
+  }
+
+  /**
+   * Paints our contents from our offscreen cache, first rendering them into the cache if they have
+   * changed since it was last rendered.
+   *
+   * @return false if we cannot be cached (because our bounds are unknown, empty or too large), in
+   * which case nothing was painted.
+   */
+  private boolean paintCached(InternalTransform xform, float childAlpha) {
+    if (cacheBounds == null) {
+      cacheBounds = new Rectangle();
+      cacheXform = new HtmlInternalTransform();
+      cacheCapture = gfx.new Capture();
+    }
+    if (!impl.bounds(this, cacheBounds)) {
+      releaseCache();
+      return false;
+    }
+    // align the cache with our pixel grid, so that unscaled content is not resampled
+    int x = (int) Math.floor(cacheBounds.x), y = (int) Math.floor(cacheBounds.y);
+    int width = (int) Math.ceil(cacheBounds.x + cacheBounds.width) - x;
+    int height = (int) Math.ceil(cacheBounds.y + cacheBounds.height) - y;
+    if (width <= 0 || height <= 0 || width > MAX_CACHE_SIZE || height > MAX_CACHE_SIZE) {
+      releaseCache();
+      return false;
+    }
+
+    if (cacheTex == null || width != cacheWidth || height != cacheHeight) {
+      releaseCache();
+      cacheTex = gfx.createTexture(false, false);
+      gfx.gl.texImage2D(TEXTURE_2D, 0, RGBA, width, height, 0, RGBA, UNSIGNED_BYTE, null);
+      cacheFBuf = gfx.createFramebuffer(cacheTex);
+      cacheWidth = width;
+      cacheHeight = height;
+    }
+
+    if (!cacheValid || x != cacheX || y != cacheY || impl.contentsDirty(this) ||
+        cacheCapture.stale()) {
+      // our children are painted into the cache at full alpha; our alpha is applied to the cache
+      cacheXform.setTransform(1, 0, 0, 1, -x, -y);
+      gfx.beginOffscreen(cacheFBuf, width, height, cacheCapture);
+      paintChildren(cacheXform, 1);
+      gfx.endOffscreen();
+      impl.clearRenderDirty(this);
+      cacheX = x;
+      cacheY = y;
+      cacheValid = true;
+    }
+
+    // the cache is upside-down, like a surface, because it was rendered by the same vertex program
+    gfx.drawTexture(cacheTex, width, height, xform, x, y + height, width, -height, false, false,
+                    childAlpha);
+    gfx.inherit(cacheCapture);
+    return true;
+  }
+
+  private void releaseCache() {
+    if (cacheTex != null) {
+      gfx.destroyTexture(cacheTex);
+      gfx.gl.deleteFramebuffer(cacheFBuf);
+      cacheTex = null;
+      cacheFBuf = null;
     }
+    cacheValid = false;
   }
 }
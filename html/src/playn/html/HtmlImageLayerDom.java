@@ -50,8 +50,9 @@ class HtmlImageLayerDom extends HtmlLayerDom implements ImageLayer {
 
   @Override
   public void clearHeight() {
-    heightSet = true;
+    heightSet = false;
     applySize();
+    boundsChanged();
   }
 
   @Override
@@ -62,8 +63,9 @@ class HtmlImageLayerDom extends HtmlLayerDom implements ImageLayer {
 
   @Override
   public void clearWidth() {
-    widthSet = true;
+    widthSet = false;
     applySize();
+    boundsChanged();
   }
 
   @Override
@@ -78,6 +80,7 @@ class HtmlImageLayerDom extends HtmlLayerDom implements ImageLayer {
     heightSet = true;
     this.height = height;
     applySize();
+    boundsChanged();
   }
 
   @Override
@@ -93,12 +96,15 @@ class HtmlImageLayerDom extends HtmlLayerDom implements ImageLayer {
     ImageElement imgElem = htmlImage.img.cast();
     element().getStyle().setBackgroundImage("url(" + imgElem.getSrc() + ")");
     element().getStyle().setOverflow(Overflow.HIDDEN);
+    boundsChanged();
 
     img.addCallback(new ResourceCallback<Image>() {
       @Override
       public void done(Image resource) {
         applySize();
         applyBackgroundSize();
+        // our natural size is not known until the image loads
+        boundsChanged();
       }
 
       @Override
@@ -151,6 +157,7 @@ class HtmlImageLayerDom extends HtmlLayerDom implements ImageLayer {
     widthSet = true;
     this.width = width;
     applySize();
+    boundsChanged();
   }
 
   @Override
@@ -163,6 +170,7 @@ class HtmlImageLayerDom extends HtmlLayerDom implements ImageLayer {
     heightSet = true;
     this.height = height;
     applySize();
+    boundsChanged();
   }
 
   private void applyBackgroundSize() {
@@ -13,10 +13,13 @@
  */
 package playn.html;
 
+import pythagoras.f.Rectangle;
+
 import playn.core.Asserts;
 import playn.core.Image;
 import playn.core.ImageLayer;
 import playn.core.InternalTransform;
+import playn.core.gl.AtlasImage;
 
 import com.google.gwt.dom.client.ImageElement;
 import com.google.gwt.webgl.client.WebGLTexture;
@@ -30,6 +33,7 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
   private boolean repeatX, repeatY;
 
   private HtmlImage img;
+  private AtlasImage atlasImage;
 
   public HtmlImageLayerGL(HtmlGraphicsGL gfx) {
     super(gfx);
@@ -43,21 +47,24 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
   @Override
   public void clearHeight() {
     heightSet = false;
+    boundsChanged();
   }
 
   @Override
   public void clearSourceRect() {
     sourceRectSet = false;
+    renderChanged();
   }
 
   @Override
   public void clearWidth() {
     widthSet = false;
+    boundsChanged();
   }
 
   @Override
   public Image image() {
-    return img;
+    return (atlasImage != null) ? atlasImage : img;
   }
 
   @Override
@@ -66,27 +73,39 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
 
     heightSet = true;
     this.height = height;
+    boundsChanged();
   }
 
   @Override
   public void setImage(Image img) {
-    Asserts.checkArgument(img instanceof HtmlImage);
-
-    this.img = (HtmlImage) img;
+    if (img instanceof AtlasImage) {
+      Asserts.checkState(!repeatX && !repeatY, "Cannot repeat atlas images");
+      this.atlasImage = (AtlasImage) img;
+      this.img = null;
+    } else {
+      Asserts.checkArgument(img instanceof HtmlImage);
+      this.atlasImage = null;
+      this.img = (HtmlImage) img;
+    }
+    boundsChanged();
   }
 
   @Override
   public void setRepeatX(boolean repeat) {
     Asserts.checkArgument(!repeat || !sourceRectSet, "Cannot repeat when source rect is used");
+    Asserts.checkArgument(!repeat || atlasImage == null, "Cannot repeat atlas images");
 
     repeatX = repeat;
+    renderChanged();
   }
 
   @Override
   public void setRepeatY(boolean repeat) {
     Asserts.checkArgument(!repeat || !sourceRectSet, "Cannot repeat when source rect is used");
+    Asserts.checkArgument(!repeat || atlasImage == null, "Cannot repeat atlas images");
 
     repeatY = repeat;
+    renderChanged();
   }
 
   @Override
@@ -98,6 +117,7 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
     this.sy = sy;
     this.sw = sw;
     this.sh = sh;
+    renderChanged();
   }
 
   @Override
@@ -106,6 +126,7 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
 
     widthSet = true;
     this.width = width;
+    boundsChanged();
   }
 
   @Override
@@ -117,6 +138,7 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
     this.width = width;
     heightSet = true;
     this.height = height;
+    boundsChanged();
   }
 
   @Override
@@ -125,19 +147,42 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
 
     // TODO(jgw): Assert exclusive source-rect vs. repeat.
 
+    // atlas images are drawn from a region of their page's texture
+    HtmlImage img = this.img;
+    float ox = 0, oy = 0;
+    if (atlasImage != null) {
+      if (!atlasImage.isReady()) {
+        gfx.noteIncomplete();
+        return;
+      }
+      img = (HtmlImage) atlasImage.page();
+      ox = atlasImage.x();
+      oy = atlasImage.y();
+    }
+
     WebGLTexture tex = img.ensureTexture(gfx, repeatX, repeatY);
+    if (tex == null) {
+      gfx.noteIncomplete();
+    } else if (img instanceof HtmlCanvasImage) {
+      gfx.watch((HtmlCanvas) ((HtmlCanvasImage) img).canvas());
+    }
     if (tex != null) {
       ImageElement elem = img.img;
 
       InternalTransform xform = localTransform(parentTransform);
       float childAlpha = parentAlpha * alpha;
 
-      float width = widthSet ? this.width : elem.getWidth();
-      float height = heightSet ? this.height : elem.getHeight();
+      float width = widthSet ? this.width :
+        (atlasImage != null ? atlasImage.width() : elem.getWidth());
+      float height = heightSet ? this.height :
+        (atlasImage != null ? atlasImage.height() : elem.getHeight());
 
       if (sourceRectSet) {
-        gfx.drawTexture(tex, img.width(), img.height(), xform, 0, 0, width, height, sx, sy, sw, sh,
-            childAlpha);
+        gfx.drawTexture(tex, img.width(), img.height(), xform, 0, 0, width, height,
+            ox + sx, oy + sy, sw, sh, childAlpha);
+      } else if (atlasImage != null) {
+        gfx.drawTexture(tex, img.width(), img.height(), xform, 0, 0, width, height,
+            ox, oy, atlasImage.width(), atlasImage.height(), childAlpha);
       } else {
         gfx.drawTexture(tex, img.width(), img.height(), xform, width, height, repeatX, repeatY,
             childAlpha);
@@ -145,23 +190,28 @@ class HtmlImageLayerGL extends HtmlLayerGL implements ImageLayer {
     }
   }
 
+  @Override
+  public boolean bounds(Rectangle into) {
+    return image() != null && super.bounds(into);
+  }
+
   @Override
   public float width() {
-    Asserts.checkNotNull(img, "Image must not be null");
+    Asserts.checkNotNull(image(), "Image must not be null");
     if (widthSet) {
       return width;
     } else {
-      return img.width();
+      return image().width();
     }
   }
 
   @Override
   public float height() {
-    Asserts.checkNotNull(img, "Image must not be null");
+    Asserts.checkNotNull(image(), "Image must not be null");
     if (heightSet) {
       return height;
     } else {
-      return img.height();
+      return image().height();
     }
   }
 
@@ -24,6 +24,7 @@ import com.google.gwt.user.client.Window;
 import playn.core.Storage;
 import playn.core.Analytics;
 import playn.core.Audio;
+import playn.core.FrameMetrics;
 import playn.core.PlayN;
 import playn.core.Game;
 import playn.core.Graphics;
@@ -138,6 +139,7 @@ public class HtmlPlatform implements Platform {
   private HtmlTouch touch;
   private HtmlStorage storage = new HtmlStorage();
   private HtmlAnalytics analytics = new HtmlAnalytics();
+  private FrameMetrics metrics = new FrameMetrics();
 
   private TimerCallback paintCallback;
   private TimerCallback updateCallback;
@@ -161,7 +163,7 @@ public class HtmlPlatform implements Platform {
      */
     try {
       try {
-        graphics = mode.useGL() ? new HtmlGraphicsGL() : new HtmlGraphicsDom();
+        graphics = mode.useGL() ? new HtmlGraphicsGL(metrics) : new HtmlGraphicsDom();
       } catch (RuntimeException e) {
         // HtmlGraphicsGL ctor throws a runtime exception if the context creation fails.
         log().info("Failed to create GL context. Falling back.");
@@ -242,6 +244,11 @@ public class HtmlPlatform implements Platform {
     return analytics;
   }
 
+  @Override
+  public FrameMetrics metrics() {
+    return metrics;
+  }
+
   @Override
   public float random() {
     return (float) Math.random();
@@ -285,8 +292,13 @@ public class HtmlPlatform implements Platform {
           }
         }
 
+        double updated = time();
+        metrics.add(FrameMetrics.Stat.UPDATE_TIME, (float) (updated - now));
+
         game.paint(accum / updateRate);
         graphics.updateLayers();
+        metrics.add(FrameMetrics.Stat.PAINT_TIME, (float) (time() - updated));
+        metrics.endFrame();
       }
     };
     requestAnimationFrame(paintCallback);
@@ -37,6 +37,7 @@ class HtmlSurfaceGL implements Surface {
   private final List<InternalTransform> transformStack = new ArrayList<InternalTransform>();
 
   private int fillColor;
+  private int version;
   private HtmlPattern fillPattern;
 
   HtmlSurfaceGL(HtmlGraphicsGL gfx, WebGLFramebuffer fbuf, int width, int height) {
@@ -47,9 +48,16 @@ class HtmlSurfaceGL implements Surface {
     transformStack.add(new HtmlInternalTransform());
   }
 
+  /**
+   * Returns a count that changes every time this surface is drawn into.
+   */
+  int version() {
+    return version;
+  }
+
   @Override
   public void clear() {
-    gfx.bindFramebuffer(fbuf, width, height);
+    bind();
 
     gfx.gl.clearColor(0, 0, 0, 0);
     gfx.gl.clear(COLOR_BUFFER_BIT);
@@ -62,7 +70,7 @@ class HtmlSurfaceGL implements Surface {
 
   @Override
   public void drawImage(Image image, float x, float y, float dw, float dh) {
-    gfx.bindFramebuffer(fbuf, width, height);
+    bind();
 
     Asserts.checkArgument(image instanceof HtmlImage);
     HtmlImage himage = (HtmlImage) image;
@@ -79,7 +87,7 @@ class HtmlSurfaceGL implements Surface {
   @Override
   public void drawImage(Image image, float dx, float dy, float dw, float dh, float sx, float sy,
       float sw, float sh) {
-    gfx.bindFramebuffer(fbuf, width, height);
+    bind();
 
     Asserts.checkArgument(image instanceof HtmlImage);
     HtmlImage himage = (HtmlImage) image;
@@ -99,7 +107,7 @@ class HtmlSurfaceGL implements Surface {
 
   @Override
   public void drawLine(float x0, float y0, float x1, float y1, float width) {
-    gfx.bindFramebuffer(fbuf, this.width, this.height);
+    bind();
 
     float dx = x1 - x0, dy = y1 - y0;
     float len = (float) Math.sqrt(dx * dx + dy * dy);
@@ -116,7 +124,7 @@ class HtmlSurfaceGL implements Surface {
 
   @Override
   public void fillRect(float x, float y, float width, float height) {
-    gfx.bindFramebuffer(fbuf, this.width, this.height);
+    bind();
 
     if (fillPattern != null) {
       HtmlImage image = fillPattern.image;
@@ -188,6 +196,11 @@ class HtmlSurfaceGL implements Surface {
     return width;
   }
 
+  private void bind() {
+    gfx.bindFramebuffer(fbuf, width, height);
+    version++;
+  }
+
   private InternalTransform topTransform() {
     return transformStack.get(transformStack.size() - 1);
   }
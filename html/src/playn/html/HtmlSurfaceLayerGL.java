@@ -79,6 +79,7 @@ class HtmlSurfaceLayerGL extends HtmlLayerGL implements SurfaceLayer {
     //  which flips vertically to put the origin at the top-left).
     gfx.drawTexture(tex, width, height, localTransform(parentTransform),
                     0, height, width, -height, false, false, parentAlpha * alpha);
+    gfx.watch(surface);
   }
 
   @Override
@@ -95,11 +96,11 @@ class HtmlSurfaceLayerGL extends HtmlLayerGL implements SurfaceLayer {
 
   @Override
   public float scaledWidth() {
-    return transform().scaleX() * width();
+    return transform.scaleX() * width();
   }
 
   @Override
   public float scaledHeight() {
-    return transform().scaleY() * height();
+    return transform.scaleY() * height();
   }
 }
@@ -39,6 +39,18 @@ public interface HtmlUrlParameters {
     }
   }
 
+  /**
+   * Enables the counting of GL calls (see {@link HtmlGraphics#glStats}), e.g. {@code ?countgl}.
+   * Counting slows rendering, so it is disabled by default.
+   */
+  public static class CountGL {
+    public static final String PARAM_NAME = "countgl";
+
+    static boolean shouldCount() {
+      return Window.Location.getParameter(PARAM_NAME) != null;
+    }
+  }
+
   /**
    * This interface serves solely as documentation for the URL parameter implemented by gwt-log.
    */
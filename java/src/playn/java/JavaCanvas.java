@@ -29,13 +29,57 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 
 class JavaCanvas implements Canvas {
 
-  final Graphics2D gfx;
-  private final int width, height;
+  /**
+   * The canvas images drawn into a canvas while capturing (see {@link JavaCanvas#capture}), which
+   * tells us when the result of that drawing has become stale.
+   */
+  static class Capture {
+    /**
+     * Returns true if any of the images drawn during this capture have since been drawn into.
+     */
+    boolean stale() {
+      for (int ii = 0, ll = images.size(); ii < ll; ii++) {
+        if (images.get(ii).canvasVersion() != versions.get(ii)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void reset() {
+      images.clear();
+      versions.clear();
+    }
+
+    void addAll(Capture other) {
+      images.addAll(other.images);
+      versions.addAll(other.versions);
+    }
+
+    void add(JavaImage image) {
+      // images without a canvas can't be drawn into
+      if (image.hasCanvas()) {
+        images.add(image);
+        versions.add(image.canvasVersion());
+      }
+    }
+
+    private final List<JavaImage> images = new ArrayList<JavaImage>();
+    private final List<Integer> versions = new ArrayList<Integer>();
+  }
+
+  Graphics2D gfx;
+  /** Notes the canvas images drawn into this canvas, if non-null. */
+  Capture capture;
+  private int version;
+  private int width, height;
   private Deque<JavaCanvasState> stateStack = new LinkedList<JavaCanvasState>();
 
   private Ellipse2D.Float ellipse = new Ellipse2D.Float();
@@ -43,11 +87,20 @@ class JavaCanvas implements Canvas {
   private Rectangle2D.Float rect = new Rectangle2D.Float();
 
   JavaCanvas(Graphics2D graphics, int width, int height) {
+    reset(graphics, width, height);
+  }
+
+  /**
+   * Redirects this canvas to draw into {@code graphics}, and restores it to its default state.
+   * This allows a single canvas to draw into a new graphics context each frame.
+   */
+  void reset(Graphics2D graphics, int width, int height) {
     this.gfx = graphics;
     this.width = width;
     this.height = height;
 
     // push default state
+    stateStack.clear();
     stateStack.push(new JavaCanvasState());
 
     // All clears go to rgba(0,0,0,0).
@@ -60,6 +113,7 @@ class JavaCanvas implements Canvas {
 
   public void clear() {
     gfx.clearRect(0, 0, width, height);
+    version++;
   }
 
   @Override
@@ -71,8 +125,9 @@ class JavaCanvas implements Canvas {
   public void drawImage(Image img, float x, float y) {
     Asserts.checkArgument(img instanceof JavaImage);
     JavaImage jimg = (JavaImage) img;
+    if (capture != null) capture.add(jimg);
 
-    currentState().prepareFill(gfx);
+    prepareFill();
     int dx = (int) x, dy = (int) y, w = jimg.width(), h = jimg.height();
     gfx.drawImage(jimg.img, dx, dy, dx + w, dy + h, 0, 0, w, h, null);
   }
@@ -84,11 +139,12 @@ class JavaCanvas implements Canvas {
   public void drawImage(Image img, float x, float y, float w, float h) {
     Asserts.checkArgument(img instanceof JavaImage);
     JavaImage jimg = (JavaImage) img;
+    if (capture != null) capture.add(jimg);
 
     // For non-integer scaling, we have to use AffineTransform.
     AffineTransform tx = new AffineTransform(w / jimg.width(), 0f, 0f, h / jimg.height(), x, y);
 
-    currentState().prepareFill(gfx);
+    prepareFill();
     gfx.drawImage(jimg.img, tx, null);
   }
 
@@ -97,42 +153,43 @@ class JavaCanvas implements Canvas {
                         float sx, float sy, float sw, float sh) {
     Asserts.checkArgument(img instanceof JavaImage);
     JavaImage jimg = (JavaImage) img;
+    if (capture != null) capture.add(jimg);
 
     // TODO: use AffineTransform here as well?
 
-    currentState().prepareFill(gfx);
+    prepareFill();
     gfx.drawImage(jimg.img, (int)dx, (int)dy, (int)(dx + dw), (int)(dy + dh),
                   (int)sx, (int)sy, (int)(sx + sw), (int)(sy + sh), null);
   }
 
   @Override
   public void drawLine(float x0, float y0, float x1, float y1) {
-    currentState().prepareStroke(gfx);
+    prepareStroke();
     line.setLine(x0, y0, x1, y1);
     gfx.draw(line);
   }
 
   @Override
   public void drawPoint(float x, float y) {
-    currentState().prepareStroke(gfx);
+    prepareStroke();
     gfx.drawLine((int) x, (int) y, (int) x, (int) y);
   }
 
   @Override
   public void drawText(String text, float x, float y) {
-    currentState().prepareFill(gfx);
+    prepareFill();
     gfx.drawString(text, x, y);
   }
 
   @Override
   public void drawText(TextLayout layout, float x, float y) {
-    currentState().prepareFill(gfx);
+    prepareFill();
     ((JavaTextLayout)layout).paint(gfx, x, y);
   }
 
   @Override
   public void fillCircle(float x, float y, float radius) {
-    currentState().prepareFill(gfx);
+    prepareFill();
     ellipse.setFrame(x - radius, y - radius, 2 * radius, 2 * radius);
     gfx.fill(ellipse);
   }
@@ -141,13 +198,13 @@ class JavaCanvas implements Canvas {
   public void fillPath(Path path) {
     Asserts.checkArgument(path instanceof JavaPath);
 
-    currentState().prepareFill(gfx);
+    prepareFill();
     gfx.fill(((JavaPath) path).path);
   }
 
   @Override
   public void fillRect(float x, float y, float width, float height) {
-    currentState().prepareFill(gfx);
+    prepareFill();
     rect.setRect(x, y, width, height);
     gfx.fill(rect);
   }
@@ -157,6 +214,13 @@ class JavaCanvas implements Canvas {
     return height;
   }
 
+  /**
+   * Returns a count that changes every time this canvas is drawn into.
+   */
+  int version() {
+    return version;
+  }
+
   @Override
   public void restore() {
     stateStack.pop();
@@ -248,21 +312,21 @@ class JavaCanvas implements Canvas {
 
   @Override
   public void strokeCircle(float x, float y, float radius) {
-    currentState().prepareStroke(gfx);
+    prepareStroke();
     ellipse.setFrame(x - radius, y - radius, 2 * radius, 2 * radius);
     gfx.draw(ellipse);
   }
 
   @Override
   public void strokePath(Path path) {
-    currentState().prepareStroke(gfx);
+    prepareStroke();
     gfx.setColor(new Color(currentState().strokeColor, false));
     gfx.draw(((JavaPath) path).path);
   }
 
   @Override
   public void strokeRect(float x, float y, float width, float height) {
-    currentState().prepareStroke(gfx);
+    prepareStroke();
     rect.setRect(x, y, width, height);
     gfx.draw(rect);
   }
@@ -282,6 +346,16 @@ class JavaCanvas implements Canvas {
     return width;
   }
 
+  private void prepareFill() {
+    currentState().prepareFill(gfx);
+    version++;
+  }
+
+  private void prepareStroke() {
+    currentState().prepareStroke(gfx);
+    version++;
+  }
+
   private JavaCanvasState currentState() {
     return stateStack.getFirst();
   }
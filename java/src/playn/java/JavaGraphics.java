@@ -18,6 +18,7 @@ package playn.java;
 import playn.core.Asserts;
 import playn.core.CanvasImage;
 import playn.core.CanvasLayer;
+import playn.core.Culler;
 import playn.core.Font;
 import playn.core.Gradient;
 import playn.core.Graphics;
@@ -32,6 +33,9 @@ import playn.core.TextLayout;
 
 import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 
 import javax.swing.JFrame;
@@ -41,11 +45,26 @@ class JavaGraphics implements Graphics {
   private final Component component;
   private final JavaGroupLayer rootLayer;
   private final JFrame frame;
+  private final Culler culler = new Culler();
+
+  // the image into which we render when headless, and a canvas that draws into it
+  private BufferedImage offscreen;
+  private JavaCanvas offscreenCanvas;
 
   JavaGraphics(JFrame frame, Component component) {
     this.frame = frame;
     this.component = component;
-    this.rootLayer = new JavaGroupLayer();
+    this.rootLayer = new JavaGroupLayer(culler);
+  }
+
+  /**
+   * Creates headless graphics, which render into an offscreen image of the specified size.
+   */
+  JavaGraphics(int width, int height) {
+    this.frame = null;
+    this.component = null;
+    this.rootLayer = new JavaGroupLayer(culler);
+    setOffscreenSize(width, height);
   }
 
   @Override
@@ -55,7 +74,7 @@ class JavaGraphics implements Graphics {
 
   @Override
   public GroupLayer createGroupLayer() {
-    return new JavaGroupLayer();
+    return new JavaGroupLayer(culler);
   }
 
   @Override
@@ -111,34 +130,89 @@ class JavaGraphics implements Graphics {
 
   @Override
   public TextLayout layoutText(String text, TextFormat format) {
-    return new JavaTextLayout(frame, text, format);
+    return new JavaTextLayout(fontRenderContext(), text, format);
   }
 
   @Override
   public int screenWidth() {
     // TODO: Do we actually want to return the true screen width?
-    return component.getWidth();
+    return width();
   }
 
   @Override
   public int screenHeight() {
     // TODO: Do we actually want to return the true screen height?
-    return component.getHeight();
+    return height();
   }
 
   @Override
   public int width() {
-    return component.getWidth();
+    return (component == null) ? offscreen.getWidth() : component.getWidth();
   }
 
   @Override
   public int height() {
-    return component.getHeight();
+    return (component == null) ? offscreen.getHeight() : component.getHeight();
   }
 
   @Override
   public void setSize(int width, int height) {
-    component.setPreferredSize(new Dimension(width, height));
-    frame.pack();
+    if (component == null) {
+      setOffscreenSize(width, height);
+    } else {
+      component.setPreferredSize(new Dimension(width, height));
+      frame.pack();
+    }
+  }
+
+  @Override
+  public int culledLayerCount() {
+    return culler.culled();
+  }
+
+  /**
+   * Returns the number of layers visited by the most recent call to {@link #paintLayers}.
+   */
+  int visitedLayerCount() {
+    // the root is painted directly, so the culler doesn't see it
+    return culler.visited() + 1;
+  }
+
+  void paintLayers(JavaCanvas canvas) {
+    // layers are culled in device space, so transform the canvas bounds into device space
+    Rectangle2D view = canvas.gfx.getTransform().createTransformedShape(
+      new Rectangle2D.Float(0, 0, canvas.width(), canvas.height())).getBounds2D();
+    culler.reset((float) view.getX(), (float) view.getY(),
+                 (float) view.getWidth(), (float) view.getHeight());
+    rootLayer.paint(canvas);
+  }
+
+  /**
+   * Returns the image into which headless graphics render, or null if we're not headless.
+   */
+  BufferedImage offscreen() {
+    return offscreen;
+  }
+
+  /**
+   * Clears the offscreen image and paints the layers into it. Used when headless.
+   */
+  void paintOffscreen() {
+    offscreenCanvas.clear();
+    paintLayers(offscreenCanvas);
+  }
+
+  private void setOffscreenSize(int width, int height) {
+    offscreen = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    offscreenCanvas = new JavaCanvas(offscreen.createGraphics(), width, height);
+  }
+
+  private FontRenderContext fontRenderContext() {
+    Graphics2D gfx = (Graphics2D) (frame == null ? offscreen.getGraphics() : frame.getGraphics());
+    try {
+      return gfx.getFontRenderContext();
+    } finally {
+      gfx.dispose();
+    }
   }
 }
@@ -15,15 +15,40 @@
  */
 package playn.java;
 
+import java.awt.geom.AffineTransform;
+import java.util.Collection;
+
+import static playn.core.PlayN.graphics;
+
+import pythagoras.f.Rectangle;
+
 import playn.core.Asserts;
+import playn.core.Culler;
 import playn.core.GroupLayer;
 import playn.core.GroupLayerImpl;
 import playn.core.Layer;
 import playn.core.ParentLayer;
+import playn.core.StockInternalTransform;
 
 class JavaGroupLayer extends JavaLayer implements GroupLayer, ParentLayer {
 
+  // cached groups larger than this (in either dimension) are painted normally
+  private static final int MAX_CACHE_SIZE = 2048;
+
   private GroupLayerImpl<JavaLayer> impl = new GroupLayerImpl<JavaLayer>();
+  private final Culler culler;
+  private final StockInternalTransform xform = new StockInternalTransform();
+
+  // the offscreen cache of our contents, if we're cached
+  private JavaImage cacheImage;
+  private JavaCanvas.Capture cacheCapture;
+  private Rectangle cacheBounds;
+  private int cacheX, cacheY;
+  private boolean cacheValid;
+
+  JavaGroupLayer(Culler culler) {
+    this.culler = culler;
+  }
 
   @Override
   public Layer get(int index) {
@@ -42,6 +67,14 @@ class JavaGroupLayer extends JavaLayer implements GroupLayer, ParentLayer {
     impl.add(this, index, (JavaLayer) layer);
   }
 
+  @Override
+  public void addAll(Collection<? extends Layer> layers) {
+    for (Layer layer : layers) {
+      Asserts.checkArgument(layer instanceof JavaLayer);
+    }
+    impl.addAll(this, layers);
+  }
+
   @Override
   public void remove(Layer layer) {
     Asserts.checkArgument(layer instanceof JavaLayer);
@@ -53,6 +86,11 @@ class JavaGroupLayer extends JavaLayer implements GroupLayer, ParentLayer {
     impl.remove(this, index);
   }
 
+  @Override
+  public void removeAll(Collection<? extends Layer> layers) {
+    impl.removeAll(this, layers);
+  }
+
   @Override
   public void clear() {
     impl.clear(this);
@@ -63,10 +101,35 @@ class JavaGroupLayer extends JavaLayer implements GroupLayer, ParentLayer {
     return impl.children.size();
   }
 
+  @Override
+  public boolean frozen() {
+    return impl.frozen;
+  }
+
+  @Override
+  public void setFrozen(boolean frozen) {
+    // we don't record render lists, so frozen groups are painted normally
+    impl.frozen = frozen;
+  }
+
+  @Override
+  public boolean cached() {
+    return impl.cached;
+  }
+
+  @Override
+  public void setCached(boolean cached) {
+    impl.cached = cached;
+    if (!cached) {
+      releaseCache();
+    }
+  }
+
   @Override
   public void destroy() {
     super.destroy();
     impl.destroy(this);
+    setCached(false);
   }
 
   @Override
@@ -83,7 +146,12 @@ class JavaGroupLayer extends JavaLayer implements GroupLayer, ParentLayer {
 
   @Override
   public void depthChanged(Layer layer, float oldDepth) {
-    impl.depthChanged(this, layer, oldDepth);
+    impl.depthChangedDeferred(this, layer, oldDepth);
+  }
+
+  @Override
+  public boolean bounds(Rectangle into) {
+    return impl.bounds(this, into);
   }
 
   @Override
@@ -93,9 +161,84 @@ class JavaGroupLayer extends JavaLayer implements GroupLayer, ParentLayer {
     surf.save();
     transform(surf);
     surf.setAlpha(surf.alpha() * alpha);
+    if (!impl.cached || !paintCached(surf)) {
+      paintChildren(surf);
+    }
+    surf.restore();
+  }
+
+  private void paintChildren(JavaCanvas surf) {
+    // note our transform to device space, against which our children are culled
+    AffineTransform at = surf.gfx.getTransform();
+    xform.setTransform((float) at.getScaleX(), (float) at.getShearY(), (float) at.getShearX(),
+                       (float) at.getScaleY(), (float) at.getTranslateX(),
+                       (float) at.getTranslateY());
     for (JavaLayer child : impl.children) {
+      if (culler.cull(child, xform)) continue;
       child.paint(surf);
     }
-    surf.restore();
+  }
+
+  /**
+   * Paints our contents from our offscreen cache, first rendering them into the cache if they have
+   * changed since it was last rendered.
+   *
+   * @return false if we cannot be cached (because our bounds are unknown, empty or too large), in
+   * which case nothing was painted.
+   */
+  private boolean paintCached(JavaCanvas surf) {
+    if (cacheBounds == null) {
+      cacheBounds = new Rectangle();
+      cacheCapture = new JavaCanvas.Capture();
+    }
+    if (!impl.bounds(this, cacheBounds)) {
+      releaseCache();
+      return false;
+    }
+    // align the cache with our pixel grid, so that unscaled content is not resampled
+    int x = (int) Math.floor(cacheBounds.x), y = (int) Math.floor(cacheBounds.y);
+    int width = (int) Math.ceil(cacheBounds.x + cacheBounds.width) - x;
+    int height = (int) Math.ceil(cacheBounds.y + cacheBounds.height) - y;
+    if (width <= 0 || height <= 0 || width > MAX_CACHE_SIZE || height > MAX_CACHE_SIZE) {
+      releaseCache();
+      return false;
+    }
+
+    if (cacheImage == null || width != cacheImage.width() || height != cacheImage.height()) {
+      cacheImage = (JavaImage) graphics().createImage(width, height);
+      cacheValid = false;
+    }
+
+    if (!cacheValid || x != cacheX || y != cacheY || impl.contentsDirty(this) ||
+        cacheCapture.stale()) {
+      // our children are painted into the cache at full alpha; our alpha is applied to the cache
+      JavaCanvas cache = (JavaCanvas) cacheImage.canvas();
+      cache.clear();
+      cache.save();
+      cache.translate(-x, -y);
+      cacheCapture.reset();
+      cache.capture = cacheCapture;
+      culler.suspend();
+      paintChildren(cache);
+      culler.resume();
+      cache.capture = null;
+      cache.restore();
+      impl.clearRenderDirty(this);
+      cacheX = x;
+      cacheY = y;
+      cacheValid = true;
+    }
+
+    surf.drawImage(cacheImage, x, y);
+    if (surf.capture != null) {
+      // anything that invalidates our cache also invalidates the one we're being painted into
+      surf.capture.addAll(cacheCapture);
+    }
+    return true;
+  }
+
+  private void releaseCache() {
+    cacheImage = null;
+    cacheValid = false;
   }
 }
@@ -52,6 +52,17 @@ class JavaImage implements CanvasImage {
     return canvas;
   }
 
+  boolean hasCanvas() {
+    return canvas != null;
+  }
+
+  /**
+   * Returns a count that changes every time this image's canvas is drawn into.
+   */
+  int canvasVersion() {
+    return (canvas == null) ? 0 : canvas.version();
+  }
+
   @Override
   public void replaceWith(Image img) {
     Asserts.checkArgument(img instanceof JavaImage);
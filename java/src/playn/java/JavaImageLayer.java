@@ -20,6 +20,8 @@ import java.awt.geom.Rectangle2D;
 
 import static playn.core.PlayN.graphics;
 
+import pythagoras.f.Rectangle;
+
 import playn.core.Asserts;
 import playn.core.Image;
 import playn.core.ImageLayer;
@@ -48,16 +50,19 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
   @Override
   public void clearHeight() {
     heightSet = false;
+    boundsChanged();
   }
 
   @Override
   public void clearSourceRect() {
     sourceRectSet = false;
+    renderChanged();
   }
 
   @Override
   public void clearWidth() {
     widthSet = false;
+    boundsChanged();
   }
 
   @Override
@@ -74,6 +79,7 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
       this.height = height;
       dirty = true;
     }
+    boundsChanged();
   }
 
   @Override
@@ -81,6 +87,7 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
     Asserts.checkArgument(image instanceof JavaImage);
     this.image = (JavaImage) image;
     dirty = true;
+    boundsChanged();
   }
 
   @Override
@@ -91,6 +98,7 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
       repeatX = repeat;
       dirty = true;
     }
+    renderChanged();
   }
 
   @Override
@@ -101,6 +109,7 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
       repeatY = repeat;
       dirty = true;
     }
+    renderChanged();
   }
 
   @Override
@@ -112,6 +121,7 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
     this.sy = sy;
     this.sw = sw;
     this.sh = sh;
+    renderChanged();
   }
 
   @Override
@@ -123,6 +133,7 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
       this.width = width;
       dirty = true;
     }
+    boundsChanged();
   }
 
   @Override
@@ -140,6 +151,7 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
       this.height = height;
       dirty = true;
     }
+    boundsChanged();
   }
 
   @Override
@@ -178,6 +190,11 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
     canvas.restore();
   }
 
+  @Override
+  public boolean bounds(Rectangle into) {
+    return image() != null && super.bounds(into);
+  }
+
   @Override
   public float width() {
     Asserts.checkNotNull(image, "Image must not be null");
@@ -200,11 +217,11 @@ class JavaImageLayer extends JavaLayer implements ImageLayer {
 
   @Override
   public float scaledWidth() {
-    return transform().scaleX() * width();
+    return transform.scaleX() * width();
   }
 
   @Override
   public float scaledHeight() {
-    return transform().scaleY() * height();
+    return transform.scaleY() * height();
   }
 }
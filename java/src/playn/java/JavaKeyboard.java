@@ -26,6 +26,12 @@ class JavaKeyboard implements Keyboard {
 
   private Listener listener;
 
+  /**
+   * Creates a keyboard that receives no events, for use by headless platforms.
+   */
+  JavaKeyboard() {
+  }
+
   JavaKeyboard(JFrame frame) {
     frame.addKeyListener(new KeyListener() {
       public void keyPressed(KeyEvent nativeEvent) {
@@ -21,7 +21,7 @@ import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 
-import javax.swing.JComponent;
+import java.awt.Component;
 
 import playn.core.Mouse;
 
@@ -29,7 +29,13 @@ class JavaMouse implements Mouse {
 
   private Listener listener;
 
-  JavaMouse(JComponent frame) {
+  /**
+   * Creates a mouse that receives no events, for use by headless platforms.
+   */
+  JavaMouse() {
+  }
+
+  JavaMouse(Component frame) {
     frame.addMouseMotionListener(new MouseMotionListener() {
       public void mouseDragged(MouseEvent nativeEvent) {
         // mouseMoved(MouseEvent) does not fire when dragged
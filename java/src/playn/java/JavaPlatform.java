@@ -15,16 +15,24 @@
  */
 package playn.java;
 
+import java.awt.Canvas;
 import java.awt.Dimension;
-import java.awt.Graphics;
+import java.awt.DisplayMode;
+import java.awt.EventQueue;
 import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Random;
 
-import javax.swing.JComponent;
 import javax.swing.JFrame;
 
 import playn.core.Analytics;
+import playn.core.Asserts;
 import playn.core.Audio;
+import playn.core.FrameMetrics;
 import playn.core.PlayN;
 import playn.core.Game;
 import playn.core.Json;
@@ -39,16 +47,35 @@ import playn.core.Storage;
 import playn.core.RegularExpression;
 
 public class JavaPlatform implements Platform {
+
+  /**
+   * Controls how often a windowed platform paints. See {@link JavaPlatform#setPacing}.
+   */
+  public enum Pacing {
+    /** Paints at the refresh rate of the display (or 60 FPS if that is unknown). Java2D offers no
+     * means of synchronizing with the display's vertical retrace, so this only approximates
+     * vsync. This is the default. */
+    VSYNC,
+    /** Paints at the rate specified by {@link JavaPlatform#setFrameRate}. */
+    FIXED,
+    /** Paints as often as possible. */
+    UNCAPPED
+  }
+
   // Maximum delta time to consider between update() calls (in milliseconds). If the delta between
   // two update()s is greater than MAX_DELTA, we clamp to MAX_DELTA.
   private static final float MAX_DELTA = 100;
 
-  // Minimum time between any two paint() calls (in milliseconds). We will paint every
-  // FRAME_TIME ms, which is equivalent to (1000 * 1 / FRAME_TIME) frames per second.
-  // TODO(pdr): this is set ridiculously low because we're using Java's software renderer which
-  // causes the paint loop to be quite slow. Setting this to 10 prevents hitching that occurs when
-  // we try to squeeze a paint() near max bound of FRAME_TIME.
-  private static final float FRAME_TIME = 10;
+  // The frame rate used when pacing to a display whose refresh rate is unknown.
+  private static final int DEFAULT_FRAME_RATE = 60;
+
+  // When waiting for the next frame, we sleep until this close to the deadline (in nanoseconds),
+  // and then yield, because sleep() is not precise.
+  private static final long SPIN_NANOS = 2000000;
+
+  // The simulated time between updates of a headless game that doesn't specify an update rate
+  // (in milliseconds).
+  private static final float HEADLESS_STEP = 1000 / 60f;
 
   public static JavaPlatform register() {
     JavaPlatform platform = new JavaPlatform();
@@ -57,7 +84,25 @@ public class JavaPlatform implements Platform {
     return platform;
   }
 
-  private JComponent component;
+  /**
+   * Registers a headless platform, which creates no window and renders the layer tree into an
+   * offscreen image of the specified size (see {@link #offscreenImage}). This is suitable for
+   * servers and automated builds (including those running with {@code -Djava.awt.headless=true}).
+   *
+   * <p>A headless platform runs its game as fast as possible, with a fixed time step: every frame
+   * updates the game once, by its update rate (or 1/60th of a second if it has none), and then
+   * paints it. {@link #time} reports simulated time, which advances by the same step every frame,
+   * so a headless game behaves identically from run to run regardless of the speed of the machine.
+   * {@link #run} returns once the game calls {@link #stop}. There is no input.</p>
+   */
+  public static JavaPlatform registerHeadless(int width, int height) {
+    JavaPlatform platform = new JavaPlatform(width, height);
+    PlayN.setPlatform(platform);
+    platform.init();
+    return platform;
+  }
+
+  private Canvas component;
   private JFrame frame;
   private Game game;
 
@@ -75,8 +120,24 @@ public class JavaPlatform implements Platform {
 
   private int updateRate = 0;
   private Analytics analytics = new JavaAnalytics();
+  private FrameMetrics metrics = new FrameMetrics();
+  private Random random = new Random();
+
+  // the state of our game loop
+  private final boolean headless;
+  private volatile boolean stopped;
+  private volatile Pacing pacing = Pacing.VSYNC;
+  private volatile int frameRate = DEFAULT_FRAME_RATE;
+  private final long startMillis = System.currentTimeMillis(), startNanos = System.nanoTime();
+  private double simTime;
+  private int frames;
+  private float accum;
+  private long lastUpdateNanos;
+  private BufferStrategy strategy;
+  private JavaCanvas canvas;
 
   private JavaPlatform() {
+    headless = false;
     ensureFrame();
     graphics = new JavaGraphics(frame, component);
     keyboard = new JavaKeyboard(frame);
@@ -84,6 +145,14 @@ public class JavaPlatform implements Platform {
     mouse = new JavaMouse(component);
   }
 
+  private JavaPlatform(int width, int height) {
+    headless = true;
+    graphics = new JavaGraphics(width, height);
+    keyboard = new JavaKeyboard();
+    pointer = new JavaPointer();
+    mouse = new JavaMouse();
+  }
+
   private void init() {
     storage.init();
   }
@@ -144,6 +213,15 @@ public class JavaPlatform implements Platform {
     return analytics;
   }
   
+  /**
+   * Returns the metrics recorded by our game loop. Java2D issues no GPU work, so only the update
+   * and paint times and the number of layers visited are recorded.
+   */
+  @Override
+  public FrameMetrics metrics() {
+    return metrics;
+  }
+
   @Override
   public JavaAssetManager assetManager() {
     return assetManager;
@@ -151,7 +229,15 @@ public class JavaPlatform implements Platform {
 
   @Override
   public float random() {
-    return (float) Math.random();
+    return random.nextFloat();
+  }
+
+  /**
+   * Seeds the generator used by {@link #random}, so that a game (or benchmark) that obtains all
+   * of its random numbers therefrom behaves identically from run to run.
+   */
+  public void setRandomSeed(long seed) {
+    random = new Random(seed);
   }
 
   @Override
@@ -160,12 +246,64 @@ public class JavaPlatform implements Platform {
     this.game = game;
 
     game.init();
-    frame.setVisible(true);
+    if (headless) {
+      runHeadless();
+    } else {
+      frame.setVisible(true);
+      component.createBufferStrategy(2);
+      strategy = component.getBufferStrategy();
+      new Thread("PlayN game loop") {
+        @Override public void run() {
+          runLoop();
+        }
+      }.start();
+    }
   }
 
   @Override
   public double time() {
-    return System.currentTimeMillis();
+    // we report wall-clock time, at the resolution of the high resolution timer
+    return headless ? simTime : startMillis + (System.nanoTime() - startNanos) / 1e6;
+  }
+
+  /**
+   * Sets how often a windowed platform paints. Updates are not affected by pacing: they occur
+   * at the game's update rate, regardless of how often the game is painted.
+   */
+  public void setPacing(Pacing pacing) {
+    this.pacing = pacing;
+  }
+
+  /**
+   * Sets the number of frames per second painted by a windowed platform whose pacing is {@link
+   * Pacing#FIXED}.
+   */
+  public void setFrameRate(int frameRate) {
+    Asserts.checkArgument(frameRate > 0, "Frame rate must be > 0 (got %s)", frameRate);
+    this.frameRate = frameRate;
+  }
+
+  /**
+   * Stops the game loop once the current frame is complete. A headless platform's {@link #run}
+   * returns at that point.
+   */
+  public void stop() {
+    stopped = true;
+  }
+
+  /**
+   * Returns the image into which a headless platform renders, or null if this platform is not
+   * headless. The image contains the most recently painted frame.
+   */
+  public BufferedImage offscreenImage() {
+    return graphics.offscreen();
+  }
+
+  /**
+   * Returns the number of frames that have been painted.
+   */
+  public int frames() {
+    return frames;
   }
   
   @Override
@@ -176,69 +314,145 @@ public class JavaPlatform implements Platform {
   private void ensureFrame() {
     frame = new JFrame();
     frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    frame.setIgnoreRepaint(true);
 
-    component = new JComponent() {
-      private float accum = updateRate;
-      private double lastUpdateTime;
-      private double lastPaintTime;
-      private boolean isPaintDirty;
-
-      @Override
-      public void paint(Graphics g) {
-        isPaintDirty = false; // clean by default
-
-        if (game != null) {
-          double now = time();
-          float updateDelta = (float)(now - lastUpdateTime);
-          if (updateDelta > 1) {
-            updateDelta = updateDelta > MAX_DELTA ? MAX_DELTA : updateDelta;
-            lastUpdateTime = now;
-
-            if (updateRate == 0) {
-              game.update(updateDelta);
-              accum = 0;
-              isPaintDirty = true; // we made a mess
-            } else {
-              accum += updateDelta;
-              while (accum > updateRate) {
-                game.update(updateRate);
-                accum -= updateRate;
-                isPaintDirty = true; // we made a mess
-              }
-            }
-          }
+    // we paint actively, from our game loop, rather than in response to repaint requests
+    component = new Canvas();
+    component.setIgnoreRepaint(true);
+    component.setFocusable(false); // our keyboard listens to the frame
+    frame.add(component);
+    frame.setResizable(false);
+
+    component.setPreferredSize(new Dimension(640, 480));
+    frame.pack();
+  }
 
-          float paintDelta = (float)(now - lastPaintTime);
-          if (isPaintDirty || paintDelta > FRAME_TIME) {
-            if (updateRate == 0) {
-              game.paint(0);
-            } else {
-              game.paint(accum / updateRate);
-            }
+  private void runLoop() {
+    // each frame is run on the AWT event thread, so that the game is never called concurrently
+    // with the input listeners; only the pacing of frames is done on this thread
+    Runnable frameRunner = new Runnable() {
+      public void run() {
+        frame();
+      }
+    };
+    lastUpdateNanos = System.nanoTime();
+    long nextFrame = lastUpdateNanos;
+    while (!stopped) {
+      try {
+        EventQueue.invokeAndWait(frameRunner);
+      } catch (InterruptedException e) {
+        return;
+      } catch (InvocationTargetException e) {
+        log.error("Game loop terminated by exception", e.getCause());
+        return;
+      }
 
-            int width = component.getWidth();
-            int height = component.getHeight();
-            JavaCanvas canvas = new JavaCanvas((Graphics2D) g, width, height);
-            graphics.rootLayer().paint(canvas);
+      long frameNanos = frameNanos();
+      if (frameNanos > 0) {
+        nextFrame += frameNanos;
+        long now = System.nanoTime();
+        if (nextFrame < now - frameNanos) {
+          // we've fallen more than a frame behind; don't try to catch up
+          nextFrame = now;
+        }
+        waitUntil(nextFrame);
+      }
+    }
+  }
 
-            lastPaintTime = now;
+  private void frame() {
+    long now = System.nanoTime();
+    float delta = Math.min((now - lastUpdateNanos) / 1e6f, MAX_DELTA);
+    lastUpdateNanos = now;
+    float alpha = 0;
+    if (updateRate == 0) {
+      game.update(delta);
+    } else {
+      accum += delta;
+      while (accum >= updateRate) {
+        game.update(updateRate);
+        accum -= updateRate;
+      }
+      alpha = accum / updateRate;
+    }
+    long updated = System.nanoTime();
+    metrics.add(FrameMetrics.Stat.UPDATE_TIME, (updated - now) / 1e6f);
+    game.paint(alpha);
+
+    int width = component.getWidth(), height = component.getHeight();
+    do {
+      do {
+        Graphics2D gfx = (Graphics2D) strategy.getDrawGraphics();
+        try {
+          if (canvas == null) {
+            canvas = new JavaCanvas(gfx, width, height);
+          } else {
+            canvas.reset(gfx, width, height);
           }
+          canvas.clear();
+          graphics.paintLayers(canvas);
+        } finally {
+          gfx.dispose();
         }
+      } while (strategy.contentsRestored());
+      strategy.show();
+    } while (strategy.contentsLost());
+    // flush the window system's queue, otherwise frames may be presented in bursts
+    Toolkit.getDefaultToolkit().sync();
+    endFrame(updated);
+  }
+
+  /**
+   * Returns the target time between frames, in nanoseconds, or 0 if frames are not paced.
+   */
+  private long frameNanos() {
+    switch (pacing) {
+    case VSYNC:
+      DisplayMode mode = frame.getGraphicsConfiguration().getDevice().getDisplayMode();
+      int refreshRate = mode.getRefreshRate();
+      return 1000000000L / (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ?
+                            DEFAULT_FRAME_RATE : refreshRate);
+    case FIXED:
+      return 1000000000L / frameRate;
+    default:
+      return 0;
+    }
+  }
 
+  private static void waitUntil(long deadline) {
+    long remain;
+    while ((remain = deadline - System.nanoTime()) > 0) {
+      if (remain > SPIN_NANOS) {
         try {
-          Thread.sleep(1L);
+          Thread.sleep((remain - SPIN_NANOS) / 1000000);
         } catch (InterruptedException e) {
-          // ignore
+          return;
         }
-        repaint();
+      } else {
+        Thread.yield();
       }
-    };
-    component.setOpaque(true); // ensures graphics context is not cleared automatically
-    frame.add(component);
-    frame.setResizable(false);
+    }
+  }
 
-    component.setPreferredSize(new Dimension(640, 480));
-    frame.pack();
+  private void runHeadless() {
+    float step = (updateRate == 0) ? HEADLESS_STEP : updateRate;
+    while (!stopped) {
+      simTime += step;
+      long start = System.nanoTime();
+      game.update(step);
+      long updated = System.nanoTime();
+      metrics.add(FrameMetrics.Stat.UPDATE_TIME, (updated - start) / 1e6f);
+      game.paint(0);
+      graphics.paintOffscreen();
+      endFrame(updated);
+    }
+  }
+
+  private void endFrame(long paintStartNanos) {
+    metrics.add(FrameMetrics.Stat.PAINT_TIME, (System.nanoTime() - paintStartNanos) / 1e6f);
+    metrics.add(FrameMetrics.Stat.LAYERS, graphics.visitedLayerCount());
+    metrics.endFrame();
+    frames++;
   }
 
   @Override
@@ -264,6 +478,8 @@ public class JavaPlatform implements Platform {
    * @param title the window title
    */
   public void setTitle(String title) {
-    frame.setTitle(title);
+    if (frame != null) {
+      frame.setTitle(title);
+    }
   }
 }
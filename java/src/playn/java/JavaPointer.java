@@ -19,7 +19,7 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 
-import javax.swing.JComponent;
+import java.awt.Component;
 
 import playn.core.Pointer;
 
@@ -28,7 +28,13 @@ class JavaPointer implements Pointer {
 
   private Listener listener;
 
-  JavaPointer(JComponent frame) {
+  /**
+   * Creates a pointer that receives no events, for use by headless platforms.
+   */
+  JavaPointer() {
+  }
+
+  JavaPointer(Component frame) {
     frame.addMouseMotionListener(new MouseMotionListener() {
       public void mouseDragged(MouseEvent nativeEvent) {
         if (listener != null) {
@@ -16,7 +16,6 @@
 package playn.java;
 
 import java.awt.Color;
-import java.awt.Frame;
 import java.awt.Graphics2D;
 import java.awt.font.FontRenderContext;
 import java.awt.font.LineBreakMeasurer;
@@ -36,7 +35,7 @@ class JavaTextLayout implements playn.core.TextLayout {
   private List<TextLayout> layouts = new ArrayList<TextLayout>();
   private Color textColor, altColor;
 
-  public JavaTextLayout (Frame frame, String text, TextFormat format) {
+  public JavaTextLayout (FontRenderContext fctx, String text, TextFormat format) {
     this.format = format;
 
     // convert our colors to Java-land
@@ -54,14 +53,6 @@ class JavaTextLayout implements playn.core.TextLayout {
     if (format.font != null) {
       astring.addAttribute(TextAttribute.FONT, ((JavaFont)format.font).jfont);
     }
-    FontRenderContext fctx;
-    Graphics2D gfx = (Graphics2D)frame.getGraphics();
-    try {
-      fctx = gfx.getFontRenderContext();
-    } finally {
-      gfx.dispose();
-      gfx = null;
-    }
 
     if (format.shouldWrap() || text.indexOf('\n') != -1) {
       LineBreakMeasurer measurer = new LineBreakMeasurer(astring.getIterator(), fctx);
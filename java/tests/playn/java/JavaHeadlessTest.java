@@ -0,0 +1,126 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.CanvasImage;
+import playn.core.FrameMetrics;
+import playn.core.Game;
+import playn.core.GroupLayer;
+import playn.core.ImageLayer;
+import playn.core.PlayN;
+
+/**
+ * Tests the headless Java platform.
+ */
+public class JavaHeadlessTest {
+
+  @Test
+  public void testFixedStep() {
+    final JavaPlatform platform = JavaPlatform.registerHeadless(100, 50);
+    final StringBuilder deltas = new StringBuilder();
+    platform.run(new Game() {
+      public void init() {
+        CanvasImage image = PlayN.graphics().createImage(10, 10);
+        image.canvas().setFillColor(0xFFFF0000);
+        image.canvas().fillRect(0, 0, 10, 10);
+        ImageLayer layer = PlayN.graphics().createImageLayer(image);
+        layer.setTranslation(20, 30);
+        PlayN.graphics().rootLayer().add(layer);
+      }
+      public void update(float delta) {
+        deltas.append(delta).append(" ");
+        if (platform.frames() == 4) {
+          platform.stop();
+        }
+      }
+      public void paint(float alpha) {
+      }
+      public int updateRate() {
+        return 25;
+      }
+    });
+
+    // every frame advances simulated time by exactly the update rate
+    assertEquals(5, platform.frames());
+    assertEquals("25.0 25.0 25.0 25.0 25.0 ", deltas.toString());
+    assertEquals(125, platform.time(), 0);
+
+    // and the layers were painted into the offscreen image
+    BufferedImage offscreen = platform.offscreenImage();
+    assertEquals(100, offscreen.getWidth());
+    assertEquals(50, offscreen.getHeight());
+    assertEquals(0xFFFF0000, offscreen.getRGB(25, 35));
+    assertEquals(0, offscreen.getRGB(5, 5));
+
+    // every frame was recorded in the metrics, and visited the root and its child
+    assertEquals(5, platform.metrics().recorded());
+    assertEquals(2, platform.metrics().last(FrameMetrics.Stat.LAYERS), 0);
+  }
+
+  @Test
+  public void testCachedSourceRect() {
+    final JavaPlatform platform = JavaPlatform.registerHeadless(20, 20);
+    platform.run(new Game() {
+      ImageLayer layer;
+      public void init() {
+        // the left half of the image is red and the right half blue
+        CanvasImage image = PlayN.graphics().createImage(10, 10);
+        image.canvas().setFillColor(0xFFFF0000);
+        image.canvas().fillRect(0, 0, 5, 10);
+        image.canvas().setFillColor(0xFF0000FF);
+        image.canvas().fillRect(5, 0, 5, 10);
+        layer = PlayN.graphics().createImageLayer(image);
+        layer.setSize(5, 10);
+        layer.setSourceRect(0, 0, 5, 10);
+        GroupLayer group = PlayN.graphics().createGroupLayer();
+        group.setCached(true);
+        group.add(layer);
+        PlayN.graphics().rootLayer().add(group);
+      }
+      public void update(float delta) {
+        // once the group has been cached with the red half, switch to the blue half
+        if (platform.frames() == 2) {
+          layer.setSourceRect(5, 0, 5, 10);
+        } else if (platform.frames() == 4) {
+          platform.stop();
+        }
+      }
+      public void paint(float alpha) {
+      }
+      public int updateRate() {
+        return 25;
+      }
+    });
+
+    // the source rect change invalidated the group's cache
+    assertEquals(0xFF0000FF, platform.offscreenImage().getRGB(2, 5));
+  }
+
+  @Test
+  public void testRandomSeed() {
+    JavaPlatform platform = JavaPlatform.registerHeadless(10, 10);
+    platform.setRandomSeed(7);
+    float first = platform.random(), second = platform.random();
+    platform.setRandomSeed(7);
+    assertEquals(first, platform.random(), 0);
+    assertEquals(second, platform.random(), 0);
+  }
+}
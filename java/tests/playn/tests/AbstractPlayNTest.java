@@ -25,6 +25,12 @@ public abstract class AbstractPlayNTest {
 
   @BeforeClass
   public static void initializePlatform() {
-    JavaPlatform.register();
+    // -Dplayn.headless=true runs the tests against the headless platform, e.g. on machines
+    // without a display; by default they exercise the windowed platform
+    if (Boolean.getBoolean("playn.headless")) {
+      JavaPlatform.registerHeadless(640, 480);
+    } else {
+      JavaPlatform.register();
+    }
   }
 }
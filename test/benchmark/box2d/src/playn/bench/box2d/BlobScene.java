@@ -0,0 +1,56 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.joints.ConstantVolumeJointDef;
+
+/**
+ * Soft blobs, each a ring of circles held together by a {@link
+ * org.jbox2d.dynamics.joints.ConstantVolumeJoint}, dropped onto the ground and one another.
+ */
+public class BlobScene extends Scene {
+
+  public BlobScene(int blobs, int nodes) {
+    this.blobs = blobs;
+    this.nodes = nodes;
+  }
+
+  @Override
+  public String name() {
+    return "blob";
+  }
+
+  @Override
+  public void create(World world) {
+    createGround(world, blobs * 6 + 20);
+    float radius = 2, nodeRadius = 0.25f;
+    for (int bb = 0; bb < blobs; bb++) {
+      // stagger the blobs, so that they land upon one another
+      float cx = (bb % 4 - 1.5f) * 5, cy = 3 + bb * 4.5f;
+      ConstantVolumeJointDef jdef = new ConstantVolumeJointDef();
+      for (int ii = 0; ii < nodes; ii++) {
+        double angle = 2 * Math.PI * ii / nodes;
+        float x = cx + radius * (float) Math.sin(angle);
+        float y = cy + radius * (float) Math.cos(angle);
+        jdef.addBody(createCircle(world, x, y, nodeRadius, 1));
+      }
+      jdef.frequencyHz = 10;
+      jdef.dampingRatio = 1;
+      world.createJoint(jdef);
+    }
+  }
+
+  protected final int blobs, nodes;
+}
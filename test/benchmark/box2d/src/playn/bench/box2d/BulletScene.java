@@ -0,0 +1,67 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.World;
+
+/**
+ * Fast, small bullets fired repeatedly at a wall of thin boxes, which exercises continuous
+ * collision (time of impact) handling.
+ */
+public class BulletScene extends Scene {
+
+  public BulletScene(int bullets, int interval) {
+    this.bullets = new Body[bullets];
+    this.interval = interval;
+  }
+
+  @Override
+  public String name() {
+    return "bullet";
+  }
+
+  @Override
+  public void create(World world) {
+    createGround(world, 100);
+    for (int row = 0; row < 10; row++) {
+      for (int col = 0; col < 5; col++) {
+        createBox(world, 10 + col * 0.5f, 0.5f + row, 0.1f, 0.5f, 1);
+      }
+    }
+    for (int ii = 0; ii < bullets.length; ii++) {
+      bullets[ii] = createCircle(world, -30, 2 + ii * 0.5f, 0.05f, 10);
+      bullets[ii].setBullet(true);
+    }
+  }
+
+  @Override
+  public void beforeStep(World world, int step) {
+    if (step % interval != 0) {
+      return;
+    }
+    // refire the bullets, from the same positions each time
+    for (int ii = 0; ii < bullets.length; ii++) {
+      Body bullet = bullets[ii];
+      bullet.setTransform(new Vec2(-30, 1 + (ii % 9) + (ii / 9) * 0.1f), 0);
+      bullet.setLinearVelocity(new Vec2(400, 0));
+      bullet.setAngularVelocity(0);
+      bullet.setAwake(true);
+    }
+  }
+
+  protected final Body[] bullets;
+  protected final int interval;
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.joints.RevoluteJointDef;
+
+/**
+ * Chains of links connected by revolute joints, hung from the ground and swinging, which
+ * exercise the joint solver.
+ */
+public class ChainScene extends Scene {
+
+  public ChainScene(int chains, int links) {
+    this.chains = chains;
+    this.links = links;
+  }
+
+  @Override
+  public String name() {
+    return "chain";
+  }
+
+  @Override
+  public void create(World world) {
+    Body ground = createGround(world, chains * 4 + 20);
+    float top = links + 5;
+    RevoluteJointDef jdef = new RevoluteJointDef();
+    for (int cc = 0; cc < chains; cc++) {
+      float x0 = (cc - (chains - 1) / 2f) * 4;
+      Body prev = ground;
+      for (int ii = 0; ii < links; ii++) {
+        // the links extend horizontally from the anchor, so that the chain swings
+        Body link = createBox(world, x0 + 0.5f + ii, top, 0.5f, 0.125f, 20);
+        jdef.initialize(prev, link, new Vec2(x0 + ii, top));
+        world.createJoint(jdef);
+        prev = link;
+      }
+    }
+  }
+
+  protected final int chains, links;
+}
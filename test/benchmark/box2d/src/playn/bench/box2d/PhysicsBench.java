@@ -0,0 +1,310 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jbox2d.collision.broadphase.ArrayBroadPhase;
+import org.jbox2d.collision.broadphase.BroadPhase;
+import org.jbox2d.collision.broadphase.IBroadPhase;
+import org.jbox2d.collision.broadphase.SweepAndPruneBroadPhase;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.Profile;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.parallel.ParallelContactUpdater;
+import org.jbox2d.parallel.ParallelIslandSolver;
+import org.jbox2d.parallel.ThreadLocalWorldPool;
+
+/**
+ * Steps a set of standard physics scenes a fixed number of times, and reports the mean time per
+ * step (in total, and broken down into broad-phase, narrow-phase, island solving and time of
+ * impact handling, as reported by {@link World#getProfile}) and the mean bytes allocated per step.
+ * The scenes are deterministic, so results can be compared from run to run to validate
+ * optimizations; to that end, each result includes a checksum of the final state of the world's
+ * bodies.
+ *
+ * <p>Usage: {@code PhysicsBench [json|csv] [-threads N] [-arraytree|-sap] [output file]}</p>
+ *
+ * <p>With {@code -arraytree}, pairs are found by an {@link ArrayBroadPhase}, which only refattens
+ * the AABBs of proxies that leave their fattened AABBs, whereas the default tree broad-phase
+ * refattens those of all moved proxies, so contacts may be kept for longer and the checksums may
+ * differ from those of the default broad-phase. With {@code -sap}, pairs are found by a
+ * {@link SweepAndPruneBroadPhase}. The pairs are reported in a different order, so the checksums
+ * may differ from those of the default broad-phase.</p>
+ *
+ * <p>With {@code -threads N}, islands are solved by a {@link ParallelIslandSolver} and contacts
+ * are updated by a {@link ParallelContactUpdater}, each using N threads. Only the stepping thread's
+ * allocations are reported in that case. The parallel narrow-phase can wake bodies a step later
+ * than the serial one, so its checksums may differ from the serial checksums, but they must not
+ * depend on the number of threads.</p>
+ */
+public class PhysicsBench {
+
+  /** The measurements made of one scene. */
+  public static class Result {
+    public final String scene;
+    public final int bodies, contacts, steps;
+    /** The number of threads used to step the world, or 0 if it was stepped serially. */
+    public final int threads;
+    /** The broad-phase used: "tree", "arraytree" or "sap". */
+    public final String broadphaseType;
+    /** Mean milliseconds per step, in total and per phase. */
+    public final double step, broadphase, narrowphase, solve, toi;
+    /** Mean bytes allocated per step, or -1 if the JVM cannot report allocation. */
+    public final long allocated;
+    /** A checksum of the bodies' final positions, angles and velocities. */
+    public final String checksum;
+
+    public Result(String scene, World world, int steps, int threads, Profile total,
+                  long allocated) {
+      this.broadphaseType = broadPhaseType(world.getBroadPhase());
+      this.scene = scene;
+      this.bodies = world.getBodyCount();
+      this.contacts = world.getContactCount();
+      this.steps = steps;
+      this.threads = threads;
+      this.step = total.step / steps;
+      this.broadphase = total.broadphase / steps;
+      this.narrowphase = total.collide / steps;
+      this.solve = total.solve / steps;
+      this.toi = total.solveTOI / steps;
+      this.allocated = (allocated < 0) ? -1 : allocated / steps;
+      this.checksum = checksum(world);
+    }
+  }
+
+  /** The number of steps taken before measurement begins. */
+  public static final int WARMUP_STEPS = 100;
+
+  /** The number of steps measured. */
+  public static final int STEPS = 300;
+
+  /** The simulated time per step. */
+  public static final float DT = 1 / 60f;
+  public static final int VELOCITY_ITERATIONS = 8, POSITION_ITERATIONS = 3;
+
+  /** Returns the standard scenes. */
+  public static List<Scene> scenes() {
+    List<Scene> scenes = new ArrayList<Scene>();
+    scenes.add(new PyramidScene(2, 20));
+    scenes.add(new TumblerScene(1000));
+    scenes.add(new ChainScene(10, 40));
+    scenes.add(new BlobScene(8, 20));
+    scenes.add(new BulletScene(20, 30));
+    return scenes;
+  }
+
+  /**
+   * Creates a world, populates it with {@code scene}, and measures {@link #STEPS} steps thereof,
+   * after {@link #WARMUP_STEPS} unmeasured steps.
+   */
+  public static Result run(Scene scene) {
+    return run(scene, 0);
+  }
+
+  /**
+   * Like {@link #run(Scene)}, but solves islands and updates contacts with {@code threads} threads
+   * if it is positive.
+   */
+  public static Result run(Scene scene, int threads) {
+    return run(scene, threads, "tree");
+  }
+
+  /**
+   * Like {@link #run(Scene,int)}, but finds pairs with the broad-phase of the given type:
+   * "tree" for a {@link BroadPhase}, "arraytree" for an {@link ArrayBroadPhase} or "sap" for a
+   * {@link SweepAndPruneBroadPhase}.
+   */
+  public static Result run(Scene scene, int threads, String broadphase) {
+    if (threads <= 0) {
+      World world = new World(new Vec2(0, -10), true);
+      world.setBroadPhase(createBroadPhase(broadphase));
+      return run(scene, world, 0);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads - 1, 1));
+    try {
+      World world = new World(new Vec2(0, -10), true, new ThreadLocalWorldPool(
+        World.WORLD_POOL_SIZE, World.WORLD_POOL_CONTAINER_SIZE));
+      world.setBroadPhase(createBroadPhase(broadphase));
+      world.setIslandSolver(new ParallelIslandSolver(world, executor, threads));
+      world.setContactUpdater(new ParallelContactUpdater(world, executor, threads));
+      return run(scene, world, threads);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Creates a broad-phase of the given type, as passed to {@link #run(Scene,int,String)}.
+   */
+  public static IBroadPhase createBroadPhase(String type) {
+    if (type.equals("tree")) return new BroadPhase();
+    if (type.equals("arraytree")) return new ArrayBroadPhase();
+    if (type.equals("sap")) return new SweepAndPruneBroadPhase();
+    throw new IllegalArgumentException("Unknown broad-phase: " + type);
+  }
+
+  /**
+   * Returns the type of {@code broadPhase}, as passed to {@link #run(Scene,int,String)}.
+   */
+  public static String broadPhaseType(IBroadPhase broadPhase) {
+    if (broadPhase instanceof ArrayBroadPhase) return "arraytree";
+    if (broadPhase instanceof SweepAndPruneBroadPhase) return "sap";
+    return "tree";
+  }
+
+  /**
+   * Returns a checksum of the positions, angles and velocities of {@code world}'s bodies, which
+   * will be the same for two worlds only if they were simulated identically.
+   */
+  public static String checksum(World world) {
+    long hash = 17;
+    for (Body body = world.getBodyList(); body != null; body = body.getNext()) {
+      hash = hash * 31 + Float.floatToIntBits(body.getPosition().x);
+      hash = hash * 31 + Float.floatToIntBits(body.getPosition().y);
+      hash = hash * 31 + Float.floatToIntBits(body.getAngle());
+      hash = hash * 31 + Float.floatToIntBits(body.getLinearVelocity().x);
+      hash = hash * 31 + Float.floatToIntBits(body.getLinearVelocity().y);
+      hash = hash * 31 + Float.floatToIntBits(body.getAngularVelocity());
+    }
+    return Long.toHexString(hash);
+  }
+
+  protected static Result run(Scene scene, World world, int threads) {
+    scene.create(world);
+    int step = 0;
+    for (; step < WARMUP_STEPS; step++) {
+      step(scene, world, step);
+    }
+
+    Profile total = new Profile();
+    long allocStart = allocatedBytes();
+    for (int end = step + STEPS; step < end; step++) {
+      step(scene, world, step);
+      Profile profile = world.getProfile();
+      total.step += profile.step;
+      total.broadphase += profile.broadphase;
+      total.collide += profile.collide;
+      total.solve += profile.solve;
+      total.solveTOI += profile.solveTOI;
+    }
+    long allocEnd = allocatedBytes();
+    long allocated = (allocStart < 0 || allocEnd < 0) ? -1 : allocEnd - allocStart;
+    return new Result(scene.name(), world, STEPS, threads, total, allocated);
+  }
+
+  public static String toCsv(List<Result> results) {
+    StringBuilder buf = new StringBuilder();
+    buf.append("scene,bodies,contacts,steps,threads,broadphase,stepMillis,");
+    buf.append("broadphaseMillis,");
+    buf.append("narrowphaseMillis,solveMillis,toiMillis,bytesPerStep,checksum\n");
+    for (Result r : results) {
+      buf.append(r.scene).append(',').append(r.bodies).append(',').append(r.contacts).append(',');
+      buf.append(r.steps).append(',').append(r.threads).append(',');
+      buf.append(r.broadphaseType).append(',');
+      buf.append(r.step).append(',');
+      buf.append(r.broadphase).append(',').append(r.narrowphase).append(',').append(r.solve);
+      buf.append(',').append(r.toi).append(',').append(r.allocated).append(',');
+      buf.append(r.checksum).append('\n');
+    }
+    return buf.toString();
+  }
+
+  public static String toJson(List<Result> results) {
+    StringBuilder buf = new StringBuilder("{\"results\":[");
+    for (int ii = 0; ii < results.size(); ii++) {
+      Result r = results.get(ii);
+      if (ii > 0) buf.append(',');
+      buf.append("{\"scene\":\"").append(r.scene).append('"');
+      buf.append(",\"bodies\":").append(r.bodies);
+      buf.append(",\"contacts\":").append(r.contacts);
+      buf.append(",\"steps\":").append(r.steps);
+      buf.append(",\"threads\":").append(r.threads);
+      buf.append(",\"broadphase\":\"").append(r.broadphaseType).append('"');
+      buf.append(",\"stepMillis\":").append(r.step);
+      buf.append(",\"broadphaseMillis\":").append(r.broadphase);
+      buf.append(",\"narrowphaseMillis\":").append(r.narrowphase);
+      buf.append(",\"solveMillis\":").append(r.solve);
+      buf.append(",\"toiMillis\":").append(r.toi);
+      buf.append(",\"bytesPerStep\":").append(r.allocated);
+      buf.append(",\"checksum\":\"").append(r.checksum).append("\"}");
+    }
+    return buf.append("]}").toString();
+  }
+
+  public static void main(String[] args) throws IOException {
+    boolean csv = false;
+    int threads = 0;
+    String broadphase = "tree";
+    String output = null;
+    for (int ii = 0; ii < args.length; ii++) {
+      if (args[ii].equals("csv") || args[ii].equals("json")) {
+        csv = args[ii].equals("csv");
+      } else if (args[ii].equals("-threads") && ii + 1 < args.length) {
+        threads = Integer.parseInt(args[++ii]);
+      } else if (args[ii].equals("-arraytree")) {
+        broadphase = "arraytree";
+      } else if (args[ii].equals("-sap")) {
+        broadphase = "sap";
+      } else {
+        output = args[ii];
+      }
+    }
+
+    List<Result> results = new ArrayList<Result>();
+    for (Scene scene : scenes()) {
+      results.add(run(scene, threads, broadphase));
+    }
+    String report = csv ? toCsv(results) : toJson(results);
+
+    if (output == null) {
+      System.out.println(report);
+    } else {
+      Writer out = new FileWriter(output);
+      try {
+        out.write(report);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  protected static void step(Scene scene, World world, int step) {
+    scene.beforeStep(world, step);
+    world.step(DT, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+  }
+
+  /**
+   * Returns the bytes allocated by the current thread to date, or -1 if the JVM does not support
+   * reporting that.
+   */
+  protected static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import org.jbox2d.dynamics.World;
+
+/**
+ * Pyramids of stacked boxes, which exercise the contact solver with large, deep islands.
+ */
+public class PyramidScene extends Scene {
+
+  public PyramidScene(int pyramids, int base) {
+    this.pyramids = pyramids;
+    this.base = base;
+  }
+
+  @Override
+  public String name() {
+    return "pyramid";
+  }
+
+  @Override
+  public void create(World world) {
+    float spacing = base * 1.5f;
+    createGround(world, pyramids * spacing + 20);
+    for (int pp = 0; pp < pyramids; pp++) {
+      float cx = (pp - (pyramids - 1) / 2f) * spacing;
+      for (int row = 0; row < base; row++) {
+        int count = base - row;
+        for (int ii = 0; ii < count; ii++) {
+          float x = cx + (ii - (count - 1) / 2f) * 1.125f;
+          createBox(world, x, 0.5f + row, 0.5f, 0.5f, 5);
+        }
+      }
+    }
+  }
+
+  protected final int pyramids, base;
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import org.jbox2d.collision.shapes.CircleShape;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.collision.shapes.Shape;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.FixtureDef;
+import org.jbox2d.dynamics.World;
+
+/**
+ * A physics scene that is simulated by {@link PhysicsBench}. Scenes must be deterministic: they
+ * may not use random numbers (other than from a fixed seed) or the time.
+ */
+public abstract class Scene {
+
+  /** Returns the name of this scene, as reported in the results. */
+  public abstract String name();
+
+  /** Populates {@code world} with this scene's bodies and joints. */
+  public abstract void create(World world);
+
+  /**
+   * Called before each step of the world (steps are numbered from 0), so that the scene may add
+   * bodies, fire bullets, etc. The default does nothing.
+   */
+  public void beforeStep(World world, int step) {
+  }
+
+  /** Creates a static ground edge, spanning x = [-width/2, width/2] at y = 0. */
+  protected static Body createGround(World world, float width) {
+    Body ground = world.createBody(new BodyDef());
+    PolygonShape shape = new PolygonShape();
+    shape.setAsEdge(new Vec2(-width/2, 0), new Vec2(width/2, 0));
+    ground.createFixture(shape, 0);
+    return ground;
+  }
+
+  /** Creates a dynamic box with the specified half-extents and density. */
+  protected static Body createBox(World world, float x, float y, float hx, float hy,
+                                  float density) {
+    PolygonShape shape = new PolygonShape();
+    shape.setAsBox(hx, hy);
+    return createBody(world, x, y, shape, density);
+  }
+
+  /** Creates a dynamic circle with the specified radius and density. */
+  protected static Body createCircle(World world, float x, float y, float radius,
+                                     float density) {
+    CircleShape shape = new CircleShape();
+    shape.m_radius = radius;
+    return createBody(world, x, y, shape, density);
+  }
+
+  private static Body createBody(World world, float x, float y, Shape shape, float density) {
+    BodyDef def = new BodyDef();
+    def.type = BodyType.DYNAMIC;
+    def.position.set(x, y);
+    Body body = world.createBody(def);
+    FixtureDef fdef = new FixtureDef();
+    fdef.shape = shape;
+    fdef.density = density;
+    fdef.friction = 0.6f;
+    body.createFixture(fdef);
+    return body;
+  }
+}
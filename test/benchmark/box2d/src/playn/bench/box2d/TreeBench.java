@@ -0,0 +1,185 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import java.util.Random;
+
+import org.jbox2d.callbacks.ProxyTreeCallback;
+import org.jbox2d.callbacks.TreeCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.broadphase.ArrayDynamicTree;
+import org.jbox2d.collision.broadphase.DynamicTree;
+import org.jbox2d.collision.broadphase.DynamicTreeNode;
+import org.jbox2d.common.Vec2;
+
+/**
+ * Moves a set of proxies around a square world in a dynamic tree, and reports the quality of the
+ * tree as they move: its height, its total area (the sum of the perimeters of its nodes) and the
+ * mean number of nodes visited by a query for each proxy's AABB, along with the mean time per
+ * step spent moving and querying proxies. The proxies start out scattered at random or packed in
+ * a row (in which case they move only horizontally); the latter is the worst case for a tree that
+ * is not kept balanced.
+ *
+ * <p>Usage: {@code TreeBench [dynamic|array] [random|row] [-proxies N] [-steps N]}</p>
+ *
+ * <p>Output is CSV, with a line per {@link #REPORT_INTERVAL} steps. The mean query visits are
+ * only counted when jbox2d is built with {@link org.jbox2d.common.Settings#TREE_QUERY_STATS} set,
+ * and are reported as zero otherwise.</p>
+ */
+public class TreeBench {
+
+  /** The number of steps between reports. */
+  public static final int REPORT_INTERVAL = 100;
+
+  /** The size of the (square) world, and of each proxy. */
+  public static final float WORLD_SIZE = 1000, PROXY_SIZE = 1;
+
+  /** The maximum distance a proxy moves along each axis per step. */
+  public static final float MAX_SPEED = 0.25f;
+
+  /** The tree being measured, for which the proxies are identified by index. */
+  protected interface Tree {
+    void create(AABB aabb, int index);
+    void move(int index, AABB aabb, Vec2 displacement);
+    void query(AABB aabb);
+    int height();
+    float totalArea();
+    float averageQueryVisits();
+    void resetQueryStats();
+  }
+
+  protected static class Dynamic implements Tree {
+    private final DynamicTree tree = new DynamicTree();
+    private final DynamicTreeNode[] proxies;
+    private final TreeCallback callback = new TreeCallback() {
+      public boolean treeCallback(DynamicTreeNode node) {
+        return true;
+      }
+    };
+
+    public Dynamic(int count) {
+      proxies = new DynamicTreeNode[count];
+    }
+
+    public void create(AABB aabb, int index) { proxies[index] = tree.createProxy(aabb, null); }
+    public void move(int index, AABB aabb, Vec2 displacement) {
+      tree.moveProxy(proxies[index], aabb, displacement);
+    }
+    public void query(AABB aabb) { tree.query(callback, aabb); }
+    public int height() { return tree.computeHeight(); }
+    public float totalArea() { return tree.computeTotalArea(); }
+    public float averageQueryVisits() { return tree.getAverageQueryVisits(); }
+    public void resetQueryStats() { tree.resetQueryStats(); }
+  }
+
+  protected static class ArrayBacked implements Tree {
+    private final ArrayDynamicTree tree = new ArrayDynamicTree();
+    private final int[] proxies;
+    private final ProxyTreeCallback callback = new ProxyTreeCallback() {
+      public boolean treeCallback(int proxyId) {
+        return true;
+      }
+    };
+
+    public ArrayBacked(int count) {
+      proxies = new int[count];
+    }
+
+    public void create(AABB aabb, int index) { proxies[index] = tree.createProxy(aabb, null); }
+    public void move(int index, AABB aabb, Vec2 displacement) {
+      tree.moveProxy(proxies[index], aabb, displacement);
+    }
+    public void query(AABB aabb) { tree.query(callback, aabb); }
+    public int height() { return tree.computeHeight(); }
+    public float totalArea() { return tree.computeTotalArea(); }
+    public float averageQueryVisits() { return tree.getAverageQueryVisits(); }
+    public void resetQueryStats() { tree.resetQueryStats(); }
+  }
+
+  public static void main(String[] args) {
+    boolean array = false, row = false;
+    int count = 10000, steps = 1000;
+    for (int ii = 0; ii < args.length; ii++) {
+      if (args[ii].equals("dynamic") || args[ii].equals("array")) {
+        array = args[ii].equals("array");
+      } else if (args[ii].equals("random") || args[ii].equals("row")) {
+        row = args[ii].equals("row");
+      } else if (args[ii].equals("-proxies") && ii + 1 < args.length) {
+        count = Integer.parseInt(args[++ii]);
+      } else if (args[ii].equals("-steps") && ii + 1 < args.length) {
+        steps = Integer.parseInt(args[++ii]);
+      } else {
+        throw new IllegalArgumentException("Unknown argument: " + args[ii]);
+      }
+    }
+
+    Tree tree = array ? new ArrayBacked(count) : new Dynamic(count);
+    Random random = new Random(count);
+    float[] x = new float[count], y = new float[count];
+    float[] dx = new float[count], dy = new float[count];
+    AABB aabb = new AABB();
+    Vec2 displacement = new Vec2();
+
+    long start = System.nanoTime();
+    for (int ii = 0; ii < count; ii++) {
+      if (row) {
+        x[ii] = ii * WORLD_SIZE / count;
+        y[ii] = WORLD_SIZE / 2;
+      } else {
+        x[ii] = random.nextFloat() * WORLD_SIZE;
+        y[ii] = random.nextFloat() * WORLD_SIZE;
+        dy[ii] = (random.nextFloat() * 2 - 1) * MAX_SPEED;
+      }
+      dx[ii] = (random.nextFloat() * 2 - 1) * MAX_SPEED;
+      tree.create(bounds(aabb, x[ii], y[ii]), ii);
+    }
+    double createMillis = (System.nanoTime() - start) / 1e6;
+
+    System.out.println("tree,layout,proxies,step,height,totalArea,queryVisits,createMillis," +
+                       "moveMillis,queryMillis");
+    long moveNanos = 0, queryNanos = 0;
+    for (int step = 1; step <= steps; step++) {
+      start = System.nanoTime();
+      for (int ii = 0; ii < count; ii++) {
+        x[ii] += dx[ii];
+        y[ii] += dy[ii];
+        if (x[ii] < 0 || x[ii] > WORLD_SIZE) dx[ii] = -dx[ii];
+        if (y[ii] < 0 || y[ii] > WORLD_SIZE) dy[ii] = -dy[ii];
+        tree.move(ii, bounds(aabb, x[ii], y[ii]), displacement.set(dx[ii], dy[ii]));
+      }
+      long moved = System.nanoTime();
+      for (int ii = 0; ii < count; ii++) {
+        tree.query(bounds(aabb, x[ii], y[ii]));
+      }
+      queryNanos += System.nanoTime() - moved;
+      moveNanos += moved - start;
+
+      if (step % REPORT_INTERVAL == 0) {
+        System.out.println((array ? "array" : "dynamic") + "," + (row ? "row" : "random") + "," +
+                           count + "," + step + "," + tree.height() + "," + tree.totalArea() + "," +
+                           tree.averageQueryVisits() + "," + createMillis + "," +
+                           moveNanos / 1e6 / REPORT_INTERVAL + "," +
+                           queryNanos / 1e6 / REPORT_INTERVAL);
+        tree.resetQueryStats();
+        moveNanos = queryNanos = 0;
+      }
+    }
+  }
+
+  protected static AABB bounds(AABB aabb, float x, float y) {
+    aabb.lowerBound.set(x, y);
+    aabb.upperBound.set(x + PROXY_SIZE, y + PROXY_SIZE);
+    return aabb;
+  }
+}
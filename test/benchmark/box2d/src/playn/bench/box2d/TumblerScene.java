@@ -0,0 +1,81 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.box2d;
+
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.joints.RevoluteJointDef;
+
+/**
+ * A motorized, rotating box full of small bodies, which keeps many bodies awake and in contact
+ * with constantly changing neighbors.
+ */
+public class TumblerScene extends Scene {
+
+  public TumblerScene(int bodies) {
+    this.bodies = bodies;
+  }
+
+  @Override
+  public String name() {
+    return "tumbler";
+  }
+
+  @Override
+  public void create(World world) {
+    Body ground = world.createBody(new BodyDef());
+
+    // the tumbler: four walls of a box, 2*HALF wide, rotating about its center
+    BodyDef def = new BodyDef();
+    def.type = BodyType.DYNAMIC;
+    def.allowSleep = false;
+    def.position.set(0, HALF);
+    Body tumbler = world.createBody(def);
+    addWall(tumbler, 0.5f, HALF, new Vec2(HALF, 0));
+    addWall(tumbler, 0.5f, HALF, new Vec2(-HALF, 0));
+    addWall(tumbler, HALF, 0.5f, new Vec2(0, HALF));
+    addWall(tumbler, HALF, 0.5f, new Vec2(0, -HALF));
+
+    RevoluteJointDef jdef = new RevoluteJointDef();
+    jdef.initialize(ground, tumbler, new Vec2(0, HALF));
+    jdef.motorSpeed = 0.05f * (float) Math.PI;
+    jdef.maxMotorTorque = 1e8f;
+    jdef.enableMotor = true;
+    world.createJoint(jdef);
+
+    // fill the tumbler with a grid of small boxes
+    float size = 0.125f, pitch = 0.5f;
+    int columns = (int) ((2 * HALF - 2) / pitch);
+    for (int ii = 0; ii < bodies; ii++) {
+      float x = -HALF + 1 + pitch / 2 + (ii % columns) * pitch;
+      float y = 1 + pitch / 2 + (ii / columns) * pitch;
+      createBox(world, x, y, size, size, 1);
+    }
+  }
+
+  private static void addWall(Body body, float hx, float hy, Vec2 center) {
+    PolygonShape shape = new PolygonShape();
+    shape.setAsBox(hx, hy, center, 0);
+    body.createFixture(shape, 5);
+  }
+
+  /** The half-width of the tumbler. */
+  protected static final float HALF = 10;
+
+  protected final int bodies;
+}
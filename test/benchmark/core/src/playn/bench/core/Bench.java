@@ -25,6 +25,9 @@ public class Bench implements Game {
   private static final TimeTest[] TESTS = new TimeTest[] {
     new SurfaceTimeTest(),
     new LayerTimeTest(),
+    new TextTimeTest(),
+    new CanvasTimeTest(),
+    new PhysicsTimeTest(),
   };
 
   private GroupLayer benchLayer;
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.core;
+
+import static playn.core.PlayN.*;
+
+import playn.core.Canvas;
+import playn.core.CanvasLayer;
+import playn.core.GroupLayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clears and redraws a screen-sized canvas every frame, filling and stroking a rotated shape for
+ * every entity.
+ */
+class CanvasTimeTest extends TimeTest {
+
+  static class Entity {
+    private float x, y, size, rotation;
+    private int color;
+  }
+
+  private CanvasLayer canvasLayer;
+  private List<Entity> ents = new ArrayList<Entity>();
+
+  @Override
+  protected void advance() {
+    Entity ent = new Entity();
+    ents.add(ent);
+
+    int w = graphics().width(), h = graphics().height();
+    ent.x = random() * w;
+    ent.y = random() * h;
+    ent.size = random() * 20 + 10;
+    ent.rotation = random() * (float) Math.PI * 2;
+    ent.color = 0xFF000000 | (int) (random() * 0xFFFFFF);
+  }
+
+  @Override
+  protected int count() {
+    return ents.size();
+  }
+
+  @Override
+  protected void retreat() {
+    if (ents.size() == 0) {
+      return;
+    }
+    ents.remove(ents.size() - 1);
+  }
+
+  @Override
+  void init(GroupLayer root) {
+    canvasLayer = graphics().createCanvasLayer(graphics().width(), graphics().height());
+    root.add(canvasLayer);
+  }
+
+  @Override
+  String name() {
+    return "Canvas";
+  }
+
+  @Override
+  void cleanup() {
+  }
+
+  @Override
+  double score() {
+    return ents.size();
+  }
+
+  @Override
+  protected void doPaint() {
+    Canvas canvas = canvasLayer.canvas();
+    canvas.clear();
+    canvas.setStrokeColor(0xFF000000);
+    for (Entity ent : ents) {
+      canvas.save();
+      {
+        canvas.translate(ent.x, ent.y);
+        canvas.rotate(ent.rotation);
+        canvas.setFillColor(ent.color);
+        canvas.fillRect(-ent.size / 2, -ent.size / 2, ent.size, ent.size);
+        canvas.strokeCircle(0, 0, ent.size / 2);
+      }
+      canvas.restore();
+
+      ent.rotation += (float) Math.PI * 0.01;
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.core;
+
+import static playn.core.PlayN.*;
+
+import playn.core.Asserts;
+import playn.core.FrameMetrics;
+import playn.core.Game;
+import playn.core.GroupLayer;
+import playn.core.Json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs each {@link TimeTest} at a series of fixed entity counts, painting a fixed number of frames
+ * at each count and measuring them via the platform's {@link FrameMetrics}. Unlike {@link Bench},
+ * which seeks the entity count at which the frame rate drops to a target, this does the same work
+ * on every run, so (on a headless platform with a seeded {@code random()}) its results can be
+ * compared from run to run to detect regressions.
+ */
+public abstract class FixedBench implements Game {
+
+  /** The measurements made of one test at one entity count. */
+  public static class Result {
+    /** The name of the test. */
+    public final String test;
+    /** The number of entities. */
+    public final int entities;
+    /** The number of frames measured. */
+    public final int frames;
+    /** The mean number of layers painted per frame. */
+    public final float layers;
+    /** The mean milliseconds spent updating and painting per frame. */
+    public final float frameTime;
+
+    public Result(String test, int entities, int frames, float layers, float frameTime) {
+      this.test = test;
+      this.entities = entities;
+      this.frames = frames;
+      this.layers = layers;
+      this.frameTime = frameTime;
+    }
+
+    /** Returns the frames per second that could be painted, were painting all we did. */
+    public double fps() {
+      return (frameTime == 0) ? 0 : 1000 / frameTime;
+    }
+
+    /** Returns the mean nanoseconds per frame per layer painted. */
+    public double nanosPerLayer() {
+      return (layers == 0) ? 0 : frameTime * 1e6 / layers;
+    }
+  }
+
+  /** The entity counts at which each test is measured, by default. */
+  public static final int[] DEFAULT_COUNTS = { 100, 500, 1000 };
+
+  /**
+   * Formats {@code results} as a JSON object, containing an array of result objects.
+   */
+  public static String toJson(List<Result> results) {
+    Json.Writer w = json().newWriter();
+    w.object();
+    w.key("results");
+    w.array();
+    for (Result r : results) {
+      w.object();
+      w.key("test");
+      w.value(r.test);
+      w.key("entities");
+      w.value(r.entities);
+      w.key("frames");
+      w.value(r.frames);
+      w.key("layers");
+      w.value(r.layers);
+      w.key("frameMillis");
+      w.value(r.frameTime);
+      w.key("fps");
+      w.value(r.fps());
+      w.key("nsPerLayer");
+      w.value(r.nanosPerLayer());
+      w.endObject();
+    }
+    w.endArray();
+    w.endObject();
+    return w.write();
+  }
+
+  /**
+   * Formats {@code results} as CSV, with a header row.
+   */
+  public static String toCsv(List<Result> results) {
+    StringBuilder buf = new StringBuilder();
+    buf.append("test,entities,frames,layers,frameMillis,fps,nsPerLayer\n");
+    for (Result r : results) {
+      buf.append(r.test).append(',').append(r.entities).append(',').append(r.frames).append(',');
+      buf.append(r.layers).append(',').append(r.frameTime).append(',').append(r.fps()).append(',');
+      buf.append(r.nanosPerLayer()).append('\n');
+    }
+    return buf.toString();
+  }
+
+  /**
+   * Creates a benchmark that measures every test at {@link #DEFAULT_COUNTS}.
+   */
+  public FixedBench() {
+    this(DEFAULT_COUNTS, 30, 120);
+  }
+
+  /**
+   * Creates a benchmark that measures every test at each of {@code counts}, first painting
+   * {@code warmupFrames} unmeasured frames, then measuring {@code frames} frames.
+   */
+  public FixedBench(int[] counts, int warmupFrames, int frames) {
+    Asserts.checkArgument(counts.length > 0, "Must supply at least one count");
+    Asserts.checkArgument(warmupFrames > 0, "Must paint at least one warmup frame");
+    Asserts.checkArgument(frames > 0 && frames <= FrameMetrics.DEFAULT_CAPACITY,
+                          "Frames must be in [1, %s]", FrameMetrics.DEFAULT_CAPACITY);
+    this.counts = counts;
+    this.warmupFrames = warmupFrames;
+    this.frames = frames;
+  }
+
+  @Override
+  public void init() {
+    graphics().setSize(800, 600);
+    startTest();
+  }
+
+  @Override
+  public void update(float delta) {
+    if (curTest == null) {
+      return;
+    }
+    if (frame == warmupFrames) {
+      // discard the warmup frames (the metrics for this frame are recorded after we return)
+      metrics().reset();
+    } else if (frame == warmupFrames + frames) {
+      FrameMetrics metrics = metrics();
+      float frameTime = metrics.mean(FrameMetrics.Stat.UPDATE_TIME) +
+        metrics.mean(FrameMetrics.Stat.PAINT_TIME);
+      results.add(new Result(curTest.name(), counts[curCount], metrics.frames(),
+                             metrics.mean(FrameMetrics.Stat.LAYERS), frameTime));
+      if (!nextCount()) {
+        return;
+      }
+    }
+    frame++;
+  }
+
+  @Override
+  public void paint(float alpha) {
+    if (curTest != null) {
+      curTest.doPaint();
+    }
+  }
+
+  @Override
+  public int updateRate() {
+    return 0;
+  }
+
+  /**
+   * Called once every test has been measured at every count.
+   */
+  protected abstract void finished(List<Result> results);
+
+  private void startTest() {
+    benchLayer = graphics().createGroupLayer();
+    graphics().rootLayer().add(benchLayer);
+    curTest = tests[curTestIndex];
+    curTest.init(benchLayer);
+    curCount = 0;
+    curTest.setCount(counts[curCount]);
+    frame = 0;
+  }
+
+  private boolean nextCount() {
+    if (++curCount < counts.length) {
+      curTest.setCount(counts[curCount]);
+      frame = 0;
+      return true;
+    }
+
+    curTest.cleanup();
+    graphics().rootLayer().remove(benchLayer);
+    if (++curTestIndex < tests.length) {
+      startTest();
+      return true;
+    }
+
+    curTest = null;
+    finished(results);
+    return false;
+  }
+
+  private final TimeTest[] tests = new TimeTest[] {
+    new SurfaceTimeTest(),
+    new LayerTimeTest(),
+    new TextTimeTest(),
+    new CanvasTimeTest(),
+    new PhysicsTimeTest(),
+  };
+
+  private final int[] counts;
+  private final int warmupFrames, frames;
+  private final List<Result> results = new ArrayList<Result>();
+
+  private GroupLayer benchLayer;
+  private TimeTest curTest;
+  private int curTestIndex, curCount, frame;
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.core;
+
+import static playn.core.PlayN.*;
+
+import org.jbox2d.collision.shapes.CircleShape;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.World;
+
+import playn.core.GroupLayer;
+import playn.core.Image;
+import playn.core.ImageLayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Steps a Box2D world containing a ball for every entity, which fall into and pile up in a box,
+ * and positions a layer for every ball.
+ */
+class PhysicsTimeTest extends TimeTest {
+
+  // the number of pixels per physics world meter
+  static final float SCALE = 20;
+  static final float RADIUS = 0.5f;
+  // the step delta is fixed, so that the simulation is unaffected by frame rate
+  static final float STEP = 0.033f;
+
+  static class Entity {
+    private final Body body;
+    private final ImageLayer layer;
+
+    public Entity(Body body, ImageLayer layer) {
+      this.body = body;
+      this.layer = layer;
+    }
+  }
+
+  private GroupLayer worldLayer;
+  private World world;
+  private Image image;
+  private List<Entity> ents = new ArrayList<Entity>();
+
+  @Override
+  protected void advance() {
+    float width = graphics().width() / SCALE, height = graphics().height() / SCALE;
+    BodyDef def = new BodyDef();
+    def.type = BodyType.DYNAMIC;
+    def.position = new Vec2(RADIUS + random() * (width - 2*RADIUS), random() * height / 2);
+    Body body = world.createBody(def);
+    CircleShape shape = new CircleShape();
+    shape.m_radius = RADIUS;
+    body.createFixture(shape, 1);
+
+    ImageLayer layer = graphics().createImageLayer(image);
+    layer.setSize(2*RADIUS, 2*RADIUS);
+    layer.setOrigin(RADIUS, RADIUS);
+    worldLayer.add(layer);
+    ents.add(new Entity(body, layer));
+  }
+
+  @Override
+  protected int count() {
+    return ents.size();
+  }
+
+  @Override
+  protected void retreat() {
+    if (ents.size() == 0) {
+      return;
+    }
+    Entity ent = ents.remove(ents.size() - 1);
+    world.destroyBody(ent.body);
+    worldLayer.remove(ent.layer);
+  }
+
+  @Override
+  void init(GroupLayer root) {
+    image = assetManager().getImage("images/pea.png");
+    worldLayer = graphics().createGroupLayer();
+    worldLayer.setScale(SCALE);
+    root.add(worldLayer);
+
+    // bodies never sleep, so that the work done per frame depends only on the entity count
+    world = new World(new Vec2(0, 10), false);
+    float width = graphics().width() / SCALE, height = graphics().height() / SCALE;
+    Body box = world.createBody(new BodyDef());
+    addEdge(box, 0, height, width, height);
+    addEdge(box, 0, 0, 0, height);
+    addEdge(box, width, 0, width, height);
+  }
+
+  @Override
+  String name() {
+    return "Physics";
+  }
+
+  @Override
+  void cleanup() {
+  }
+
+  @Override
+  double score() {
+    return ents.size();
+  }
+
+  @Override
+  protected void doPaint() {
+    world.step(STEP, 10, 10);
+    for (Entity ent : ents) {
+      Vec2 pos = ent.body.getPosition();
+      ent.layer.setTranslation(pos.x, pos.y);
+      ent.layer.setRotation(ent.body.getAngle());
+    }
+  }
+
+  private static void addEdge(Body body, float x1, float y1, float x2, float y2) {
+    PolygonShape shape = new PolygonShape();
+    shape.setAsEdge(new Vec2(x1, y1), new Vec2(x2, y2));
+    body.createFixture(shape, 0);
+  }
+}
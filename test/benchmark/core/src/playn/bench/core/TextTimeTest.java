@@ -0,0 +1,103 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.core;
+
+import static playn.core.PlayN.*;
+
+import playn.core.CanvasImage;
+import playn.core.Font;
+import playn.core.GroupLayer;
+import playn.core.ImageLayer;
+import playn.core.TextFormat;
+import playn.core.TextLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lays out and renders a changing label for every entity, every frame (as for a score or timer).
+ */
+class TextTimeTest extends TimeTest {
+
+  static final int WIDTH = 120, HEIGHT = 24;
+
+  static class Entity {
+    final CanvasImage image = graphics().createImage(WIDTH, HEIGHT);
+    final ImageLayer layer = graphics().createImageLayer(image);
+    final int id;
+
+    Entity(int id) {
+      this.id = id;
+    }
+  }
+
+  private GroupLayer root;
+  private TextFormat format;
+  private List<Entity> ents = new ArrayList<Entity>();
+  private int frame;
+
+  @Override
+  protected void advance() {
+    Entity ent = new Entity(ents.size());
+    ents.add(ent);
+    root.add(ent.layer);
+    ent.layer.setTranslation(random() * (graphics().width() - WIDTH),
+                             random() * (graphics().height() - HEIGHT));
+  }
+
+  @Override
+  protected int count() {
+    return ents.size();
+  }
+
+  @Override
+  protected void retreat() {
+    if (ents.size() == 0) {
+      return;
+    }
+    Entity ent = ents.remove(ents.size() - 1);
+    root.remove(ent.layer);
+  }
+
+  @Override
+  void init(GroupLayer root) {
+    this.root = root;
+    Font font = graphics().createFont("Helvetica", Font.Style.PLAIN, 16);
+    format = new TextFormat().withFont(font).withTextColor(0xFF000000);
+  }
+
+  @Override
+  String name() {
+    return "Text";
+  }
+
+  @Override
+  void cleanup() {
+  }
+
+  @Override
+  double score() {
+    return ents.size();
+  }
+
+  @Override
+  protected void doPaint() {
+    frame++;
+    for (Entity ent : ents) {
+      TextLayout layout = graphics().layoutText("Entity " + ent.id + ": " + frame, format);
+      ent.image.canvas().clear();
+      ent.image.canvas().drawText(layout, 0, 0);
+    }
+  }
+}
@@ -72,8 +72,23 @@ abstract class TimeTest {
     return done;
   }
 
+  /**
+   * Adds or removes entities until there are exactly {@code count}. Used to measure performance
+   * at a fixed entity count, rather than seeking the count that yields {@code TARGET_FREQ}.
+   */
+  final void setCount(int count) {
+    while (count() < count) {
+      advance();
+    }
+    while (count() > count) {
+      retreat();
+    }
+  }
+
   protected abstract void doPaint();
 
+  protected abstract int count();
+
   protected abstract void advance();
 
   protected abstract void retreat();
@@ -85,9 +100,4 @@ abstract class TimeTest {
     }
     return total / FREQ_SAMPLES;
   }
-
-  protected int count() {
-    // TODO Auto-generated method stub
-    return 0;
-  }
 }
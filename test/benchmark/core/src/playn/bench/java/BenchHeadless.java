@@ -0,0 +1,63 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.java;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import playn.bench.core.FixedBench;
+import playn.core.PlayN;
+import playn.java.JavaPlatform;
+
+/**
+ * Runs {@link FixedBench} on a headless Java platform with a fixed random seed, and writes the
+ * results as JSON (or CSV) to a file, or to stdout.
+ *
+ * <p>Usage: {@code BenchHeadless [json|csv] [output file]}</p>
+ */
+public class BenchHeadless {
+
+  /** The seed with which the platform's random number generator is seeded. */
+  public static final long SEED = 42;
+
+  public static void main(String[] args) throws IOException {
+    final boolean csv = (args.length > 0) && args[0].equals("csv");
+    final String output = (args.length > 1) ? args[1] : null;
+
+    final JavaPlatform p = JavaPlatform.registerHeadless(800, 600);
+    p.setRandomSeed(SEED);
+    p.assetManager().setPathPrefix("src/playn/bench/resources");
+    final String[] report = new String[1];
+    PlayN.run(new FixedBench() {
+      @Override
+      protected void finished(List<Result> results) {
+        report[0] = csv ? toCsv(results) : toJson(results);
+        p.stop();
+      }
+    });
+
+    if (output == null) {
+      System.out.println(report[0]);
+    } else {
+      Writer out = new FileWriter(output);
+      try {
+        out.write(report[0]);
+      } finally {
+        out.close();
+      }
+    }
+  }
+}
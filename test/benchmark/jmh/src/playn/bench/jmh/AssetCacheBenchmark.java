@@ -0,0 +1,102 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.jmh;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import playn.core.AbstractCachingAssetManager;
+import playn.core.Image;
+import playn.core.ResourceCallback;
+import playn.core.Sound;
+
+/**
+ * Benchmarks looking up previously loaded images and sounds via {@link
+ * AbstractCachingAssetManager}, which games commonly do every time they create a sprite.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssetCacheBenchmark {
+
+  /** The number of assets in the cache. */
+  @Param({"16", "1024"})
+  public int assets;
+
+  @Setup
+  public void setup() {
+    assetMgr = new StubAssetManager();
+    imagePaths = new String[assets];
+    soundPaths = new String[assets];
+    for (int ii = 0; ii < assets; ii++) {
+      // images and sounds share a cache, so their paths must differ
+      assetMgr.getImage(imagePaths[ii] = "images/sprite" + ii + ".png");
+      assetMgr.getSound(soundPaths[ii] = "sounds/effect" + ii);
+    }
+  }
+
+  @Benchmark
+  public Image getImage() {
+    return assetMgr.getImage(imagePaths[next++ % assets]);
+  }
+
+  @Benchmark
+  public Sound getSound() {
+    return assetMgr.getSound(soundPaths[next++ % assets]);
+  }
+
+  /** An asset manager whose assets are loaded instantly and do nothing. */
+  protected static class StubAssetManager extends AbstractCachingAssetManager {
+    @Override
+    protected Image loadImage(String path) {
+      return (Image) Proxy.newProxyInstance(
+        Image.class.getClassLoader(), new Class<?>[] { Image.class }, NOOP);
+    }
+
+    @Override
+    protected Sound loadSound(String path) {
+      return (Sound) Proxy.newProxyInstance(
+        Sound.class.getClassLoader(), new Class<?>[] { Sound.class }, NOOP);
+    }
+
+    @Override
+    protected void doGetText(String path, ResourceCallback<String> callback) {
+      callback.done("");
+    }
+  }
+
+  // the only methods called on our stub assets are void (e.g. Image.addCallback)
+  protected static final InvocationHandler NOOP = new InvocationHandler() {
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      return null;
+    }
+  };
+
+  private StubAssetManager assetMgr;
+  private String[] imagePaths, soundPaths;
+  private int next;
+}
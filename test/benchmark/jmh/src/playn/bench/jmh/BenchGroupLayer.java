@@ -0,0 +1,122 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.jmh;
+
+import java.util.Collection;
+
+import playn.core.AbstractLayer;
+import playn.core.GroupLayer;
+import playn.core.GroupLayerImpl;
+import playn.core.Layer;
+import playn.core.ParentLayer;
+
+/**
+ * A group layer with no platform peer, which delegates to {@link GroupLayerImpl} in the same way
+ * as the platform group layers.
+ */
+public class BenchGroupLayer extends AbstractLayer implements GroupLayer, ParentLayer {
+
+  public final GroupLayerImpl<AbstractLayer> impl = new GroupLayerImpl<AbstractLayer>();
+
+  /** Whether depth changes are applied lazily (see {@link GroupLayerImpl#depthChangedDeferred}). */
+  public boolean deferred;
+
+  @Override
+  public Layer get(int index) {
+    return impl.children.get(index);
+  }
+
+  @Override
+  public void add(Layer layer) {
+    impl.add(this, (AbstractLayer) layer);
+  }
+
+  @Override @Deprecated
+  public void add(int index, Layer layer) {
+    impl.add(this, index, (AbstractLayer) layer);
+  }
+
+  @Override
+  public void addAll(Collection<? extends Layer> layers) {
+    impl.addAll(this, layers);
+  }
+
+  @Override
+  public void remove(Layer layer) {
+    impl.remove(this, (AbstractLayer) layer);
+  }
+
+  @Override @Deprecated
+  public void remove(int index) {
+    impl.remove(this, index);
+  }
+
+  @Override
+  public void removeAll(Collection<? extends Layer> layers) {
+    impl.removeAll(this, layers);
+  }
+
+  @Override
+  public void clear() {
+    impl.clear(this);
+  }
+
+  @Override
+  public int size() {
+    return impl.children.size();
+  }
+
+  @Override
+  public boolean frozen() {
+    return impl.frozen;
+  }
+
+  @Override
+  public void setFrozen(boolean frozen) {
+    impl.frozen = frozen;
+  }
+
+  @Override
+  public boolean cached() {
+    return impl.cached;
+  }
+
+  @Override
+  public void setCached(boolean cached) {
+    impl.cached = cached;
+  }
+
+  @Override
+  public void depthChanged(Layer layer, float oldDepth) {
+    if (deferred) {
+      impl.depthChangedDeferred(this, layer, oldDepth);
+    } else {
+      impl.depthChanged(this, layer, oldDepth);
+    }
+  }
+
+  @Override
+  public void onAdd() {
+    super.onAdd();
+    impl.onAdd(this);
+  }
+
+  @Override
+  public void onRemove() {
+    super.onRemove();
+    impl.onRemove(this);
+  }
+}
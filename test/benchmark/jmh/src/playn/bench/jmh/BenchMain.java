@@ -0,0 +1,42 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.jmh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks via JMH, passing along any JMH options. Unless a result format is specified
+ * (via {@code -rf}), results are written as JSON to {@link #DEFAULT_RESULTS}, so that they can be
+ * collected and compared over time.
+ */
+public class BenchMain {
+
+  /** The file to which results are written if no result format is specified. */
+  public static final String DEFAULT_RESULTS = "jmh-results.json";
+
+  public static void main(String[] args) throws Exception {
+    List<String> argv = new ArrayList<String>(Arrays.asList(args));
+    if (!argv.contains("-rf")) {
+      argv.addAll(0, Arrays.asList("-rf", "json"));
+      if (!argv.contains("-rff")) {
+        argv.addAll(0, Arrays.asList("-rff", DEFAULT_RESULTS));
+      }
+    }
+    org.openjdk.jmh.Main.main(argv.toArray(new String[argv.size()]));
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks adding, removing and reordering the children of a group via {@link
+ * playn.core.GroupLayerImpl}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GroupLayerBenchmark {
+
+  /** The number of children in the group. */
+  @Param({"10", "100", "1000"})
+  public int children;
+
+  /** The number of distinct depths among the children. */
+  @Param({"1", "16"})
+  public int depths;
+
+  @Setup
+  public void setup() {
+    Random rando = new Random(42);
+    group = new BenchGroupLayer();
+    layers = new BenchLayer[children];
+    for (int ii = 0; ii < children; ii++) {
+      layers[ii] = new BenchLayer();
+      layers[ii].setDepth(rando.nextInt(depths));
+      group.add(layers[ii]);
+    }
+    extra = new BenchLayer();
+    extra.setDepth(depths / 2);
+  }
+
+  /** Adds a child to the group and removes it again. */
+  @Benchmark
+  public int addRemove() {
+    group.add(extra);
+    group.remove(extra);
+    return group.size();
+  }
+
+  /** Moves a child to the back of the group and returns it to its original depth. */
+  @Benchmark
+  public int depthChanged() {
+    BenchLayer layer = layers[next++ % children];
+    float depth = layer.depth();
+    layer.setDepth(depths);
+    layer.setDepth(depth);
+    return group.size();
+  }
+
+  /**
+   * Changes the depth of every child (as when y-sorting sprites each frame) with deferred depth
+   * changes, which incurs a single sort when the children are next accessed.
+   */
+  @Benchmark
+  public Object depthChangedDeferred() {
+    group.deferred = true;
+    float shift = (next++ % 2 == 0) ? depths : -depths;
+    for (BenchLayer layer : layers) {
+      layer.setDepth(layer.depth() + shift);
+    }
+    return group.get(0);
+  }
+
+  private BenchGroupLayer group;
+  private BenchLayer[] layers;
+  private BenchLayer extra;
+  private int next;
+}
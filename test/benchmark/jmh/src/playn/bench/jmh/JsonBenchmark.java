@@ -0,0 +1,96 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import playn.core.Json;
+import playn.java.JavaJson;
+
+/**
+ * Benchmarks parsing and writing JSON via the Java {@link Json} implementation (which is also used
+ * by Android). The document resembles a saved game or level: an array of entity records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+
+  /** The number of entities in the document. */
+  @Param({"10", "1000"})
+  public int entities;
+
+  @Setup
+  public void setup() {
+    document = write();
+  }
+
+  @Benchmark
+  public Json.Object parse() {
+    return json.parse(document);
+  }
+
+  /** Parses the document and reads every value therefrom. */
+  @Benchmark
+  public double parseAndRead() {
+    Json.Array array = json.parse(document).getArray("entities");
+    double sum = 0;
+    for (int ii = 0, ll = array.length(); ii < ll; ii++) {
+      Json.Object entity = array.getObject(ii);
+      sum += entity.getInt("id") + entity.getString("name").length();
+      sum += entity.getNumber("x") + entity.getNumber("y");
+      sum += entity.getBoolean("alive") ? 1 : 0;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public String write() {
+    Json.Writer w = json.newWriter();
+    w.object();
+    w.key("entities");
+    w.array();
+    for (int ii = 0; ii < entities; ii++) {
+      w.object();
+      w.key("id");
+      w.value(ii);
+      w.key("name");
+      w.value("entity" + ii);
+      w.key("x");
+      w.value(ii * 1.5);
+      w.key("y");
+      w.value(ii * -0.25);
+      w.key("alive");
+      w.value(ii % 3 != 0);
+      w.endObject();
+    }
+    w.endArray();
+    w.endObject();
+    return w.write();
+  }
+
+  private final Json json = new JavaJson();
+  private String document;
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pythagoras.f.Point;
+
+import playn.core.Layer;
+
+/**
+ * Benchmarks the coordinate conversions in {@link Layer.Util}, which walk from a layer up to the
+ * root (or to an ancestor), applying each layer's transform.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LayerUtilBenchmark {
+
+  /** The number of groups between the root and the leaf layer. */
+  @Param({"1", "4", "16"})
+  public int nesting;
+
+  @Setup
+  public void setup() {
+    root = new BenchGroupLayer();
+    BenchGroupLayer group = root;
+    for (int ii = 0; ii < nesting; ii++) {
+      BenchGroupLayer child = new BenchGroupLayer();
+      child.setTranslation(10, 5);
+      child.setRotation(0.1f);
+      child.setScale(1.05f);
+      group.add(child);
+      group = child;
+    }
+    leaf = new BenchLayer();
+    leaf.setTranslation(3, 4);
+    leaf.setOrigin(8, 8);
+    group.add(leaf);
+  }
+
+  @Benchmark
+  public Point layerToScreen() {
+    return Layer.Util.layerToScreen(leaf, 5, 5, into);
+  }
+
+  @Benchmark
+  public Point screenToLayer() {
+    return Layer.Util.screenToLayer(leaf, 50, 50, into);
+  }
+
+  @Benchmark
+  public Point layerToParent() {
+    return Layer.Util.layerToParent(leaf, root, point, into);
+  }
+
+  private BenchGroupLayer root;
+  private BenchLayer leaf;
+  private final Point point = new Point(5, 5);
+  private final Point into = new Point();
+}
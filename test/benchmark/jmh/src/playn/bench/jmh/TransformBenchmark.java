@@ -0,0 +1,64 @@
+/**
+ * Copyright 2011 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import playn.core.InternalTransform;
+import playn.core.StockInternalTransform;
+
+/**
+ * Benchmarks {@link StockInternalTransform#concatenate}, which is performed for every layer that
+ * is painted. Each invocation first resets the target transform, as painting does, so that
+ * repeated concatenation doesn't drive it toward overflow.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransformBenchmark {
+
+  @Setup
+  public void setup() {
+    parent.setTransform(0.5f, 0.25f, -0.25f, 0.5f, 100, 50);
+    child.setTransform(0.9f, -0.1f, 0.1f, 0.9f, 10, 20);
+  }
+
+  /** Concatenates a child transform onto its parent's, without an origin. */
+  @Benchmark
+  public InternalTransform concatenate() {
+    target.set(parent);
+    return target.concatenate(child, 0, 0);
+  }
+
+  /** Concatenates a child transform onto its parent's, about an origin. */
+  @Benchmark
+  public InternalTransform concatenateOrigin() {
+    target.set(parent);
+    return target.concatenate(child, 16, 16);
+  }
+
+  private final StockInternalTransform parent = new StockInternalTransform();
+  private final StockInternalTransform child = new StockInternalTransform();
+  private final StockInternalTransform target = new StockInternalTransform();
+}